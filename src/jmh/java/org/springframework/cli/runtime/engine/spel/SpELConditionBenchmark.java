@@ -0,0 +1,91 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.runtime.engine.spel;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.ParserContext;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+/**
+ * Evaluates typical {@code if:} guards, parsed and interpreted on every evaluation as
+ * {@link SpELCondition} used to, and through cached, compiled {@link SpELCondition}
+ * instances.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SpELConditionBenchmark {
+
+	private static final List<String> GUARDS = List.of("#{ ['build-tool'] == 'maven' }",
+			"#{ ['with-tests'] == 'true' }", "#{ ['java-version'] > 17 }",
+			"#{ ['name'] != null && ['name'].length() > 0 }");
+
+	private final Map<String, Object> model = new HashMap<>();
+
+	private final ExpressionParser parser = new SpelExpressionParser();
+
+	private List<SpELCondition> conditions;
+
+	@Setup
+	public void createModel() {
+		this.model.put("build-tool", "maven");
+		this.model.put("with-tests", "true");
+		this.model.put("java-version", 21);
+		this.model.put("name", "demo");
+		this.conditions = GUARDS.stream().map(SpELCondition::new).toList();
+	}
+
+	@Benchmark
+	public void interpreted(Blackhole blackhole) {
+		for (String guard : GUARDS) {
+			StandardEvaluationContext context = new StandardEvaluationContext();
+			context.setRootObject(this.model);
+			context.setVariables(this.model);
+			blackhole.consume(this.parser.parseExpression(guard, ParserContext.TEMPLATE_EXPRESSION)
+				.getValue(context, Object.class));
+		}
+	}
+
+	@Benchmark
+	public void compiled(Blackhole blackhole) {
+		for (SpELCondition condition : this.conditions) {
+			blackhole.consume(condition.evaluate(this.model));
+		}
+	}
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.runtime.engine.templating;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.github.jknack.handlebars.Context;
+import com.github.jknack.handlebars.Handlebars;
+import com.github.jknack.handlebars.HumanizeHelper;
+import com.github.jknack.handlebars.helper.StringHelpers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.cli.runtime.engine.actions.Action;
+import org.springframework.cli.runtime.engine.actions.ActionFileReader;
+import org.springframework.cli.runtime.engine.actions.ActionsFile;
+import org.springframework.core.io.FileSystemResource;
+
+/**
+ * Renders the {@code if:}, {@code to:} and {@code text:} templates of a command file
+ * with 200 generate actions, compiling every template as {@link HandlebarsTemplateEngine}
+ * used to and through the engine with its cache of compiled templates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HandlebarsTemplateEngineBenchmark {
+
+	private static final int ACTIONS = 200;
+
+	private final Map<String, Object> model = Map.of("enabled", "true", "package", "com.example", "package-dir",
+			"com/example");
+
+	private final List<String> templates = new ArrayList<>();
+
+	private Handlebars handlebars;
+
+	private HandlebarsTemplateEngine templateEngine;
+
+	@Setup
+	public void readCommandFile() throws IOException {
+		StringBuilder actions = new StringBuilder("actions:\n");
+		for (int i = 0; i < ACTIONS; i++) {
+			actions.append("  - if: \"{{enabled}} == 'true'\"\n")
+				.append("    generate:\n")
+				.append("      to: src/main/java/{{package-dir}}/Type" + i + ".java\n")
+				.append("      text: |\n")
+				.append("        package {{package}};\n\n")
+				.append("        public class Type" + i + " {\n")
+				.append("        }\n");
+		}
+		Path commandFile = Files.createTempFile("command", ".yaml");
+		try {
+			Files.writeString(commandFile, actions);
+			ActionsFile actionsFile = new ActionFileReader().read(new FileSystemResource(commandFile));
+			for (Action action : actionsFile.getActions()) {
+				this.templates.add(action.getIfExpression());
+				this.templates.add(action.getGenerate().getTo());
+				this.templates.add(action.getGenerate().getText());
+			}
+		}
+		finally {
+			Files.delete(commandFile);
+		}
+		this.handlebars = new Handlebars();
+		HumanizeHelper.register(this.handlebars);
+		StringHelpers.register(this.handlebars);
+		this.templateEngine = new HandlebarsTemplateEngine();
+	}
+
+	@Benchmark
+	public void compiling(Blackhole blackhole) throws IOException {
+		for (String template : this.templates) {
+			blackhole.consume(this.handlebars.compileInline(template).apply(Context.newBuilder(this.model).build()));
+		}
+	}
+
+	@Benchmark
+	public void cached(Blackhole blackhole) {
+		for (String template : this.templates) {
+			blackhole.consume(this.templateEngine.process(template, this.model));
+		}
+	}
+
+}
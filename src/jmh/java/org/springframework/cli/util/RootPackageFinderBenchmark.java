@@ -0,0 +1,113 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.tools.ant.DirectoryScanner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Finds the root package of a synthetic project with one application class among
+ * {@code files} other sources: by the directory scan and line reading lookup
+ * {@link RootPackageFinder} used to do, by a fresh indexed walk, and from the memoized
+ * result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RootPackageFinderBenchmark {
+
+	@Param("50000")
+	private int files;
+
+	private Path projectPath;
+
+	@Setup
+	public void createProject() throws IOException {
+		this.projectPath = Files.createTempDirectory("root-package-benchmark");
+		for (int i = 0; i < this.files; i++) {
+			String packageName = "com.example.module" + (i / 500);
+			writeClass("src/main/java/" + packageName.replace('.', '/') + "/Type" + i + ".java",
+					"package " + packageName + ";\n\npublic class Type" + i + " {\n}\n");
+		}
+		writeClass("src/main/java/com/example/DemoApplication.java",
+				"package com.example;\n\n@SpringBootApplication\npublic class DemoApplication {\n}\n");
+	}
+
+	@TearDown
+	public void deleteProject() throws IOException {
+		FileSystemUtils.deleteRecursively(this.projectPath);
+	}
+
+	@Benchmark
+	public Optional<String> scanning() throws IOException {
+		File baseDirectory = this.projectPath.toFile();
+		DirectoryScanner ds = new DirectoryScanner();
+		ds.setBasedir(baseDirectory);
+		ds.setIncludes(new String[] { "**\\*.java" });
+		ds.scan();
+		for (String fileName : ds.getIncludedFiles()) {
+			try (Stream<String> lines = Files.lines(new File(baseDirectory, fileName).toPath())) {
+				if (lines.anyMatch((line) -> line.contains("@SpringBootApplication"))) {
+					return Optional.of(RootPackageFinder.extractRootPackageName(new File(fileName)));
+				}
+			}
+		}
+		return Optional.empty();
+	}
+
+	@Benchmark
+	public Optional<String> indexed() {
+		RootPackageFinder.invalidate(this.projectPath);
+		return RootPackageFinder.findRootPackage(this.projectPath.toFile());
+	}
+
+	@Benchmark
+	public Optional<String> memoized() {
+		return RootPackageFinder.findRootPackage(this.projectPath.toFile());
+	}
+
+	private void writeClass(String path, String content) throws IOException {
+		Path file = this.projectPath.resolve(path);
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, content);
+	}
+
+}
@@ -53,8 +53,9 @@ public class AiCommands implements ApplicationContextAware {
 			required = true) String description,
 			@Option(description = "Path on which to run the command. Most of the time, you can not specify the path and use the default value, which is the current working directory.") String path,
 			@Option(description = "Create the README.md file but do not apply the changes to the code base.") boolean preview,
-			@Option(description = "Rewrite the 'description' option of the README.md file but do not apply the changes to the code base.") boolean rewrite) {
-		this.openAiHandler.add(description, path, preview, rewrite, terminalMessage);
+			@Option(description = "Rewrite the 'description' option of the README.md file but do not apply the changes to the code base.") boolean rewrite,
+			@Option(description = "Reuse the response of an earlier identical request if it was cached, instead of generating new code.") boolean cache) {
+		this.openAiHandler.add(description, path, preview, rewrite, cache, terminalMessage);
 	}
 
 	private void printMissingDescriptionMessage() {
@@ -17,6 +17,7 @@
 package org.springframework.cli.command;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cli.config.ProjectCatalogIndex;
 import org.springframework.cli.config.SpringCliUserConfig;
 import org.springframework.cli.git.SourceRepositoryService;
 import org.springframework.cli.merger.ProjectHandler;
@@ -32,13 +33,22 @@ public class BootCommands extends AbstractSpringCliCommands {
 
 	private final SourceRepositoryService sourceRepositoryService;
 
+	private final ProjectCatalogIndex projectCatalogIndex;
+
 	private final TerminalMessage terminalMessage;
 
-	@Autowired
 	public BootCommands(SpringCliUserConfig springCliUserConfig, SourceRepositoryService sourceRepositoryService,
 			TerminalMessage terminalMessage) {
+		this(springCliUserConfig, sourceRepositoryService,
+				new ProjectCatalogIndex(springCliUserConfig, sourceRepositoryService), terminalMessage);
+	}
+
+	@Autowired
+	public BootCommands(SpringCliUserConfig springCliUserConfig, SourceRepositoryService sourceRepositoryService,
+			ProjectCatalogIndex projectCatalogIndex, TerminalMessage terminalMessage) {
 		this.springCliUserConfig = springCliUserConfig;
 		this.sourceRepositoryService = sourceRepositoryService;
+		this.projectCatalogIndex = projectCatalogIndex;
 		this.terminalMessage = terminalMessage;
 	}
 
@@ -52,7 +62,8 @@ public class BootCommands extends AbstractSpringCliCommands {
 			@Option(longNames = "package-name", description = "Package name for the new project") String packageName,
 			@Option(description = "Path on which to run the command. Most of the time, you can not specify the path and use the default value, which is the current working directory.") String path) {
 		ProjectInfo projectInfo = new ProjectInfo(groupId, artifactId, version, name, description, packageName);
-		ProjectHandler handler = new ProjectHandler(springCliUserConfig, sourceRepositoryService, terminalMessage);
+		ProjectHandler handler = new ProjectHandler(springCliUserConfig, sourceRepositoryService, projectCatalogIndex,
+				terminalMessage);
 		handler.create(from, path, projectInfo);
 	}
 
@@ -60,7 +71,8 @@ public class BootCommands extends AbstractSpringCliCommands {
 	public void bootAdd(@Option(
 			description = "Add to the current project from an existing project by specifying the existing project's name or URL.") String from,
 			@Option(description = "Path") String path) {
-		ProjectHandler handler = new ProjectHandler(springCliUserConfig, sourceRepositoryService, terminalMessage);
+		ProjectHandler handler = new ProjectHandler(springCliUserConfig, sourceRepositoryService, projectCatalogIndex,
+				terminalMessage);
 		handler.add(from, path);
 	}
 
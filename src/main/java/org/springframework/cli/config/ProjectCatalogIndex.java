@@ -0,0 +1,276 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.config;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.cli.config.SpringCliUserConfig.IndexedProjectCatalog;
+import org.springframework.cli.config.SpringCliUserConfig.ProjectCatalog;
+import org.springframework.cli.config.SpringCliUserConfig.ProjectCatalogIndexes;
+import org.springframework.cli.config.SpringCliUserConfig.ProjectRepositories;
+import org.springframework.cli.config.SpringCliUserConfig.ProjectRepository;
+import org.springframework.cli.git.SourceRepositoryService;
+import org.springframework.cli.support.configfile.YamlConfigFile;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Index of the projects of all configured project catalogs, persisted with the user
+ * config so that resolving a project name does not download any catalog.
+ * <p>
+ * A catalog is downloaded when it is not yet indexed. Indexed catalogs older than the
+ * time to live are still used, and refreshed in the background. Only when a name can not
+ * be found and some catalog is out of date are those catalogs refreshed before giving up.
+ * Downloads go through the {@link SourceRepositoryService}, so an unchanged catalog
+ * repository is served from the repository cache.
+ * <p>
+ * A background refresh runs on a non-daemon thread, so the cli does not exit in the
+ * middle of it. {@link #close()} waits for it to complete, which is how the application
+ * context shuts the index down. A single index should be shared by all its users, so that
+ * only one refresh runs at a time.
+ */
+public class ProjectCatalogIndex implements AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger(ProjectCatalogIndex.class);
+
+	private static final Duration DEFAULT_TTL = Duration.ofHours(1);
+
+	private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(30);
+
+	private static final String PROJECT_CATALOG_FILE_NAME = "project-catalog.yml";
+
+	private final SpringCliUserConfig springCliUserConfig;
+
+	private final SourceRepositoryService sourceRepositoryService;
+
+	private final Duration ttl;
+
+	private final AtomicBoolean refreshing = new AtomicBoolean();
+
+	private final ThreadPoolExecutor executor;
+
+	public ProjectCatalogIndex(SpringCliUserConfig springCliUserConfig,
+			SourceRepositoryService sourceRepositoryService) {
+		this(springCliUserConfig, sourceRepositoryService, DEFAULT_TTL);
+	}
+
+	public ProjectCatalogIndex(SpringCliUserConfig springCliUserConfig, SourceRepositoryService sourceRepositoryService,
+			Duration ttl) {
+		this.springCliUserConfig = springCliUserConfig;
+		this.sourceRepositoryService = sourceRepositoryService;
+		this.ttl = ttl;
+		// the thread ends once idle, so it never keeps the cli from exiting after a refresh
+		this.executor = new ThreadPoolExecutor(0, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+				new CustomizableThreadFactory("project-catalog-refresh-"));
+	}
+
+	/**
+	 * Find a project of a catalog by its name, ignoring case.
+	 * @param name the project name
+	 * @return the project of the first catalog that has a URL for it, {@code null} if no
+	 * catalog has
+	 */
+	@Nullable
+	public CatalogProjectRepository findProjectRepository(String name) {
+		String key = name.trim().toLowerCase(Locale.ROOT);
+		Index index = load();
+		CatalogProjectRepository found = index.byName().get(key);
+		if (found != null) {
+			if (!index.stale().isEmpty()) {
+				refreshInBackground(index.stale());
+			}
+			return found;
+		}
+		if (!index.stale().isEmpty()) {
+			// the name may have been added to a catalog since it was indexed
+			refresh(index.stale());
+			return load().byName().get(key);
+		}
+		return null;
+	}
+
+	/**
+	 * Get the projects of all catalogs, in catalog order.
+	 * @return the projects
+	 */
+	public List<CatalogProjectRepository> getProjectRepositories() {
+		Index index = load();
+		if (!index.stale().isEmpty()) {
+			refreshInBackground(index.stale());
+		}
+		return index.all();
+	}
+
+	/**
+	 * Download all configured catalogs again.
+	 */
+	public void refresh() {
+		refresh(getProjectCatalogs());
+	}
+
+	private Index load() {
+		List<ProjectCatalog> projectCatalogs = getProjectCatalogs();
+		Map<String, IndexedProjectCatalog> indexed = getIndexedCatalogs();
+		List<ProjectCatalog> missing = projectCatalogs.stream()
+			.filter((catalog) -> !indexed.containsKey(catalog.getUrl()))
+			.toList();
+		if (!missing.isEmpty()) {
+			refresh(missing);
+			indexed.putAll(getIndexedCatalogs());
+		}
+		long expiry = System.currentTimeMillis() - this.ttl.toMillis();
+		List<CatalogProjectRepository> all = new ArrayList<>();
+		Map<String, CatalogProjectRepository> byName = new HashMap<>();
+		List<ProjectCatalog> stale = new ArrayList<>();
+		for (ProjectCatalog projectCatalog : projectCatalogs) {
+			IndexedProjectCatalog indexedCatalog = indexed.get(projectCatalog.getUrl());
+			if (indexedCatalog == null) {
+				continue;
+			}
+			if (indexedCatalog.getUpdated() < expiry) {
+				stale.add(projectCatalog);
+			}
+			for (ProjectRepository projectRepository : indexedCatalog.getProjectRepositories()) {
+				CatalogProjectRepository entry = new CatalogProjectRepository(projectCatalog.getName(),
+						projectRepository);
+				all.add(entry);
+				String name = projectRepository.getName();
+				if (StringUtils.hasText(name) && StringUtils.hasText(projectRepository.getUrl())) {
+					byName.putIfAbsent(name.trim().toLowerCase(Locale.ROOT), entry);
+				}
+			}
+		}
+		return new Index(all, byName, stale);
+	}
+
+	private synchronized void refresh(List<ProjectCatalog> projectCatalogs) {
+		Map<String, IndexedProjectCatalog> indexed = getIndexedCatalogs();
+		for (ProjectCatalog projectCatalog : projectCatalogs) {
+			String url = projectCatalog.getUrl();
+			indexed.put(url, new IndexedProjectCatalog(url, System.currentTimeMillis(), download(url)));
+		}
+		// drop catalogs that were removed from the configuration
+		List<String> configuredUrls = getProjectCatalogs().stream().map(ProjectCatalog::getUrl).toList();
+		indexed.keySet().retainAll(configuredUrls);
+		ProjectCatalogIndexes indexes = new ProjectCatalogIndexes();
+		indexes.setProjectCatalogs(new ArrayList<>(indexed.values()));
+		this.springCliUserConfig.setProjectCatalogIndexes(indexes);
+	}
+
+	private void refreshInBackground(List<ProjectCatalog> projectCatalogs) {
+		if (this.executor.isShutdown() || !this.refreshing.compareAndSet(false, true)) {
+			return;
+		}
+		this.executor.execute(() -> {
+			try {
+				refresh(projectCatalogs);
+			}
+			catch (RuntimeException ex) {
+				logger.debug("Could not refresh project catalogs", ex);
+			}
+			finally {
+				this.refreshing.set(false);
+			}
+		});
+	}
+
+	/**
+	 * Wait for a background refresh to complete, interrupting it if it takes too long.
+	 * No refresh is started afterwards.
+	 */
+	@Override
+	public void close() {
+		this.executor.shutdown();
+		try {
+			if (!this.executor.awaitTermination(CLOSE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+				logger.debug("Cancelling project catalog refresh");
+				this.executor.shutdownNow();
+			}
+		}
+		catch (InterruptedException ex) {
+			this.executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private List<ProjectRepository> download(String url) {
+		logger.debug("Indexing project catalog {}", url);
+		Path path = this.sourceRepositoryService.retrieveRepositoryContents(url);
+		try {
+			YamlConfigFile yamlConfigFile = new YamlConfigFile();
+			return yamlConfigFile.read(path.resolve(PROJECT_CATALOG_FILE_NAME), ProjectRepositories.class)
+				.getProjectRepositories();
+		}
+		finally {
+			try {
+				FileSystemUtils.deleteRecursively(path);
+			}
+			catch (IOException ex) {
+				logger.warn("Could not delete path " + path, ex);
+			}
+		}
+	}
+
+	private List<ProjectCatalog> getProjectCatalogs() {
+		List<ProjectCatalog> projectCatalogs = this.springCliUserConfig.getProjectCatalogs().getProjectCatalogs();
+		return (projectCatalogs != null) ? projectCatalogs : Collections.emptyList();
+	}
+
+	private Map<String, IndexedProjectCatalog> getIndexedCatalogs() {
+		Map<String, IndexedProjectCatalog> indexed = new LinkedHashMap<>();
+		List<IndexedProjectCatalog> projectCatalogs = this.springCliUserConfig.getProjectCatalogIndexes()
+			.getProjectCatalogs();
+		if (projectCatalogs != null) {
+			for (IndexedProjectCatalog projectCatalog : projectCatalogs) {
+				indexed.put(projectCatalog.getUrl(), projectCatalog);
+			}
+		}
+		return indexed;
+	}
+
+	/**
+	 * A project together with the name of the catalog it is part of.
+	 *
+	 * @param catalog the catalog name
+	 * @param projectRepository the project
+	 */
+	public record CatalogProjectRepository(String catalog, ProjectRepository projectRepository) {
+	}
+
+	private record Index(List<CatalogProjectRepository> all, Map<String, CatalogProjectRepository> byName,
+			List<ProjectCatalog> stale) {
+	}
+
+}
@@ -25,7 +25,9 @@ import org.jline.terminal.Terminal;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.web.reactive.function.client.ReactorNettyHttpClientMapper;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cli.git.SourceRepositoryService;
 import org.springframework.cli.initializr.InitializrClientCache;
+import org.springframework.cli.runtime.command.CommandBundleCache;
 import org.springframework.cli.runtime.command.DynamicMethodCommandResolver;
 import org.springframework.cli.runtime.engine.model.MavenModelPopulator;
 import org.springframework.cli.runtime.engine.model.ModelPopulator;
@@ -81,11 +83,17 @@ public class SpringCliConfiguration {
 		return new RootPackageModelPopulator();
 	}
 
+	@Bean
+	public CommandBundleCache commandBundleCache(SpringCliProperties springCliProperties) {
+		return CommandBundleCache.of(springCliProperties.getCommandCache());
+	}
+
 	@Bean
 	public DynamicMethodCommandResolver dynamicMethodTargetRegistrar(Collection<ModelPopulator> modelPopulators,
 			CommandRegistration.BuilderSupplier builder, TerminalMessage terminalMessage,
-			ObjectProvider<Terminal> terminalProvider) {
-		return new DynamicMethodCommandResolver(modelPopulators, builder, terminalMessage, terminalProvider);
+			ObjectProvider<Terminal> terminalProvider, CommandBundleCache commandBundleCache) {
+		return new DynamicMethodCommandResolver(modelPopulators, builder, terminalMessage, terminalProvider,
+				commandBundleCache);
 	}
 
 	@Bean
@@ -114,6 +122,12 @@ public class SpringCliConfiguration {
 		return new SpringCliUserConfig();
 	}
 
+	@Bean
+	public ProjectCatalogIndex projectCatalogIndex(SpringCliUserConfig springCliUserConfig,
+			SourceRepositoryService sourceRepositoryService) {
+		return new ProjectCatalogIndex(springCliUserConfig, sourceRepositoryService);
+	}
+
 	@Bean
 	public ProjectCatalogInitializer projectCatalogInitializer(SpringCliUserConfig springCliUserConfig,
 			SpringCliProjectCatalogProperties springCliProjectCatalogProperties) {
@@ -16,7 +16,10 @@
 
 package org.springframework.cli.config;
 
+import java.time.Duration;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
 /**
  * Configuration properties for cli.
@@ -30,6 +33,10 @@ public class SpringCliProperties {
 
 	private Github github = new Github();
 
+	private RepositoryCache repositoryCache = new RepositoryCache();
+
+	private CommandCache commandCache = new CommandCache();
+
 	public Initializr getInitializr() {
 		return initializr;
 	}
@@ -46,9 +53,26 @@ public class SpringCliProperties {
 		this.github = github;
 	}
 
+	public RepositoryCache getRepositoryCache() {
+		return repositoryCache;
+	}
+
+	public void setRepositoryCache(RepositoryCache repositoryCache) {
+		this.repositoryCache = repositoryCache;
+	}
+
+	public CommandCache getCommandCache() {
+		return commandCache;
+	}
+
+	public void setCommandCache(CommandCache commandCache) {
+		this.commandCache = commandCache;
+	}
+
 	@Override
 	public String toString() {
-		return "SpringCliProperties{" + "initializr=" + initializr + ", github=" + github + '}';
+		return "SpringCliProperties{" + "initializr=" + initializr + ", github=" + github + ", repositoryCache="
+				+ repositoryCache + ", commandCache=" + commandCache + '}';
 	}
 
 	/**
@@ -109,4 +133,112 @@ public class SpringCliProperties {
 
 	}
 
+	/**
+	 * Settings for the on-disk cache of downloaded source repositories.
+	 */
+	public static class RepositoryCache {
+
+		/**
+		 * Whether downloaded repositories are cached between commands.
+		 */
+		private boolean enabled = true;
+
+		/**
+		 * Directory holding the cache, defaults to a {@code springcli} directory under
+		 * the user cache directory.
+		 */
+		private String directory;
+
+		/**
+		 * Maximum total size of cached repository contents, least recently used entries
+		 * are evicted first.
+		 */
+		private DataSize maxSize = DataSize.ofMegabytes(512);
+
+		/**
+		 * How long a branch or tag resolved to a commit is trusted before it is resolved
+		 * again against the remote repository.
+		 */
+		private Duration refTtl = Duration.ofMinutes(10);
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public String getDirectory() {
+			return directory;
+		}
+
+		public void setDirectory(String directory) {
+			this.directory = directory;
+		}
+
+		public DataSize getMaxSize() {
+			return maxSize;
+		}
+
+		public void setMaxSize(DataSize maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		public Duration getRefTtl() {
+			return refTtl;
+		}
+
+		public void setRefTtl(Duration refTtl) {
+			this.refTtl = refTtl;
+		}
+
+		@Override
+		public String toString() {
+			return "RepositoryCache{" + "enabled=" + enabled + ", directory='" + directory + '\'' + ", maxSize="
+					+ maxSize + ", refTtl=" + refTtl + '}';
+		}
+
+	}
+
+	/**
+	 * Settings for the on-disk cache of the compiled action files and command manifests
+	 * of user defined commands.
+	 */
+	public static class CommandCache {
+
+		/**
+		 * Whether compiled commands are kept on disk between commands.
+		 */
+		private boolean enabled = true;
+
+		/**
+		 * Directory holding the cache, defaults to {@code springcli/command-bundles} under
+		 * the user cache directory.
+		 */
+		private String directory;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public String getDirectory() {
+			return directory;
+		}
+
+		public void setDirectory(String directory) {
+			this.directory = directory;
+		}
+
+		@Override
+		public String toString() {
+			return "CommandCache{" + "enabled=" + enabled + ", directory='" + directory + '\'' + '}';
+		}
+
+	}
+
 }
@@ -63,6 +63,11 @@ public class SpringCliRuntimeHints implements RuntimeHintsRegistrar {
 				Name.class, PackageName.class, Packaging.class, PackagingValues.class, ProjectType.class,
 				ProjectTypeValue.class, Version.class);
 		registerForMostReflection(hints.reflection(), EncodingDetectingInputStream.class);
+		registerForMostReflection(hints.reflection(),
+				"org.springframework.cli.runtime.command.CommandBundleCache$Bundle",
+				"org.springframework.cli.runtime.command.CommandBundleCache$Stamp",
+				"org.springframework.cli.runtime.command.CommandBundleCache$Manifest",
+				"org.springframework.cli.runtime.command.CommandBundleCache$ManifestCommand");
 
 		// DefaultHelperRegistry in handlebars
 		hints.resources().registerPattern("helpers.nashorn.js");
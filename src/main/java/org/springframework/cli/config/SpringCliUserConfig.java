@@ -37,7 +37,8 @@ import org.springframework.util.ObjectUtils;
 		SpringCliUserConfig.ProjectRepositories.class, SpringCliUserConfig.ProjectRepository.class,
 		SpringCliUserConfig.CommandDefaults.class, SpringCliUserConfig.CommandDefault.class,
 		SpringCliUserConfig.Option.class, SpringCliUserConfig.Initializrs.class, SpringCliUserConfig.Initializr.class,
-		SpringCliUserConfig.Hosts.class, SpringCliUserConfig.Host.class })
+		SpringCliUserConfig.Hosts.class, SpringCliUserConfig.Host.class,
+		SpringCliUserConfig.ProjectCatalogIndexes.class, SpringCliUserConfig.IndexedProjectCatalog.class })
 public class SpringCliUserConfig {
 
 	/**
@@ -60,6 +61,12 @@ public class SpringCliUserConfig {
 	 */
 	public static final String PROJECT_REPOSITORIES_FILE_NAME = "project-repositories.yml";
 
+	/**
+	 * {@code project-catalog-index.yml} stores the projects of all project catalogs as
+	 * last downloaded.
+	 */
+	public static final String PROJECT_CATALOG_INDEX_FILE_NAME = "project-catalog-index.yml";
+
 	/**
 	 * {@code command-defaults.yml} store default option values for commands.
 	 */
@@ -90,6 +97,11 @@ public class SpringCliUserConfig {
 	 */
 	private final UserConfig<ProjectRepositories> projectRepositoriesUserConfig;
 
+	/**
+	 * Keeps the downloaded content of project catalogs.
+	 */
+	private final UserConfig<ProjectCatalogIndexes> projectCatalogIndexesUserConfig;
+
 	private final UserConfig<CommandDefaults> commandDefaultsUserConfig;
 
 	private final UserConfig<Initializrs> initializrsUserConfig;
@@ -105,6 +117,8 @@ public class SpringCliUserConfig {
 				SPRING_CLI_CONFIG_DIR, SPRING_CLI_CONFIG_DIR_NAME);
 		this.projectRepositoriesUserConfig = new UserConfig<>(PROJECT_REPOSITORIES_FILE_NAME, ProjectRepositories.class,
 				SPRING_CLI_CONFIG_DIR, SPRING_CLI_CONFIG_DIR_NAME);
+		this.projectCatalogIndexesUserConfig = new UserConfig<>(PROJECT_CATALOG_INDEX_FILE_NAME,
+				ProjectCatalogIndexes.class, SPRING_CLI_CONFIG_DIR, SPRING_CLI_CONFIG_DIR_NAME);
 		this.commandDefaultsUserConfig = new UserConfig<>(COMMAND_DEFAULTS_FILE_NAME, CommandDefaults.class,
 				SPRING_CLI_CONFIG_DIR, SPRING_CLI_CONFIG_DIR_NAME);
 		this.initializrsUserConfig = new UserConfig<>(INITIALIZR_FILE_NAME, Initializrs.class, SPRING_CLI_CONFIG_DIR,
@@ -113,6 +127,7 @@ public class SpringCliUserConfig {
 			this.hostsUserConfig.setPathProvider(pathProvider);
 			this.projectCatalogsUserConfig.setPathProvider(pathProvider);
 			this.projectRepositoriesUserConfig.setPathProvider(pathProvider);
+			this.projectCatalogIndexesUserConfig.setPathProvider(pathProvider);
 			this.commandDefaultsUserConfig.setPathProvider(pathProvider);
 			this.initializrsUserConfig.setPathProvider(pathProvider);
 		}
@@ -191,6 +206,23 @@ public class SpringCliUserConfig {
 		projectRepositoriesUserConfig.setConfig(projectRepositories);
 	}
 
+	/**
+	 * Get the indexed content of project catalogs.
+	 * @return project catalog indexes
+	 */
+	public ProjectCatalogIndexes getProjectCatalogIndexes() {
+		ProjectCatalogIndexes indexes = projectCatalogIndexesUserConfig.getConfig();
+		return (indexes != null) ? indexes : new ProjectCatalogIndexes();
+	}
+
+	/**
+	 * Sets the indexed content of project catalogs.
+	 * @param projectCatalogIndexes the project catalog indexes
+	 */
+	public void setProjectCatalogIndexes(ProjectCatalogIndexes projectCatalogIndexes) {
+		projectCatalogIndexesUserConfig.setConfig(projectCatalogIndexes);
+	}
+
 	/**
 	 * Get command defaults
 	 * @return command default
@@ -538,6 +570,78 @@ public class SpringCliUserConfig {
 
 	}
 
+	public static class ProjectCatalogIndexes {
+
+		private List<IndexedProjectCatalog> projectCatalogs = new ArrayList<>();
+
+		public List<IndexedProjectCatalog> getProjectCatalogs() {
+			return projectCatalogs;
+		}
+
+		public void setProjectCatalogs(List<IndexedProjectCatalog> projectCatalogs) {
+			this.projectCatalogs = projectCatalogs;
+		}
+
+		@Override
+		public String toString() {
+			return "ProjectCatalogIndexes{" + "projectCatalogs=" + projectCatalogs + '}';
+		}
+
+	}
+
+	public static class IndexedProjectCatalog {
+
+		private String url;
+
+		private long updated;
+
+		private List<ProjectRepository> projectRepositories = new ArrayList<>();
+
+		public IndexedProjectCatalog() {
+		}
+
+		public IndexedProjectCatalog(String url, long updated, List<ProjectRepository> projectRepositories) {
+			this.url = url;
+			this.updated = updated;
+			this.projectRepositories = projectRepositories;
+		}
+
+		public String getUrl() {
+			return url;
+		}
+
+		public void setUrl(String url) {
+			this.url = url;
+		}
+
+		/**
+		 * Time the catalog was downloaded, in milliseconds since the epoch.
+		 * @return the download time
+		 */
+		public long getUpdated() {
+			return updated;
+		}
+
+		public void setUpdated(long updated) {
+			this.updated = updated;
+		}
+
+		public List<ProjectRepository> getProjectRepositories() {
+			return projectRepositories;
+		}
+
+		public void setProjectRepositories(List<ProjectRepository> projectRepositories) {
+			this.projectRepositories = projectRepositories;
+		}
+
+		@Override
+		public String toString() {
+			return "IndexedProjectCatalog{" + "url='" + url + '\'' + ", updated=" + updated
+					+ ", projectRepositories=" + projectRepositories + '}';
+		}
+
+	}
+
 	public static class CommandDefaults {
 
 		private List<CommandDefault> commandDefaults = new ArrayList<>();
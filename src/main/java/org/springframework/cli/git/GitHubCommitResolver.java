@@ -0,0 +1,116 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.git;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.cli.SpringCliException;
+import org.springframework.cli.git.RepositoryContentsCache.CachedRef;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+/**
+ * Resolves a GitHub branch, tag or the default branch to a commit with a single request
+ * that only returns the commit id. A previous resolution is revalidated with its entity
+ * tag, an unchanged ref is answered with {@code 304 Not Modified} which GitHub does not
+ * count against the rate limit.
+ */
+class GitHubCommitResolver {
+
+	static final URI DEFAULT_API_URI = URI.create("https://api.github.com/");
+
+	private static final Pattern COMMIT_PATTERN = Pattern.compile("[0-9a-f]{40}");
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+	private static final Logger logger = LoggerFactory.getLogger(GitHubCommitResolver.class);
+
+	private final HttpClient httpClient;
+
+	private final URI apiUri;
+
+	GitHubCommitResolver() {
+		this(DEFAULT_API_URI);
+	}
+
+	GitHubCommitResolver(URI apiUri) {
+		this.httpClient = HttpClient.newBuilder()
+			.followRedirects(HttpClient.Redirect.NORMAL)
+			.connectTimeout(TIMEOUT)
+			.build();
+		this.apiUri = apiUri;
+	}
+
+	/**
+	 * Resolve a ref of a repository to a commit.
+	 * @param repo the repository name, {@code owner/name}
+	 * @param ref the branch or tag, {@code null} for the default branch
+	 * @param token the token to authenticate with, {@code null} for anonymous access
+	 * @param cachedRef the previous resolution of the ref, if any
+	 * @return the resolved commit with the entity tag to revalidate it with
+	 */
+	CachedRef resolve(String repo, @Nullable String ref, @Nullable String token, @Nullable CachedRef cachedRef) {
+		String refName = StringUtils.hasText(ref) ? ref : "HEAD";
+		URI uri = this.apiUri.resolve("repos/" + repo + "/commits/" + refName);
+		HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+			.timeout(TIMEOUT)
+			.header("Accept", "application/vnd.github.sha")
+			.header("X-GitHub-Api-Version", "2022-11-28");
+		if (StringUtils.hasText(token)) {
+			request.header("Authorization", "Bearer " + token);
+		}
+		if (cachedRef != null && cachedRef.etag() != null) {
+			request.header("If-None-Match", cachedRef.etag());
+		}
+		HttpResponse<String> response;
+		try {
+			response = this.httpClient.send(request.GET().build(), HttpResponse.BodyHandlers.ofString());
+		}
+		catch (IOException ex) {
+			throw new SpringCliException("Failed resolving " + refName + " of " + repo, ex);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new SpringCliException("Interrupted resolving " + refName + " of " + repo, ex);
+		}
+		String etag = response.headers().firstValue("ETag").orElse(null);
+		if (response.statusCode() == 304 && cachedRef != null) {
+			logger.debug("Ref " + refName + " of " + repo + " still at " + cachedRef.commit());
+			return new CachedRef(cachedRef.commit(), (etag != null) ? etag : cachedRef.etag(), true);
+		}
+		if (response.statusCode() == 404 || response.statusCode() == 422) {
+			throw new SpringCliException("Not able to find ref " + refName + " for " + repo);
+		}
+		String commit = response.body().trim();
+		if (response.statusCode() != 200 || !COMMIT_PATTERN.matcher(commit).matches()) {
+			throw new SpringCliException(
+					"Failed resolving " + refName + " of " + repo + ", status " + response.statusCode());
+		}
+		logger.debug("Ref " + refName + " of " + repo + " resolved to " + commit);
+		return new CachedRef(commit, etag, true);
+	}
+
+}
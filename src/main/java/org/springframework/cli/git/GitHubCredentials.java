@@ -0,0 +1,121 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.git;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+import org.kohsuke.github.GitHub;
+import org.kohsuke.github.GitHubBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+/**
+ * Credentials to access GitHub with, resolved once so that resolving a ref and
+ * downloading the archive use the same ones. They are taken from the token configured
+ * for the host, then the {@code GITHUB_OAUTH} environment variable, then the
+ * {@code ~/.github} property file, access is anonymous otherwise.
+ * <p>
+ * Only the {@code oauth} or {@code jwt} token of the property file is used. A
+ * {@code password} is ignored, it is never sent to GitHub.
+ */
+final class GitHubCredentials {
+
+	static final String GITHUB_OAUTH = "GITHUB_OAUTH";
+
+	private static final Logger logger = LoggerFactory.getLogger(GitHubCredentials.class);
+
+	@Nullable
+	private final String token;
+
+	@Nullable
+	private final Properties properties;
+
+	private GitHubCredentials(@Nullable String token, @Nullable Properties properties) {
+		this.token = token;
+		this.properties = properties;
+	}
+
+	/**
+	 * Resolve the credentials for GitHub.
+	 * @param hostToken the token configured for the host, if any
+	 * @return the credentials
+	 */
+	static GitHubCredentials resolve(@Nullable String hostToken) {
+		return resolve(hostToken, System.getenv(GITHUB_OAUTH),
+				Paths.get(System.getProperty("user.home")).resolve(".github"));
+	}
+
+	static GitHubCredentials resolve(@Nullable String hostToken, @Nullable String environmentToken,
+			Path propertyFile) {
+		if (StringUtils.hasText(hostToken)) {
+			return new GitHubCredentials(hostToken, null);
+		}
+		if (StringUtils.hasText(environmentToken)) {
+			return new GitHubCredentials(environmentToken, null);
+		}
+		if (Files.isRegularFile(propertyFile)) {
+			Properties properties = new Properties();
+			try (InputStream in = Files.newInputStream(propertyFile)) {
+				properties.load(in);
+				if (properties.remove("password") != null) {
+					logger.warn("Ignoring the password in " + propertyFile + ", set a personal access token as "
+							+ "'oauth' instead");
+				}
+				String token = properties.getProperty("oauth", properties.getProperty("jwt"));
+				return new GitHubCredentials(StringUtils.hasText(token) ? token : null, properties);
+			}
+			catch (IOException ex) {
+				logger.trace("Could not read " + propertyFile, ex);
+			}
+		}
+		return new GitHubCredentials(null, null);
+	}
+
+	/**
+	 * Return the token to send as bearer token.
+	 * @return the token or {@code null} for anonymous access
+	 */
+	@Nullable
+	String getToken() {
+		return this.token;
+	}
+
+	/**
+	 * Connect to GitHub with the credentials.
+	 * @return the GitHub client
+	 * @throws IOException if the client could not be created
+	 */
+	GitHub connect() throws IOException {
+		if (this.properties != null) {
+			return GitHubBuilder.fromProperties(this.properties).build();
+		}
+		if (this.token != null) {
+			return new GitHubBuilder().withOAuthToken(this.token).build();
+		}
+		// TODO terminal warning about rate limiting
+		return GitHub.connectAnonymously();
+	}
+
+}
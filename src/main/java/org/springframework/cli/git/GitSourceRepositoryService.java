@@ -16,7 +16,6 @@
 
 package org.springframework.cli.git;
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -25,36 +24,31 @@ import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicReference;
 
 import org.gitlab4j.api.Constants.ArchiveFormat;
-import org.gitlab4j.api.Constants.SortOrder;
-import org.gitlab4j.api.Constants.TagOrderBy;
 import org.gitlab4j.api.GitLabApi;
 import org.gitlab4j.api.GitLabApiException;
-import org.gitlab4j.api.models.Branch;
-import org.gitlab4j.api.models.Tag;
 import org.kohsuke.github.GHRepository;
 import org.kohsuke.github.GitHub;
-import org.kohsuke.github.GitHubBuilder;
-import org.rauschig.jarchivelib.Archiver;
-import org.rauschig.jarchivelib.ArchiverFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cli.SpringCliException;
+import org.springframework.cli.config.SpringCliProperties;
 import org.springframework.cli.config.SpringCliUserConfig;
 import org.springframework.cli.config.SpringCliUserConfig.Host;
+import org.springframework.cli.git.RepositoryContentsCache.CachedRef;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 import org.springframework.util.FileSystemUtils;
 import org.springframework.util.ResourceUtils;
-import org.springframework.util.StreamUtils;
 import org.springframework.util.StringUtils;
 
 /**
- * Retrieve source files from GitHub or GitLab
+ * Retrieve source files from GitHub or GitLab. Downloaded repositories are kept in a
+ * {@link RepositoryContentsCache} keyed by the commit they were downloaded for.
  *
  * @author Thomas Risberg
  */
@@ -65,8 +59,35 @@ public class GitSourceRepositoryService implements SourceRepositoryService {
 
 	private final SpringCliUserConfig userConfig;
 
+	@Nullable
+	private final RepositoryContentsCache repositoryContentsCache;
+
+	private final GitHubCommitResolver gitHubCommitResolver;
+
+	/**
+	 * Create a service that does not cache repositories, the cache is only enabled
+	 * through {@link SpringCliProperties}.
+	 * @param userConfig the user config holding the host tokens
+	 */
 	public GitSourceRepositoryService(SpringCliUserConfig userConfig) {
+		this(userConfig, (RepositoryContentsCache) null);
+	}
+
+	@Autowired
+	public GitSourceRepositoryService(SpringCliUserConfig userConfig, SpringCliProperties springCliProperties) {
+		this(userConfig, RepositoryContentsCache.of(springCliProperties.getRepositoryCache()));
+	}
+
+	public GitSourceRepositoryService(SpringCliUserConfig userConfig,
+			@Nullable RepositoryContentsCache repositoryContentsCache) {
+		this(userConfig, repositoryContentsCache, new GitHubCommitResolver());
+	}
+
+	GitSourceRepositoryService(SpringCliUserConfig userConfig,
+			@Nullable RepositoryContentsCache repositoryContentsCache, GitHubCommitResolver gitHubCommitResolver) {
 		this.userConfig = userConfig;
+		this.repositoryContentsCache = repositoryContentsCache;
+		this.gitHubCommitResolver = gitHubCommitResolver;
 	}
 
 	@Override
@@ -85,17 +106,84 @@ public class GitSourceRepositoryService implements SourceRepositoryService {
 		}
 		else {
 			GitRepoUrlRef gitRepoUrlRef = GitRepoUrlRef.fromUriString(sourceRepoUrl);
-			if (gitRepoUrlRef.getRepoUrl().toString().contains("github.com")) {
-				contentPath = retrieveGitHubRepositoryContents(gitRepoUrlRef, targetPath);
+			Path repositoryPath = retrieveCachedRepositoryContents(gitRepoUrlRef, targetPath);
+			if (repositoryPath == null) {
+				if (gitRepoUrlRef.getRepoUrl().toString().contains("github.com")) {
+					repositoryPath = retrieveGitHubRepositoryContents(gitRepoUrlRef, targetPath);
+				}
+				else {
+					repositoryPath = retrieveGitLabRepositoryContents(gitRepoUrlRef, targetPath);
+				}
+			}
+			if (StringUtils.hasText(gitRepoUrlRef.getSubPath())) {
+				contentPath = Paths.get(repositoryPath.toFile().getAbsolutePath(), gitRepoUrlRef.getSubPath());
 			}
 			else {
-				contentPath = retrieveGitLabRepositoryContents(gitRepoUrlRef, targetPath);
+				contentPath = repositoryPath;
 			}
 		}
 		logger.debug("Source from " + sourceRepoUrl + " retrieved into " + contentPath.toFile().getAbsolutePath());
 		return contentPath;
 	}
 
+	/**
+	 * Retrieve contents from the repository cache without any remote calls, only possible
+	 * when the ref was resolved to a commit recently or is a commit itself.
+	 * @return the repository root or {@code null} if not cached
+	 */
+	@Nullable
+	private Path retrieveCachedRepositoryContents(GitRepoUrlRef url, Path targetPath) {
+		if (this.repositoryContentsCache == null) {
+			return null;
+		}
+		String host = url.getRepoUrl().getHost();
+		String repo = getRepositoryName(url.getRepoUrl().getPath());
+		return this.repositoryContentsCache.findCommit(host, repo, url.getRef())
+			.flatMap((commit) -> this.repositoryContentsCache.copyTo(host, repo, commit, url.getSubPath(), targetPath))
+			.orElse(null);
+	}
+
+	/**
+	 * Retrieve contents for a resolved commit from the repository cache.
+	 * @return the repository root or {@code null} if not cached
+	 */
+	@Nullable
+	private Path retrieveCachedRepositoryContents(String host, String repo, GitRepoUrlRef url, CachedRef resolved,
+			Path targetPath) {
+		if (this.repositoryContentsCache == null) {
+			return null;
+		}
+		this.repositoryContentsCache.putCommit(host, repo, url.getRef(), resolved.commit(), resolved.etag());
+		return this.repositoryContentsCache.copyTo(host, repo, resolved.commit(), url.getSubPath(), targetPath)
+			.orElse(null);
+	}
+
+	/**
+	 * Find the last resolution of a ref, even if outdated, so it can be revalidated.
+	 */
+	@Nullable
+	private CachedRef findCachedRef(String host, String repo, GitRepoUrlRef url) {
+		if (this.repositoryContentsCache == null) {
+			return null;
+		}
+		return this.repositoryContentsCache.findRef(host, repo, url.getRef()).orElse(null);
+	}
+
+	private void cacheRepositoryContents(String host, String repo, GitRepoUrlRef url, String commit,
+			Path repositoryPath) {
+		if (this.repositoryContentsCache != null) {
+			this.repositoryContentsCache.put(host, repo, commit, url.getSubPath(), repositoryPath);
+		}
+	}
+
+	private static String getRepositoryName(String path) {
+		String repo = path.substring(1);
+		if (repo.endsWith(".git")) {
+			repo = repo.substring(0, repo.length() - 4);
+		}
+		return repo;
+	}
+
 	/**
 	 * Retrieve contents from a file location.
 	 */
@@ -114,84 +202,35 @@ public class GitSourceRepositoryService implements SourceRepositoryService {
 
 	/**
 	 * Retrieve contents from a GitHub repository.
+	 * @return the root directory of the repository contents
 	 */
 	private Path retrieveGitHubRepositoryContents(GitRepoUrlRef url, Path targetPath) {
 
 		try {
 			URI gitUri = new URI(url.getRepoUrl().toString());
-			String token = getToken(gitUri.getHost());
-			GitHub github = null;
-			if (token == null) {
-				// try to use an environment variable
-				if (StringUtils.hasText(System.getenv("GITHUB_OAUTH"))) {
-					try {
-						github = GitHubBuilder.fromEnvironment().build();
-					}
-					catch (IOException ex) {
-						logger.trace("No environment variable GITHUB_AUTH found.", ex.getMessage());
-						// do nothing
-					}
-				}
-				// fallback to property file
-				if (github == null) {
-					try {
-						github = GitHubBuilder.fromPropertyFile().build();
-					}
-					catch (IOException ex) {
-						logger.trace("No .github directory found under the base user.dir.", ex.getMessage());
-						// ignore as there is not a .github directory under the user.dir
-					}
-				}
-				// connect anonymously
-				if (github == null) {
-					// TODO terminal warning about rate limiting
-					github = GitHub.connectAnonymously();
-				}
-			}
-			else {
-				github = new GitHubBuilder().withOAuthToken(token).build();
-			}
-			String repo = gitUri.getPath().substring(1);
-			if (repo.endsWith(".git")) {
-				repo = repo.substring(0, repo.length() - 4);
+			String repo = getRepositoryName(gitUri.getPath());
+			GitHubCredentials credentials = GitHubCredentials.resolve(getToken(gitUri.getHost()));
+			// one lightweight request, answered with 304 when the ref did not move
+			CachedRef resolved = this.gitHubCommitResolver.resolve(repo, url.getRef(), credentials.getToken(),
+					findCachedRef(gitUri.getHost(), repo, url));
+			String commit = resolved.commit();
+			Path cachedPath = retrieveCachedRepositoryContents(gitUri.getHost(), repo, url, resolved, targetPath);
+			if (cachedPath != null) {
+				return cachedPath;
 			}
-			String ref = url.getRef();
+			GitHub github = credentials.connect();
 			GHRepository ghRepository = github.getRepository(repo);
-			InputStream inputStream = ghRepository
-				.readTar((inputstream) -> new ByteArrayInputStream(StreamUtils.copyToByteArray(inputstream)), ref);
-
-			File targetFile = targetPath.toFile();
-			Archiver archiver = ArchiverFactory.createArchiver("tar", "gz");
+			TarArchiveExtractor extractor = new TarArchiveExtractor(url.getSubPath());
+			Path repositoryPath;
 			try {
-				archiver.extract(inputStream, targetPath.toFile());
-			}
-			catch (Exception ex) {
-				throw new SpringCliException(String.format("Extraction error to %s", targetFile.getAbsolutePath()), ex);
-			}
-
-			Path unTar = Paths.get(targetPath.toFile().getAbsolutePath());
-			AtomicReference<Path> tarDir = new AtomicReference<>();
-			Files.list(unTar.toFile().toPath()).forEach((path) -> {
-				if (path.toFile().isDirectory()) {
-					if (tarDir.get() != null) {
-						throw new SpringCliException("Detected multiple directories '" + tarDir.get().toFile().getName()
-								+ "' and '" + path.toFile().getName() + " in downloaded zip file");
-					}
-					tarDir.set(path);
-				}
-			});
-			if (tarDir.get() == null) {
-				throw new SpringCliException(
-						"Downloaded zip file not unzipped correctly into " + unTar.toFile().getAbsolutePath());
+				repositoryPath = ghRepository.readTar((inputStream) -> extractor.extract(inputStream, targetPath),
+						commit);
 			}
-			Path contentPath;
-			if (StringUtils.hasText(url.getSubPath())) {
-				contentPath = Paths.get(tarDir.get().toFile().getAbsolutePath(), url.getSubPath());
-			}
-			else {
-				contentPath = tarDir.get();
+			catch (IOException ex) {
+				throw new SpringCliException(String.format("Extraction error to %s", targetPath.toAbsolutePath()), ex);
 			}
-			return contentPath;
+			cacheRepositoryContents(gitUri.getHost(), repo, url, commit, repositoryPath);
+			return repositoryPath;
 		}
 		catch (IOException | URISyntaxException ex) {
 			throw new SpringCliException("Failed processing " + url, ex);
@@ -200,6 +239,7 @@ public class GitSourceRepositoryService implements SourceRepositoryService {
 
 	/**
 	 * Retrieve contents from a GitLab repository.
+	 * @return the root directory of the repository contents
 	 */
 	private Path retrieveGitLabRepositoryContents(GitRepoUrlRef url, Path targetPath) {
 		try {
@@ -209,52 +249,29 @@ public class GitSourceRepositoryService implements SourceRepositoryService {
 				throw new SpringCliException("Access token not provided for " + gitUri);
 			}
 			GitLabApi gitLabApi = new GitLabApi(gitUri.getScheme() + "://" + gitUri.getHost(), token);
-			String repo = gitUri.getPath().substring(1);
-			if (repo.endsWith(".git")) {
-				repo = repo.substring(0, repo.length() - 4);
-			}
+			String repo = getRepositoryName(gitUri.getPath());
 
-			String refSha = null;
-			if (StringUtils.hasText(url.getRef())) {
-				List<Branch> branches = gitLabApi.getRepositoryApi().getBranches(repo, url.getRef());
-				if (branches.size() == 1) {
-					refSha = branches.get(0).getCommit().getId();
-				}
-				else {
-					List<Tag> tags = gitLabApi.getTagsApi().getTags(repo, TagOrderBy.NAME, SortOrder.ASC, url.getRef());
-					if (tags.size() == 1) {
-						refSha = tags.get(0).getCommit().getId();
-					}
-					else {
-						throw new SpringCliException("Not able to find ref " + url.getRef() + " for " + repo);
-					}
-				}
+			// resolves branches, tags and commits alike in a single call
+			String refSha = gitLabApi.getCommitsApi()
+				.getCommit(repo, StringUtils.hasText(url.getRef()) ? url.getRef() : "HEAD")
+				.getId();
+			Path cachedPath = retrieveCachedRepositoryContents(gitUri.getHost(), repo, url,
+					new CachedRef(refSha, null, true), targetPath);
+			if (cachedPath != null) {
+				return cachedPath;
 			}
-			File tarfile = gitLabApi.getRepositoryApi()
-				.getRepositoryArchive(repo, refSha, targetPath.toFile(), ArchiveFormat.TAR_GZ);
-			logger.debug("Wrote GitLab Repo " + repo + " to " + tarfile.getAbsolutePath());
-
-			File targetFile = targetPath.toFile();
-			Archiver archiver = ArchiverFactory.createArchiver("tar", "gz");
-			try {
-				archiver.extract(tarfile, targetPath.toFile());
+			TarArchiveExtractor extractor = new TarArchiveExtractor(url.getSubPath());
+			Path repositoryPath;
+			try (InputStream inputStream = gitLabApi.getRepositoryApi()
+				.getRepositoryArchive(repo, refSha, ArchiveFormat.TAR_GZ)) {
+				repositoryPath = extractor.extract(inputStream, targetPath);
 			}
-			catch (Exception ex) {
-				throw new SpringCliException(String.format("Extraction error to %s", targetFile.getAbsolutePath()), ex);
-			}
-
-			String zipDirName = tarfile.getName().substring(0, tarfile.getName().indexOf('.'));
-			if (!tarfile.delete()) {
-				logger.warn("Not able to delete zip file " + tarfile.getAbsolutePath());
-			}
-			Path contentPath;
-			if (StringUtils.hasText(url.getSubPath())) {
-				contentPath = Paths.get(targetPath.toFile().getAbsolutePath(), zipDirName, url.getSubPath());
-			}
-			else {
-				contentPath = Paths.get(targetPath.toFile().getAbsolutePath(), zipDirName);
+			catch (IOException ex) {
+				throw new SpringCliException(String.format("Extraction error to %s", targetPath.toAbsolutePath()), ex);
 			}
-			return contentPath;
+			logger.debug("Extracted GitLab Repo " + repo + " to " + repositoryPath);
+			cacheRepositoryContents(gitUri.getHost(), repo, url, refSha, repositoryPath);
+			return repositoryPath;
 		}
 		catch (URISyntaxException | GitLabApiException ex) {
 			throw new SpringCliException("Failed processing " + url, ex);
@@ -0,0 +1,403 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.git;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.cli.config.SpringCliProperties;
+import org.springframework.cli.util.CacheDirectories;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * On-disk cache of downloaded source repository contents. Entries are keyed by host,
+ * repository and the commit the contents were downloaded for, so a cached entry never
+ * goes stale. Branch and tag names are mapped to commits separately and that mapping is
+ * only trusted for a configurable time to live.
+ * <p>
+ * The total size of the cache is bounded, least recently used entries are evicted first.
+ * Entries hold either a complete repository or only the sub path that was requested.
+ * Cache entries are handed out as copies since callers are free to modify, refactor and
+ * delete the contents they receive. Any failure while reading or writing the cache is
+ * logged and treated as a cache miss.
+ */
+public class RepositoryContentsCache {
+
+	private static final String ENTRIES_DIR = "entries";
+
+	private static final String REFS_DIR = "refs";
+
+	private static final String CONTENTS_DIR = "contents";
+
+	private static final String ENTRY_FILE = "entry.properties";
+
+	private static final Pattern COMMIT_PATTERN = Pattern.compile("[0-9a-f]{40}");
+
+	private static final Logger logger = LoggerFactory.getLogger(RepositoryContentsCache.class);
+
+	private final Path cacheDir;
+
+	private final long maxSize;
+
+	private final Duration refTtl;
+
+	/**
+	 * Create a new cache.
+	 * @param cacheDir the directory holding the cache
+	 * @param maxSize maximum total size in bytes of cached contents
+	 * @param refTtl how long a ref to commit mapping is trusted
+	 */
+	public RepositoryContentsCache(Path cacheDir, long maxSize, Duration refTtl) {
+		Assert.notNull(cacheDir, "cacheDir must be set");
+		Assert.notNull(refTtl, "refTtl must be set");
+		this.cacheDir = cacheDir;
+		this.maxSize = maxSize;
+		this.refTtl = refTtl;
+	}
+
+	/**
+	 * Create a cache from the cli properties, returns {@code null} if caching is
+	 * disabled.
+	 * @param properties the repository cache properties
+	 * @return the cache or {@code null}
+	 */
+	@Nullable
+	public static RepositoryContentsCache of(SpringCliProperties.RepositoryCache properties) {
+		if (!properties.isEnabled()) {
+			return null;
+		}
+		Path dir = StringUtils.hasText(properties.getDirectory()) ? Paths.get(properties.getDirectory())
+				: CacheDirectories.getDefaultCacheDir().resolve("repositories");
+		return new RepositoryContentsCache(dir, properties.getMaxSize().toBytes(), properties.getRefTtl());
+	}
+
+	/**
+	 * Find the commit a ref was last resolved to. Refs that are full commit ids resolve
+	 * to themselves, other refs only if they were resolved within the time to live.
+	 * @param host the repository host
+	 * @param repo the repository name
+	 * @param ref the branch, tag or commit, {@code null} for the default branch
+	 * @return the commit id if known
+	 */
+	public Optional<String> findCommit(String host, String repo, @Nullable String ref) {
+		if (isCommit(ref)) {
+			return Optional.of(ref);
+		}
+		return findRef(host, repo, ref).filter(CachedRef::fresh).map(CachedRef::commit);
+	}
+
+	/**
+	 * Find how a ref was last resolved, also when that is older than the time to live so
+	 * it can be revalidated.
+	 * @param host the repository host
+	 * @param repo the repository name
+	 * @param ref the branch or tag, {@code null} for the default branch
+	 * @return the last resolution if known
+	 */
+	public Optional<CachedRef> findRef(String host, String repo, @Nullable String ref) {
+		Path refFile = getRefFile(host, repo, ref);
+		try {
+			if (Files.notExists(refFile)) {
+				return Optional.empty();
+			}
+			Instant resolved = Files.getLastModifiedTime(refFile).toInstant();
+			boolean fresh = !resolved.plus(this.refTtl).isBefore(Instant.now());
+			if (!fresh) {
+				logger.debug("Cached ref " + ref + " of " + host + "/" + repo + " expired");
+			}
+			// the commit on the first line, optionally followed by the etag it was served
+			// with
+			List<String> lines = Files.readAllLines(refFile, StandardCharsets.UTF_8);
+			if (lines.isEmpty() || !isCommit(lines.get(0).trim())) {
+				return Optional.empty();
+			}
+			String etag = (lines.size() > 1 && StringUtils.hasText(lines.get(1))) ? lines.get(1).trim() : null;
+			return Optional.of(new CachedRef(lines.get(0).trim(), etag, fresh));
+		}
+		catch (IOException ex) {
+			logger.warn("Could not read cached ref " + refFile, ex);
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Remember the commit a ref resolved to.
+	 * @param host the repository host
+	 * @param repo the repository name
+	 * @param ref the branch, tag or commit, {@code null} for the default branch
+	 * @param commit the commit id
+	 */
+	public void putCommit(String host, String repo, @Nullable String ref, String commit) {
+		putCommit(host, repo, ref, commit, null);
+	}
+
+	/**
+	 * Remember the commit a ref resolved to, restarting its time to live.
+	 * @param host the repository host
+	 * @param repo the repository name
+	 * @param ref the branch, tag or commit, {@code null} for the default branch
+	 * @param commit the commit id
+	 * @param etag the entity tag of the response the commit was resolved from, if any
+	 */
+	public void putCommit(String host, String repo, @Nullable String ref, String commit, @Nullable String etag) {
+		if (isCommit(ref)) {
+			return;
+		}
+		Path refFile = getRefFile(host, repo, ref);
+		try {
+			Files.createDirectories(refFile.getParent());
+			Path tempFile = Files.createTempFile(refFile.getParent(), "ref-", ".tmp");
+			Files.writeString(tempFile, (etag != null) ? commit + "\n" + etag : commit, StandardCharsets.UTF_8);
+			Files.move(tempFile, refFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException ex) {
+			logger.warn("Could not cache ref " + ref + " of " + host + "/" + repo, ex);
+		}
+	}
+
+	/**
+	 * Copy cached contents of a repository commit into a directory.
+	 * @param host the repository host
+	 * @param repo the repository name
+	 * @param commit the commit id
+	 * @param subPath the only path of the repository needed, {@code null} for all of it
+	 * @param targetPath the directory to copy the contents into
+	 * @return the path of the copied repository root if the commit was cached
+	 */
+	public Optional<Path> copyTo(String host, String repo, String commit, @Nullable String subPath,
+			Path targetPath) {
+		// a complete copy of the repository serves any sub path
+		Path entryDir = getEntryDir(host, repo, commit, null);
+		String pathToCopy = subPath;
+		if (Files.notExists(entryDir.resolve(ENTRY_FILE)) && StringUtils.hasText(subPath)) {
+			entryDir = getEntryDir(host, repo, commit, subPath);
+			pathToCopy = null;
+		}
+		Path entryFile = entryDir.resolve(ENTRY_FILE);
+		if (Files.notExists(entryFile)) {
+			return Optional.empty();
+		}
+		try {
+			Properties entry = readEntry(entryFile);
+			Path contentPath = targetPath.resolve(entry.getProperty("name", CONTENTS_DIR));
+			if (StringUtils.hasText(pathToCopy)) {
+				Path source = entryDir.resolve(CONTENTS_DIR).resolve(pathToCopy);
+				if (Files.notExists(source)) {
+					return Optional.empty();
+				}
+				copyRecursively(source, contentPath.resolve(pathToCopy));
+			}
+			else {
+				copyRecursively(entryDir.resolve(CONTENTS_DIR), contentPath);
+			}
+			// last modified time of the entry file is the last access used for eviction
+			Files.setLastModifiedTime(entryFile, FileTime.from(Instant.now()));
+			logger.debug("Retrieved " + host + "/" + repo + "@" + commit + " from cache " + entryDir);
+			return Optional.of(contentPath);
+		}
+		catch (IOException ex) {
+			logger.warn("Could not read cache entry " + entryDir, ex);
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Store the contents of a repository commit, evicting least recently used entries if
+	 * the cache grows beyond its maximum size.
+	 * @param host the repository host
+	 * @param repo the repository name
+	 * @param commit the commit id
+	 * @param subPath the only path of the repository that was retrieved, {@code null} if
+	 * all of it was
+	 * @param contentPath the repository root to store
+	 */
+	public void put(String host, String repo, String commit, @Nullable String subPath, Path contentPath) {
+		Path entryDir = getEntryDir(host, repo, commit, subPath);
+		if (Files.exists(entryDir.resolve(ENTRY_FILE))) {
+			return;
+		}
+		Path entriesDir = this.cacheDir.resolve(ENTRIES_DIR);
+		Path tempDir = entriesDir.resolve(".tmp-" + UUID.randomUUID());
+		try {
+			long size = copyRecursively(contentPath, tempDir.resolve(CONTENTS_DIR));
+			if (size > this.maxSize) {
+				logger.debug("Not caching " + host + "/" + repo + "@" + commit + " as it is larger than the cache");
+				FileSystemUtils.deleteRecursively(tempDir);
+				return;
+			}
+			Properties entry = new Properties();
+			entry.setProperty("host", host);
+			entry.setProperty("repo", repo);
+			entry.setProperty("commit", commit);
+			entry.setProperty("name", contentPath.getFileName().toString());
+			entry.setProperty("size", Long.toString(size));
+			try (OutputStream out = Files.newOutputStream(tempDir.resolve(ENTRY_FILE))) {
+				entry.store(out, "spring cli repository cache entry");
+			}
+			try {
+				Files.move(tempDir, entryDir, StandardCopyOption.ATOMIC_MOVE);
+				logger.debug("Cached " + host + "/" + repo + "@" + commit + " in " + entryDir);
+			}
+			catch (FileAlreadyExistsException | DirectoryNotEmptyException ex) {
+				// stored concurrently by another process
+				FileSystemUtils.deleteRecursively(tempDir);
+			}
+			evict();
+		}
+		catch (IOException ex) {
+			logger.warn("Could not cache " + host + "/" + repo + "@" + commit, ex);
+			try {
+				FileSystemUtils.deleteRecursively(tempDir);
+			}
+			catch (IOException deleteEx) {
+				logger.warn("Could not delete path " + tempDir, deleteEx);
+			}
+		}
+	}
+
+	/**
+	 * Evict least recently used entries until the cache fits its maximum size.
+	 */
+	void evict() throws IOException {
+		Path entriesDir = this.cacheDir.resolve(ENTRIES_DIR);
+		if (Files.notExists(entriesDir)) {
+			return;
+		}
+		List<CacheEntry> entries = new ArrayList<>();
+		try (Stream<Path> dirs = Files.list(entriesDir)) {
+			for (Path dir : dirs.toList()) {
+				Path entryFile = dir.resolve(ENTRY_FILE);
+				if (Files.exists(entryFile)) {
+					long size = Long.parseLong(readEntry(entryFile).getProperty("size", "0"));
+					entries.add(new CacheEntry(dir, size, Files.getLastModifiedTime(entryFile)));
+				}
+			}
+		}
+		long totalSize = entries.stream().mapToLong(CacheEntry::size).sum();
+		entries.sort(Comparator.comparing(CacheEntry::lastAccess));
+		for (CacheEntry entry : entries) {
+			if (totalSize <= this.maxSize) {
+				break;
+			}
+			logger.debug("Evicting cache entry " + entry.dir());
+			FileSystemUtils.deleteRecursively(entry.dir());
+			totalSize -= entry.size();
+		}
+	}
+
+	private Path getEntryDir(String host, String repo, String commit, @Nullable String subPath) {
+		String key = StringUtils.hasText(subPath) ? host + "/" + repo + ":" + subPath : host + "/" + repo;
+		return this.cacheDir.resolve(ENTRIES_DIR).resolve(hash(key) + "-" + commit);
+	}
+
+	private Path getRefFile(String host, String repo, @Nullable String ref) {
+		String refName = StringUtils.hasText(ref) ? ref : "HEAD";
+		return this.cacheDir.resolve(REFS_DIR).resolve(hash(host + "/" + repo + "@" + refName));
+	}
+
+	private static boolean isCommit(@Nullable String ref) {
+		return ref != null && COMMIT_PATTERN.matcher(ref).matches();
+	}
+
+	private static Properties readEntry(Path entryFile) throws IOException {
+		Properties entry = new Properties();
+		try (InputStream in = Files.newInputStream(entryFile)) {
+			entry.load(in);
+		}
+		return entry;
+	}
+
+	/**
+	 * Copies a directory tree keeping file attributes such as the executable bit.
+	 * @return the number of bytes copied
+	 */
+	private static long copyRecursively(Path source, Path target) throws IOException {
+		AtomicLong size = new AtomicLong();
+		Files.walkFileTree(source, new SimpleFileVisitor<>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+				Files.createDirectories(target.resolve(source.relativize(dir).toString()));
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				Files.copy(file, target.resolve(source.relativize(file).toString()),
+						StandardCopyOption.COPY_ATTRIBUTES, StandardCopyOption.REPLACE_EXISTING);
+				size.addAndGet(attrs.size());
+				return FileVisitResult.CONTINUE;
+			}
+		});
+		return size.get();
+	}
+
+	private static String hash(String value) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)), 0, 16);
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private record CacheEntry(Path dir, long size, FileTime lastAccess) {
+	}
+
+	/**
+	 * The commit a ref was resolved to.
+	 *
+	 * @param commit the commit id
+	 * @param etag the entity tag of the response the commit was resolved from, if any
+	 * @param fresh whether the resolution is within the time to live
+	 */
+	public record CachedRef(String commit, @Nullable String etag, boolean fresh) {
+	}
+
+}
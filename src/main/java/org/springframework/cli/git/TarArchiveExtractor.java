@@ -0,0 +1,149 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.git;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.cli.SpringCliException;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+/**
+ * Extracts a gzipped tar archive of a repository as it is read from a stream, so the
+ * archive is never held in memory. Repository archives as served by GitHub and GitLab
+ * contain a single root directory, which is returned.
+ * <p>
+ * When a sub path is given only the entries below that path of the root directory are
+ * written to disk, everything else is skipped while streaming.
+ */
+class TarArchiveExtractor {
+
+	private static final Logger logger = LoggerFactory.getLogger(TarArchiveExtractor.class);
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	@Nullable
+	private final String subPath;
+
+	/**
+	 * Create a new extractor.
+	 * @param subPath the sub path of the repository to extract, {@code null} to extract
+	 * everything
+	 */
+	TarArchiveExtractor(@Nullable String subPath) {
+		this.subPath = StringUtils.hasText(subPath) ? StringUtils.trimTrailingCharacter(
+				StringUtils.trimLeadingCharacter(subPath.replace('\\', '/'), '/'), '/') : null;
+	}
+
+	/**
+	 * Extract the gzipped tar stream into the target directory.
+	 * @param inputStream the gzipped tar stream, not closed by this method
+	 * @param targetPath the directory to extract into
+	 * @return the root directory of the extracted archive
+	 */
+	Path extract(InputStream inputStream, Path targetPath) throws IOException {
+		Path normalizedTargetPath = targetPath.toAbsolutePath().normalize();
+		String rootName = null;
+		int extractedFiles = 0;
+		TarArchiveInputStream tarInputStream = new TarArchiveInputStream(
+				new GZIPInputStream(inputStream, BUFFER_SIZE));
+		TarArchiveEntry entry;
+		while ((entry = tarInputStream.getNextTarEntry()) != null) {
+			if (entry.isGlobalPaxHeader() || entry.isPaxHeader()) {
+				continue;
+			}
+			String name = normalizeEntryName(entry.getName());
+			int separator = name.indexOf('/');
+			String entryRootName = (separator != -1) ? name.substring(0, separator) : name;
+			if (rootName == null) {
+				rootName = entryRootName;
+				Files.createDirectories(normalizedTargetPath.resolve(rootName));
+			}
+			else if (!rootName.equals(entryRootName)) {
+				throw new SpringCliException("Detected multiple directories '" + rootName + "' and '"
+						+ entryRootName + "' in downloaded archive");
+			}
+			String relativeName = (separator != -1) ? name.substring(separator + 1) : "";
+			if (relativeName.isEmpty() || !isIncluded(relativeName)) {
+				continue;
+			}
+			Path entryPath = normalizedTargetPath.resolve(name).normalize();
+			if (!entryPath.startsWith(normalizedTargetPath)) {
+				throw new SpringCliException("Archive entry " + entry.getName() + " is outside of " + targetPath);
+			}
+			if (entry.isDirectory()) {
+				Files.createDirectories(entryPath);
+			}
+			else if (entry.isSymbolicLink()) {
+				Path linkTarget = entryPath.getParent().resolve(entry.getLinkName()).normalize();
+				if (linkTarget.startsWith(normalizedTargetPath)) {
+					Files.createDirectories(entryPath.getParent());
+					Files.createSymbolicLink(entryPath, entryPath.getParent().relativize(linkTarget));
+				}
+				else {
+					logger.debug("Skipping link " + entry.getName() + " pointing outside of the archive");
+				}
+			}
+			else if (entry.isFile()) {
+				Files.createDirectories(entryPath.getParent());
+				// the tar stream only hands out the bytes of the current entry
+				Files.copy(tarInputStream, entryPath, StandardCopyOption.REPLACE_EXISTING);
+				if ((entry.getMode() & 0100) != 0) {
+					entryPath.toFile().setExecutable(true);
+				}
+				extractedFiles++;
+			}
+		}
+		if (rootName == null) {
+			throw new SpringCliException("Downloaded archive is empty, nothing extracted into " + targetPath);
+		}
+		Path rootPath = normalizedTargetPath.resolve(rootName);
+		if (this.subPath != null && Files.notExists(rootPath.resolve(this.subPath))) {
+			throw new SpringCliException("Path " + this.subPath + " not found in downloaded archive");
+		}
+		logger.debug("Extracted " + extractedFiles + " files into " + rootPath);
+		return rootPath;
+	}
+
+	private boolean isIncluded(String relativeName) {
+		if (this.subPath == null) {
+			return true;
+		}
+		// keep the parent directories of the sub path as well as everything below it
+		return relativeName.equals(this.subPath) || relativeName.startsWith(this.subPath + "/")
+				|| this.subPath.startsWith(relativeName + "/");
+	}
+
+	private static String normalizeEntryName(String name) {
+		String trimmed = StringUtils.trimLeadingCharacter(name, '/');
+		if (trimmed.startsWith("./")) {
+			trimmed = trimmed.substring(2);
+		}
+		return StringUtils.trimTrailingCharacter(trimmed, '/');
+	}
+
+}
@@ -29,8 +29,6 @@ import java.util.List;
 import java.util.Optional;
 import java.util.function.Consumer;
 
-import org.apache.tools.ant.util.FileUtils;
-import org.codehaus.plexus.util.DirectoryScanner;
 import org.jline.utils.AttributedStringBuilder;
 import org.jline.utils.AttributedStyle;
 import org.openrewrite.ExecutionContext;
@@ -43,17 +41,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.cli.SpringCliException;
+import org.springframework.cli.config.ProjectCatalogIndex;
+import org.springframework.cli.config.ProjectCatalogIndex.CatalogProjectRepository;
 import org.springframework.cli.config.SpringCliUserConfig;
 import org.springframework.cli.config.SpringCliUserConfig.CommandDefaults;
-import org.springframework.cli.config.SpringCliUserConfig.ProjectCatalog;
-import org.springframework.cli.config.SpringCliUserConfig.ProjectRepositories;
 import org.springframework.cli.config.SpringCliUserConfig.ProjectRepository;
 import org.springframework.cli.git.SourceRepositoryService;
 import org.springframework.cli.recipe.RecipeUtils;
-import org.springframework.cli.support.configfile.YamlConfigFile;
 import org.springframework.cli.util.IoUtils;
 import org.springframework.cli.util.JavaUtils;
 import org.springframework.cli.util.PackageNameUtils;
+import org.springframework.cli.util.ProjectFileTransfer;
 import org.springframework.cli.util.ProjectInfo;
 import org.springframework.cli.util.RefactorUtils;
 import org.springframework.cli.util.RootPackageFinder;
@@ -84,6 +82,8 @@ public class ProjectHandler {
 
 	private final TerminalMessage terminalMessage;
 
+	private final ProjectCatalogIndex projectCatalogIndex;
+
 	/**
 	 * Creates a project handler.
 	 * @param springCliUserConfig the user config
@@ -92,12 +92,27 @@ public class ProjectHandler {
 	 */
 	public ProjectHandler(SpringCliUserConfig springCliUserConfig, SourceRepositoryService sourceRepositoryService,
 			TerminalMessage terminalMessage) {
+		this(springCliUserConfig, sourceRepositoryService,
+				new ProjectCatalogIndex(springCliUserConfig, sourceRepositoryService), terminalMessage);
+	}
+
+	/**
+	 * Creates a project handler.
+	 * @param springCliUserConfig the user config
+	 * @param sourceRepositoryService the repo service
+	 * @param projectCatalogIndex the index to resolve project names with
+	 * @param terminalMessage the terminal to write user messages to
+	 */
+	public ProjectHandler(SpringCliUserConfig springCliUserConfig, SourceRepositoryService sourceRepositoryService,
+			ProjectCatalogIndex projectCatalogIndex, TerminalMessage terminalMessage) {
 		Assert.notNull(springCliUserConfig, "springCliUserConfig must be set");
 		Assert.notNull(sourceRepositoryService, "sourceRepositoryService must be set");
+		Assert.notNull(projectCatalogIndex, "projectCatalogIndex must be set");
 		Assert.notNull(terminalMessage, "terminalMessage must be set");
 		this.springCliUserConfig = springCliUserConfig;
 		this.sourceRepositoryService = sourceRepositoryService;
 		this.terminalMessage = terminalMessage;
+		this.projectCatalogIndex = projectCatalogIndex;
 	}
 
 	/**
@@ -293,36 +308,10 @@ public class ProjectHandler {
 		// Update GroupId, ArtfiactId, Version, name, Description as needed.
 		updatePom(repositoryContentsPath, projectInfo);
 
-		// Copy files
-		File fromDir = repositoryContentsPath.toFile();
-
-		DirectoryScanner ds = new DirectoryScanner();
-		ds.setBasedir(fromDir);
-		ds.scan();
-		String[] fileNames = ds.getIncludedFiles();
-
-		toDir.mkdirs();
-		for (String fileName : fileNames) {
-			File srcFile = new File(fromDir, fileName);
-			File destFile = new File(toDir, fileName);
-			logger.debug("Copy from " + srcFile + " to " + destFile);
-			try {
-				FileUtils.getFileUtils().copyFile(srcFile, destFile);
-				if (srcFile.canExecute()) {
-					destFile.setExecutable(true);
-				}
-			}
-			catch (IOException ex) {
-				throw new SpringCliException(
-						"Could not copy files from " + fromDir.getAbsolutePath() + " to " + toDir.getAbsolutePath());
-			}
-		}
-		try {
-			FileSystemUtils.deleteRecursively(repositoryContentsPath);
-		}
-		catch (IOException ex) {
-			logger.warn("Could not delete path " + repositoryContentsPath, ex);
-		}
+		// Move files, renaming them where the file system allows
+		ProjectFileTransfer.Result transfer = ProjectFileTransfer.transfer(repositoryContentsPath, toDir.toPath());
+		logger.debug("Moved {} files ({} bytes) to {} in {} ms using {}", transfer.files(), transfer.bytes(), toDir,
+				transfer.durationMillis(), transfer.strategy());
 
 		AttributedStringBuilder sb = new AttributedStringBuilder();
 		sb.style(sb.style().foreground(AttributedStyle.GREEN));
@@ -411,26 +400,10 @@ public class ProjectHandler {
 			}
 		}
 
-		List<ProjectCatalog> projectCatalogs = springCliUserConfig.getProjectCatalogs().getProjectCatalogs();
-		if (projectCatalogs != null) {
-			for (ProjectCatalog projectCatalog : projectCatalogs) {
-				String url = projectCatalog.getUrl();
-				Path path = sourceRepositoryService.retrieveRepositoryContents(url);
-				YamlConfigFile yamlConfigFile = new YamlConfigFile();
-				projectRepositories = yamlConfigFile
-					.read(Paths.get(path.toString(), "project-catalog.yml"), ProjectRepositories.class)
-					.getProjectRepositories();
-				try {
-					FileSystemUtils.deleteRecursively(path);
-				}
-				catch (IOException ex) {
-					logger.warn("Could not delete path " + path, ex);
-				}
-				url = findUrlFromProjectRepositories(projectName, projectRepositories);
-				if (url != null) {
-					return url;
-				}
-			}
+		CatalogProjectRepository catalogProjectRepository = this.projectCatalogIndex
+			.findProjectRepository(projectName);
+		if (catalogProjectRepository != null) {
+			return catalogProjectRepository.projectRepository().getUrl();
 		}
 
 		throw new SpringCliException("Could not resolve project name " + projectName
@@ -16,29 +16,32 @@
 
 package org.springframework.cli.merger;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import org.apache.commons.io.FilenameUtils;
 import org.apache.maven.model.Build;
@@ -47,31 +50,29 @@ import org.apache.maven.model.DependencyManagement;
 import org.apache.maven.model.Model;
 import org.apache.maven.model.Plugin;
 import org.apache.maven.model.Repository;
-import org.apache.tools.ant.util.FileUtils;
-import org.codehaus.plexus.util.DirectoryScanner;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
 import org.jline.utils.AttributedStringBuilder;
 import org.jline.utils.AttributedStyle;
 import org.openrewrite.ExecutionContext;
 import org.openrewrite.InMemoryExecutionContext;
 import org.openrewrite.Recipe;
-import org.openrewrite.RecipeRun;
 import org.openrewrite.Result;
 import org.openrewrite.SourceFile;
+import org.openrewrite.Tree;
 import org.openrewrite.TreeVisitor;
 import org.openrewrite.internal.InMemoryLargeSourceSet;
+import org.openrewrite.internal.ListUtils;
 import org.openrewrite.internal.lang.Nullable;
 import org.openrewrite.java.AddImport;
-import org.openrewrite.java.Java17Parser;
-import org.openrewrite.java.JavaParser;
 import org.openrewrite.java.tree.J.Annotation;
+import org.openrewrite.java.tree.J.CompilationUnit;
+import org.openrewrite.java.tree.Space;
 import org.openrewrite.maven.AddDependencyVisitor;
 import org.openrewrite.maven.AddManagedDependency;
 import org.openrewrite.maven.AddPlugin;
 import org.openrewrite.maven.AddPluginDependency;
 import org.openrewrite.maven.AddRepository;
 import org.openrewrite.maven.ChangePropertyValue;
-import org.openrewrite.maven.MavenParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.yaml.snakeyaml.DumperOptions;
@@ -81,7 +82,9 @@ import org.springframework.beans.factory.config.YamlMapFactoryBean;
 import org.springframework.beans.factory.config.YamlProcessor.ResolutionMethod;
 import org.springframework.cli.SpringCliException;
 import org.springframework.cli.recipe.AddManagedDependencyRecipeFactory;
+import org.springframework.cli.recipe.PomRecipeBatch;
 import org.springframework.cli.util.ConversionUtils;
+import org.springframework.cli.util.JavaSourceCache;
 import org.springframework.cli.util.PomReader;
 import org.springframework.cli.util.PropertyFileUtils;
 import org.springframework.cli.util.RefactorUtils;
@@ -108,6 +111,8 @@ public class ProjectMerger {
 
 	private final TerminalMessage terminalMessage;
 
+	private final JavaSourceCache javaSourceCache = new JavaSourceCache();
+
 	/**
 	 * Create a new instance
 	 * @param toMergeProjectPath The Path where the new project to merge is located
@@ -129,7 +134,8 @@ public class ProjectMerger {
 		if (Files.notExists(toMergeProjectPomPath)) {
 			// only do the copy of files
 			try {
-				copyToMergeCodebase();
+				copyToMergeCodebase(
+						RootPackageFinder.findSpringBootApplicationFile(this.toMergeProjectPath.toFile()));
 				return;
 			}
 			catch (IOException ex) {
@@ -145,24 +151,27 @@ public class ProjectMerger {
 		Model currentModel = pomReader.readPom(currentProjectPomPath.toFile());
 		Model toMergeModel = pomReader.readPom(toMergeProjectPomPath.toFile());
 
-		List<Path> paths = new ArrayList<>();
-		paths.add(currentProjectPomPath);
-		MavenParser mavenParser = MavenParser.builder().build();
-
 		MergerPreCheck.canMergeProject(currentModel, toMergeModel, this.toMergeProjectPath);
 
 		try {
-			// Maven merges
-			mergeMavenRepositories(currentProjectPomPath, currentModel, toMergeModel, paths, mavenParser);
-			mergeMavenProperties(currentProjectPomPath, toMergeModel);
-			mergeMavenDependencyManagement(currentProjectPomPath, toMergeModel, paths, mavenParser);
-			mergeMavenDependencies(currentProjectPomPath, currentModel, toMergeModel, paths, mavenParser);
-			mergeMavenPlugins(currentProjectPomPath, currentModel, toMergeModel, paths, mavenParser);
+			// Maven merges, collected and applied to the pom in a single parse and write
+			PomRecipeBatch pomRecipeBatch = new PomRecipeBatch(currentProjectPomPath, this.currentProjectPath);
+			mergeMavenRepositories(currentModel, toMergeModel, pomRecipeBatch);
+			mergeMavenProperties(currentModel, toMergeModel, pomRecipeBatch);
+			mergeMavenDependencyManagement(currentModel, toMergeModel, pomRecipeBatch);
+			mergeMavenDependencies(currentModel, toMergeModel, pomRecipeBatch);
+			mergeMavenPlugins(currentModel, toMergeModel, pomRecipeBatch);
+			List<Result> resultList = pomRecipeBatch.apply();
+			if (resultList.isEmpty()) {
+				logger.debug("No update of pom.xml from " + this.toMergeProjectPath);
+			}
+			logger.debug("Merged pom.xml with " + pomRecipeBatch.getParseCount() + " parse(s) and "
+					+ pomRecipeBatch.getWriteCount() + " write(s)");
 
 			// Code Refactoring
 			refactorToMergeCodebase();
 			// Copy and merge files
-			copyToMergeCodebase();
+			copyToMergeCodebase(RootPackageFinder.findSpringBootApplicationFile(this.toMergeProjectPath.toFile()));
 
 			mergeSpringBootApplicationClassAnnotations();
 		}
@@ -171,7 +180,7 @@ public class ProjectMerger {
 		}
 	}
 
-	private void mergeSpringBootApplicationClassAnnotations() throws IOException {
+	private void mergeSpringBootApplicationClassAnnotations() {
 
 		logger.debug("Looking for @SpringBootApplication in directory " + this.toMergeProjectPath.toFile());
 		Optional<File> springBootApplicationFile = RootPackageFinder
@@ -183,17 +192,15 @@ public class ProjectMerger {
 				logger.error("error in javaParser execution", e);
 			};
 			InMemoryExecutionContext executionContext = new InMemoryExecutionContext(onError);
-			List<Path> paths = new ArrayList<>();
-			paths.add(springBootApplicationFile.get().toPath());
-			JavaParser javaParser = new Java17Parser.Builder().build();
-			List<SourceFile> compilationUnits = javaParser.parse(paths, null, executionContext).toList();
-			collectAnnotationAndImportInformationRecipe.run(new InMemoryLargeSourceSet(compilationUnits),
-					executionContext);
+			// already parsed, and refactored, when the code base to merge was refactored
+			SourceFile toMergeApplicationClass = this.javaSourceCache.parse(springBootApplicationFile.get().toPath());
+			collectAnnotationAndImportInformationRecipe
+				.run(new InMemoryLargeSourceSet(List.of(toMergeApplicationClass)), executionContext);
 
 			List<Annotation> declaredAnnotations = collectAnnotationAndImportInformationRecipe.getDeclaredAnnotations();
 			List<String> declaredImports = collectAnnotationAndImportInformationRecipe.getDeclaredImports();
 
-			Map<String, String> annotationImportMap = new HashMap<>();
+			Map<Annotation, String> annotationImportMap = new LinkedHashMap<>();
 			for (Annotation declaredAnnotation : declaredAnnotations) {
 				if (declaredAnnotation.toString().startsWith("@SpringBootApplication")) {
 					continue;
@@ -201,7 +208,7 @@ public class ProjectMerger {
 				for (String declaredImport : declaredImports) {
 					// get the import statement that matches the annotation
 					if (declaredImport.contains(declaredAnnotation.getSimpleName())) {
-						annotationImportMap.put(declaredAnnotation.toString(), declaredImport);
+						annotationImportMap.put(declaredAnnotation, declaredImport);
 					}
 				}
 			}
@@ -209,134 +216,190 @@ public class ProjectMerger {
 			logger.debug("Looking for @SpringBootApplication in directory " + this.currentProjectPath.toFile());
 			Optional<File> currentSpringBootApplicationFile = RootPackageFinder
 				.findSpringBootApplicationFile(this.currentProjectPath.toFile());
-			if (currentSpringBootApplicationFile.isPresent()) {
-				executionContext = new InMemoryExecutionContext(onError);
-				paths = new ArrayList<>();
-				paths.add(currentSpringBootApplicationFile.get().toPath());
-				javaParser = new Java17Parser.Builder().build();
-				compilationUnits = javaParser.parse(paths, null, executionContext).toList();
-				for (Entry<String, String> annotationImportEntry : annotationImportMap.entrySet()) {
-					String annotation = annotationImportEntry.getKey();
-					String importStatement = annotationImportEntry.getValue();
-					AddImport addImport = new AddImport(importStatement, null, false);
-					AddImportRecipe addImportRecipe = new AddImportRecipe(addImport);
-					List<Result> results = addImportRecipe
-						.run(new InMemoryLargeSourceSet(compilationUnits), executionContext)
-						.getChangeset()
-						.getAllResults();
-					updateSpringApplicationClass(currentSpringBootApplicationFile.get().toPath(), results);
+			if (currentSpringBootApplicationFile.isPresent() && !annotationImportMap.isEmpty()) {
+				SourceFile applicationClass = this.javaSourceCache
+					.parse(currentSpringBootApplicationFile.get().toPath());
+				SourceFile updatedApplicationClass = addImportsAndAnnotations((CompilationUnit) applicationClass,
+						annotationImportMap, executionContext);
+				updateSpringApplicationClass(applicationClass, updatedApplicationClass);
+			}
+		}
+
+	}
 
+	/**
+	 * Add the imports and annotations to the class annotated with
+	 * {@code @SpringBootApplication} in a single pass over the compilation unit.
+	 * Annotations the class already declares are left out.
+	 */
+	private CompilationUnit addImportsAndAnnotations(CompilationUnit compilationUnit,
+			Map<Annotation, String> annotationImportMap, ExecutionContext executionContext) {
+		CompilationUnit updated = compilationUnit;
+		for (String importStatement : new LinkedHashSet<>(annotationImportMap.values())) {
+			updated = (CompilationUnit) new AddImport<ExecutionContext>(importStatement, null, false)
+				.visitNonNull(updated, executionContext);
+		}
+		return updated.withClasses(ListUtils.map(updated.getClasses(), (classDeclaration) -> {
+			List<Annotation> annotations = new ArrayList<>(classDeclaration.getLeadingAnnotations());
+			int index = indexOfSpringBootApplication(annotations);
+			if (index == -1) {
+				return classDeclaration;
+			}
+			Set<String> existing = annotations.stream()
+				.map((annotation) -> annotation.printTrimmed())
+				.collect(Collectors.toSet());
+			for (Annotation annotation : annotationImportMap.keySet()) {
+				if (existing.add(annotation.printTrimmed())) {
 					AttributedStringBuilder sb = new AttributedStringBuilder();
 					sb.style(sb.style().foreground(AttributedStyle.WHITE));
 					sb.append("Merging Main Spring Boot Application class annotation: " + annotation);
 					terminalMessage.print(sb.toAttributedString());
-
-					injectAnnotation(currentSpringBootApplicationFile.get().toPath(), annotation);
-					// AddAnnotationToClassRecipe addAnnotationToClassRecipe = new
-					// AddAnnotationToClassRecipe(annotation);
-					// results = addAnnotationToClassRecipe.run(compilationUnits);
-					// updateSpringApplicationClass(currentSpringBootApplicationFile.get().toPath(),
-					// results);
+					annotations.add(++index, annotation.withId(Tree.randomId()).withPrefix(Space.format("\n")));
 				}
 			}
-		}
-
+			return classDeclaration.withLeadingAnnotations(annotations);
+		}));
 	}
 
-	private void injectAnnotation(Path pathToFile, String annotation) {
-		try {
-			List<String> lines = Files.readAllLines(pathToFile);
-			int injectIndex = indexFromMarkerString("@SpringBootApplication", lines);
-			if (injectIndex != -1) {
-				lines.add(injectIndex + 1, annotation);
-				Files.write(pathToFile, lines, Charset.defaultCharset());
-			}
-			else {
-				logger.debug("Did not add annotation" + annotation + " to file " + pathToFile);
+	private static int indexOfSpringBootApplication(List<Annotation> annotations) {
+		for (int i = 0; i < annotations.size(); i++) {
+			if ("SpringBootApplication".equals(annotations.get(i).getSimpleName())) {
+				return i;
 			}
 		}
-		catch (IOException ex) {
-			throw new SpringCliException("Could not add annotation " + annotation + " to file " + pathToFile, ex);
-		}
+		return -1;
 	}
 
 	/**
-	 * @param marker the string we are looking to insert before or after
-	 * @param lines the lines of text
-	 * @return the index to insert a new line, -1 if no match found.
+	 * Copy the files of the project to merge into the current project. Files are scanned
+	 * and classified first, then copied in parallel on a bounded pool of threads, while
+	 * application property and yaml files that exist on both sides are merged in memory
+	 * and written once.
+	 * @param springBootApplicationFile the application class of the project to merge,
+	 * which is not copied
 	 */
-	private int indexFromMarkerString(String marker, List<String> lines) {
-		int i = 0;
-		for (Iterator<String> it = lines.iterator(); it.hasNext(); i++) {
-			String line = it.next();
-			if (line.contains(marker)) {
-				return i;
-			}
+	private void copyToMergeCodebase(Optional<File> springBootApplicationFile) throws IOException {
+		long start = System.currentTimeMillis();
+		Path applicationFile = springBootApplicationFile.map((file) -> file.toPath().toAbsolutePath().normalize())
+			.orElse(null);
+		Map<FileAction, List<FileOperation>> operations = new EnumMap<>(FileAction.class);
+		for (Path file : scanToMergeCodebase()) {
+			FileOperation operation = classify(file, applicationFile);
+			operations.computeIfAbsent(operation.action(), (action) -> new ArrayList<>()).add(operation);
+		}
+
+		List<FileOperation> copies = operations.getOrDefault(FileAction.COPY, List.of());
+		copyFiles(copies);
+		for (FileOperation operation : operations.getOrDefault(FileAction.MERGE_PROPERTIES, List.of())) {
+			mergeAndWriteProperties(operation.source(), operation.target());
 		}
-		if (i == lines.size()) {
-			return -1;
+		for (FileOperation operation : operations.getOrDefault(FileAction.MERGE_YAML, List.of())) {
+			mergeAndWriteYaml(operation.source(), operation.target());
 		}
-		else {
-			return i;
+		for (FileOperation operation : operations.getOrDefault(FileAction.SKIP, List.of())) {
+			logger.debug("Not copying file " + operation.source());
 		}
+		logger.debug("Copied " + copies.size() + " files from " + this.toMergeProjectPath + " in "
+				+ (System.currentTimeMillis() - start) + " ms");
 	}
 
-	private void copyToMergeCodebase() throws IOException {
-		File fromDir = this.toMergeProjectPath.toFile();
-		File toDir = this.currentProjectPath.toFile();
-		DirectoryScanner ds = new DirectoryScanner();
-		ds.setBasedir(fromDir);
-		// TODO /** prob doesn't work on windows
-		ds.setExcludes(new String[] { ".mvn/**", ".idea" });
-		ds.scan();
-		String[] fileNames = ds.getIncludedFiles();
-		Optional<File> springBootApplicationFile = RootPackageFinder
-			.findSpringBootApplicationFile(this.toMergeProjectPath.toFile());
-		for (String fileName : fileNames) {
-			File srcFile = new File(fromDir, fileName);
-			File destFile = new File(toDir, fileName);
-			if (srcFile.getName().equals("pom.xml") || srcFile.getName().equals("LICENSE")) {
-				continue;
-			}
-			// hack to avoid bringing over any gradle files for now as this POC is maven
-			// only.
-			if (srcFile.getName().contains("gradle")) {
-				continue;
-			}
-			// Change readme file name have the project name that is being merged into the
-			// code base
-			if (FilenameUtils.getBaseName(srcFile.getName()).equalsIgnoreCase("README")) {
-				Path newFile = Paths.get(FilenameUtils.getPath(destFile.getName()),
-						FilenameUtils.getBaseName(destFile.getName()) + "-" + projectName + "."
-								+ FilenameUtils.getExtension(destFile.getName()));
-				destFile = new File(toDir, newFile.toFile().getName());
-			}
-			if (springBootApplicationFile.isPresent()) {
-				if (srcFile.equals(springBootApplicationFile.get())) {
-					continue;
+	private List<Path> scanToMergeCodebase() throws IOException {
+		List<Path> files = new ArrayList<>();
+		Files.walkFileTree(this.toMergeProjectPath, new SimpleFileVisitor<>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+				// tooling directories of the project to merge are never copied
+				if (dir.getParent() != null && dir.getParent().equals(ProjectMerger.this.toMergeProjectPath)) {
+					String name = dir.getFileName().toString();
+					if (name.equals(".mvn") || name.equals(".idea")) {
+						return FileVisitResult.SKIP_SUBTREE;
+					}
 				}
+				return FileVisitResult.CONTINUE;
 			}
-			if (destFile.exists() && srcFile.getName().equals("application")) {
-				Optional<String> extension = getExtension(srcFile.getName());
-				if (extension.isPresent() && extension.get().equals("properties")) {
-					mergeAndWriteProperties(srcFile, destFile);
-				}
-				else if (extension.isPresent() && (extension.get().equals("yaml") || extension.get().equals("yml"))) {
-					mergeAndWriteYaml(srcFile, destFile);
-				}
-				else {
-					logger.debug("WARNING: Not copying file as it already exists: " + srcFile);
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+				if (!attrs.isDirectory()) {
+					files.add(file);
 				}
+				return FileVisitResult.CONTINUE;
 			}
-			else {
-				logger.debug("Copying srcFile = " + srcFile + " to destFile = " + destFile);
-				FileUtils.getFileUtils().copyFile(srcFile, destFile);
+		});
+		return files;
+	}
+
+	private FileOperation classify(Path srcFile, @Nullable Path applicationFile) {
+		String fileName = srcFile.getFileName().toString();
+		Path destFile = this.currentProjectPath.resolve(this.toMergeProjectPath.relativize(srcFile).toString());
+		if (fileName.equals("pom.xml") || fileName.equals("LICENSE")) {
+			return new FileOperation(srcFile, destFile, FileAction.SKIP);
+		}
+		// hack to avoid bringing over any gradle files for now as this POC is maven
+		// only.
+		if (fileName.contains("gradle")) {
+			return new FileOperation(srcFile, destFile, FileAction.SKIP);
+		}
+		// Change readme file name have the project name that is being merged into the
+		// code base
+		String baseName = FilenameUtils.getBaseName(fileName);
+		if (baseName.equalsIgnoreCase("README")) {
+			destFile = this.currentProjectPath
+				.resolve(baseName + "-" + this.projectName + "." + FilenameUtils.getExtension(fileName));
+		}
+		if (srcFile.toAbsolutePath().normalize().equals(applicationFile)) {
+			return new FileOperation(srcFile, destFile, FileAction.SKIP);
+		}
+		if (baseName.equals("application") && Files.exists(destFile)) {
+			Optional<String> extension = getExtension(fileName);
+			if (extension.isPresent() && extension.get().equals("properties")) {
+				return new FileOperation(srcFile, destFile, FileAction.MERGE_PROPERTIES);
 			}
+			else if (extension.isPresent() && (extension.get().equals("yaml") || extension.get().equals("yml"))) {
+				return new FileOperation(srcFile, destFile, FileAction.MERGE_YAML);
+			}
+			logger.debug("WARNING: Not copying file as it already exists: " + srcFile);
+			return new FileOperation(srcFile, destFile, FileAction.SKIP);
+		}
+		return new FileOperation(srcFile, destFile, FileAction.COPY);
+	}
 
+	private void copyFiles(List<FileOperation> copies) throws IOException {
+		if (copies.isEmpty()) {
+			return;
+		}
+		int threads = Math.min(Runtime.getRuntime().availableProcessors(), copies.size());
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Path>> futures = new ArrayList<>(copies.size());
+			for (FileOperation copy : copies) {
+				futures.add(executor.submit(() -> {
+					logger.debug("Copying srcFile = " + copy.source() + " to destFile = " + copy.target());
+					Files.createDirectories(copy.target().getParent());
+					return Files.copy(copy.source(), copy.target(), StandardCopyOption.REPLACE_EXISTING,
+							StandardCopyOption.COPY_ATTRIBUTES);
+				}));
+			}
+			for (Future<Path> future : futures) {
+				future.get();
+			}
+		}
+		catch (ExecutionException ex) {
+			if (ex.getCause() instanceof IOException ioException) {
+				throw ioException;
+			}
+			throw new SpringCliException("Could not copy files from " + this.toMergeProjectPath, ex.getCause());
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new SpringCliException("Interrupted copying files from " + this.toMergeProjectPath, ex);
+		}
+		finally {
+			executor.shutdownNow();
 		}
 	}
 
-	private void mergeAndWriteYaml(File srcFile, File destFile) throws FileNotFoundException {
+	private void mergeAndWriteYaml(Path srcFile, Path destFile) throws IOException {
 
 		AttributedStringBuilder sb = new AttributedStringBuilder();
 		sb.style(sb.style().foreground(AttributedStyle.WHITE));
@@ -355,16 +418,19 @@ public class ProjectMerger {
 		dumperOptions.setPrettyFlow(true);
 		dumperOptions.setLineBreak(DumperOptions.LineBreak.getPlatformLineBreak());
 		Yaml yaml = new Yaml(dumperOptions);
-		destFile.delete();
-		yaml.dump(yamlAsMap, new PrintWriter(destFile));
+		Files.writeString(destFile, yaml.dump(yamlAsMap));
 	}
 
-	private void mergeAndWriteProperties(File srcFile, File destFile) throws IOException {
+	private void mergeAndWriteProperties(Path srcFile, Path destFile) throws IOException {
 
 		Properties srcProperties = new Properties();
 		Properties destProperties = new Properties();
-		srcProperties.load(new FileInputStream(srcFile));
-		destProperties.load(new FileInputStream(destFile));
+		try (InputStream in = Files.newInputStream(srcFile)) {
+			srcProperties.load(in);
+		}
+		try (InputStream in = Files.newInputStream(destFile)) {
+			destProperties.load(in);
+		}
 		Properties mergedProperties = PropertyFileUtils.mergeProperties(srcProperties, destProperties);
 		// look into handling a merge of maven-wrapper.properties - should only merge
 		// using latest versions.
@@ -375,7 +441,9 @@ public class ProjectMerger {
 			sb.append("Merging Spring Application property file...");
 			terminalMessage.print(sb.toAttributedString());
 
-			mergedProperties.store(new FileWriter(destFile), "updated by spring cli");
+			StringWriter writer = new StringWriter();
+			mergedProperties.store(writer, "updated by spring cli");
+			Files.writeString(destFile, writer.toString());
 		}
 	}
 
@@ -406,7 +474,7 @@ public class ProjectMerger {
 			sb.append("Refactoring code base that is to be merged to package name " + currentRootPackageName.get());
 			terminalMessage.print(sb.toAttributedString());
 			RefactorUtils.refactorPackage(currentRootPackageName.get(), toMergeRootPackageName.get(),
-					this.toMergeProjectPath);
+					this.toMergeProjectPath, this.javaSourceCache);
 			logger.debug("look in " + this.toMergeProjectPath
 					+ " to see if refactoring of 'to merge code base' was done correctly");
 		}
@@ -417,8 +485,7 @@ public class ProjectMerger {
 		}
 	}
 
-	private void mergeMavenPlugins(Path currentProjectPomPath, Model currentModel, Model toMergeModel, List<Path> paths,
-			MavenParser mavenParser) throws IOException {
+	private void mergeMavenPlugins(Model currentModel, Model toMergeModel, PomRecipeBatch pomRecipeBatch) {
 
 		Build currentModelBuild = currentModel.getBuild();
 		Build toMergeModelBuild = toMergeModel.getBuild();
@@ -436,14 +503,7 @@ public class ProjectMerger {
 
 			Recipe addPluginRecipe = new AddPlugin(plugin.getGroupId(), plugin.getArtifactId(), plugin.getVersion(),
 					configuration, dependencies, null, null);
-
-			List<SourceFile> parsedPomFiles = mavenParser.parse(paths, this.currentProjectPath, getExecutionContext())
-				.toList();
-			List<Result> resultList = addPluginRecipe
-				.run(new InMemoryLargeSourceSet(parsedPomFiles), getExecutionContext())
-				.getChangeset()
-				.getAllResults();
-			updatePomFile(currentProjectPomPath, resultList);
+			pomRecipeBatch.add(addPluginRecipe);
 
 			if (currentModelBuild.getPluginsAsMap()
 				.containsKey(Plugin.constructKey(plugin.getGroupId(), plugin.getArtifactId()))) {
@@ -452,13 +512,7 @@ public class ProjectMerger {
 						Recipe addPluginDependencies = new AddPluginDependency(plugin.getGroupId(),
 								plugin.getArtifactId(), dependency.getGroupId(), dependency.getArtifactId(),
 								dependency.getVersion());
-						parsedPomFiles = mavenParser.parse(paths, this.currentProjectPath, getExecutionContext())
-							.toList();
-						List<Result> result = addPluginDependencies
-							.run(new InMemoryLargeSourceSet(parsedPomFiles), getExecutionContext())
-							.getChangeset()
-							.getAllResults();
-						updatePomFile(currentProjectPomPath, result);
+						pomRecipeBatch.add(addPluginDependencies);
 					}
 				}
 
@@ -466,8 +520,7 @@ public class ProjectMerger {
 		}
 	}
 
-	private void mergeMavenDependencies(Path currentProjectPomPath, Model currentModel, Model toMergeModel,
-			List<Path> paths, MavenParser mavenParser) throws IOException {
+	private void mergeMavenDependencies(Model currentModel, Model toMergeModel, PomRecipeBatch pomRecipeBatch) {
 		logger.debug("mergeMavenDependencies: Merging Maven Dependencies...");
 		List<Dependency> toMergeModelDependencies = toMergeModel.getDependencies();
 		List<Dependency> currentDependencies = currentModel.getDependencies();
@@ -477,9 +530,6 @@ public class ProjectMerger {
 				logger.debug("mergeMavenDependencies: Not merging dependency " + candidateDependency);
 			}
 			else {
-				List<SourceFile> parsedPomFiles = mavenParser
-					.parse(paths, this.currentProjectPath, getExecutionContext())
-					.toList();
 				String scope = candidateDependency.getScope();
 				if (scope == null) {
 					scope = "compile";
@@ -502,19 +552,13 @@ public class ProjectMerger {
 						candidateDependency.getArtifactId(), version, scope,
 						"org.springframework.boot.SpringApplication", versionPattern, type, classifier, optional,
 						familyRegex, acceptTransitive);
+				pomRecipeBatch.add(addDependency);
 
-				List<Result> resultList = addDependency
-					.run(new InMemoryLargeSourceSet(parsedPomFiles), getExecutionContext())
-					.getChangeset()
-					.getAllResults();
-				if (!resultList.isEmpty()) {
-					AttributedStringBuilder sb = new AttributedStringBuilder();
-					sb.style(sb.style().foreground(AttributedStyle.WHITE));
-					sb.append("Merging dependency " + candidateDependency.getGroupId() + ":"
-							+ candidateDependency.getArtifactId());
-					terminalMessage.print(sb.toAttributedString());
-				}
-				updatePomFile(currentProjectPomPath, resultList);
+				AttributedStringBuilder sb = new AttributedStringBuilder();
+				sb.style(sb.style().foreground(AttributedStyle.WHITE));
+				sb.append("Merging dependency " + candidateDependency.getGroupId() + ":"
+						+ candidateDependency.getArtifactId());
+				terminalMessage.print(sb.toAttributedString());
 			}
 		}
 	}
@@ -549,62 +593,50 @@ public class ProjectMerger {
 		return candidateRepositoryIdAlreadyPresent;
 	}
 
-	private void mergeMavenDependencyManagement(Path currentProjectPomPath, Model modelToMerge, List<Path> paths,
-			MavenParser mavenParser) throws IOException {
+	private void mergeMavenDependencyManagement(Model currentModel, Model modelToMerge,
+			PomRecipeBatch pomRecipeBatch) {
 		DependencyManagement dependencyManagement = modelToMerge.getDependencyManagement();
 		if (dependencyManagement != null) {
+			List<Dependency> currentManagedDependencies = (currentModel.getDependencyManagement() != null)
+					? currentModel.getDependencyManagement().getDependencies() : List.of();
 			List<Dependency> dependencies = dependencyManagement.getDependencies();
 
 			for (Dependency dependency : dependencies) {
-				List<SourceFile> pomFiles = mavenParser.parse(paths, this.currentProjectPath, getExecutionContext())
-					.toList();
 				Recipe addManagedDependency = new AddManagedDependencyRecipeFactory().create(dependency);
-				List<Result> resultList = addManagedDependency
-					.run(new InMemoryLargeSourceSet(pomFiles), getExecutionContext())
-					.getChangeset()
-					.getAllResults();
-				if (!resultList.isEmpty()) {
+				pomRecipeBatch.add(addManagedDependency);
+				if (!candidateDependencyAlreadyPresent(dependency, currentManagedDependencies)) {
 					AttributedStringBuilder sb = new AttributedStringBuilder();
 					sb.style(sb.style().foreground(AttributedStyle.WHITE));
 					sb.append("Merging dependency management section " + dependency.getGroupId() + ":"
 							+ dependency.getArtifactId());
 					terminalMessage.print(sb.toAttributedString());
 				}
-				updatePomFile(currentProjectPomPath, resultList);
 			}
 		}
 	}
 
-	private void mergeMavenProperties(Path currentProjectPomPath, Model modelToMerge) throws IOException {
-		List<Path> paths = new ArrayList<>();
-		paths.add(currentProjectPomPath);
-		MavenParser mavenParser = MavenParser.builder().build();
-
+	private void mergeMavenProperties(Model currentModel, Model modelToMerge, PomRecipeBatch pomRecipeBatch) {
+		Properties currentProperties = currentModel.getProperties();
 		Properties propertiesToMerge = modelToMerge.getProperties();
 		Set<String> keysToMerge = propertiesToMerge.stringPropertyNames();
 
 		for (String keyToMerge : keysToMerge) {
-			ChangePropertyValue changePropertyValueRecipe = new ChangePropertyValue(keyToMerge,
-					propertiesToMerge.getProperty(keyToMerge), true, false);
-			// TODO - parse is expensive call, move out of loop?
-			List<SourceFile> pomFiles = mavenParser.parse(paths, this.currentProjectPath, getExecutionContext())
-				.toList();
-			RecipeRun recipeRun = changePropertyValueRecipe.run(new InMemoryLargeSourceSet(pomFiles),
-					getExecutionContext());
-			List<Result> resultList = recipeRun.getChangeset().getAllResults();
-			if (!resultList.isEmpty()) {
-				AttributedStringBuilder sb = new AttributedStringBuilder();
-				sb.style(sb.style().foreground(AttributedStyle.WHITE));
-				sb.append("Merging maven property key " + keyToMerge);
-				terminalMessage.print(sb.toAttributedString());
+			String valueToMerge = propertiesToMerge.getProperty(keyToMerge);
+			if (valueToMerge.equals(currentProperties.getProperty(keyToMerge))) {
+				continue;
 			}
-			updatePomFile(currentProjectPomPath, resultList);
+			ChangePropertyValue changePropertyValueRecipe = new ChangePropertyValue(keyToMerge, valueToMerge, true,
+					false);
+			pomRecipeBatch.add(changePropertyValueRecipe);
 
+			AttributedStringBuilder sb = new AttributedStringBuilder();
+			sb.style(sb.style().foreground(AttributedStyle.WHITE));
+			sb.append("Merging maven property key " + keyToMerge);
+			terminalMessage.print(sb.toAttributedString());
 		}
 	}
 
-	private void mergeMavenRepositories(Path currentProjectPomPath, Model currentModel, Model toMergeModel,
-			List<Path> paths, MavenParser mavenParser) throws IOException {
+	private void mergeMavenRepositories(Model currentModel, Model toMergeModel, PomRecipeBatch pomRecipeBatch) {
 		logger.debug("mergeMavenRepositories: Merging Maven Repositories...");
 		List<Repository> toMergeRepositories = toMergeModel.getRepositories();
 		List<Repository> currentRepositories = currentModel.getRepositories();
@@ -615,28 +647,21 @@ public class ProjectMerger {
 			else {
 				AddRepository recipeAddRepository = getRecipeAddRepository(candidateRepository.getId(),
 						candidateRepository.getUrl(), candidateRepository.getName(), false, false);
-				List<SourceFile> pomFiles = mavenParser.parse(paths, this.currentProjectPath, getExecutionContext())
-					.toList();
-				List<Result> resultList = recipeAddRepository
-					.run(new InMemoryLargeSourceSet(pomFiles), getExecutionContext())
-					.getChangeset()
-					.getAllResults();
-				if (!resultList.isEmpty()) {
-					AttributedStringBuilder sb = new AttributedStringBuilder();
-					sb.style(sb.style().foreground(AttributedStyle.WHITE));
-					sb.append("Merging repository section " + candidateRepository.getId() + ", "
-							+ candidateRepository.getUrl());
-					terminalMessage.print(sb.toAttributedString());
-				}
-				updatePomFile(currentProjectPomPath, resultList);
+				pomRecipeBatch.add(recipeAddRepository);
+
+				AttributedStringBuilder sb = new AttributedStringBuilder();
+				sb.style(sb.style().foreground(AttributedStyle.WHITE));
+				sb.append("Merging repository section " + candidateRepository.getId() + ", "
+						+ candidateRepository.getUrl());
+				terminalMessage.print(sb.toAttributedString());
 			}
 		}
 	}
 
-	private void updateSpringApplicationClass(Path pathToCurrentSpringApplicationClass, List<Result> resultList)
-			throws IOException {
-		if (resultList.isEmpty()) {
-			logger.debug("No update of SpringApplication class in " + pathToCurrentSpringApplicationClass);
+	private void updateSpringApplicationClass(SourceFile applicationClass, SourceFile updatedApplicationClass) {
+		if (updatedApplicationClass == applicationClass) {
+			logger.debug("No update of SpringApplication class in " + applicationClass.getSourcePath());
+			return;
 		}
 
 		AttributedStringBuilder sb = new AttributedStringBuilder();
@@ -644,32 +669,8 @@ public class ProjectMerger {
 		sb.append("Adding import statements and annotations to @SpringApplication class");
 		terminalMessage.print(sb.toAttributedString());
 
-		for (Result result : resultList) {
-			// write updated file.
-			try (BufferedWriter sourceFileWriter = Files.newBufferedWriter(pathToCurrentSpringApplicationClass)) {
-				sourceFileWriter.write(result.getAfter().printAllTrimmed());
-			}
-		}
-	}
-
-	private void updatePomFile(Path currentProjectPomPath, List<Result> resultList) throws IOException {
-		if (resultList.isEmpty()) {
-			logger.debug("No update of pom.xml from from " + this.toMergeProjectPath);
-		}
-		for (Result result : resultList) {
-			// write updated file.
-			try (BufferedWriter sourceFileWriter = Files.newBufferedWriter(currentProjectPomPath,
-					StandardCharsets.UTF_8)) {
-				sourceFileWriter.write(result.getAfter().printAllTrimmed());
-			}
-		}
-	}
-
-	private ExecutionContext getExecutionContext() {
-		Consumer<Throwable> onError = e -> {
-			logger.error("error in javaParser execution", e);
-		};
-		return new InMemoryExecutionContext(onError);
+		// write updated file, keeping the updated tree for later steps
+		this.javaSourceCache.write(updatedApplicationClass);
 	}
 
 	public static AddManagedDependency getRecipeAddManagedDependency(String groupId, String artifactId, String version,
@@ -706,4 +707,22 @@ public class ProjectMerger {
 				AddRepository.Type.Repository);
 	}
 
+	/**
+	 * What to do with a file of the project to merge.
+	 */
+	private enum FileAction {
+
+		COPY,
+
+		MERGE_PROPERTIES,
+
+		MERGE_YAML,
+
+		SKIP
+
+	}
+
+	private record FileOperation(Path source, Path target, FileAction action) {
+	}
+
 }
@@ -18,6 +18,7 @@ package org.springframework.cli.merger.ai;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.commonmark.node.AbstractVisitor;
 import org.commonmark.node.FencedCodeBlock;
@@ -26,10 +27,32 @@ public class MarkdownResponseVisitor extends AbstractVisitor {
 
 	private List<ProjectArtifact> projectArtifacts = new ArrayList<>();
 
+	private final Consumer<ProjectArtifact> artifactListener;
+
+	public MarkdownResponseVisitor() {
+		this((projectArtifact) -> {
+		});
+	}
+
+	/**
+	 * Create a visitor.
+	 * @param artifactListener called with each project artifact when it is added
+	 */
+	public MarkdownResponseVisitor(Consumer<ProjectArtifact> artifactListener) {
+		this.artifactListener = artifactListener;
+	}
+
 	@Override
 	public void visit(FencedCodeBlock fencedCodeBlock) {
-		String info = fencedCodeBlock.getInfo();
-		String code = fencedCodeBlock.getLiteral();
+		addCodeBlock(fencedCodeBlock.getInfo(), fencedCodeBlock.getLiteral());
+	}
+
+	/**
+	 * Add the project artifact of a fenced code block, if it holds one.
+	 * @param info the info string of the code block, the language of the code
+	 * @param code the code
+	 */
+	public void addCodeBlock(String info, String code) {
 		if (info.equalsIgnoreCase("java")) {
 			addJavaCode(code);
 		}
@@ -82,6 +105,7 @@ public class MarkdownResponseVisitor extends AbstractVisitor {
 		// TODO - investigate why Node has duplicate entries
 		if (!this.projectArtifacts.contains(projectArtifact)) {
 			this.projectArtifacts.add(projectArtifact);
+			this.artifactListener.accept(projectArtifact);
 		}
 		else {
 			// System.out.println("duplicate project artifact :(");
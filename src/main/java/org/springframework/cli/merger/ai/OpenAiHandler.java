@@ -20,26 +20,40 @@ import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.cli.SpringCliException;
+import org.springframework.cli.merger.ai.service.AbstractOpenAiService;
+import org.springframework.cli.merger.ai.service.AiResponseCache;
 import org.springframework.cli.merger.ai.service.DescriptionRewriteAiService;
 import org.springframework.cli.merger.ai.service.GenerateCodeAiService;
+import org.springframework.cli.merger.ai.service.OpenAiClient;
 import org.springframework.cli.merger.ai.service.ProjectNameHeuristicAiService;
 import org.springframework.cli.runtime.engine.actions.handlers.json.Lsp;
 import org.springframework.cli.util.IoUtils;
 import org.springframework.cli.util.RootPackageFinder;
 import org.springframework.cli.util.TerminalMessage;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.util.StreamUtils;
 
 public class OpenAiHandler {
@@ -48,42 +62,177 @@ public class OpenAiHandler {
 
 	private final GenerateCodeAiService generateCodeAiService;
 
+	private final Function<TerminalMessage, ProjectNameHeuristicAiService> projectNameHeuristicFactory;
+
+	private final Function<TerminalMessage, DescriptionRewriteAiService> descriptionRewriteFactory;
+
+	private final Function<Path, String> rootPackageFinder;
+
 	public OpenAiHandler(GenerateCodeAiService generateCodeAiService) {
+		this(generateCodeAiService, ProjectNameHeuristicAiService::new, DescriptionRewriteAiService::new,
+				OpenAiHandler::findRootPackage);
+	}
+
+	OpenAiHandler(GenerateCodeAiService generateCodeAiService,
+			Function<TerminalMessage, ProjectNameHeuristicAiService> projectNameHeuristicFactory,
+			Function<TerminalMessage, DescriptionRewriteAiService> descriptionRewriteFactory,
+			Function<Path, String> rootPackageFinder) {
 		this.generateCodeAiService = generateCodeAiService;
+		this.projectNameHeuristicFactory = projectNameHeuristicFactory;
+		this.descriptionRewriteFactory = descriptionRewriteFactory;
+		this.rootPackageFinder = rootPackageFinder;
 	}
 
 	public void add(String description, String path, boolean preview, boolean rewrite,
 			TerminalMessage terminalMessage) {
+		add(description, path, preview, rewrite, false, terminalMessage);
+	}
+
+	/**
+	 * Generate the code for a description and write the README describing it.
+	 * <p>
+	 * The project name is derived, the description rewritten and the root package found
+	 * concurrently. When several of them fail, the failure of the first in that order is
+	 * thrown. The latency of each stage, including failed ones, is recorded in the
+	 * {@link OpenAiClient.Metrics metrics} of the OpenAI client. Once the code was
+	 * generated, the latency of the stages and the requests and tokens this run used are
+	 * printed on one line.
+	 * @param description the description of the code to generate
+	 * @param path the project path, {@code null} for the working directory
+	 * @param preview whether to only write the README
+	 * @param rewrite whether to let the description be rewritten first
+	 * @param cache whether to reuse the responses of earlier identical requests
+	 * @param terminalMessage where to print messages
+	 */
+	public void add(String description, String path, boolean preview, boolean rewrite, boolean cache,
+			TerminalMessage terminalMessage) {
 		Path projectPath = getProjectPath(path);
+		AiResponseCache responseCache = (cache) ? AiResponseCache.getDefault() : null;
+		this.generateCodeAiService.setResponseCache(responseCache);
+		StageTimings stageTimings = new StageTimings();
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("spring-cli-ai-");
+		threadFactory.setDaemon(true);
+		ProjectNameHeuristicAiService projectNameHeuristic = this.projectNameHeuristicFactory.apply(terminalMessage);
+		projectNameHeuristic.setResponseCache(responseCache);
+		DescriptionRewriteAiService descriptionRewriteAiService = (rewrite)
+				? this.descriptionRewriteFactory.apply(terminalMessage) : null;
+		if (descriptionRewriteAiService != null) {
+			descriptionRewriteAiService.setResponseCache(responseCache);
+		}
+		AbstractOpenAiService[] services = { this.generateCodeAiService, projectNameHeuristic,
+				descriptionRewriteAiService };
+		// the client may be shared with earlier commands, only what this one used is reported
+		OpenAiClient clientBefore = findOpenAiClient(services);
+		OpenAiClient.Snapshot usageBefore = (clientBefore != null) ? clientBefore.getMetrics().snapshot() : null;
+		ExecutorService executor = Executors.newFixedThreadPool(3, threadFactory);
+		try {
+			// the OpenAI requests and the scan for the root package do not depend on each other
+			CompletableFuture<ProjectName> projectName = CompletableFuture.supplyAsync(() -> {
+				logger.debug("Deriving main Spring project required...");
+				return stageTimings.time("project-name", () -> projectNameHeuristic.deriveProjectName(description));
+			}, executor);
+			CompletableFuture<String> rewrittenDescription = (descriptionRewriteAiService != null)
+					? CompletableFuture.supplyAsync(() -> stageTimings.time("rewrite-description",
+							() -> descriptionRewriteAiService.rewrite(description)), executor)
+					: CompletableFuture.completedFuture(description);
+			CompletableFuture<String> rootPackage = CompletableFuture.supplyAsync(
+					() -> stageTimings.time("root-package", () -> this.rootPackageFinder.apply(projectPath)), executor);
+
+			ProjectName derivedProjectName = join(projectName);
+			logger.debug("Done.  The code will primarily use " + derivedProjectName.getSpringProjectName());
+			String descriptionToUse = join(rewrittenDescription);
+			terminalMessage.print("");
+			terminalMessage.print("The description has been rewritten to be: " + descriptionToUse);
+			terminalMessage.print("");
+			Map<String, String> context = createContext(descriptionToUse, derivedProjectName, join(rootPackage));
 
-		ProjectNameHeuristicAiService projectNameHeuristic = new ProjectNameHeuristicAiService(terminalMessage);
-		logger.debug("Deriving main Spring project required...");
-		ProjectName projectName = projectNameHeuristic.deriveProjectName(description);
-		logger.debug("Done.  The code will primarily use " + projectName.getSpringProjectName());
+			String readmeResponse = stageTimings.time("generate-code",
+					() -> this.generateCodeAiService.generate(context));
 
-		if (rewrite) {
-			DescriptionRewriteAiService descriptionRewriteAiService = new DescriptionRewriteAiService(terminalMessage);
-			description = descriptionRewriteAiService.rewrite(description);
+			writeReadMe(derivedProjectName, readmeResponse, projectPath, terminalMessage);
+			terminalMessage.print(summary(stageTimings, findOpenAiClient(services), clientBefore, usageBefore));
 		}
-		terminalMessage.print("");
-		terminalMessage.print("The description has been rewritten to be: " + description);
-		terminalMessage.print("");
-		Map<String, String> context = createContext(description, projectName, projectPath);
+		finally {
+			executor.shutdownNow();
+			logger.debug("AI add stage latencies: " + stageTimings);
+			OpenAiClient client = findOpenAiClient(services);
+			if (client != null) {
+				stageTimings.getDurations().forEach(client.getMetrics()::recordStage);
+			}
+		}
+	}
 
-		String readmeResponse = this.generateCodeAiService.generate(context);
+	@Nullable
+	private static OpenAiClient findOpenAiClient(AbstractOpenAiService... services) {
+		// the services share one client, it is created by the first request
+		return Arrays.stream(services)
+			.filter(Objects::nonNull)
+			.map(AbstractOpenAiService::getOpenAiClient)
+			.filter(Objects::nonNull)
+			.findFirst()
+			.orElse(null);
+	}
 
-		writeReadMe(projectName, readmeResponse, projectPath, terminalMessage);
+	private static String summary(StageTimings stageTimings, @Nullable OpenAiClient client,
+			@Nullable OpenAiClient clientBefore, @Nullable OpenAiClient.Snapshot usageBefore) {
+		String summary = "Stage timings: " + stageTimings;
+		if (client == null) {
+			// all responses were cached
+			return summary;
+		}
+		OpenAiClient.Snapshot usage = client.getMetrics().snapshot();
+		if (client == clientBefore && usageBefore != null) {
+			usage = usage.since(usageBefore);
+		}
+		return summary + "; OpenAI: " + usage;
 	}
 
-	public void apply(String file, String path, TerminalMessage terminalMessage) {
-		List<ProjectArtifact> projectArtifacts = computeProjectArtifacts(file, path, terminalMessage);
-		ProjectArtifactProcessor projectArtifactProcessor = new ProjectArtifactProcessor(projectArtifacts,
-				getProjectPath(path), terminalMessage);
-		projectArtifactProcessor.process();
+	private static <T> T join(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		}
+		catch (CompletionException ex) {
+			if (ex.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw new SpringCliException("Could not prepare code generation", ex.getCause());
+		}
 	}
 
-	private List<ProjectArtifact> computeProjectArtifacts(String file, String path, TerminalMessage terminalMessage) {
+	public void apply(String file, String path, TerminalMessage terminalMessage) {
 		Path projectPath = getProjectPath(path);
+		Path readmePath = getReadmePath(file, projectPath);
+		ProjectArtifactProcessor projectArtifactProcessor = new ProjectArtifactProcessor(Collections.emptyList(),
+				projectPath, terminalMessage);
+		StageTimings stageTimings = new StageTimings();
+		// each artifact is staged as soon as its code block was read, all are applied once
+		// the file was read
+		try {
+			stageTimings.run("stage-artifacts", () -> stageArtifacts(readmePath, projectArtifactProcessor));
+			stageTimings.run("apply-artifacts", projectArtifactProcessor::commit);
+			terminalMessage.print("Stage timings: " + stageTimings);
+		}
+		finally {
+			projectArtifactProcessor.discard();
+		}
+	}
+
+	private static void stageArtifacts(Path readmePath, ProjectArtifactProcessor projectArtifactProcessor) {
+		try (Reader reader = Files.newBufferedReader(readmePath, StandardCharsets.UTF_8);
+				StreamingCodeBlockExtractor extractor = new StreamingCodeBlockExtractor(
+						projectArtifactProcessor::process)) {
+			char[] buffer = new char[8192];
+			int read;
+			while ((read = reader.read(buffer)) != -1) {
+				extractor.accept(new String(buffer, 0, read));
+			}
+		}
+		catch (IOException ex) {
+			throw new SpringCliException("Could not read file " + readmePath.toAbsolutePath(), ex);
+		}
+	}
+
+	private Path getReadmePath(String file, Path projectPath) {
 		Path readmePath = projectPath.resolve(file);
 		if (Files.notExists(readmePath)) {
 			throw new SpringCliException("Could not find file " + file);
@@ -91,6 +240,11 @@ public class OpenAiHandler {
 		if (!Files.isRegularFile(readmePath)) {
 			throw new SpringCliException("The Path " + readmePath + " is not a regular file, can't read");
 		}
+		return readmePath;
+	}
+
+	private List<ProjectArtifact> computeProjectArtifacts(String file, String path, TerminalMessage terminalMessage) {
+		Path readmePath = getReadmePath(file, getProjectPath(path));
 		try (InputStream stream = Files.newInputStream(readmePath)) {
 			String response = StreamUtils.copyToString(stream, StandardCharsets.UTF_8);
 			return computeProjectArtifacts(response);
@@ -138,21 +292,21 @@ public class OpenAiHandler {
 		return projectPath;
 	}
 
-	private Map<String, String> createContext(String description, ProjectName projectName, Path path) {
+	private Map<String, String> createContext(String description, ProjectName projectName, String rootPackage) {
 		Map<String, String> context = new HashMap<>();
 		context.put("build-tool", "maven");
-		context.put("package-name", calculatePackage(projectName.getShortPackageName(), path));
+		context.put("package-name", rootPackage + ".ai." + projectName.getShortPackageName());
 		context.put("spring-project-name", projectName.getSpringProjectName());
 		context.put("description", description);
 		return context;
 	}
 
-	private String calculatePackage(String shortPackageName, Path path) {
+	private static String findRootPackage(Path path) {
 		Optional<String> rootPackage = RootPackageFinder.findRootPackage(path.toFile());
 		if (rootPackage.isEmpty()) {
 			throw new SpringCliException("Could not find root package from path " + path.toAbsolutePath());
 		}
-		return rootPackage.get() + ".ai." + shortPackageName;
+		return rootPackage.get();
 	}
 
 	List<ProjectArtifact> computeProjectArtifacts(String response) {
@@ -17,54 +17,103 @@
 package org.springframework.cli.merger.ai;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.FileInputStream;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringReader;
 import java.io.Writer;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Model;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import org.springframework.cli.SpringCliException;
+import org.springframework.cli.recipe.PomRecipeBatch;
 import org.springframework.cli.runtime.engine.actions.InjectMavenDependency;
 import org.springframework.cli.runtime.engine.actions.handlers.InjectMavenActionHandler;
 import org.springframework.cli.util.ClassNameExtractor;
+import org.springframework.cli.util.IoUtils;
 import org.springframework.cli.util.MavenDependencyReader;
 import org.springframework.cli.util.PomReader;
 import org.springframework.cli.util.PropertyFileUtils;
 import org.springframework.cli.util.TerminalMessage;
-
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Applies project artifacts to a project as one batch.
+ * <p>
+ * Artifacts are staged as they are processed, then committed together. Source, test and
+ * html files are written in parallel to temporary files next to their target. The
+ * dependencies of all {@code MAVEN_DEPENDENCIES} artifacts are added to the
+ * {@code pom.xml} with a single parse and write, and the properties of all
+ * {@code APPLICATION_PROPERTIES} artifacts are merged into
+ * {@code application.properties} with a single write. Only once all files were staged
+ * are they moved into place, so a failure while staging leaves the project untouched.
+ * Each file is replaced atomically, but not all of them at once. The {@code pom.xml} is
+ * updated last; a failure to update it is reported and does not undo the moved files.
+ */
 public class ProjectArtifactProcessor {
 
+	private static final Logger logger = LoggerFactory.getLogger(ProjectArtifactProcessor.class);
+
+	private static final Pattern GROUP_ID_PATTERN = Pattern.compile("<groupId>(.*?)</groupId>");
+
+	private static final Pattern ARTIFACT_ID_PATTERN = Pattern.compile("<artifactId>(.*?)</artifactId>");
+
+	private static final Pattern PACKAGE_PATTERN = Pattern
+		.compile("^package\\s+([a-zA-Z_][a-zA-Z0-9_]*(\\.[a-zA-Z_][a-zA-Z0-9_]*)*);", Pattern.MULTILINE);
+
+	private static final Pattern HTML_FILENAME_PATTERN = Pattern.compile("<!--\\s*filename:\\s*(\\S+\\.html)\\s*-->");
+
 	private final List<ProjectArtifact> projectArtifacts;
 
 	private final Path projectPath;
 
 	private final TerminalMessage terminalMessage;
 
-	private final Pattern compiledGroupIdPattern;
+	private final ClassNameExtractor classNameExtractor = new ClassNameExtractor();
+
+	private final Map<Path, CompletableFuture<Path>> stagedFiles = new LinkedHashMap<>();
+
+	private final List<CompletableFuture<Path>> replacedFiles = new ArrayList<>();
+
+	@Nullable
+	private ExecutorService executor;
+
+	@Nullable
+	private PomRecipeBatch pomRecipeBatch;
+
+	@Nullable
+	private List<ProjectDependency> projectDependencies;
 
-	private final Pattern compiledArtifactIdPattern;
+	@Nullable
+	private Properties stagedProperties;
 
 	public ProjectArtifactProcessor(List<ProjectArtifact> projectArtifacts, Path projectPath,
 			TerminalMessage terminalMessage) {
 		this.projectArtifacts = projectArtifacts;
 		this.projectPath = projectPath;
 		this.terminalMessage = terminalMessage;
-		compiledGroupIdPattern = Pattern.compile("<groupId>(.*?)</groupId>");
-		compiledArtifactIdPattern = Pattern.compile("<artifactId>(.*?)</artifactId>");
 	}
 
 	@SuppressWarnings("rawtypes")
@@ -75,76 +124,157 @@ public class ProjectArtifactProcessor {
 	private ProcessArtifactResult<Void> processArtifacts(List<ProjectArtifact> projectArtifacts, Path projectPath,
 			TerminalMessage terminalMessage) {
 		ProcessArtifactResult<Void> processArtifactResult = new ProcessArtifactResult<>();
-		for (ProjectArtifact projectArtifact : projectArtifacts) {
-			try {
-				ProjectArtifactType artifactType = projectArtifact.getArtifactType();
-				switch (artifactType) {
-					case SOURCE_CODE:
-						writeSourceCode(projectArtifact, projectPath);
-						break;
-					case TEST_CODE:
-						writeTestCode(projectArtifact, projectPath);
-						break;
-					case MAVEN_DEPENDENCIES:
-						writeMavenDependencies(projectArtifact, projectPath, terminalMessage);
-						break;
-					case APPLICATION_PROPERTIES:
-						writeApplicationProperties(projectArtifact, projectPath);
-						break;
-					case MAIN_CLASS:
-						updateMainApplicationClassAnnotations(projectArtifact, projectPath, terminalMessage);
-						break;
-					case HTML:
-						writeHtml(projectArtifact, projectPath);
-						break;
-					default:
-						processArtifactResult.addToNotProcessed(projectArtifact);
-						break;
+		try {
+			for (ProjectArtifact projectArtifact : projectArtifacts) {
+				if (!processArtifact(projectArtifact, projectPath, terminalMessage)) {
+					processArtifactResult.addToNotProcessed(projectArtifact);
 				}
 			}
+			commit();
+		}
+		finally {
+			discard();
+		}
+		return processArtifactResult;
+	}
+
+	/**
+	 * Stage a single project artifact, such as one extracted from a response while it is
+	 * still being read. Staged artifacts are applied by {@link #commit()}.
+	 * @param projectArtifact the project artifact
+	 * @return whether the artifact was staged
+	 */
+	public boolean process(ProjectArtifact projectArtifact) {
+		return processArtifact(projectArtifact, this.projectPath, this.terminalMessage);
+	}
+
+	/**
+	 * Apply the staged artifacts to the project: move the staged files, including the
+	 * merged {@code application.properties}, into place, then update the {@code pom.xml}
+	 * once.
+	 */
+	public void commit() {
+		if (this.stagedProperties != null) {
+			Path applicationPropertiesPath = getApplicationPropertiesPath(this.projectPath);
+			this.stagedFiles.put(applicationPropertiesPath,
+					CompletableFuture.completedFuture(stageApplicationProperties(applicationPropertiesPath)));
+			this.stagedProperties = null;
+		}
+		Map<Path, Path> files = new LinkedHashMap<>();
+		this.stagedFiles.forEach((target, staged) -> files.put(target, join(staged)));
+		for (Map.Entry<Path, Path> file : files.entrySet()) {
+			try {
+				Files.move(file.getValue(), file.getKey(), StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			}
 			catch (IOException ex) {
-				ex.printStackTrace();
-				throw new SpringCliException("Could not write project artifact.", ex);
+				throw new SpringCliException("Could not write project artifact " + file.getKey(), ex);
 			}
 		}
-		return processArtifactResult;
+		this.stagedFiles.clear();
+		if (this.pomRecipeBatch != null) {
+			try {
+				this.pomRecipeBatch.apply();
+			}
+			catch (Exception ex) {
+				terminalMessage.print(
+						"Could not inject Maven dependencies.  Look at pom.xml contents for messages on what went wrong, e.g. 'No version provided'\n"
+								+ ex.getMessage());
+			}
+			this.pomRecipeBatch = null;
+			this.projectDependencies = null;
+		}
+		logger.debug("Committed " + files.size() + " project artifact files to " + this.projectPath);
+	}
+
+	/**
+	 * Discard the artifacts staged and not committed, deleting their temporary files.
+	 */
+	public void discard() {
+		List<CompletableFuture<Path>> staged = new ArrayList<>(this.stagedFiles.values());
+		staged.addAll(this.replacedFiles);
+		for (CompletableFuture<Path> stagedFile : staged) {
+			try {
+				Files.deleteIfExists(stagedFile.join());
+			}
+			catch (IOException | CompletionException ex) {
+				logger.debug("Could not delete staged file", ex);
+			}
+		}
+		this.stagedFiles.clear();
+		this.replacedFiles.clear();
+		this.stagedProperties = null;
+		this.pomRecipeBatch = null;
+		this.projectDependencies = null;
+		if (this.executor != null) {
+			this.executor.shutdown();
+			this.executor = null;
+		}
+	}
+
+	private boolean processArtifact(ProjectArtifact projectArtifact, Path projectPath,
+			TerminalMessage terminalMessage) {
+		ProjectArtifactType artifactType = projectArtifact.getArtifactType();
+		switch (artifactType) {
+			case SOURCE_CODE:
+				writeSourceCode(projectArtifact, projectPath);
+				break;
+			case TEST_CODE:
+				writeTestCode(projectArtifact, projectPath);
+				break;
+			case MAVEN_DEPENDENCIES:
+				writeMavenDependencies(projectArtifact, projectPath, terminalMessage);
+				break;
+			case APPLICATION_PROPERTIES:
+				writeApplicationProperties(projectArtifact, projectPath);
+				break;
+			case MAIN_CLASS:
+				updateMainApplicationClassAnnotations(projectArtifact, projectPath, terminalMessage);
+				break;
+			case HTML:
+				writeHtml(projectArtifact, projectPath);
+				break;
+			default:
+				return false;
+		}
+		return true;
 	}
 
-	private void writeSourceCode(ProjectArtifact projectArtifact, Path projectPath) throws IOException {
+	private void writeSourceCode(ProjectArtifact projectArtifact, Path projectPath) {
 		String packageName = this.calculatePackageForArtifact(projectArtifact);
-		ClassNameExtractor classNameExtractor = new ClassNameExtractor();
-		Optional<String> className = classNameExtractor.extractClassName(projectArtifact.getText());
+		Optional<String> className = this.classNameExtractor.extractClassName(projectArtifact.getText());
 		if (className.isPresent()) {
-			Path output = createSourceFile(projectPath, packageName, className.get() + ".java");
-			try (Writer writer = new BufferedWriter(new FileWriter(output.toFile()))) {
-				writer.write(projectArtifact.getText());
-			}
+			stageFile(resolveSourceFile(projectPath, packageName, className.get() + ".java"),
+					projectArtifact.getText());
 		}
 	}
 
-	private void writeTestCode(ProjectArtifact projectArtifact, Path projectPath) throws IOException {
-		// TODO parameterize better to reduce code duplication
+	private void writeTestCode(ProjectArtifact projectArtifact, Path projectPath) {
 		String packageName = this.calculatePackageForArtifact(projectArtifact);
-		ClassNameExtractor classNameExtractor = new ClassNameExtractor();
-		Optional<String> className = classNameExtractor.extractClassName(projectArtifact.getText());
+		Optional<String> className = this.classNameExtractor.extractClassName(projectArtifact.getText());
 		if (className.isPresent()) {
-			Path output = createTestFile(projectPath, packageName, className.get() + ".java");
-			try (Writer writer = new BufferedWriter(new FileWriter(output.toFile()))) {
-				writer.write(projectArtifact.getText());
-			}
+			stageFile(resolveTestFile(projectPath, packageName, className.get() + ".java"),
+					projectArtifact.getText());
 		}
 	}
 
 	private void writeMavenDependencies(ProjectArtifact projectArtifact, Path projectPath,
 			TerminalMessage terminalMessage) {
-		PomReader pomReader = new PomReader();
 		Path currentProjectPomPath = this.projectPath.resolve("pom.xml");
 		if (Files.notExists(currentProjectPomPath)) {
 			throw new SpringCliException("Could not find pom.xml in " + this.projectPath
 					+ ".  Make sure you are running the command in the project's root directory.");
 		}
-		Model currentModel = pomReader.readPom(currentProjectPomPath.toFile());
-		List<Dependency> currentDependencies = currentModel.getDependencies();
+		if (this.pomRecipeBatch == null) {
+			// the pom is read once, dependencies of earlier artifacts are tracked as added
+			Model currentModel = new PomReader().readPom(currentProjectPomPath.toFile());
+			this.projectDependencies = new ArrayList<>();
+			for (Dependency dependency : currentModel.getDependencies()) {
+				this.projectDependencies
+					.add(new ProjectDependency(dependency.getGroupId(), dependency.getArtifactId()));
+			}
+			this.pomRecipeBatch = new PomRecipeBatch(currentProjectPomPath, projectPath);
+		}
 
 		MavenDependencyReader mavenDependencyReader = new MavenDependencyReader();
 		// projectArtifact.getText() contains a list of <dependency> elements
@@ -154,28 +284,21 @@ public class ProjectArtifactProcessor {
 				projectPath, terminalMessage);
 
 		for (String candidateDependencyText : mavenDependencies) {
-			if (!candidateDependencyAlreadyPresent(getProjectDependency(candidateDependencyText),
-					currentDependencies)) {
+			ProjectDependency candidateDependency = getProjectDependency(candidateDependencyText);
+			if (!candidateDependencyAlreadyPresent(candidateDependency, this.projectDependencies)) {
 				injectMavenActionHandler.injectDependency(new InjectMavenDependency(candidateDependencyText));
+				this.projectDependencies.add(candidateDependency);
 			}
 		}
-
-		try {
-			injectMavenActionHandler.exec();
-		}
-		catch (Exception ex) {
-			terminalMessage.print(
-					"Could not inject Maven dependencies.  Look at pom.xml contents for messages on what went wrong, e.g. 'No version provided'\n"
-							+ ex.getMessage());
-		}
+		injectMavenActionHandler.addTo(this.pomRecipeBatch);
 	}
 
 	private boolean candidateDependencyAlreadyPresent(ProjectDependency toMergeDependency,
-			List<Dependency> currentDependencies) {
+			List<ProjectDependency> currentDependencies) {
 		String candidateGroupId = toMergeDependency.getGroupId();
 		String candidateArtifactId = toMergeDependency.getArtifactId();
 		boolean candidateDependencyAlreadyPresent = false;
-		for (Dependency currentDependency : currentDependencies) {
+		for (ProjectDependency currentDependency : currentDependencies) {
 			String currentGroupId = currentDependency.getGroupId();
 			String currentArtifactId = currentDependency.getArtifactId();
 			if (candidateGroupId.equals(currentGroupId) && candidateArtifactId.equals(currentArtifactId)) {
@@ -191,8 +314,8 @@ public class ProjectArtifactProcessor {
 		String groupId = null;
 		String artifactId = null;
 		try {
-			groupId = extractValue(xml, this.compiledGroupIdPattern);
-			artifactId = extractValue(xml, this.compiledArtifactIdPattern);
+			groupId = extractValue(xml, GROUP_ID_PATTERN);
+			artifactId = extractValue(xml, ARTIFACT_ID_PATTERN);
 
 		}
 		catch (Exception ex) {
@@ -212,21 +335,44 @@ public class ProjectArtifactProcessor {
 		return null;
 	}
 
-	private void writeApplicationProperties(ProjectArtifact projectArtifact, Path projectPath) throws IOException {
-		Path applicationPropertiesPath = projectPath.resolve("src")
-			.resolve("main")
-			.resolve("resources")
-			.resolve("application.properties");
+	private void writeApplicationProperties(ProjectArtifact projectArtifact, Path projectPath) {
+		Properties srcProperties = new Properties();
+		try {
+			srcProperties.load(IOUtils.toInputStream(projectArtifact.getText(), StandardCharsets.UTF_8));
+		}
+		catch (IOException ex) {
+			throw new SpringCliException("Could not read properties of project artifact.", ex);
+		}
+		if (this.stagedProperties == null) {
+			this.stagedProperties = new Properties();
+		}
+		// properties of earlier artifacts win, as when each artifact was merged in turn
+		srcProperties.forEach(this.stagedProperties::putIfAbsent);
+	}
 
-		if (Files.notExists(applicationPropertiesPath)) {
-			createFile(applicationPropertiesPath);
+	private Path stageApplicationProperties(Path applicationPropertiesPath) {
+		try {
+			Files.createDirectories(applicationPropertiesPath.getParent());
+			Properties destProperties = new Properties();
+			if (Files.exists(applicationPropertiesPath)) {
+				try (InputStream in = Files.newInputStream(applicationPropertiesPath)) {
+					destProperties.load(in);
+				}
+			}
+			Properties mergedProperties = PropertyFileUtils.mergeProperties(this.stagedProperties, destProperties);
+			Path stagedFile = createStagedFile(applicationPropertiesPath);
+			try (Writer writer = Files.newBufferedWriter(stagedFile, Charset.defaultCharset())) {
+				mergedProperties.store(writer, "updated by spring ai add");
+			}
+			return stagedFile;
 		}
-		Properties srcProperties = new Properties();
-		Properties destProperties = new Properties();
-		srcProperties.load(IOUtils.toInputStream(projectArtifact.getText(), StandardCharsets.UTF_8));
-		destProperties.load(new FileInputStream(applicationPropertiesPath.toFile()));
-		Properties mergedProperties = PropertyFileUtils.mergeProperties(srcProperties, destProperties);
-		mergedProperties.store(new FileWriter(applicationPropertiesPath.toFile()), "updated by spring ai add");
+		catch (IOException ex) {
+			throw new SpringCliException("Could not write project artifact " + applicationPropertiesPath, ex);
+		}
+	}
+
+	private static Path getApplicationPropertiesPath(Path projectPath) {
+		return projectPath.resolve("src").resolve("main").resolve("resources").resolve("application.properties");
 	}
 
 	private void updateMainApplicationClassAnnotations(ProjectArtifact projectArtifact, Path projectPath,
@@ -234,15 +380,11 @@ public class ProjectArtifactProcessor {
 		// TODO mer
 	}
 
-	private void writeHtml(ProjectArtifact projectArtifact, Path projectPath) throws IOException {
+	private void writeHtml(ProjectArtifact projectArtifact, Path projectPath) {
 		String html = projectArtifact.getText();
 		String fileName = extractFilenameFromComment(html);
 		if (fileName != null) {
-			Path htmlFile = projectPath.resolve(fileName);
-			createFile(htmlFile);
-			try (Writer writer = new BufferedWriter(new FileWriter(htmlFile.toFile()))) {
-				writer.write(projectArtifact.getText());
-			}
+			stageFile(projectPath.resolve(fileName), projectArtifact.getText());
 		}
 	}
 
@@ -251,9 +393,7 @@ public class ProjectArtifactProcessor {
 		try (BufferedReader reader = new BufferedReader(new StringReader(projectArtifact.getText()))) {
 			String firstLine = reader.readLine();
 			if (firstLine.contains("package")) {
-				String regex = "^package\\s+([a-zA-Z_][a-zA-Z0-9_]*(\\.[a-zA-Z_][a-zA-Z0-9_]*)*);";
-				Pattern pattern = Pattern.compile(regex, Pattern.MULTILINE);
-				Matcher matcher = pattern.matcher(firstLine);
+				Matcher matcher = PACKAGE_PATTERN.matcher(firstLine);
 				if (matcher.find()) {
 					packageToUse = matcher.group(1);
 				}
@@ -267,25 +407,55 @@ public class ProjectArtifactProcessor {
 	}
 
 	private static String extractFilenameFromComment(String content) {
-		String commentPattern = "<!--\\s*filename:\\s*(\\S+\\.html)\\s*-->";
-		Pattern pattern = Pattern.compile(commentPattern);
-		Matcher matcher = pattern.matcher(content);
+		Matcher matcher = HTML_FILENAME_PATTERN.matcher(content);
 		if (matcher.find()) {
 			return matcher.group(1);
 		}
 		return null;
 	}
 
-	private Path createSourceFile(Path projectPath, String packageName, String fileName) throws IOException {
-		Path sourceFile = resolveSourceFile(projectPath, packageName, fileName);
-		createFile(sourceFile);
-		return sourceFile;
+	/**
+	 * Write the contents of a file to a temporary file next to it, in the background. A
+	 * later artifact for the same file replaces the contents of an earlier one.
+	 */
+	private void stageFile(Path file, String text) {
+		if (this.executor == null) {
+			CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("spring-cli-artifact-");
+			threadFactory.setDaemon(true);
+			this.executor = Executors.newFixedThreadPool(
+					Math.max(2, Runtime.getRuntime().availableProcessors()), threadFactory);
+		}
+		CompletableFuture<Path> stagedFile = CompletableFuture.supplyAsync(() -> {
+			try {
+				Path stagedPath = createStagedFile(file);
+				Files.writeString(stagedPath, text, Charset.defaultCharset());
+				return stagedPath;
+			}
+			catch (IOException ex) {
+				throw new SpringCliException("Could not write project artifact " + file, ex);
+			}
+		}, this.executor);
+		CompletableFuture<Path> replaced = this.stagedFiles.put(file, stagedFile);
+		if (replaced != null) {
+			this.replacedFiles.add(replaced);
+		}
+	}
+
+	private static Path createStagedFile(Path file) throws IOException {
+		Files.createDirectories(file.getParent());
+		return IoUtils.createSiblingFile(file);
 	}
 
-	private Path createTestFile(Path projectPath, String packageName, String fileName) throws IOException {
-		Path sourceFile = resolveTestFile(projectPath, packageName, fileName);
-		createFile(sourceFile);
-		return sourceFile;
+	private static Path join(CompletableFuture<Path> stagedFile) {
+		try {
+			return stagedFile.join();
+		}
+		catch (CompletionException ex) {
+			if (ex.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw new SpringCliException("Could not write project artifact.", ex.getCause());
+		}
 	}
 
 	public Path resolveSourceFile(Path projectPath, String packageName, String fileName) {
@@ -302,14 +472,4 @@ public class ProjectArtifactProcessor {
 		return directory.resolve(packageName.replace('.', '/'));
 	}
 
-	private void createFile(Path file) throws IOException {
-		if (Files.exists(file)) {
-			Files.delete(file);
-		}
-		Files.createDirectories(file.getParent());
-		if (Files.notExists(file)) {
-			Files.createFile(file);
-		}
-	}
-
 }
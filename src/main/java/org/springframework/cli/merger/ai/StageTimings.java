@@ -0,0 +1,86 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.merger.ai;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Latency of the stages of a run, such as the OpenAI requests made by
+ * {@link OpenAiHandler#add}. Stages may run concurrently. The string form, the stages
+ * with their latency in milliseconds, is printed as the summary of a command.
+ */
+class StageTimings {
+
+	private final Map<String, Duration> durations = new LinkedHashMap<>();
+
+	/**
+	 * Run a stage and record how long it took, also when it failed.
+	 * @param stage the name of the stage
+	 * @param supplier runs the stage
+	 * @param <T> the type of the result of the stage
+	 * @return the result of the stage
+	 */
+	<T> T time(String stage, Supplier<T> supplier) {
+		long start = System.nanoTime();
+		try {
+			return supplier.get();
+		}
+		finally {
+			record(stage, Duration.ofNanos(System.nanoTime() - start));
+		}
+	}
+
+	/**
+	 * Run a stage without a result and record how long it took, also when it failed.
+	 * @param stage the name of the stage
+	 * @param runnable runs the stage
+	 */
+	void run(String stage, Runnable runnable) {
+		time(stage, () -> {
+			runnable.run();
+			return null;
+		});
+	}
+
+	synchronized void record(String stage, Duration duration) {
+		this.durations.put(stage, duration);
+	}
+
+	/**
+	 * Return the duration of each completed stage, in the order the stages completed.
+	 * @return the durations by stage name
+	 */
+	synchronized Map<String, Duration> getDurations() {
+		return new LinkedHashMap<>(this.durations);
+	}
+
+	@Override
+	public synchronized String toString() {
+		StringBuilder sb = new StringBuilder();
+		this.durations.forEach((stage, duration) -> {
+			if (sb.length() > 0) {
+				sb.append(", ");
+			}
+			sb.append(stage).append('=').append(duration.toMillis()).append("ms");
+		});
+		return sb.toString();
+	}
+
+}
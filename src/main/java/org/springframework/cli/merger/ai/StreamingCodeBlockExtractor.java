@@ -0,0 +1,201 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.merger.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Extracts the project artifacts of a markdown response while it is received.
+ * <p>
+ * Text is handed over in chunks of any size, such as the tokens of a streamed completion.
+ * Each completed line is passed to a line listener and checked for the opening or closing
+ * fence of a fenced code block. As soon as a code block is closed, its project artifact is
+ * passed to the artifact listener, without waiting for the rest of the response.
+ */
+public class StreamingCodeBlockExtractor implements AutoCloseable {
+
+	private final StringBuilder line = new StringBuilder();
+
+	private final Consumer<String> lineListener;
+
+	private final MarkdownResponseVisitor markdownResponseVisitor;
+
+	@Nullable
+	private CodeBlock codeBlock;
+
+	public StreamingCodeBlockExtractor(Consumer<ProjectArtifact> artifactListener) {
+		this((line) -> {
+		}, artifactListener);
+	}
+
+	/**
+	 * Create an extractor.
+	 * @param lineListener called with each line of the response, once it is complete
+	 * @param artifactListener called with each project artifact, once its code block is
+	 * closed
+	 */
+	public StreamingCodeBlockExtractor(Consumer<String> lineListener, Consumer<ProjectArtifact> artifactListener) {
+		this.lineListener = lineListener;
+		this.markdownResponseVisitor = new MarkdownResponseVisitor(artifactListener);
+	}
+
+	/**
+	 * Add the next part of the response.
+	 * @param text the text following what was added so far
+	 */
+	public void accept(String text) {
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '\n') {
+				endLine();
+			}
+			else {
+				this.line.append(c);
+			}
+		}
+	}
+
+	/**
+	 * Complete the response. A code block that is still open is closed by the end of the
+	 * response, as markdown does.
+	 */
+	@Override
+	public void close() {
+		if (this.line.length() > 0) {
+			endLine();
+		}
+		if (this.codeBlock != null) {
+			closeCodeBlock();
+		}
+	}
+
+	/**
+	 * Return the project artifacts extracted so far.
+	 * @return the project artifacts
+	 */
+	public List<ProjectArtifact> getProjectArtifacts() {
+		return this.markdownResponseVisitor.getProjectArtifacts();
+	}
+
+	private void endLine() {
+		int length = this.line.length();
+		if (length > 0 && this.line.charAt(length - 1) == '\r') {
+			this.line.setLength(length - 1);
+		}
+		String text = this.line.toString();
+		this.line.setLength(0);
+		this.lineListener.accept(text);
+		if (this.codeBlock == null) {
+			this.codeBlock = CodeBlock.open(text);
+		}
+		else if (this.codeBlock.isClosedBy(text)) {
+			closeCodeBlock();
+		}
+		else {
+			this.codeBlock.add(text);
+		}
+	}
+
+	private void closeCodeBlock() {
+		this.markdownResponseVisitor.addCodeBlock(this.codeBlock.info, this.codeBlock.getLiteral());
+		this.codeBlock = null;
+	}
+
+	/**
+	 * An open fenced code block.
+	 */
+	private static final class CodeBlock {
+
+		private final char fenceChar;
+
+		private final int fenceLength;
+
+		private final int indent;
+
+		private final String info;
+
+		private final List<String> lines = new ArrayList<>();
+
+		private CodeBlock(char fenceChar, int fenceLength, int indent, String info) {
+			this.fenceChar = fenceChar;
+			this.fenceLength = fenceLength;
+			this.indent = indent;
+			this.info = info;
+		}
+
+		@Nullable
+		static CodeBlock open(String line) {
+			int indent = indentOf(line);
+			if (indent == line.length()) {
+				return null;
+			}
+			char fenceChar = line.charAt(indent);
+			if (fenceChar != '`' && fenceChar != '~') {
+				return null;
+			}
+			int fenceLength = fenceLengthOf(line, indent, fenceChar);
+			if (fenceLength < 3) {
+				return null;
+			}
+			String info = line.substring(indent + fenceLength).trim();
+			if (fenceChar == '`' && info.indexOf('`') != -1) {
+				return null;
+			}
+			return new CodeBlock(fenceChar, fenceLength, indent, info);
+		}
+
+		boolean isClosedBy(String line) {
+			int indent = indentOf(line);
+			int fenceLength = fenceLengthOf(line, indent, this.fenceChar);
+			return fenceLength >= this.fenceLength && line.substring(indent + fenceLength).isBlank();
+		}
+
+		void add(String line) {
+			// content lines lose the indentation of the opening fence
+			int strip = Math.min(this.indent, indentOf(line));
+			this.lines.add(line.substring(strip));
+		}
+
+		String getLiteral() {
+			StringBuilder literal = new StringBuilder();
+			this.lines.forEach((line) -> literal.append(line).append('\n'));
+			return literal.toString();
+		}
+
+		private static int indentOf(String line) {
+			int indent = 0;
+			while (indent < line.length() && line.charAt(indent) == ' ') {
+				indent++;
+			}
+			return indent;
+		}
+
+		private static int fenceLengthOf(String line, int start, char fenceChar) {
+			int end = start;
+			while (end < line.length() && line.charAt(end) == fenceChar) {
+				end++;
+			}
+			return end - start;
+		}
+
+	}
+
+}
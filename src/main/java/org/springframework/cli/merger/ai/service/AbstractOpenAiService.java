@@ -19,12 +19,12 @@ package org.springframework.cli.merger.ai.service;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.time.Duration;
-import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Properties;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 import com.theokanning.openai.completion.chat.ChatCompletionRequest;
 import com.theokanning.openai.completion.chat.ChatMessage;
@@ -34,16 +34,23 @@ import org.jetbrains.annotations.NotNull;
 import org.springframework.cli.SpringCliException;
 import org.springframework.cli.merger.ai.PromptRequest;
 import org.springframework.cli.runtime.engine.templating.HandlebarsTemplateEngine;
-import org.springframework.cli.util.PropertyFileUtils;
 import org.springframework.cli.util.TerminalMessage;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.lang.Nullable;
 import org.springframework.util.StreamUtils;
 
 public abstract class AbstractOpenAiService implements org.springframework.cli.merger.ai.service.OpenAiService {
 
+	// prompt templates are read once per process, compiled templates are cached by the
+	// template engine
+	private static final Map<String, String> prompts = new ConcurrentHashMap<>();
+
 	private final HandlebarsTemplateEngine handlebarsTemplateEngine = new HandlebarsTemplateEngine();
 
-	private com.theokanning.openai.service.OpenAiService openAiService;
+	@Nullable
+	private AiResponseCache responseCache;
+
+	private OpenAiClient openAiClient;
 
 	private final TerminalMessage terminalMessage;
 
@@ -51,6 +58,17 @@ public abstract class AbstractOpenAiService implements org.springframework.cli.m
 		this.terminalMessage = terminalMessage;
 	}
 
+	/**
+	 * Create a service sending its requests through the given client instead of the
+	 * shared one.
+	 * @param terminalMessage where to print messages
+	 * @param openAiClient the client
+	 */
+	protected AbstractOpenAiService(TerminalMessage terminalMessage, OpenAiClient openAiClient) {
+		this.terminalMessage = terminalMessage;
+		this.openAiClient = openAiClient;
+	}
+
 	protected ChatCompletionRequest getChatCompletionRequest(PromptRequest promptRequest) {
 		createOpenAiService();
 		ChatCompletionRequest chatCompletionRequest = ChatCompletionRequest.builder()
@@ -63,16 +81,26 @@ public abstract class AbstractOpenAiService implements org.springframework.cli.m
 	}
 
 	private void createOpenAiService() {
-		if (this.openAiService == null) {
-			// get api token in file ~/.openai
-			Properties properties = PropertyFileUtils.getPropertyFile();
-			String apiKey = properties.getProperty("OPEN_AI_API_KEY");
-			this.openAiService = new OpenAiService(apiKey, Duration.of(5, ChronoUnit.MINUTES));
+		if (this.openAiClient == null) {
+			// api token in file ~/.openai, connections are shared by all services
+			this.openAiClient = OpenAiClient.getShared();
 		}
 	}
 
 	public OpenAiService getOpenAiService() {
-		return openAiService;
+		return (openAiClient != null) ? openAiClient.getOpenAiService() : null;
+	}
+
+	public OpenAiClient getOpenAiClient() {
+		return openAiClient;
+	}
+
+	/**
+	 * Set the cache to reuse the responses of earlier identical requests from.
+	 * @param responseCache the cache or {@code null} to always send requests
+	 */
+	public void setResponseCache(@Nullable AiResponseCache responseCache) {
+		this.responseCache = responseCache;
 	}
 
 	public HandlebarsTemplateEngine getHandlebarsTemplateEngine() {
@@ -91,10 +119,14 @@ public abstract class AbstractOpenAiService implements org.springframework.cli.m
 
 	protected String getPrompt(Map<String, String> context, String promptType) {
 		String resourceFileName = "/org/springframework/cli/merger/ai/openai-" + promptType + "-prompt.txt";
+		String promptRaw = prompts.computeIfAbsent(resourceFileName, AbstractOpenAiService::readPrompt);
+		return getHandlebarsTemplateEngine().process(promptRaw, context);
+	}
+
+	private static String readPrompt(String resourceFileName) {
 		try {
 			ClassPathResource promptResource = new ClassPathResource(resourceFileName);
-			String promptRaw = StreamUtils.copyToString(promptResource.getInputStream(), StandardCharsets.UTF_8);
-			return getHandlebarsTemplateEngine().process(promptRaw, context);
+			return StreamUtils.copyToString(promptResource.getInputStream(), StandardCharsets.UTF_8);
 		}
 		catch (FileNotFoundException ex) {
 			throw new SpringCliException("Resource file note found:" + resourceFileName);
@@ -113,13 +145,61 @@ public abstract class AbstractOpenAiService implements org.springframework.cli.m
 
 	@NotNull
 	protected String getResponse(ChatCompletionRequest chatCompletionRequest) {
+		Optional<String> cachedResponse = getCachedResponse(chatCompletionRequest);
+		if (cachedResponse.isPresent()) {
+			return cachedResponse.get();
+		}
 		StringBuilder builder = new StringBuilder();
-		getOpenAiService().createChatCompletion(chatCompletionRequest).getChoices().forEach(choice -> {
+		getOpenAiClient().createChatCompletion(chatCompletionRequest).getChoices().forEach(choice -> {
 			builder.append(choice.getMessage().getContent());
 		});
 
 		String response = builder.toString();
+		cacheResponse(chatCompletionRequest, response);
 		return response;
 	}
 
+	/**
+	 * Stream the completion of a request, passing the text to a listener as it arrives.
+	 * @param chatCompletionRequest the request
+	 * @param textListener called with each part of the response text as it arrives
+	 * @return the whole response text
+	 */
+	protected String getStreamingResponse(ChatCompletionRequest chatCompletionRequest,
+			Consumer<String> textListener) {
+		Optional<String> cachedResponse = getCachedResponse(chatCompletionRequest);
+		if (cachedResponse.isPresent()) {
+			textListener.accept(cachedResponse.get());
+			return cachedResponse.get();
+		}
+		StringBuilder builder = new StringBuilder();
+		getOpenAiClient().streamChatCompletion(chatCompletionRequest)
+			.blockingForEach((chunk) -> chunk.getChoices().forEach((choice) -> {
+				// the first chunk only carries the role of the message
+				String content = choice.getMessage().getContent();
+				if (content != null) {
+					builder.append(content);
+					textListener.accept(content);
+				}
+			}));
+		String response = builder.toString();
+		cacheResponse(chatCompletionRequest, response);
+		return response;
+	}
+
+	private Optional<String> getCachedResponse(ChatCompletionRequest chatCompletionRequest) {
+		Optional<String> response = (this.responseCache != null) ? this.responseCache.get(chatCompletionRequest)
+				: Optional.empty();
+		if (response.isPresent()) {
+			this.terminalMessage.print("Using the cached response of an earlier identical request.");
+		}
+		return response;
+	}
+
+	private void cacheResponse(ChatCompletionRequest chatCompletionRequest, String response) {
+		if (this.responseCache != null && !response.isEmpty()) {
+			this.responseCache.put(chatCompletionRequest, response);
+		}
+	}
+
 }
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.merger.ai.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import com.theokanning.openai.completion.chat.ChatCompletionRequest;
+import com.theokanning.openai.completion.chat.ChatMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.cli.util.CacheDirectories;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * On-disk cache of OpenAI chat completion responses, so that sending the same prompts
+ * again costs no tokens and returns at once.
+ * <p>
+ * The cache is only used when asked for, as sending the same prompts again is also the
+ * way to get a different response. Entries are keyed by a hash of the model, the
+ * temperature and the messages of the request, with whitespace in the messages
+ * normalized so that formatting differences of the prompt templates do not matter.
+ * Entries expire after a time to live and the total size of the cache is bounded, least
+ * recently used entries are evicted first. Any failure while reading or writing the cache
+ * is logged and treated as a cache miss.
+ */
+public class AiResponseCache {
+
+	private static final Duration DEFAULT_TTL = Duration.ofDays(7);
+
+	private static final long DEFAULT_MAX_SIZE = 50 * 1024 * 1024;
+
+	private static final String ENTRY_SUFFIX = ".properties";
+
+	private static final Logger logger = LoggerFactory.getLogger(AiResponseCache.class);
+
+	private static volatile AiResponseCache defaultCache;
+
+	private final Path cacheDir;
+
+	private final Duration ttl;
+
+	private final long maxSize;
+
+	/**
+	 * Create a new cache.
+	 * @param cacheDir the directory holding the cache
+	 * @param ttl how long a response is used
+	 * @param maxSize maximum total size in bytes of cached responses
+	 */
+	public AiResponseCache(Path cacheDir, Duration ttl, long maxSize) {
+		Assert.notNull(cacheDir, "cacheDir must be set");
+		Assert.notNull(ttl, "ttl must be set");
+		this.cacheDir = cacheDir;
+		this.ttl = ttl;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Get the cache keeping its responses in the cache directory of the cli.
+	 * @return the default cache
+	 */
+	public static AiResponseCache getDefault() {
+		if (defaultCache == null) {
+			synchronized (AiResponseCache.class) {
+				if (defaultCache == null) {
+					defaultCache = new AiResponseCache(CacheDirectories.getDefaultCacheDir().resolve("ai-responses"),
+							DEFAULT_TTL, DEFAULT_MAX_SIZE);
+				}
+			}
+		}
+		return defaultCache;
+	}
+
+	/**
+	 * Find the response to a request.
+	 * @param chatCompletionRequest the request
+	 * @return the response if it was cached within the time to live
+	 */
+	public Optional<String> get(ChatCompletionRequest chatCompletionRequest) {
+		Path entryFile = getEntryFile(chatCompletionRequest);
+		if (Files.notExists(entryFile)) {
+			return Optional.empty();
+		}
+		try {
+			Properties entry = readEntry(entryFile);
+			Instant created = Instant.ofEpochMilli(Long.parseLong(entry.getProperty("created", "0")));
+			String response = entry.getProperty("response");
+			if (response == null || created.plus(this.ttl).isBefore(Instant.now())) {
+				logger.debug("Cached response " + entryFile + " expired");
+				Files.deleteIfExists(entryFile);
+				return Optional.empty();
+			}
+			// last modified time of the entry file is the last access used for eviction
+			Files.setLastModifiedTime(entryFile, FileTime.from(Instant.now()));
+			logger.debug("Retrieved response from cache " + entryFile);
+			return Optional.of(response);
+		}
+		catch (IOException | RuntimeException ex) {
+			logger.warn("Could not read cached response " + entryFile, ex);
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Store the response to a request, evicting expired and least recently used entries
+	 * if the cache grows beyond its maximum size.
+	 * @param chatCompletionRequest the request
+	 * @param response the response
+	 */
+	public void put(ChatCompletionRequest chatCompletionRequest, String response) {
+		Path entryFile = getEntryFile(chatCompletionRequest);
+		try {
+			Files.createDirectories(this.cacheDir);
+			Properties entry = new Properties();
+			entry.setProperty("model", String.valueOf(chatCompletionRequest.getModel()));
+			entry.setProperty("created", Long.toString(System.currentTimeMillis()));
+			entry.setProperty("response", response);
+			Path tempFile = Files.createTempFile(this.cacheDir, "response-", ".tmp");
+			try (OutputStream out = Files.newOutputStream(tempFile)) {
+				entry.store(out, "spring cli ai response cache entry");
+			}
+			Files.move(tempFile, entryFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			evict();
+		}
+		catch (IOException ex) {
+			logger.warn("Could not cache response " + entryFile, ex);
+		}
+	}
+
+	/**
+	 * Evict expired entries, then least recently used entries until the cache fits its
+	 * maximum size.
+	 */
+	void evict() throws IOException {
+		List<CacheEntry> entries = new ArrayList<>();
+		Instant expiredBefore = Instant.now().minus(this.ttl);
+		try (Stream<Path> files = Files.list(this.cacheDir)) {
+			for (Path file : files.filter((path) -> path.toString().endsWith(ENTRY_SUFFIX)).toList()) {
+				FileTime lastAccess = Files.getLastModifiedTime(file);
+				if (lastAccess.toInstant().isBefore(expiredBefore)) {
+					// not even read within the time to live, so it was created before
+					Files.deleteIfExists(file);
+				}
+				else {
+					entries.add(new CacheEntry(file, Files.size(file), lastAccess));
+				}
+			}
+		}
+		long totalSize = entries.stream().mapToLong(CacheEntry::size).sum();
+		entries.sort(Comparator.comparing(CacheEntry::lastAccess));
+		for (CacheEntry entry : entries) {
+			if (totalSize <= this.maxSize) {
+				break;
+			}
+			logger.debug("Evicting cached response " + entry.file());
+			Files.deleteIfExists(entry.file());
+			totalSize -= entry.size();
+		}
+	}
+
+	private Path getEntryFile(ChatCompletionRequest chatCompletionRequest) {
+		return this.cacheDir.resolve(getKey(chatCompletionRequest) + ENTRY_SUFFIX);
+	}
+
+	/**
+	 * Return the key of a request, a hash of the model, the temperature and the messages
+	 * with their whitespace normalized.
+	 * @param chatCompletionRequest the request
+	 * @return the key
+	 */
+	static String getKey(ChatCompletionRequest chatCompletionRequest) {
+		StringBuilder key = new StringBuilder();
+		key.append(chatCompletionRequest.getModel()).append('\n');
+		key.append(chatCompletionRequest.getTemperature()).append('\n');
+		for (ChatMessage message : chatCompletionRequest.getMessages()) {
+			key.append(message.getRole()).append('\n').append(normalize(message.getContent())).append('\0');
+		}
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			return HexFormat.of().formatHex(digest.digest(key.toString().getBytes(StandardCharsets.UTF_8)));
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static String normalize(@Nullable String content) {
+		return (content != null) ? content.strip().replaceAll("\\s+", " ") : "";
+	}
+
+	private static Properties readEntry(Path entryFile) throws IOException {
+		Properties entry = new Properties();
+		try (InputStream in = Files.newInputStream(entryFile)) {
+			entry.load(in);
+		}
+		return entry;
+	}
+
+	private record CacheEntry(Path file, long size, FileTime lastAccess) {
+	}
+
+}
@@ -23,24 +23,52 @@ import java.util.Map;
 import java.util.TimeZone;
 
 import com.theokanning.openai.completion.chat.ChatCompletionRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import org.springframework.cli.merger.ai.PromptRequest;
 import org.springframework.cli.merger.ai.ResponseModifier;
+import org.springframework.cli.merger.ai.StreamingCodeBlockExtractor;
 import org.springframework.cli.util.TerminalMessage;
 
 public class GenerateCodeAiService extends AbstractOpenAiService {
 
+	private static final Logger logger = LoggerFactory.getLogger(GenerateCodeAiService.class);
+
+	private final boolean streaming;
+
 	public GenerateCodeAiService(TerminalMessage terminalMessage) {
+		this(terminalMessage, true);
+	}
+
+	/**
+	 * Create a service.
+	 * @param terminalMessage where progress is printed
+	 * @param streaming whether the response is printed line by line as it arrives, rather
+	 * than waiting for the whole response
+	 */
+	public GenerateCodeAiService(TerminalMessage terminalMessage, boolean streaming) {
 		super(terminalMessage);
+		this.streaming = streaming;
 	}
 
 	public String generate(Map<String, String> context) {
 		PromptRequest promptRequest = createPromptRequest(context, "ai-add");
-		String completionEstimate = getCompletionEstimate();
-		getTerminalMessage()
-			.print("Generating code.  This will take a few minutes ..." + " Check back around " + completionEstimate);
 		ChatCompletionRequest chatCompletionRequest = getChatCompletionRequest(promptRequest);
-		String response = getResponse(chatCompletionRequest);
+		String response;
+		if (this.streaming) {
+			getTerminalMessage().print("Generating code ...");
+			try (StreamingCodeBlockExtractor extractor = new StreamingCodeBlockExtractor(getTerminalMessage()::print,
+					(projectArtifact) -> logger.debug("Received " + projectArtifact.getArtifactType()))) {
+				response = getStreamingResponse(chatCompletionRequest, extractor::accept);
+			}
+		}
+		else {
+			String completionEstimate = getCompletionEstimate();
+			getTerminalMessage().print(
+					"Generating code.  This will take a few minutes ..." + " Check back around " + completionEstimate);
+			response = getResponse(chatCompletionRequest);
+		}
 		ResponseModifier responseModifier = new ResponseModifier();
 		return responseModifier.modify(response, context.get("description"));
 	}
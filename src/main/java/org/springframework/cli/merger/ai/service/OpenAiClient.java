@@ -0,0 +1,406 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.merger.ai.service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.theokanning.openai.Usage;
+import com.theokanning.openai.client.OpenAiApi;
+import com.theokanning.openai.completion.chat.ChatCompletionChunk;
+import com.theokanning.openai.completion.chat.ChatCompletionRequest;
+import com.theokanning.openai.completion.chat.ChatCompletionResult;
+import com.theokanning.openai.service.OpenAiService;
+import io.reactivex.Flowable;
+import okhttp3.ConnectionPool;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import retrofit2.Retrofit;
+import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
+import retrofit2.converter.jackson.JacksonConverterFactory;
+
+import org.springframework.cli.util.PropertyFileUtils;
+import org.springframework.lang.Nullable;
+
+/**
+ * OpenAI client shared by all AI services of the cli.
+ * <p>
+ * A single HTTP client is used for all requests, so connections and TLS sessions are
+ * reused across services and requests, and concurrent requests share one connection
+ * pool. Requests answered with {@code 429} or a {@code 5xx} status, or that could not
+ * connect, are retried a bounded number of times with exponential backoff and full
+ * jitter, honoring a {@code Retry-After} header. Requests that timed out or were canceled
+ * are not retried, as the server may still be working on them. The latency of each request and the
+ * tokens used are recorded in {@link Metrics}.
+ */
+public class OpenAiClient {
+
+	private static final Logger logger = LoggerFactory.getLogger(OpenAiClient.class);
+
+	private static final String BASE_URL = "https://api.openai.com/";
+
+	private static final Duration DEFAULT_TIMEOUT = Duration.of(5, ChronoUnit.MINUTES);
+
+	private static final int DEFAULT_MAX_ATTEMPTS = 4;
+
+	private static final Duration INITIAL_BACKOFF = Duration.ofMillis(500);
+
+	private static final Duration MAX_BACKOFF = Duration.ofSeconds(20);
+
+	private static volatile OpenAiClient sharedClient;
+
+	private final String apiKey;
+
+	private final OkHttpClient client;
+
+	private final OpenAiService openAiService;
+
+	private final Metrics metrics = new Metrics();
+
+	/**
+	 * Create a client.
+	 * @param apiKey the OpenAI API key
+	 * @param baseUrl the URL of the OpenAI API
+	 * @param timeout the read timeout of a request
+	 * @param maxAttempts how many times a request is sent at most
+	 */
+	public OpenAiClient(String apiKey, String baseUrl, Duration timeout, int maxAttempts) {
+		this.apiKey = apiKey;
+		ObjectMapper mapper = OpenAiService.defaultObjectMapper();
+		this.client = OpenAiService.defaultClient(apiKey, timeout)
+			.newBuilder()
+			// the default pool closes idle connections after a second
+			.connectionPool(new ConnectionPool(5, 5, TimeUnit.MINUTES))
+			.addInterceptor(new RetryInterceptor(maxAttempts, this.metrics))
+			.build();
+		Retrofit retrofit = new Retrofit.Builder().baseUrl(baseUrl)
+			.client(this.client)
+			.addConverterFactory(JacksonConverterFactory.create(mapper))
+			.addCallAdapterFactory(RxJava2CallAdapterFactory.create())
+			.build();
+		this.openAiService = new OpenAiService(retrofit.create(OpenAiApi.class),
+				this.client.dispatcher().executorService());
+	}
+
+	/**
+	 * Get the client shared by all services, using the API key in {@code ~/.openai}. A
+	 * new client is created if the API key changed.
+	 * @return the shared client
+	 */
+	public static OpenAiClient getShared() {
+		String apiKey = PropertyFileUtils.getPropertyFile().getProperty("OPEN_AI_API_KEY");
+		OpenAiClient client = sharedClient;
+		if (client == null || !Objects.equals(client.apiKey, apiKey)) {
+			synchronized (OpenAiClient.class) {
+				client = sharedClient;
+				if (client == null || !Objects.equals(client.apiKey, apiKey)) {
+					if (client != null) {
+						client.shutdown();
+					}
+					client = new OpenAiClient(apiKey, BASE_URL, DEFAULT_TIMEOUT, DEFAULT_MAX_ATTEMPTS);
+					sharedClient = client;
+				}
+			}
+		}
+		return client;
+	}
+
+	/**
+	 * Create a chat completion, recording the tokens it used.
+	 * @param chatCompletionRequest the request
+	 * @return the completion
+	 */
+	public ChatCompletionResult createChatCompletion(ChatCompletionRequest chatCompletionRequest) {
+		ChatCompletionResult result = this.openAiService.createChatCompletion(chatCompletionRequest);
+		this.metrics.recordUsage(result.getUsage());
+		return result;
+	}
+
+	/**
+	 * Stream a chat completion. Streamed completions do not report the tokens they used.
+	 * @param chatCompletionRequest the request
+	 * @return the chunks of the completion
+	 */
+	public Flowable<ChatCompletionChunk> streamChatCompletion(ChatCompletionRequest chatCompletionRequest) {
+		return this.openAiService.streamChatCompletion(chatCompletionRequest);
+	}
+
+	public OpenAiService getOpenAiService() {
+		return this.openAiService;
+	}
+
+	public Metrics getMetrics() {
+		return this.metrics;
+	}
+
+	/**
+	 * Release the threads and idle connections of the client. Requests in flight still
+	 * complete, no new request can be sent.
+	 */
+	public void shutdown() {
+		this.client.dispatcher().executorService().shutdown();
+		this.client.connectionPool().evictAll();
+	}
+
+	/**
+	 * Counts of {@link Metrics} at one point in time.
+	 *
+	 * @param requests the number of requests sent, including retries
+	 * @param retries the number of retried requests
+	 * @param totalLatencyNanos the summed latency of the requests
+	 * @param promptTokens the prompt tokens used by completions that reported them
+	 * @param completionTokens the completion tokens used by completions that reported them
+	 */
+	public record Snapshot(long requests, long retries, long totalLatencyNanos, long promptTokens,
+			long completionTokens) {
+
+		/**
+		 * Return the counts recorded since an earlier snapshot of the same metrics.
+		 * @param earlier the earlier snapshot
+		 * @return the difference of the counts
+		 */
+		public Snapshot since(Snapshot earlier) {
+			return new Snapshot(this.requests - earlier.requests, this.retries - earlier.retries,
+					this.totalLatencyNanos - earlier.totalLatencyNanos, this.promptTokens - earlier.promptTokens,
+					this.completionTokens - earlier.completionTokens);
+		}
+
+		public Duration getAverageLatency() {
+			return (this.requests != 0) ? Duration.ofNanos(this.totalLatencyNanos / this.requests) : Duration.ZERO;
+		}
+
+		@Override
+		public String toString() {
+			return this.requests + " requests, " + this.retries + " retries, " + getAverageLatency().toMillis()
+					+ "ms average latency, " + this.promptTokens + " prompt and " + this.completionTokens
+					+ " completion tokens";
+		}
+
+	}
+
+	/**
+	 * Retries requests that were rate limited, failed on the server or could not connect.
+	 */
+	private static final class RetryInterceptor implements Interceptor {
+
+		private final int maxAttempts;
+
+		private final Metrics metrics;
+
+		RetryInterceptor(int maxAttempts, Metrics metrics) {
+			this.maxAttempts = maxAttempts;
+			this.metrics = metrics;
+		}
+
+		@Override
+		public Response intercept(Chain chain) throws IOException {
+			Request request = chain.request();
+			for (int attempt = 1;; attempt++) {
+				long start = System.nanoTime();
+				Response response;
+				try {
+					response = chain.proceed(request);
+				}
+				catch (IOException ex) {
+					this.metrics.recordRequest(System.nanoTime() - start, true);
+					// a request that was sent may be processed and billed, only retry when
+					// it never reached the server
+					if (attempt >= this.maxAttempts || chain.call().isCanceled() || !isConnectFailure(ex)) {
+						throw ex;
+					}
+					logger.debug("Retrying " + request.url() + " after " + ex.getMessage());
+					backOff(attempt, null);
+					continue;
+				}
+				boolean retryable = response.code() == 429 || response.code() >= 500;
+				this.metrics.recordRequest(System.nanoTime() - start, retryable);
+				if (!retryable || attempt >= this.maxAttempts || chain.call().isCanceled()) {
+					return response;
+				}
+				logger.debug("Retrying " + request.url() + " after status " + response.code());
+				String retryAfter = response.header("Retry-After");
+				response.close();
+				backOff(attempt, retryAfter);
+			}
+		}
+
+		private static boolean isConnectFailure(IOException ex) {
+			return ex instanceof ConnectException || ex instanceof UnknownHostException
+					|| ex instanceof NoRouteToHostException;
+		}
+
+		private void backOff(int attempt, @Nullable String retryAfter) throws InterruptedIOException {
+			this.metrics.retries.incrementAndGet();
+			long backOff = Math.min(MAX_BACKOFF.toMillis(), INITIAL_BACKOFF.toMillis() << (attempt - 1));
+			long sleep = ThreadLocalRandom.current().nextLong(backOff + 1);
+			if (retryAfter != null) {
+				try {
+					sleep = Math.min(MAX_BACKOFF.toMillis(), Math.max(sleep, Long.parseLong(retryAfter.trim()) * 1000));
+				}
+				catch (NumberFormatException ex) {
+					// an HTTP date, the jittered backoff is used instead
+				}
+			}
+			try {
+				Thread.sleep(sleep);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting to retry");
+			}
+		}
+
+	}
+
+	/**
+	 * Latency of the requests and tokens used by the completions of a client, and latency of
+	 * the stages of the commands using it.
+	 */
+	public static final class Metrics {
+
+		private final AtomicLong requests = new AtomicLong();
+
+		private final AtomicLong failedRequests = new AtomicLong();
+
+		private final AtomicLong retries = new AtomicLong();
+
+		private final AtomicLong totalLatencyNanos = new AtomicLong();
+
+		private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+		private final AtomicLong promptTokens = new AtomicLong();
+
+		private final AtomicLong completionTokens = new AtomicLong();
+
+		private final Map<String, Duration> stageLatencies = new ConcurrentHashMap<>();
+
+		void recordRequest(long latencyNanos, boolean failed) {
+			this.requests.incrementAndGet();
+			if (failed) {
+				this.failedRequests.incrementAndGet();
+			}
+			this.totalLatencyNanos.addAndGet(latencyNanos);
+			this.maxLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+			logger.debug("OpenAI request took " + Duration.ofNanos(latencyNanos).toMillis() + "ms");
+		}
+
+		void recordUsage(@Nullable Usage usage) {
+			if (usage != null) {
+				this.promptTokens.addAndGet(usage.getPromptTokens());
+				this.completionTokens.addAndGet(usage.getCompletionTokens());
+				logger.debug("OpenAI completion used " + usage.getPromptTokens() + " prompt and "
+						+ usage.getCompletionTokens() + " completion tokens");
+			}
+		}
+
+		/**
+		 * Record how long a stage of a command took, such as deriving the project name in
+		 * {@code ai add}. Only the latest latency of each stage is kept.
+		 * @param stage the name of the stage
+		 * @param latency how long the stage took, whether it completed or failed
+		 */
+		public void recordStage(String stage, Duration latency) {
+			this.stageLatencies.put(stage, latency);
+			logger.debug("Stage " + stage + " took " + latency.toMillis() + "ms");
+		}
+
+		/**
+		 * Number of requests sent, including retries.
+		 * @return the request count
+		 */
+		public long getRequests() {
+			return this.requests.get();
+		}
+
+		/**
+		 * Number of requests that failed or were answered with a status that is retried.
+		 * @return the failed request count
+		 */
+		public long getFailedRequests() {
+			return this.failedRequests.get();
+		}
+
+		public long getRetries() {
+			return this.retries.get();
+		}
+
+		/**
+		 * Average time until the response headers of a request were received.
+		 * @return the average latency
+		 */
+		public Duration getAverageLatency() {
+			long count = this.requests.get();
+			return (count != 0) ? Duration.ofNanos(this.totalLatencyNanos.get() / count) : Duration.ZERO;
+		}
+
+		public Duration getMaxLatency() {
+			return Duration.ofNanos(this.maxLatencyNanos.get());
+		}
+
+		public long getPromptTokens() {
+			return this.promptTokens.get();
+		}
+
+		public long getCompletionTokens() {
+			return this.completionTokens.get();
+		}
+
+		/**
+		 * Latest latency of each recorded stage.
+		 * @return the latencies by stage name
+		 */
+		public Map<String, Duration> getStageLatencies() {
+			return Map.copyOf(this.stageLatencies);
+		}
+
+		/**
+		 * Return the counts recorded so far, to report what a single command used by
+		 * subtracting those taken before it ran.
+		 * @return the current counts
+		 */
+		public Snapshot snapshot() {
+			return new Snapshot(this.requests.get(), this.retries.get(), this.totalLatencyNanos.get(),
+					this.promptTokens.get(), this.completionTokens.get());
+		}
+
+		@Override
+		public String toString() {
+			return "Metrics{" + "requests=" + this.requests + ", failedRequests=" + this.failedRequests + ", retries="
+					+ this.retries + ", averageLatency=" + getAverageLatency().toMillis() + "ms, maxLatency="
+					+ getMaxLatency().toMillis() + "ms, promptTokens=" + this.promptTokens + ", completionTokens="
+					+ this.completionTokens + ", stageLatencies=" + this.stageLatencies + '}';
+		}
+
+	}
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.recipe;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.Recipe;
+import org.openrewrite.Result;
+import org.openrewrite.SourceFile;
+import org.openrewrite.config.DeclarativeRecipe;
+import org.openrewrite.internal.InMemoryLargeSourceSet;
+import org.openrewrite.maven.MavenParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.cli.SpringCliException;
+import org.springframework.util.Assert;
+
+/**
+ * Collects recipes targeting a single {@code pom.xml} and applies them as one composite
+ * recipe. The pom is parsed once and written at most once, no matter how many recipes
+ * were added, instead of a parse and write per dependency, property, repository or
+ * plugin.
+ */
+public class PomRecipeBatch {
+
+	private static final Logger logger = LoggerFactory.getLogger(PomRecipeBatch.class);
+
+	private final Path pomPath;
+
+	private final Path baseDir;
+
+	private final List<Recipe> recipes = new ArrayList<>();
+
+	private int parseCount;
+
+	private int writeCount;
+
+	/**
+	 * Create a new instance
+	 * @param pomPath the pom file the recipes are applied to
+	 * @param baseDir the directory used as base when parsing the pom file
+	 */
+	public PomRecipeBatch(Path pomPath, Path baseDir) {
+		Assert.notNull(pomPath, "pomPath must be set");
+		this.pomPath = pomPath;
+		this.baseDir = baseDir;
+	}
+
+	/**
+	 * Add a recipe to the batch, recipes are run in the order they are added.
+	 * @param recipe the recipe to add
+	 */
+	public void add(Recipe recipe) {
+		this.recipes.add(recipe);
+	}
+
+	public boolean isEmpty() {
+		return this.recipes.isEmpty();
+	}
+
+	public int size() {
+		return this.recipes.size();
+	}
+
+	/**
+	 * Parse the pom file, run all added recipes in a single pass and write the file back
+	 * if it changed. The batch is cleared afterwards so it can be reused.
+	 * @return the results of the composite recipe run
+	 */
+	public List<Result> apply() {
+		if (this.recipes.isEmpty()) {
+			logger.debug("No recipes to apply to " + this.pomPath);
+			return Collections.emptyList();
+		}
+		DeclarativeRecipe aggregateRecipe = new DeclarativeRecipe("spring.cli.PomRecipeBatch",
+				"Apply batched pom changes", "", Collections.emptySet(), null, null, false, Collections.emptyList());
+		aggregateRecipe.getRecipeList().addAll(this.recipes);
+
+		ExecutionContext executionContext = getExecutionContext();
+		MavenParser mavenParser = MavenParser.builder().build();
+		List<SourceFile> parsedPomFiles = mavenParser.parse(List.of(this.pomPath), this.baseDir, executionContext)
+			.toList();
+		this.parseCount++;
+		List<Result> resultList = aggregateRecipe.run(new InMemoryLargeSourceSet(parsedPomFiles), executionContext)
+			.getChangeset()
+			.getAllResults();
+		write(resultList);
+		logger.debug("Applied " + this.recipes.size() + " recipes to " + this.pomPath + " with " + this.parseCount
+				+ " parse(s) and " + this.writeCount + " write(s)");
+		this.recipes.clear();
+		return resultList;
+	}
+
+	/**
+	 * Number of times the pom file was parsed by this batch.
+	 * @return the parse count
+	 */
+	public int getParseCount() {
+		return this.parseCount;
+	}
+
+	/**
+	 * Number of times the pom file was written by this batch.
+	 * @return the write count
+	 */
+	public int getWriteCount() {
+		return this.writeCount;
+	}
+
+	private void write(List<Result> resultList) {
+		if (resultList.isEmpty()) {
+			return;
+		}
+		// a single pom was parsed so there is at most one result
+		Result result = resultList.get(resultList.size() - 1);
+		try (BufferedWriter sourceFileWriter = Files.newBufferedWriter(this.pomPath, StandardCharsets.UTF_8)) {
+			sourceFileWriter.write(result.getAfter().printAllTrimmed());
+		}
+		catch (IOException ex) {
+			throw new SpringCliException("Error writing to " + this.pomPath.toAbsolutePath(), ex);
+		}
+		this.writeCount++;
+	}
+
+	private static ExecutionContext getExecutionContext() {
+		Consumer<Throwable> onError = e -> {
+			logger.error("error in javaParser execution", e);
+		};
+		return new InMemoryExecutionContext(onError);
+	}
+
+}
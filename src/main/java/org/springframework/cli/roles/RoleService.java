@@ -17,11 +17,13 @@
 package org.springframework.cli.roles;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
@@ -58,6 +60,17 @@ public class RoleService {
 	}
 
 	public void updateRole(String roleName, String key, Object value) {
+		updateRole(roleName, Collections.singletonMap(key, value));
+	}
+
+	/**
+	 * Update several variables of a role, reading and writing the role file once. The
+	 * file is replaced atomically, so a concurrent reader sees either the old or the new
+	 * variables.
+	 * @param roleName the name of the role, empty string for the default role
+	 * @param values the variables to set
+	 */
+	public void updateRole(String roleName, Map<String, ?> values) {
 		createRolesDirectoryIfNecessary();
 
 		// The default role is always updatable, create on demand.
@@ -75,21 +88,29 @@ public class RoleService {
 
 		}
 		Map<String, Object> map = loadAsMap(roleName);
-		Object valueToUse = JavaUtils.inferType(value);
-		map.put(key, valueToUse);
+		values.forEach((key, value) -> map.put(key, JavaUtils.inferType(value)));
 
 		DumperOptions dumperOptions = new DumperOptions();
 		dumperOptions.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
 		dumperOptions.setPrettyFlow(true);
 		dumperOptions.setLineBreak(DumperOptions.LineBreak.getPlatformLineBreak());
 		Yaml yaml = new Yaml(dumperOptions);
-		File getRoleFile = getFile(roleName);
-		try (PrintWriter writer = new PrintWriter(getRoleFile)) {
-			yaml.dump(map, writer);
+		Path roleFile = getFile(roleName).toPath();
+		try {
+			Path tempFile = IoUtils.createSiblingFile(roleFile);
+			try {
+				try (Writer writer = Files.newBufferedWriter(tempFile)) {
+					yaml.dump(map, writer);
+				}
+				Files.move(tempFile, roleFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			finally {
+				Files.deleteIfExists(tempFile);
+			}
 		}
-		catch (FileNotFoundException ex) {
+		catch (IOException ex) {
 			throw new SpringCliException(
-					"The file for the role '" + roleName + "' was not found.  Error = " + ex.getMessage());
+					"Could not write the file for the role '" + roleName + "'.  Error = " + ex.getMessage(), ex);
 		}
 
 	}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.roles;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.cli.util.JavaUtils;
+
+/**
+ * Role variables of one command run, held in memory.
+ * <p>
+ * A role file is read on first use and only read again when its size or modification
+ * time changed, for example because an {@code exec} action ran {@code spring role set}.
+ * Updates are applied in memory and written with {@link #flush()}, once per role, at
+ * the end of the command.
+ */
+public class RoleVariableStore {
+
+	private final RoleService roleService;
+
+	private final Map<String, RoleVariables> roles = new HashMap<>();
+
+	public RoleVariableStore(RoleService roleService) {
+		this.roleService = roleService;
+	}
+
+	/**
+	 * Return the variables of a role, including the updates not flushed yet.
+	 * @param roleName the name of the role, empty string for the default role
+	 * @return a copy of the variables
+	 */
+	public synchronized Map<String, Object> getVariables(String roleName) {
+		RoleVariables role = getRole(roleName);
+		Map<String, Object> variables = new LinkedHashMap<>(role.loaded);
+		variables.putAll(role.pending);
+		return variables;
+	}
+
+	/**
+	 * Set a variable of a role, the role file is only written by {@link #flush()}.
+	 * @param roleName the name of the role, empty string for the default role
+	 * @param key the name of the variable
+	 * @param value the value of the variable
+	 */
+	public synchronized void put(String roleName, String key, Object value) {
+		getRole(roleName).pending.put(key, JavaUtils.inferType(value));
+	}
+
+	/**
+	 * Write the pending updates, rewriting each changed role file once.
+	 */
+	public synchronized void flush() {
+		this.roles.forEach((roleName, role) -> {
+			if (!role.pending.isEmpty()) {
+				this.roleService.updateRole(roleName, role.pending);
+				role.pending.clear();
+				role.modified = -1;
+			}
+		});
+	}
+
+	private RoleVariables getRole(String roleName) {
+		File file = this.roleService.getFile(roleName);
+		long size = file.length();
+		long modified = file.lastModified();
+		RoleVariables role = this.roles.computeIfAbsent(roleName, (name) -> new RoleVariables());
+		if (role.modified != modified || role.size != size) {
+			Map<String, Object> loaded = this.roleService.loadAsMap(roleName);
+			role.loaded = (loaded != null) ? loaded : new LinkedHashMap<>();
+			role.size = size;
+			role.modified = modified;
+		}
+		return role;
+	}
+
+	private static final class RoleVariables {
+
+		private Map<String, Object> loaded = new LinkedHashMap<>();
+
+		private final Map<String, Object> pending = new LinkedHashMap<>();
+
+		private long size = -1;
+
+		private long modified = -1;
+
+	}
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.runtime.command;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.cli.runtime.engine.actions.Action;
+import org.springframework.cli.runtime.engine.actions.Exec;
+import org.springframework.cli.runtime.engine.actions.Generate;
+import org.springframework.cli.runtime.engine.actions.Inject;
+import org.springframework.cli.runtime.engine.templating.TemplateEngine;
+import org.springframework.util.StringUtils;
+
+/**
+ * Files and variables an action reads and writes.
+ *
+ * @param files the files the action writes
+ * @param reads the files the action reads without writing them, such as the template
+ * of {@code from} of a {@code generate} action
+ * @param runsCommands whether the action runs commands, which may touch any file
+ * @param writesVariables whether the action sets variables, which any later action may
+ * read
+ * @param unresolved whether the files could not be resolved, the action may then touch
+ * any file
+ */
+record ActionResources(Set<Path> files, Set<Path> reads, boolean runsCommands, boolean writesVariables,
+		boolean unresolved) {
+
+	private static final Logger logger = LoggerFactory.getLogger(ActionResources.class);
+
+	/**
+	 * Resolve the files an action reads and writes, rendering their paths with the model.
+	 * @param action the action
+	 * @param templateEngine renders the paths
+	 * @param cwd the directory paths are resolved against
+	 * @param commandPath the directory of the command, that templates and command files
+	 * are read from
+	 * @param model the model to render the paths with
+	 * @return the resources of the action
+	 */
+	static ActionResources of(Action action, TemplateEngine templateEngine, Path cwd, Path commandPath,
+			Map<String, Object> model) {
+		Set<Path> files = new HashSet<>();
+		Set<Path> reads = new HashSet<>();
+		boolean runsCommands = false;
+		try {
+			Generate generate = action.getGenerate();
+			if (generate != null && StringUtils.hasText(generate.getTo())) {
+				files.add(resolve(cwd, templateEngine.process(generate.getTo(), model)));
+			}
+			if (generate != null && !StringUtils.hasText(generate.getText())
+					&& StringUtils.hasText(generate.getFrom())) {
+				reads.add(resolve(commandPath, generate.getFrom()));
+			}
+			Inject inject = action.getInject();
+			if (inject != null && StringUtils.hasText(inject.getTo())) {
+				files.add(resolve(cwd, templateEngine.process(inject.getTo(), model)));
+			}
+			if (isMavenInjection(action)) {
+				files.add(resolve(cwd, "pom.xml"));
+			}
+			Exec exec = action.getExec();
+			if (exec != null) {
+				runsCommands = true;
+				if (!StringUtils.hasText(exec.getCommand()) && StringUtils.hasText(exec.getCommandFile())) {
+					reads.add(resolve(commandPath, exec.getCommandFile()));
+				}
+				// redirected output is written relative to the working directory of the CLI
+				if (exec.getTo() != null) {
+					files.add(Path.of(templateEngine.process(exec.getTo(), model)).toAbsolutePath().normalize());
+				}
+				if (exec.getErrto() != null) {
+					files.add(Path.of(templateEngine.process(exec.getErrto(), model)).toAbsolutePath().normalize());
+				}
+			}
+			if (StringUtils.hasText(action.getIfExpression()) && action.getIfExpression().contains("functions")) {
+				runsCommands = true;
+			}
+		}
+		catch (RuntimeException ex) {
+			// the action fails when it runs, until then it may touch any file
+			logger.debug("Could not resolve the files of action " + action, ex);
+			return new ActionResources(Collections.emptySet(), Collections.emptySet(), true, false, true);
+		}
+		return new ActionResources(files, reads, runsCommands, action.getVars() != null, false);
+	}
+
+	/**
+	 * Return whether an action is one of the {@code inject-maven-*} actions.
+	 * @param action the action
+	 * @return whether the action changes the {@code pom.xml}
+	 */
+	static boolean isMavenInjection(Action action) {
+		return action.getInjectMavenDependency() != null || action.getInjectMavenBuildPlugin() != null
+				|| action.getInjectMavenDependencyManagement() != null || action.getInjectMavenRepository() != null;
+	}
+
+	private static Path resolve(Path cwd, String path) {
+		return cwd.resolve(path).toAbsolutePath().normalize();
+	}
+
+	/**
+	 * Return whether an action may read or write the given file.
+	 * @param file the file
+	 * @return whether the action touches the file
+	 */
+	boolean touches(Path file) {
+		Path path = file.toAbsolutePath().normalize();
+		return this.runsCommands || this.unresolved || this.files.contains(path) || this.reads.contains(path);
+	}
+
+	/**
+	 * Return whether an action must not run concurrently with another one. That is the
+	 * case when one of them writes a file the other reads or writes, or sets variables.
+	 * Commands may read and write any file, so actions running them conflict with each
+	 * other and with every action touching a file.
+	 * @param other the resources of the other action
+	 * @return whether the actions conflict
+	 */
+	boolean conflictsWith(ActionResources other) {
+		if (this.unresolved || other.unresolved || this.writesVariables || other.writesVariables) {
+			return true;
+		}
+		if (this.runsCommands && other.runsCommands) {
+			return true;
+		}
+		if ((this.runsCommands && other.touchesFiles()) || (other.runsCommands && touchesFiles())) {
+			return true;
+		}
+		return this.files.stream().anyMatch((file) -> other.files.contains(file) || other.reads.contains(file))
+				|| this.reads.stream().anyMatch(other.files::contains);
+	}
+
+	private boolean touchesFiles() {
+		return !this.files.isEmpty() || !this.reads.isEmpty();
+	}
+
+}
@@ -0,0 +1,381 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.runtime.command;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.cli.SpringCliException;
+import org.springframework.cli.config.SpringCliProperties;
+import org.springframework.cli.runtime.engine.actions.ActionFileReader;
+import org.springframework.cli.runtime.engine.actions.ActionFileVisitor;
+import org.springframework.cli.runtime.engine.actions.ActionsFile;
+import org.springframework.cli.util.CacheDirectories;
+import org.springframework.cli.util.FileExtensionUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+/**
+ * Compiled form of the action files of user defined commands.
+ * <p>
+ * Finding the action files of a command takes a walk of its directory, sniffing the
+ * type of every file and parsing each action file as YAML. The outcome is kept as one
+ * JSON bundle per command directory, holding the action files as JSON trees together
+ * with the size and modification time of every directory and action file that was
+ * looked at. A bundle is used as long as none of those changed, which only takes a
+ * {@code stat} of each of them, and is rebuilt otherwise. Bundles are also kept in
+ * memory, so a command run again from the shell does not read its bundle again.
+ * <p>
+ * In the same way, the names, descriptions and options of all commands are kept as a
+ * manifest of the commands directory, so that registering the commands at startup does
+ * not read any {@code command.yaml} file until one of them, or the command directories,
+ * changed. The action files themselves are only compiled once a command runs.
+ * <p>
+ * Without a bundle directory, such as when disabled with
+ * {@code spring.cli.command-cache.enabled=false}, nothing is written to disk and bundles
+ * are only kept in memory.
+ */
+public class CommandBundleCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(CommandBundleCache.class);
+
+	private static final int FORMAT_VERSION = 1;
+
+	private static final ObjectMapper bundleMapper = new ObjectMapper();
+
+	private static final ObjectMapper actionsFileMapper = new ObjectMapper()
+		.setPropertyNamingStrategy(PropertyNamingStrategies.KEBAB_CASE)
+		.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+	@Nullable
+	private final Path bundleDir;
+
+	private final Map<Path, LoadedBundle> loadedBundles = new ConcurrentHashMap<>();
+
+	/**
+	 * Create a new instance.
+	 * @param bundleDir the directory to keep the bundles in, {@code null} to only keep
+	 * them in memory
+	 */
+	public CommandBundleCache(@Nullable Path bundleDir) {
+		this.bundleDir = bundleDir;
+	}
+
+	/**
+	 * Create a cache from the cli properties. Bundles are only kept in memory if the
+	 * cache is disabled.
+	 * @param properties the command cache properties
+	 * @return the cache
+	 */
+	public static CommandBundleCache of(SpringCliProperties.CommandCache properties) {
+		if (!properties.isEnabled()) {
+			return new CommandBundleCache(null);
+		}
+		Path dir = StringUtils.hasText(properties.getDirectory()) ? Paths.get(properties.getDirectory())
+				: CacheDirectories.getDefaultCacheDir().resolve("command-bundles");
+		return new CommandBundleCache(dir);
+	}
+
+	/**
+	 * Get the action files of a command, sorted by path.
+	 * @param commandDirectory the directory of the sub command
+	 * @return the action files by path
+	 */
+	public Map<Path, ActionsFile> getActionsFiles(Path commandDirectory) {
+		Path directory = commandDirectory.toAbsolutePath().normalize();
+		LoadedBundle loaded = this.loadedBundles.get(directory);
+		if (loaded != null && isCurrent(directory, loaded.bundle())) {
+			return loaded.actionsFiles();
+		}
+		Optional<Bundle> stored = readBundle(directory).filter((bundle) -> isCurrent(directory, bundle));
+		Bundle bundle;
+		if (stored.isPresent()) {
+			bundle = stored.get();
+		}
+		else {
+			bundle = build(directory);
+			writeBundle(directory, bundle);
+		}
+		loaded = new LoadedBundle(bundle, toActionsFiles(directory, bundle));
+		this.loadedBundles.put(directory, loaded);
+		return loaded.actionsFiles();
+	}
+
+	/**
+	 * Scan the commands of a directory, such as {@code .spring/commands}, using the
+	 * manifest of the previous scan when no command directory and no
+	 * {@code command.yaml} file changed since.
+	 * @param commandsDirectory the directory holding the command directories
+	 * @return the commands and their sub commands
+	 */
+	public CommandScanResults scan(Path commandsDirectory) {
+		Path directory = commandsDirectory.toAbsolutePath().normalize();
+		if (this.bundleDir == null || !Files.isDirectory(directory)) {
+			return new CommandScanner(directory).scan();
+		}
+		Path manifestFile = getFile(directory, "manifest-");
+		Optional<Manifest> stored = read(manifestFile, Manifest.class)
+			.filter((manifest) -> manifest.version() == FORMAT_VERSION
+					&& directory.toString().equals(manifest.directory()) && isCurrent(directory, manifest.stamps()));
+		if (stored.isPresent()) {
+			Map<Command, List<Command>> commands = new LinkedHashMap<>();
+			for (ManifestCommand manifestCommand : stored.get().commands()) {
+				commands.put(manifestCommand.command(), manifestCommand.subCommands());
+			}
+			return new CommandScanResults(commands);
+		}
+		// stamped before scanning, a change made while scanning is picked up next time
+		List<Stamp> stamps = stampCommandDirectories(directory);
+		CommandScanResults results = new CommandScanner(directory).scan();
+		List<ManifestCommand> commands = results.getCommandSubcommandMap()
+			.entrySet()
+			.stream()
+			.map((entry) -> new ManifestCommand(entry.getKey(), entry.getValue()))
+			.toList();
+		write(manifestFile, new Manifest(FORMAT_VERSION, directory.toString(), stamps, commands));
+		return results;
+	}
+
+	private Bundle build(Path directory) {
+		long start = System.currentTimeMillis();
+		List<Stamp> stamps = new ArrayList<>();
+		ActionFileVisitor visitor = new ActionFileVisitor() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+				FileVisitResult result = super.preVisitDirectory(dir, attrs);
+				if (result == FileVisitResult.CONTINUE) {
+					stamps.add(stamp(directory, dir, attrs));
+				}
+				return result;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				if (isYaml(file)) {
+					stamps.add(stamp(directory, file, attrs));
+				}
+				return super.visitFile(file, attrs);
+			}
+		};
+		try {
+			Files.walkFileTree(directory, visitor);
+		}
+		catch (IOException ex) {
+			throw new SpringCliException("Error trying to detect action files. " + ex.getMessage(), ex);
+		}
+		ActionFileReader actionFileReader = new ActionFileReader();
+		Map<String, JsonNode> actionsFiles = new TreeMap<>();
+		for (Path path : visitor.getMatches()) {
+			// reading first reports badly written action files the way it always did
+			if (actionFileReader.read(path).isPresent()) {
+				actionsFiles.put(directory.relativize(path).toString(), actionFileReader.readTree(path));
+			}
+		}
+		logger.debug("Compiled {} action files of {} in {} ms", actionsFiles.size(), directory,
+				System.currentTimeMillis() - start);
+		return new Bundle(FORMAT_VERSION, directory.toString(), stamps, actionsFiles);
+	}
+
+	/**
+	 * Stamp the directories and command files {@link CommandScanner} looks at.
+	 */
+	private static List<Stamp> stampCommandDirectories(Path directory) {
+		List<Stamp> stamps = new ArrayList<>();
+		try {
+			stamps.add(stamp(directory, directory));
+			for (Path commandDirectory : listDirectories(directory)) {
+				if (Files.isHidden(commandDirectory)) {
+					continue;
+				}
+				stamps.addAll(stampCommandDirectory(directory, commandDirectory));
+				for (Path subCommandDirectory : listDirectories(commandDirectory)) {
+					stamps.addAll(stampCommandDirectory(directory, subCommandDirectory));
+				}
+			}
+		}
+		catch (IOException ex) {
+			throw new SpringCliException("Error scanning commands in " + directory + ". " + ex.getMessage(), ex);
+		}
+		return stamps;
+	}
+
+	private static List<Stamp> stampCommandDirectory(Path directory, Path commandDirectory) throws IOException {
+		List<Stamp> stamps = new ArrayList<>();
+		stamps.add(stamp(directory, commandDirectory));
+		Path commandFile = commandDirectory.resolve("command.yaml");
+		if (Files.exists(commandFile)) {
+			stamps.add(stamp(directory, commandFile));
+		}
+		return stamps;
+	}
+
+	private static List<Path> listDirectories(Path directory) throws IOException {
+		try (Stream<Path> paths = Files.list(directory)) {
+			return paths.filter(Files::isDirectory).sorted().toList();
+		}
+	}
+
+	private static boolean isCurrent(Path directory, Bundle bundle) {
+		return bundle.version() == FORMAT_VERSION && directory.toString().equals(bundle.directory())
+				&& isCurrent(directory, bundle.stamps());
+	}
+
+	private static boolean isCurrent(Path directory, List<Stamp> stamps) {
+		for (Stamp stamp : stamps) {
+			try {
+				if (!stamp.equals(stamp(directory, directory.resolve(stamp.path())))) {
+					return false;
+				}
+			}
+			catch (IOException ex) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static Map<Path, ActionsFile> toActionsFiles(Path directory, Bundle bundle) {
+		Map<Path, ActionsFile> actionsFiles = new TreeMap<>();
+		for (Entry<String, JsonNode> entry : bundle.actionsFiles().entrySet()) {
+			try {
+				actionsFiles.put(directory.resolve(entry.getKey()),
+						actionsFileMapper.treeToValue(entry.getValue(), ActionsFile.class));
+			}
+			catch (JsonProcessingException ex) {
+				throw new SpringCliException("Could not deserialize action file " + entry.getKey(), ex);
+			}
+		}
+		return actionsFiles;
+	}
+
+	private Optional<Bundle> readBundle(Path directory) {
+		return (this.bundleDir != null) ? read(getFile(directory, ""), Bundle.class) : Optional.empty();
+	}
+
+	private void writeBundle(Path directory, Bundle bundle) {
+		if (this.bundleDir != null) {
+			write(getFile(directory, ""), bundle);
+		}
+	}
+
+	private <T> Optional<T> read(Path file, Class<T> type) {
+		try {
+			return Optional.of(bundleMapper.readValue(file.toFile(), type));
+		}
+		catch (FileNotFoundException | NoSuchFileException ex) {
+			return Optional.empty();
+		}
+		catch (IOException ex) {
+			logger.debug("Ignoring unreadable command bundle " + file, ex);
+			return Optional.empty();
+		}
+	}
+
+	private void write(Path file, Object value) {
+		try {
+			Files.createDirectories(this.bundleDir);
+			Path tempFile = Files.createTempFile(this.bundleDir, "bundle-", ".tmp");
+			bundleMapper.writeValue(tempFile.toFile(), value);
+			Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException ex) {
+			// the command still runs, only the next run has to compile again
+			logger.debug("Could not write command bundle " + file, ex);
+		}
+	}
+
+	private Path getFile(Path directory, String prefix) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256")
+				.digest(directory.toString().getBytes(StandardCharsets.UTF_8));
+			return this.bundleDir.resolve(prefix + HexFormat.of().formatHex(digest) + ".json");
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static Stamp stamp(Path directory, Path path) throws IOException {
+		return stamp(directory, path, Files.readAttributes(path, BasicFileAttributes.class));
+	}
+
+	private static Stamp stamp(Path directory, Path path, BasicFileAttributes attrs) {
+		long size = (attrs.isDirectory()) ? 0 : attrs.size();
+		return new Stamp(directory.relativize(path).toString(), size, attrs.lastModifiedTime().toMillis());
+	}
+
+	private static boolean isYaml(Path file) {
+		String extension = FileExtensionUtils.getExtension(file.toString());
+		return extension.equalsIgnoreCase("yaml") || extension.equalsIgnoreCase("yml");
+	}
+
+	/**
+	 * Size and modification time of a directory or file a bundle was built from.
+	 */
+	record Stamp(String path, long size, long modified) {
+	}
+
+	/**
+	 * The stored form of the action files of a command directory.
+	 */
+	record Bundle(int version, String directory, List<Stamp> stamps, Map<String, JsonNode> actionsFiles) {
+	}
+
+	/**
+	 * The stored outcome of scanning a commands directory.
+	 */
+	record Manifest(int version, String directory, List<Stamp> stamps, List<ManifestCommand> commands) {
+	}
+
+	/**
+	 * A command with its sub commands.
+	 */
+	record ManifestCommand(Command command, List<Command> subCommands) {
+	}
+
+	private record LoadedBundle(Bundle bundle, Map<Path, ActionsFile> actionsFiles) {
+	}
+
+}
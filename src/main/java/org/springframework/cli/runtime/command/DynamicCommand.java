@@ -17,20 +17,13 @@
 package org.springframework.cli.runtime.command;
 
 import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
-import java.util.TreeMap;
-import java.util.function.Function;
-import java.util.stream.Collector;
-import java.util.stream.Collectors;
 
 import org.jline.terminal.Terminal;
 import org.jline.utils.AttributedStringBuilder;
@@ -40,9 +33,8 @@ import org.slf4j.LoggerFactory;
 
 import org.springframework.cli.SpringCliException;
 import org.springframework.cli.roles.RoleService;
+import org.springframework.cli.roles.RoleVariableStore;
 import org.springframework.cli.runtime.engine.actions.Action;
-import org.springframework.cli.runtime.engine.actions.ActionFileReader;
-import org.springframework.cli.runtime.engine.actions.ActionFileVisitor;
 import org.springframework.cli.runtime.engine.actions.ActionsFile;
 import org.springframework.cli.runtime.engine.actions.Exec;
 import org.springframework.cli.runtime.engine.actions.Generate;
@@ -57,6 +49,7 @@ import org.springframework.cli.runtime.engine.actions.handlers.GenerateActionHan
 import org.springframework.cli.runtime.engine.actions.handlers.InjectActionHandler;
 import org.springframework.cli.runtime.engine.actions.handlers.InjectMavenActionHandler;
 import org.springframework.cli.runtime.engine.actions.handlers.VarsActionHandler;
+import org.springframework.cli.runtime.engine.model.LazyModelMap;
 import org.springframework.cli.runtime.engine.model.ModelPopulator;
 import org.springframework.cli.runtime.engine.spel.SpELCondition;
 import org.springframework.cli.runtime.engine.spel.SpelFunctions;
@@ -65,6 +58,7 @@ import org.springframework.cli.runtime.engine.templating.TemplateEngine;
 import org.springframework.cli.util.IoUtils;
 import org.springframework.cli.util.NamingUtils;
 import org.springframework.cli.util.TerminalMessage;
+import org.springframework.lang.Nullable;
 import org.springframework.shell.command.CommandContext;
 import org.springframework.shell.command.CommandParser.CommandParserResult;
 import org.springframework.util.StringUtils;
@@ -88,14 +82,33 @@ public class DynamicCommand {
 
 	private final Optional<Terminal> terminalOptional;
 
+	private final CommandBundleCache commandBundleCache;
+
 	public DynamicCommand(String commandName, String subCommandName, Iterable<ModelPopulator> modelPopulators,
 			TerminalMessage terminalMessage, Optional<Terminal> terminalOptional) {
+		this(commandName, subCommandName, modelPopulators, terminalMessage, terminalOptional,
+				new CommandBundleCache(null));
+	}
+
+	/**
+	 * Create a command.
+	 * @param commandName the name of the command
+	 * @param subCommandName the name of the sub command
+	 * @param modelPopulators the populators of the model of the command
+	 * @param terminalMessage where the command prints messages
+	 * @param terminalOptional the terminal the command asks questions on, if any
+	 * @param commandBundleCache the cache of the compiled action files
+	 */
+	public DynamicCommand(String commandName, String subCommandName, Iterable<ModelPopulator> modelPopulators,
+			TerminalMessage terminalMessage, Optional<Terminal> terminalOptional,
+			CommandBundleCache commandBundleCache) {
 		this.commandName = commandName;
 		this.subCommandName = subCommandName;
 		this.modelPopulators = modelPopulators;
 		this.terminalMessage = terminalMessage;
 		this.templateEngine = new HandlebarsTemplateEngine();
 		this.terminalOptional = terminalOptional;
+		this.commandBundleCache = commandBundleCache;
 	}
 
 	/**
@@ -104,7 +117,7 @@ public class DynamicCommand {
 	 * @param commandContext the command context for the dynamic command.
 	 */
 	public void execute(CommandContext commandContext) {
-		Map<String, Object> model = new HashMap<>();
+		Map<String, Object> model = new LazyModelMap();
 		addMatchedOptions(model, commandContext);
 		addRoleVariables(model, commandContext);
 		runCommand(IoUtils.getWorkingDirectory(), ".spring", "commands", model);
@@ -233,6 +246,50 @@ public class DynamicCommand {
 
 	private void processCommandActionFiles(Map<Path, ActionsFile> commandActionFiles, Path cwd,
 			Path dynamicSubCommandPath, Map<String, Object> model) {
+		// TODO load from default role for now, later a list of roles
+		RoleVariableStore roleVariableStore = new RoleVariableStore(new RoleService(cwd));
+		InjectTransaction injectTransaction = new InjectTransaction();
+		PomTransaction pomTransaction = new PomTransaction(cwd);
+		RuntimeException failure = null;
+		try {
+			processCommandActionFiles(commandActionFiles, cwd, dynamicSubCommandPath, model, roleVariableStore,
+					injectTransaction, pomTransaction);
+		}
+		catch (RuntimeException ex) {
+			failure = ex;
+		}
+		// variables, injections and pom changes of the actions are written once, also
+		// when an action failed
+		failure = complete(injectTransaction::commit, failure);
+		failure = complete(pomTransaction::commit, failure);
+		failure = complete(roleVariableStore::flush, failure);
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Run a step writing the changes of the actions. If it fails after an earlier
+	 * failure, its failure is added as suppressed so that the earlier one is reported.
+	 * @return the first failure so far
+	 */
+	@Nullable
+	private static RuntimeException complete(Runnable step, @Nullable RuntimeException failure) {
+		try {
+			step.run();
+		}
+		catch (RuntimeException ex) {
+			if (failure == null) {
+				return ex;
+			}
+			failure.addSuppressed(ex);
+		}
+		return failure;
+	}
+
+	private void processCommandActionFiles(Map<Path, ActionsFile> commandActionFiles, Path cwd,
+			Path dynamicSubCommandPath, Map<String, Object> model, RoleVariableStore roleVariableStore,
+			InjectTransaction injectTransaction, PomTransaction pomTransaction) {
 
 		for (Entry<Path, ActionsFile> kv : commandActionFiles.entrySet()) {
 			Path path = kv.getKey();
@@ -244,121 +301,119 @@ public class DynamicCommand {
 				continue;
 			}
 
-			for (Action action : actions) {
-
-				RoleService roleService = new RoleService(cwd);
-				// TODO load from default role for now, later a list of roles
-				Map<String, Object> varMap = roleService.loadAsMap("");
-				model.putAll(varMap);
-
-				String ifExpression = action.getIfExpression();
-				if (StringUtils.hasText(ifExpression)) {
-					// Prepare to execute expression evaluation
-					String ifExpressionToUse = this.templateEngine.process(ifExpression, model);
-					ExecActionHandler execActionHandler = new ExecActionHandler(templateEngine, model,
-							dynamicSubCommandPath, this.terminalMessage);
-					model.put("functions", new SpelFunctions(execActionHandler, cwd));
-
-					SpELCondition condition = new SpELCondition(ifExpressionToUse);
-					boolean evaluationResult = condition.evaluate(model);
-					logger.debug("If Expression = " + ifExpression);
-					logger.debug("Evaluation Result " + evaluationResult);
-					if (!evaluationResult) {
-						logger.debug("Not execution action, evaluation result = false");
-						continue;
-					}
-				}
-
-				Generate generate = action.getGenerate();
-				if (generate != null) {
-					GenerateActionHandler generateActionHandler = new GenerateActionHandler(templateEngine, model, cwd,
-							dynamicSubCommandPath, terminalMessage);
-					generateActionHandler.execute(generate);
-				}
+			if (actionsFile.isParallel()) {
+				ParallelActionRunner runner = new ParallelActionRunner(this.templateEngine, cwd,
+						dynamicSubCommandPath, () -> roleVariableStore.getVariables(""), this.terminalMessage);
+				runner.run(actions, model,
+						(action, actionModel, actionTerminalMessage) -> executeAction(action, cwd,
+								dynamicSubCommandPath, actionModel, roleVariableStore, injectTransaction,
+								pomTransaction, actionTerminalMessage));
+				continue;
+			}
 
-				Inject inject = action.getInject();
-				if (inject != null) {
-					InjectActionHandler injectActionHandler = new InjectActionHandler(templateEngine, model, cwd,
-							terminalMessage);
-					injectActionHandler.execute(inject);
-				}
+			for (Action action : actions) {
+				executeAction(action, cwd, dynamicSubCommandPath, model, roleVariableStore, injectTransaction,
+						pomTransaction, this.terminalMessage);
+			}
+		}
 
-				InjectMavenDependency injectMavenDependency = action.getInjectMavenDependency();
-				if (injectMavenDependency != null) {
-					InjectMavenActionHandler injectMavenActionHandler = new InjectMavenActionHandler(templateEngine,
-							model, cwd, terminalMessage);
-					injectMavenActionHandler.injectDependency(injectMavenDependency);
-					injectMavenActionHandler.exec();
-				}
+	}
 
-				InjectMavenBuildPlugin injectMavenBuildPlugin = action.getInjectMavenBuildPlugin();
-				if (injectMavenBuildPlugin != null) {
-					InjectMavenActionHandler injectMavenActionHandler = new InjectMavenActionHandler(templateEngine,
-							model, cwd, terminalMessage);
-					injectMavenActionHandler.injectBuildPlugin(injectMavenBuildPlugin);
-					injectMavenActionHandler.exec();
-				}
+	private void executeAction(Action action, Path cwd, Path dynamicSubCommandPath, Map<String, Object> model,
+			RoleVariableStore roleVariableStore, InjectTransaction injectTransaction, PomTransaction pomTransaction,
+			TerminalMessage terminalMessage) {
+		model.putAll(roleVariableStore.getVariables(""));
+		// injections and pom changes of earlier actions are applied only once an action may
+		// read the files they change
+		injectTransaction.commitBefore(action, this.templateEngine, cwd, dynamicSubCommandPath, model);
+		pomTransaction.commitBefore(action, this.templateEngine, cwd, dynamicSubCommandPath, model);
+
+		String ifExpression = action.getIfExpression();
+		if (StringUtils.hasText(ifExpression)) {
+			// Prepare to execute expression evaluation
+			String ifExpressionToUse = this.templateEngine.process(ifExpression, model);
+			ExecActionHandler execActionHandler = new ExecActionHandler(templateEngine, model,
+					dynamicSubCommandPath, terminalMessage);
+			model.put("functions", new SpelFunctions(execActionHandler, roleVariableStore));
+
+			SpELCondition condition = new SpELCondition(ifExpressionToUse);
+			boolean evaluationResult = condition.evaluate(model);
+			logger.debug("If Expression = " + ifExpression);
+			logger.debug("Evaluation Result " + evaluationResult);
+			if (!evaluationResult) {
+				logger.debug("Not execution action, evaluation result = false");
+				return;
+			}
+		}
 
-				InjectMavenDependencyManagement injectMavenDependencyManagement = action
-					.getInjectMavenDependencyManagement();
-				if (injectMavenDependencyManagement != null) {
-					InjectMavenActionHandler injectMavenActionHandler = new InjectMavenActionHandler(templateEngine,
-							model, cwd, terminalMessage);
-					injectMavenActionHandler.injectDependencyManagement(injectMavenDependencyManagement);
-					injectMavenActionHandler.exec();
-				}
+		Generate generate = action.getGenerate();
+		if (generate != null) {
+			GenerateActionHandler generateActionHandler = new GenerateActionHandler(templateEngine, model, cwd,
+					dynamicSubCommandPath, terminalMessage);
+			generateActionHandler.execute(generate);
+		}
 
-				InjectMavenRepository injectMavenRepository = action.getInjectMavenRepository();
-				if (injectMavenRepository != null) {
-					InjectMavenActionHandler injectMavenActionHandler = new InjectMavenActionHandler(templateEngine,
-							model, cwd, terminalMessage);
-					injectMavenActionHandler.injectRepository(injectMavenRepository);
-					injectMavenActionHandler.exec();
-				}
+		Inject inject = action.getInject();
+		if (inject != null) {
+			// applied once a later action reads the file or the command completed, its
+			// outcome is printed to the terminal message of this action then
+			InjectActionHandler injectActionHandler = new InjectActionHandler(templateEngine, model, cwd,
+					terminalMessage);
+			injectTransaction.add(injectActionHandler, inject);
+		}
 
-				Exec exec = action.getExec();
-				if (exec != null) {
-					ExecActionHandler execActionHandler = new ExecActionHandler(templateEngine, model,
-							dynamicSubCommandPath, terminalMessage);
-					Map<String, Object> outputs = new HashMap<>();
-					execActionHandler.executeShellCommand(exec, outputs);
-				}
+		InjectMavenDependency injectMavenDependency = action.getInjectMavenDependency();
+		if (injectMavenDependency != null) {
+			InjectMavenActionHandler injectMavenActionHandler = new InjectMavenActionHandler(templateEngine,
+					model, cwd, terminalMessage);
+			injectMavenActionHandler.injectDependency(injectMavenDependency);
+			pomTransaction.add(injectMavenActionHandler);
+		}
 
-				Vars vars = action.getVars();
-				if (vars != null) {
-					VarsActionHandler varsActionHandler = new VarsActionHandler(templateEngine, model, cwd,
-							dynamicSubCommandPath, terminalMessage, terminalOptional.get());
-					varsActionHandler.execute(vars);
-				}
-			}
+		InjectMavenBuildPlugin injectMavenBuildPlugin = action.getInjectMavenBuildPlugin();
+		if (injectMavenBuildPlugin != null) {
+			InjectMavenActionHandler injectMavenActionHandler = new InjectMavenActionHandler(templateEngine,
+					model, cwd, terminalMessage);
+			injectMavenActionHandler.injectBuildPlugin(injectMavenBuildPlugin);
+			pomTransaction.add(injectMavenActionHandler);
 		}
 
-	}
+		InjectMavenDependencyManagement injectMavenDependencyManagement = action
+			.getInjectMavenDependencyManagement();
+		if (injectMavenDependencyManagement != null) {
+			InjectMavenActionHandler injectMavenActionHandler = new InjectMavenActionHandler(templateEngine,
+					model, cwd, terminalMessage);
+			injectMavenActionHandler.injectDependencyManagement(injectMavenDependencyManagement);
+			pomTransaction.add(injectMavenActionHandler);
+		}
 
-	private Map<Path, ActionsFile> findCommandActionFiles(Path dynamicSubCommandPath) {
-		// Do a first pass to find only text files
-		final ActionFileVisitor visitor = new ActionFileVisitor();
-		try {
-			Files.walkFileTree(dynamicSubCommandPath, visitor);
+		InjectMavenRepository injectMavenRepository = action.getInjectMavenRepository();
+		if (injectMavenRepository != null) {
+			InjectMavenActionHandler injectMavenActionHandler = new InjectMavenActionHandler(templateEngine,
+					model, cwd, terminalMessage);
+			injectMavenActionHandler.injectRepository(injectMavenRepository);
+			pomTransaction.add(injectMavenActionHandler);
 		}
-		catch (IOException ex) {
-			throw new SpringCliException("Error trying to detect action files. " + ex.getMessage(), ex);
+
+		Exec exec = action.getExec();
+		if (exec != null) {
+			ExecActionHandler execActionHandler = new ExecActionHandler(templateEngine, model,
+					dynamicSubCommandPath, terminalMessage, true);
+			Map<String, Object> outputs = new HashMap<>();
+			execActionHandler.executeShellCommand(exec, outputs);
 		}
 
-		// Then actually parse, retaining only those paths that yielded a result
-		ActionFileReader actionFileReader = new ActionFileReader();
-		return visitor.getMatches()
-			.stream() //
-			.map(p -> new SimpleImmutableEntry<>(p, actionFileReader.read(p))) //
-			.filter(kv -> kv.getValue().isPresent()) //
-			.collect(toSortedMap(Entry::getKey, (e) -> e.getValue().get()));
+		Vars vars = action.getVars();
+		if (vars != null) {
+			VarsActionHandler varsActionHandler = new VarsActionHandler(templateEngine, model, cwd,
+					dynamicSubCommandPath, terminalMessage, terminalOptional.get(), roleVariableStore);
+			varsActionHandler.execute(vars);
+		}
 	}
 
-	private static <T, K, U> Collector<T, ?, Map<K, U>> toSortedMap(Function<? super T, ? extends K> keyMapper,
-			Function<? super T, ? extends U> valueMapper) {
-		return Collectors.toMap(keyMapper, valueMapper, (v1, v2) -> {
-			throw new IllegalStateException(String.format("Duplicate key for values %s and %s", v1, v2));
-		}, TreeMap::new);
+	private Map<Path, ActionsFile> findCommandActionFiles(Path dynamicSubCommandPath) {
+		// Only walks the directory and parses the action files when they changed
+		return this.commandBundleCache.getActionsFiles(dynamicSubCommandPath);
 	}
 
 }
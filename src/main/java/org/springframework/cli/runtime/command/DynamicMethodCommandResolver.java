@@ -61,12 +61,28 @@ public class DynamicMethodCommandResolver implements CommandResolver {
 
 	private final ObjectProvider<Terminal> terminalProvider;
 
+	private final CommandBundleCache commandBundleCache;
+
+	/**
+	 * Create a resolver that does not keep compiled commands on disk.
+	 * @param modelPopulators the populators of the model of the commands
+	 * @param builder the builder of the command registrations
+	 * @param terminalMessage where the commands print messages
+	 * @param terminalProvider provides the terminal the commands ask questions on
+	 */
 	public DynamicMethodCommandResolver(Collection<ModelPopulator> modelPopulators, BuilderSupplier builder,
 			TerminalMessage terminalMessage, ObjectProvider<Terminal> terminalProvider) {
+		this(modelPopulators, builder, terminalMessage, terminalProvider, new CommandBundleCache(null));
+	}
+
+	public DynamicMethodCommandResolver(Collection<ModelPopulator> modelPopulators, BuilderSupplier builder,
+			TerminalMessage terminalMessage, ObjectProvider<Terminal> terminalProvider,
+			CommandBundleCache commandBundleCache) {
 		this.modelPopulators = modelPopulators;
 		this.builder = builder;
 		this.terminalMessage = terminalMessage;
 		this.terminalProvider = terminalProvider;
+		this.commandBundleCache = commandBundleCache;
 	}
 
 	@Override
@@ -80,9 +96,8 @@ public class DynamicMethodCommandResolver implements CommandResolver {
 		Path cwd = IoUtils.getWorkingDirectory().toAbsolutePath();
 		Path pathToUse = Paths.get(cwd.toString(), ".spring", "commands");
 		log.debug("Looking for user-defined commands in directory " + pathToUse);
-		CommandScanner scanner = new CommandScanner(pathToUse);
-		CommandScanResults commandScanResults = scanner.scan();
-		return commandScanResults;
+		// Reads no command.yaml file unless the commands changed since the last scan
+		return this.commandBundleCache.scan(pathToUse);
 	}
 
 	private List<CommandRegistration> registerSpringCliCommands(CommandScanResults results,
@@ -106,7 +121,7 @@ public class DynamicMethodCommandResolver implements CommandResolver {
 					terminalOptional = Optional.empty();
 				}
 				DynamicCommand dynamicCommand = new DynamicCommand(commandName, subCommandName, modelPopulators,
-						terminalMessage, terminalOptional);
+						terminalMessage, terminalOptional, this.commandBundleCache);
 
 				CommandRegistration.Builder builder = builderSupplier.get()
 					.command(commandName + " " + subCommandName)
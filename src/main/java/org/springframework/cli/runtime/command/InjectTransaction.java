@@ -0,0 +1,94 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.runtime.command;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.springframework.cli.runtime.engine.actions.Action;
+import org.springframework.cli.runtime.engine.actions.Inject;
+import org.springframework.cli.runtime.engine.actions.handlers.InjectActionHandler;
+import org.springframework.cli.runtime.engine.actions.handlers.InjectBatch;
+import org.springframework.cli.runtime.engine.templating.TemplateEngine;
+
+/**
+ * Injections the {@code inject} actions of one command run make into files.
+ * <p>
+ * The injections are collected and applied per file, reading and writing each file once,
+ * when the command completes. Consecutive {@code inject} actions into the same file are
+ * so applied together. Before any other action that may read or write a file with
+ * collected injections runs, such as an {@code exec} action or a {@code generate} action
+ * overwriting it, the injections into that file are applied so that it sees them.
+ */
+class InjectTransaction {
+
+	private final InjectBatch injectBatch = new InjectBatch();
+
+	/**
+	 * Collect an injection.
+	 * @param injectActionHandler the handler resolving the injection
+	 * @param inject the injection
+	 */
+	synchronized void add(InjectActionHandler injectActionHandler, Inject inject) {
+		injectActionHandler.addTo(this.injectBatch, inject);
+	}
+
+	/**
+	 * Apply the collected injections into the files the action may read or change.
+	 * @param action the action about to run
+	 * @param templateEngine renders the paths of the action
+	 * @param cwd the directory paths are resolved against
+	 * @param commandPath the directory of the command
+	 * @param model the model to render the paths with
+	 */
+	synchronized void commitBefore(Action action, TemplateEngine templateEngine, Path cwd, Path commandPath,
+			Map<String, Object> model) {
+		if (this.injectBatch.isEmpty()) {
+			return;
+		}
+		if (action.getVars() != null) {
+			commit();
+			return;
+		}
+		ActionResources resources = ActionResources.of(action, templateEngine, cwd, commandPath, model);
+		if (action.getInject() != null && !resources.runsCommands() && !resources.unresolved()) {
+			// another injection, it is applied together with the collected ones
+			return;
+		}
+		for (Path file : this.injectBatch.getFiles()) {
+			if (resources.touches(file)) {
+				this.injectBatch.apply(file);
+			}
+		}
+	}
+
+	/**
+	 * Apply the collected injections.
+	 */
+	synchronized void commit() {
+		this.injectBatch.apply();
+	}
+
+	int getReadCount() {
+		return this.injectBatch.getReadCount();
+	}
+
+	int getWriteCount() {
+		return this.injectBatch.getWriteCount();
+	}
+
+}
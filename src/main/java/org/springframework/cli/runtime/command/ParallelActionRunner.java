@@ -0,0 +1,276 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.runtime.command;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.jline.utils.AttributedString;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.cli.SpringCliException;
+import org.springframework.cli.runtime.engine.actions.Action;
+import org.springframework.cli.runtime.engine.model.LazyModelMap;
+import org.springframework.cli.runtime.engine.templating.TemplateEngine;
+import org.springframework.cli.util.TerminalMessage;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Runs the actions of an actions file that opted in with {@code parallel: true}, running
+ * actions that do not depend on each other concurrently.
+ * <p>
+ * An action depends on an earlier one when one of them writes a file the other reads or
+ * writes, {@code to} of {@code generate}, {@code inject} and {@code exec}, the
+ * {@code pom.xml} of the {@code inject-maven-*} actions, or the template {@code from} of
+ * {@code generate} and the {@code command-file} of {@code exec}, read from the directory
+ * of the command. Commands run by {@code exec} actions and by {@code functions} in
+ * {@code if} expressions may touch any file, so they are ordered against each other and
+ * against every action reading or writing a file. A {@code vars} action sets variables
+ * later actions read and may ask questions, so it runs on its own after all earlier
+ * actions completed.
+ * <p>
+ * The output of each action is printed once the action and all earlier ones completed,
+ * so the terminal shows it in the order of the actions file. Once an action failed, no
+ * further action is started and the failure of the first failed action is thrown.
+ */
+class ParallelActionRunner {
+
+	private static final Logger logger = LoggerFactory.getLogger(ParallelActionRunner.class);
+
+	private final TemplateEngine templateEngine;
+
+	private final Path cwd;
+
+	private final Path commandPath;
+
+	private final Supplier<Map<String, Object>> variables;
+
+	private final TerminalMessage terminalMessage;
+
+	/**
+	 * Create a runner.
+	 * @param templateEngine renders the files actions write to
+	 * @param cwd the directory actions resolve files against
+	 * @param commandPath the directory of the command, that actions read templates and
+	 * command files from
+	 * @param variables supplies the role variables, added to the model before actions
+	 * following a {@code vars} action are planned
+	 * @param terminalMessage where the output of the actions is printed
+	 */
+	ParallelActionRunner(TemplateEngine templateEngine, Path cwd, Path commandPath,
+			Supplier<Map<String, Object>> variables, TerminalMessage terminalMessage) {
+		this.templateEngine = templateEngine;
+		this.cwd = cwd;
+		this.commandPath = commandPath;
+		this.variables = variables;
+		this.terminalMessage = terminalMessage;
+	}
+
+	/**
+	 * Run actions.
+	 * @param actions the actions in the order of the actions file
+	 * @param model the model, each concurrently running action gets a copy
+	 * @param actionExecutor runs one action
+	 */
+	void run(List<Action> actions, Map<String, Object> model, ActionExecutor actionExecutor) {
+		int start = 0;
+		for (int i = 0; i <= actions.size(); i++) {
+			if (i == actions.size() || actions.get(i).getVars() != null) {
+				runConcurrently(actions.subList(start, i), model, actionExecutor);
+				if (i < actions.size()) {
+					actionExecutor.execute(actions.get(i), model, this.terminalMessage);
+				}
+				start = i + 1;
+			}
+		}
+	}
+
+	private void runConcurrently(List<Action> actions, Map<String, Object> model, ActionExecutor actionExecutor) {
+		if (actions.size() < 2) {
+			actions.forEach((action) -> actionExecutor.execute(action, model, this.terminalMessage));
+			return;
+		}
+		model.putAll(this.variables.get());
+		List<Set<Integer>> dependencies = getDependencies(actions.stream()
+			.map((action) -> ActionResources.of(action, this.templateEngine, this.cwd, this.commandPath, model))
+			.toList());
+		logger.debug("Running {} actions with dependencies {}", actions.size(), dependencies);
+		OrderedOutput output = new OrderedOutput(actions.size(), this.terminalMessage);
+		AtomicBoolean failed = new AtomicBoolean();
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("spring-cli-action-");
+		threadFactory.setDaemon(true);
+		// most actions wait on files and processes, let two overlap even on a single core
+		int threads = Math.min(actions.size(), Math.max(2, Runtime.getRuntime().availableProcessors()));
+		ExecutorService executor = Executors.newFixedThreadPool(threads, threadFactory);
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+		try {
+			for (int i = 0; i < actions.size(); i++) {
+				int index = i;
+				Action action = actions.get(i);
+				CompletableFuture<?>[] prerequisites = dependencies.get(i)
+					.stream()
+					.map(futures::get)
+					.toArray(CompletableFuture[]::new);
+				futures.add(CompletableFuture.allOf(prerequisites).thenRunAsync(() -> {
+					if (failed.get()) {
+						return;
+					}
+					try {
+						actionExecutor.execute(action, new LazyModelMap(model), output.get(index));
+					}
+					catch (RuntimeException ex) {
+						failed.set(true);
+						throw ex;
+					}
+				}, executor).whenComplete((result, ex) -> output.complete(index)));
+			}
+			RuntimeException failure = null;
+			for (CompletableFuture<Void> future : futures) {
+				try {
+					future.join();
+				}
+				catch (CompletionException ex) {
+					// dependencies point backwards, the first failure is the one of an action
+					if (failure == null) {
+						failure = (ex.getCause() instanceof RuntimeException cause) ? cause
+								: new SpringCliException("Action failed", ex.getCause());
+					}
+				}
+			}
+			if (failure != null) {
+				throw failure;
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Return, for each action, the indexes of the earlier actions it depends on.
+	 * @param resources the resources of the actions, in the order of the actions
+	 * @return the dependencies of each action
+	 */
+	static List<Set<Integer>> getDependencies(List<ActionResources> resources) {
+		List<Set<Integer>> dependencies = new ArrayList<>();
+		for (int i = 0; i < resources.size(); i++) {
+			Set<Integer> actionDependencies = new HashSet<>();
+			for (int j = 0; j < i; j++) {
+				if (resources.get(i).conflictsWith(resources.get(j))) {
+					actionDependencies.add(j);
+				}
+			}
+			dependencies.add(actionDependencies);
+		}
+		return dependencies;
+	}
+
+	/**
+	 * Runs a single action.
+	 */
+	@FunctionalInterface
+	interface ActionExecutor {
+
+		void execute(Action action, Map<String, Object> model, TerminalMessage terminalMessage);
+
+	}
+
+	/**
+	 * Buffers the output of each action and prints it in the order of the actions. Output
+	 * of an action printed once its buffer was printed, such as the outcome of injections
+	 * applied when the command completes, is printed directly.
+	 */
+	private static final class OrderedOutput {
+
+		private final List<ActionOutput> outputs = new ArrayList<>();
+
+		private int next;
+
+		OrderedOutput(int size, TerminalMessage terminalMessage) {
+			for (int i = 0; i < size; i++) {
+				this.outputs.add(new ActionOutput(terminalMessage));
+			}
+		}
+
+		TerminalMessage get(int index) {
+			return this.outputs.get(index);
+		}
+
+		synchronized void complete(int index) {
+			this.outputs.get(index).completed = true;
+			while (this.next < this.outputs.size() && this.outputs.get(this.next).completed) {
+				this.outputs.get(this.next).flush();
+				this.next++;
+			}
+		}
+
+	}
+
+	private static final class ActionOutput implements TerminalMessage {
+
+		private final List<Consumer<TerminalMessage>> buffer = new ArrayList<>();
+
+		private final TerminalMessage terminalMessage;
+
+		private boolean completed;
+
+		private boolean flushed;
+
+		ActionOutput(TerminalMessage terminalMessage) {
+			this.terminalMessage = terminalMessage;
+		}
+
+		@Override
+		public void print(String... text) {
+			print((target) -> target.print(text));
+		}
+
+		@Override
+		public void print(AttributedString... text) {
+			print((target) -> target.print(text));
+		}
+
+		private synchronized void print(Consumer<TerminalMessage> print) {
+			if (this.flushed) {
+				print.accept(this.terminalMessage);
+			}
+			else {
+				this.buffer.add(print);
+			}
+		}
+
+		synchronized void flush() {
+			this.buffer.forEach((print) -> print.accept(this.terminalMessage));
+			this.buffer.clear();
+			this.flushed = true;
+		}
+
+	}
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.runtime.command;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.springframework.cli.recipe.PomRecipeBatch;
+import org.springframework.cli.runtime.engine.actions.Action;
+import org.springframework.cli.runtime.engine.actions.handlers.InjectMavenActionHandler;
+import org.springframework.cli.runtime.engine.templating.TemplateEngine;
+
+/**
+ * Changes the {@code inject-maven-*} actions of one command run make to the
+ * {@code pom.xml} of the project.
+ * <p>
+ * The changes are collected and applied as one composite recipe, on a single parse and
+ * with a single write, when the command completes. Before an action that may read the pom
+ * runs, such as an {@code exec} action or an action writing to the pom itself, the changes
+ * collected so far are applied so that it sees them.
+ */
+class PomTransaction {
+
+	private final Path pomPath;
+
+	private final PomRecipeBatch pomRecipeBatch;
+
+	PomTransaction(Path cwd) {
+		this.pomPath = cwd.resolve("pom.xml").toAbsolutePath().normalize();
+		this.pomRecipeBatch = new PomRecipeBatch(this.pomPath, cwd);
+	}
+
+	/**
+	 * Collect the changes of a handler.
+	 * @param injectMavenActionHandler the handler the injections were added to
+	 */
+	synchronized void add(InjectMavenActionHandler injectMavenActionHandler) {
+		injectMavenActionHandler.addTo(this.pomRecipeBatch);
+	}
+
+	/**
+	 * Apply the collected changes if the action may read or change the pom.
+	 * @param action the action about to run
+	 * @param templateEngine renders the paths of the action
+	 * @param cwd the directory paths are resolved against
+	 * @param commandPath the directory of the command
+	 * @param model the model to render the paths with
+	 */
+	synchronized void commitBefore(Action action, TemplateEngine templateEngine, Path cwd, Path commandPath,
+			Map<String, Object> model) {
+		if (this.pomRecipeBatch.isEmpty() || ActionResources.isMavenInjection(action)) {
+			return;
+		}
+		if (action.getVars() != null
+				|| ActionResources.of(action, templateEngine, cwd, commandPath, model).touches(this.pomPath)) {
+			commit();
+		}
+	}
+
+	/**
+	 * Apply the collected changes.
+	 */
+	synchronized void commit() {
+		if (!this.pomRecipeBatch.isEmpty()) {
+			this.pomRecipeBatch.apply();
+		}
+	}
+
+	int getParseCount() {
+		return this.pomRecipeBatch.getParseCount();
+	}
+
+	int getWriteCount() {
+		return this.pomRecipeBatch.getWriteCount();
+	}
+
+}
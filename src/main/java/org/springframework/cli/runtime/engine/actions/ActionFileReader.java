@@ -28,6 +28,7 @@ import java.util.Optional;
 import com.fasterxml.jackson.core.JsonLocation;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
@@ -40,6 +41,10 @@ import org.springframework.util.FileCopyUtils;
 
 public class ActionFileReader {
 
+	private static final ObjectMapper mapper = new ObjectMapper(new YAMLFactory())
+		.setPropertyNamingStrategy(PropertyNamingStrategies.KEBAB_CASE)
+		.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
 	public Optional<ActionsFile> read(Path pathToFile) {
 		boolean isYamlFile = false;
 		String fileExtension = FileExtensionUtils.getExtension(pathToFile.toString());
@@ -57,9 +62,6 @@ public class ActionFileReader {
 	public ActionsFile read(Resource resource) {
 		try {
 			String actionFileString = asString(resource);
-			ObjectMapper mapper = new ObjectMapper(new YAMLFactory())
-				.setPropertyNamingStrategy(PropertyNamingStrategies.KEBAB_CASE)
-				.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 			return mapper.readValue(actionFileString, ActionsFile.class);
 		}
 		catch (JsonProcessingException ex) {
@@ -71,6 +73,21 @@ public class ActionFileReader {
 		}
 	}
 
+	/**
+	 * Read an action file as a tree, to be bound to an {@link ActionsFile} later on
+	 * without parsing YAML again.
+	 * @param pathToFile the action file
+	 * @return the contents of the action file
+	 */
+	public JsonNode readTree(Path pathToFile) {
+		try {
+			return mapper.readTree(pathToFile.toFile());
+		}
+		catch (IOException ex) {
+			throw new SpringCliException("Could not read action file " + pathToFile, ex);
+		}
+	}
+
 	private void improveErrorMessage(Resource resource, JsonProcessingException jsonProcessingException) {
 		try {
 
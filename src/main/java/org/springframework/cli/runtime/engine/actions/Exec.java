@@ -65,18 +65,30 @@ public class Exec {
 
 	private final String jsonPath;
 
+	/**
+	 * If set, how long the process may run before it is stopped, such as {@code 30s} or
+	 * {@code 10m}. Defaults to seconds when no unit is given.
+	 */
+	@Nullable
+	private final String timeout;
+
+	public Exec(String to, String command, String commandFile, String errto, String dir, String jsonPath) {
+		this(to, command, commandFile, errto, dir, jsonPath, null);
+	}
+
 	@JsonCreator(mode = JsonCreator.Mode.PROPERTIES)
 	public Exec(@JsonProperty("to") String to, @JsonProperty("command") String command,
 			@JsonProperty("command-file") String commandFile,
 			// TODO change to "error-to"
 			@JsonProperty("errto") String errto, @JsonProperty("dir") String dir,
-			@JsonProperty("json-path") String jsonPath) {
+			@JsonProperty("json-path") String jsonPath, @JsonProperty("timeout") @Nullable String timeout) {
 		this.to = to;
 		this.command = command;
 		this.commandFile = commandFile;
 		this.errto = errto;
 		this.dir = Objects.requireNonNullElse(dir, "");
 		this.jsonPath = jsonPath;
+		this.timeout = timeout;
 	}
 
 	@Nullable
@@ -107,11 +119,16 @@ public class Exec {
 		return jsonPath;
 	}
 
+	@Nullable
+	public String getTimeout() {
+		return timeout;
+	}
+
 	@Override
 	public String toString() {
 		return "Exec{" + "to='" + to + '\'' + ", errto='" + errto + '\'' + ", stdIn='" + stdIn + '\'' + ", command='"
 				+ command + '\'' + ", commandFile='" + commandFile + '\'' + ", dir='" + dir + '\'' + ", jsonPath='"
-				+ jsonPath + '\'' + '}';
+				+ jsonPath + '\'' + ", timeout='" + timeout + '\'' + '}';
 	}
 
 }
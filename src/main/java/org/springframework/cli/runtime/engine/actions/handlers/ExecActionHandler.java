@@ -16,32 +16,21 @@
 
 package org.springframework.cli.runtime.engine.actions.handlers;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
-
-import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import com.jayway.jsonpath.Configuration;
-import com.jayway.jsonpath.JsonPath;
-import com.jayway.jsonpath.spi.json.JacksonJsonProvider;
-import com.jayway.jsonpath.spi.mapper.JacksonMappingProvider;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import java.util.function.Consumer;
 
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.cli.SpringCliException;
 import org.springframework.cli.runtime.engine.actions.Exec;
+import org.springframework.cli.runtime.engine.actions.handlers.ProcessRunner.ProcessResult;
 import org.springframework.cli.runtime.engine.templating.TemplateEngine;
 import org.springframework.cli.util.TerminalMessage;
 import org.springframework.util.StringUtils;
@@ -51,8 +40,6 @@ import org.springframework.util.StringUtils;
  */
 public class ExecActionHandler {
 
-	private static final Logger logger = LoggerFactory.getLogger(ExecActionHandler.class);
-
 	public static final String OUTPUT_STDOUT = "stdout";
 
 	public static final String OUTPUT_STDERR = "stderr";
@@ -69,12 +56,29 @@ public class ExecActionHandler {
 
 	private final TerminalMessage terminalMessage;
 
+	private final boolean streamOutput;
+
 	public ExecActionHandler(TemplateEngine templateEngine, Map<String, Object> model, Path dynamicSubCommandPath,
 			TerminalMessage terminalMessage) {
+		this(templateEngine, model, dynamicSubCommandPath, terminalMessage, false);
+	}
+
+	/**
+	 * Create a handler.
+	 * @param templateEngine the template engine rendering the command
+	 * @param model the model to render the command with
+	 * @param dynamicSubCommandPath the directory of the command, with the command files
+	 * @param terminalMessage where progress is printed
+	 * @param streamOutput whether to print each line the command writes as it is
+	 * written, rather than only capture it
+	 */
+	public ExecActionHandler(TemplateEngine templateEngine, Map<String, Object> model, Path dynamicSubCommandPath,
+			TerminalMessage terminalMessage, boolean streamOutput) {
 		this.templateEngine = templateEngine;
 		this.model = model;
 		this.dynamicSubCommandPath = dynamicSubCommandPath;
 		this.terminalMessage = terminalMessage;
+		this.streamOutput = streamOutput;
 	}
 
 	public void executeShellCommand(Exec exec, Map<String, Object> outputs) {
@@ -144,47 +148,31 @@ public class ExecActionHandler {
 			}
 		}
 
+		Duration timeout = getTimeout(exec);
 		try {
 			terminalMessage.print("Executing: " + StringUtils.arrayToDelimitedString(commands, " "));
-			Process process = processBuilder.start();
-			// capture the output.
-			Optional<String> stderr = Optional.empty();
-			Optional<String> stdout = Optional.empty();
-			if (exec.getTo() == null) {
-				stdout = readStringFromInputStream(process.getInputStream());
-			}
-			if (exec.getErrto() == null) {
-				stderr = readStringFromInputStream(process.getErrorStream());
-			}
-
-			boolean exited = process.waitFor(300, TimeUnit.SECONDS);
-			outputs.put(OUTPUT_EXIT_VALUE, process.exitValue());
-
-			if (exec.getTo() == null && stdout.isPresent()) {
-				outputs.put(OUTPUT_STDOUT, stdout.get());
-			}
-			if (exec.getErrto() == null && stderr.isPresent()) {
-				outputs.put(OUTPUT_STDERR, stderr.get());
-			}
+			Consumer<String> lineListener = (this.streamOutput) ? terminalMessage::print : (line) -> {
+			};
+			ProcessResult result = new ProcessRunner(timeout, ProcessRunner.DEFAULT_CAPTURE_LIMIT)
+				.run(processBuilder, lineListener, lineListener, exec.getJsonPath());
+			outputs.put(OUTPUT_EXIT_VALUE, result.exitValue());
+			result.stdout().ifPresent((stdout) -> outputs.put(OUTPUT_STDOUT, stdout));
+			result.stderr().ifPresent((stderr) -> outputs.put(OUTPUT_STDERR, stderr));
 
 			// Logging success or failure to terminal and optionally process stdout with
 			// JSON Path
-			if (exited) {
-				if (process.exitValue() == 0) {
-					terminalMessage.print("Command executed successfully");
-					if (exec.getJsonPath() != null) {
-						Optional<Object> jsonPathOutput = applyJsonPath(exec, stdout);
-						if (jsonPathOutput.isPresent()) {
-							outputs.put(OUTPUT_STDOUT_JSONPATH, jsonPathOutput.get());
-						}
-					}
+			if (result.exitValue() == 0) {
+				terminalMessage.print("Command executed successfully");
+				if (exec.getJsonPath() != null) {
+					result.getJsonPathOutput().ifPresent((json) -> outputs.put(OUTPUT_STDOUT_JSONPATH, json));
 				}
-				else {
-					terminalMessage.print("Command '" + StringUtils.arrayToDelimitedString(commands, " ")
-							+ "' exited with value " + process.exitValue());
-					if (stderr.isPresent()) {
-						terminalMessage.print("stderr = " + stderr.get());
-					}
+			}
+			else {
+				terminalMessage.print("Command '" + StringUtils.arrayToDelimitedString(commands, " ")
+						+ "' exited with value " + result.exitValue());
+				// streamed output was already printed
+				if (!this.streamOutput && result.stderr().isPresent()) {
+					terminalMessage.print("stderr = " + result.stderr().get());
 				}
 			}
 		}
@@ -200,34 +188,16 @@ public class ExecActionHandler {
 		}
 	}
 
-	private Optional<Object> applyJsonPath(Exec exec, Optional<String> stdout) {
-		if (stdout.isPresent()) {
-			ObjectMapper mapper = new ObjectMapper();
-			mapper.configure(JsonParser.Feature.ALLOW_UNQUOTED_FIELD_NAMES, true);
-			mapper.registerModule(new JavaTimeModule());
-			Object data = JsonPath
-				.using(Configuration.builder()
-					.jsonProvider(new JacksonJsonProvider(mapper))
-					.mappingProvider(new JacksonMappingProvider(mapper))
-					.build())
-				.parse(stdout.get())
-				.read(exec.getJsonPath());
-			if (data != null) {
-				return Optional.of(data);
-			}
+	private Duration getTimeout(Exec exec) {
+		if (!StringUtils.hasText(exec.getTimeout())) {
+			return ProcessRunner.DEFAULT_TIMEOUT;
 		}
-		return Optional.empty();
-	}
-
-	private Optional<String> readStringFromInputStream(InputStream input) {
-		final String newline = System.getProperty("line.separator");
-		try (BufferedReader buffer = new BufferedReader(new InputStreamReader(input))) {
-			return Optional.of(buffer.lines().collect(Collectors.joining(newline)));
+		try {
+			return DurationStyle.detectAndParse(templateEngine.process(exec.getTimeout(), model), ChronoUnit.SECONDS);
 		}
-		catch (IOException ex) {
-			logger.error("Could not read command output: " + ex.getMessage());
+		catch (IllegalArgumentException ex) {
+			throw new SpringCliException("Error evaluating exec timeout. Expression: " + exec.getTimeout(), ex);
 		}
-		return Optional.empty();
 	}
 
 }
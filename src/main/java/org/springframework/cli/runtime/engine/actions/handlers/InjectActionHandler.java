@@ -16,20 +16,9 @@
 
 package org.springframework.cli.runtime.engine.actions.handlers;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import org.springframework.cli.SpringCliException;
 import org.springframework.cli.runtime.engine.actions.Inject;
@@ -42,8 +31,6 @@ import org.springframework.util.StringUtils;
  */
 public class InjectActionHandler {
 
-	private static final Logger logger = LoggerFactory.getLogger(InjectActionHandler.class);
-
 	private TemplateEngine templateEngine;
 
 	private Map<String, Object> model;
@@ -61,8 +48,24 @@ public class InjectActionHandler {
 	}
 
 	public void execute(Inject inject) {
+		InjectBatch injectBatch = new InjectBatch();
+		addTo(injectBatch, inject);
+		injectBatch.apply();
+	}
+
+	/**
+	 * Add the injection to a batch, to be applied with the other injections into the same
+	 * file.
+	 * @param injectBatch the batch to add the injection to
+	 * @param inject the injection
+	 */
+	public void addTo(InjectBatch injectBatch, Inject inject) {
 		Path fileToInject = getFileToInject(inject, templateEngine, model, cwd);
-		inject(fileToInject, templateEngine, inject, model);
+		String text = null;
+		if (StringUtils.hasText(inject.getBefore()) || StringUtils.hasText(inject.getAfter())) {
+			text = templateEngine.process(inject.getText(), model);
+		}
+		injectBatch.add(fileToInject, text, inject.getBefore(), inject.getAfter(), inject.getSkip(), terminalMessage);
 	}
 
 	/**
@@ -90,100 +93,4 @@ public class InjectActionHandler {
 		return pathToFile;
 	}
 
-	private void inject(Path pathToFile, TemplateEngine templateEngine, Inject inject, Map<String, Object> model) {
-		Path newFile = Paths.get(pathToFile + ".new");
-		boolean shouldInject = shouldInjectFile(inject.getSkip(), pathToFile.toFile());
-		if (!shouldInject) {
-			return;
-		}
-		try {
-			List<String> lines = Files.readAllLines(pathToFile);
-			// process before injection
-			if (StringUtils.hasText(inject.getBefore())) {
-				int injectIndex = indexFromMarkerString(inject.getBefore(), lines);
-				if (injectIndex != -1) {
-					String result = templateEngine.process(inject.getText(), model);
-					lines.add(injectIndex, result);
-				}
-				else {
-					terminalMessage.print("Could not inject into file " + pathToFile.toFile().getAbsolutePath()
-							+ " no match on before: " + inject.getBefore());
-				}
-			}
-			// process after injection
-			if (StringUtils.hasText(inject.getAfter())) {
-				int injectIndex = indexFromMarkerString(inject.getAfter(), lines);
-				if (injectIndex != -1) {
-					String result = templateEngine.process(inject.getText(), model);
-					lines.add(injectIndex + 1, result);
-				}
-				else {
-					terminalMessage.print("Could not inject into file " + pathToFile.toFile().getAbsolutePath()
-							+ " no match on after: " + inject.getAfter());
-				}
-			}
-
-			// write updated file to with .new suffix.
-			Files.write(newFile, lines, Charset.defaultCharset());
-			// swap out files
-			Files.copy(newFile, pathToFile, StandardCopyOption.COPY_ATTRIBUTES, StandardCopyOption.REPLACE_EXISTING);
-			// delete newFile
-			deleteFile(newFile);
-			terminalMessage.print("Injected into " + pathToFile.toFile().getAbsolutePath());
-		}
-		catch (IOException ex) {
-			terminalMessage.print("Could not inject into file " + pathToFile.toFile().getAbsolutePath()
-					+ ".  Exception Message = " + ex.getMessage());
-			deleteFile(newFile);
-		}
-
-	}
-
-	private boolean shouldInjectFile(String skip, File file) {
-		boolean shouldInject = true;
-		try {
-			String fileContents = Files.readAllLines(file.toPath()).stream().collect(Collectors.joining("\n"));
-			if (skip != null && fileContents.contains(skip)) {
-				terminalMessage.print("Skipping injection of " + file);
-				shouldInject = false;
-			}
-		}
-		catch (IOException ex) {
-			throw new SpringCliException("Could not read file contents of " + file.getAbsolutePath());
-		}
-		return shouldInject;
-	}
-
-	/**
-	 * @param marker the string we are looking to insert before or after
-	 * @param lines the lines of text
-	 * @return the index to insert a new line, -1 if no match found.
-	 */
-	private int indexFromMarkerString(String marker, List<String> lines) {
-		int i = 0;
-		for (Iterator<String> it = lines.iterator(); it.hasNext(); i++) {
-			String line = it.next();
-			if (line.contains(marker)) {
-				return i;
-			}
-		}
-		if (i == lines.size()) {
-			return -1;
-		}
-		else {
-			return i;
-		}
-	}
-
-	private void deleteFile(Path newFile) {
-		if (Files.exists(newFile)) {
-			try {
-				Files.delete(newFile);
-			}
-			catch (IOException ex) {
-				logger.error("Could not delete file {}", newFile);
-			}
-		}
-	}
-
 }
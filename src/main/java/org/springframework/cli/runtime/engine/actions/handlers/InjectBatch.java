@@ -0,0 +1,357 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.runtime.engine.actions.handlers;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.cli.SpringCliException;
+import org.springframework.cli.util.IoUtils;
+import org.springframework.cli.util.TerminalMessage;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+/**
+ * Injections of text into files, grouped by file and applied together.
+ * <p>
+ * Each file is read once. The first line matching each marker is found in a single pass
+ * over the file, the injections are then applied in the order they were added, as if
+ * each one had been applied to the file left by the previous ones. Injected text is split
+ * into lines, so that later markers match its lines as they would in the file. The
+ * result is written to a temporary file that is moved over the original.
+ */
+public class InjectBatch {
+
+	private static final Logger logger = LoggerFactory.getLogger(InjectBatch.class);
+
+	private final Map<Path, List<Injection>> injections = new LinkedHashMap<>();
+
+	private int addCount;
+
+	private int readCount;
+
+	private int writeCount;
+
+	/**
+	 * Add an injection.
+	 * @param file the file to inject into
+	 * @param text the text to inject, already rendered
+	 * @param before the marker to inject the text before, if any
+	 * @param after the marker to inject the text after, if any
+	 * @param skip the text whose presence in the file skips the injection, if any
+	 * @param terminalMessage where the outcome of the injection is printed
+	 */
+	public void add(Path file, @Nullable String text, @Nullable String before, @Nullable String after,
+			@Nullable String skip, TerminalMessage terminalMessage) {
+		this.injections.computeIfAbsent(file.toAbsolutePath(), (key) -> new ArrayList<>())
+			.add(new Injection(this.addCount++, text, before, after, skip, terminalMessage));
+	}
+
+	public boolean isEmpty() {
+		return this.injections.isEmpty();
+	}
+
+	/**
+	 * Return the files with injections not applied yet, in the order of their first
+	 * injection.
+	 * @return the files
+	 */
+	public Set<Path> getFiles() {
+		return new LinkedHashSet<>(this.injections.keySet());
+	}
+
+	/**
+	 * Apply the injections into all files. The outcome of the injections is printed in
+	 * the order they were added.
+	 */
+	public void apply() {
+		List<Outcome> outcomes = new ArrayList<>();
+		try {
+			for (Path file : getFiles()) {
+				apply(file, outcomes);
+			}
+		}
+		finally {
+			print(outcomes);
+		}
+	}
+
+	/**
+	 * Apply the injections into a file.
+	 * @param file the file
+	 */
+	public void apply(Path file) {
+		List<Outcome> outcomes = new ArrayList<>();
+		try {
+			apply(file, outcomes);
+		}
+		finally {
+			print(outcomes);
+		}
+	}
+
+	private void apply(Path file, List<Outcome> outcomes) {
+		Path pathToFile = file.toAbsolutePath();
+		List<Injection> fileInjections = this.injections.remove(pathToFile);
+		if (fileInjections == null) {
+			return;
+		}
+		List<String> lines;
+		try {
+			lines = Files.readAllLines(pathToFile);
+			this.readCount++;
+		}
+		catch (IOException ex) {
+			throw new SpringCliException("Could not read file contents of " + pathToFile);
+		}
+		InjectedLines injectedLines = new InjectedLines(lines, fileInjections);
+		List<Injection> injected = new ArrayList<>();
+		for (Injection injection : fileInjections) {
+			if (injection.skip() != null && injectedLines.contains(injection.skip())) {
+				outcomes.add(new Outcome(injection, "Skipping injection of " + pathToFile));
+				continue;
+			}
+			if (StringUtils.hasText(injection.before()) && !injectedLines.insertBefore(injection.before(),
+					injection.text())) {
+				outcomes.add(new Outcome(injection,
+						"Could not inject into file " + pathToFile + " no match on before: " + injection.before()));
+			}
+			if (StringUtils.hasText(injection.after()) && !injectedLines.insertAfter(injection.after(),
+					injection.text())) {
+				outcomes.add(new Outcome(injection,
+						"Could not inject into file " + pathToFile + " no match on after: " + injection.after()));
+			}
+			injected.add(injection);
+		}
+		if (injected.isEmpty()) {
+			return;
+		}
+		try {
+			write(pathToFile, injectedLines.toList());
+		}
+		catch (IOException ex) {
+			injected.forEach((injection) -> outcomes.add(new Outcome(injection,
+					"Could not inject into file " + pathToFile + ".  Exception Message = " + ex.getMessage())));
+			return;
+		}
+		injected.forEach((injection) -> outcomes.add(new Outcome(injection, "Injected into " + pathToFile)));
+	}
+
+	private static void print(List<Outcome> outcomes) {
+		// stable, the messages of one injection keep their order
+		outcomes.sort(Comparator.comparingInt((outcome) -> outcome.injection().order()));
+		outcomes.forEach((outcome) -> outcome.injection().terminalMessage().print(outcome.message()));
+	}
+
+	/**
+	 * Number of files read by this batch.
+	 * @return the read count
+	 */
+	public int getReadCount() {
+		return this.readCount;
+	}
+
+	/**
+	 * Number of files written by this batch.
+	 * @return the write count
+	 */
+	public int getWriteCount() {
+		return this.writeCount;
+	}
+
+	private void write(Path pathToFile, List<String> lines) throws IOException {
+		Path newFile = IoUtils.createSiblingFile(pathToFile);
+		try {
+			Files.write(newFile, lines, Charset.defaultCharset());
+			Files.move(newFile, pathToFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			this.writeCount++;
+		}
+		finally {
+			if (Files.deleteIfExists(newFile)) {
+				logger.debug("Deleted " + newFile);
+			}
+		}
+	}
+
+	private record Injection(int order, @Nullable String text, @Nullable String before, @Nullable String after,
+			@Nullable String skip, TerminalMessage terminalMessage) {
+	}
+
+	private record Outcome(Injection injection, String message) {
+	}
+
+	/**
+	 * Lines of a file with the lines injected so far. Injected lines are kept in the gaps
+	 * between the lines of the file, gap {@code i} holding the lines injected before line
+	 * {@code i}, so the lines of the file are never shifted.
+	 */
+	private static final class InjectedLines {
+
+		private static final Pattern LINE_SEPARATOR = Pattern.compile("\\r\\n|\\r|\\n");
+
+		private final List<String> lines;
+
+		private final List<List<String>> gaps;
+
+		private final Map<String, Integer> firstMatches = new HashMap<>();
+
+		private boolean injected;
+
+		InjectedLines(List<String> lines, List<Injection> injections) {
+			this.lines = lines;
+			this.gaps = new ArrayList<>(lines.size() + 1);
+			for (int i = 0; i <= lines.size(); i++) {
+				this.gaps.add(null);
+			}
+			Set<String> markers = new HashSet<>();
+			for (Injection injection : injections) {
+				if (StringUtils.hasText(injection.before())) {
+					markers.add(injection.before());
+				}
+				if (StringUtils.hasText(injection.after())) {
+					markers.add(injection.after());
+				}
+			}
+			findFirstMatches(markers);
+		}
+
+		/**
+		 * Find the first line matching each marker in one pass over the lines, stopping as
+		 * soon as every marker matched.
+		 */
+		private void findFirstMatches(Set<String> markers) {
+			Set<String> pending = new HashSet<>(markers);
+			for (int i = 0; i < this.lines.size() && !pending.isEmpty(); i++) {
+				String line = this.lines.get(i);
+				for (var iterator = pending.iterator(); iterator.hasNext();) {
+					String marker = iterator.next();
+					if (line.contains(marker)) {
+						this.firstMatches.put(marker, i);
+						iterator.remove();
+					}
+				}
+			}
+		}
+
+		boolean contains(String text) {
+			// the injections are only joined once there are any
+			return String.join("\n", (this.injected) ? toList() : this.lines).contains(text);
+		}
+
+		boolean insertBefore(String marker, @Nullable String text) {
+			Match match = find(marker);
+			if (match == null) {
+				return false;
+			}
+			gap(match.gap()).addAll(match.index(), split(text));
+			return true;
+		}
+
+		boolean insertAfter(String marker, @Nullable String text) {
+			Match match = find(marker);
+			if (match == null) {
+				return false;
+			}
+			if (match.index() < gap(match.gap()).size()) {
+				// the marker is on an injected line, the text goes right after it
+				gap(match.gap()).addAll(match.index() + 1, split(text));
+			}
+			else {
+				gap(match.gap() + 1).addAll(0, split(text));
+			}
+			return true;
+		}
+
+		/**
+		 * Split injected text into the lines a read of the written file returns.
+		 */
+		private static List<String> split(@Nullable String text) {
+			if (text == null) {
+				return Collections.singletonList(null);
+			}
+			return List.of(LINE_SEPARATOR.split(text, -1));
+		}
+
+		/**
+		 * Find the first line matching a marker. The match is at index {@code index} of
+		 * gap {@code gap} if it is an injected line, otherwise it is the line of the file
+		 * following the gap, and the index is the size of the gap.
+		 */
+		@Nullable
+		private Match find(String marker) {
+			Integer line = this.firstMatches.get(marker);
+			int lastGap = (line != null) ? line : this.lines.size();
+			for (int gap = 0; gap <= lastGap; gap++) {
+				List<String> injectedLines = this.gaps.get(gap);
+				if (injectedLines != null) {
+					for (int i = 0; i < injectedLines.size(); i++) {
+						String injectedLine = injectedLines.get(i);
+						if (injectedLine != null && injectedLine.contains(marker)) {
+							return new Match(gap, i);
+						}
+					}
+				}
+			}
+			return (line != null) ? new Match(line, gap(line).size()) : null;
+		}
+
+		private List<String> gap(int gap) {
+			List<String> injectedLines = this.gaps.get(gap);
+			if (injectedLines == null) {
+				injectedLines = new ArrayList<>();
+				this.gaps.set(gap, injectedLines);
+				this.injected = true;
+			}
+			return injectedLines;
+		}
+
+		List<String> toList() {
+			List<String> result = new ArrayList<>(this.lines.size());
+			for (int i = 0; i <= this.lines.size(); i++) {
+				if (this.gaps.get(i) != null) {
+					result.addAll(this.gaps.get(i));
+				}
+				if (i < this.lines.size()) {
+					result.add(this.lines.get(i));
+				}
+			}
+			return result;
+		}
+
+		private record Match(int gap, int index) {
+		}
+
+	}
+
+}
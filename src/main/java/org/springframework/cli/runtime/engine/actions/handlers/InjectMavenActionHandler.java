@@ -24,12 +24,12 @@ import java.util.Map;
 
 import org.openrewrite.Recipe;
 import org.openrewrite.config.DeclarativeRecipe;
-import org.openrewrite.maven.MavenParser;
 
 import org.springframework.cli.recipe.AddDependencyRecipeFactory;
 import org.springframework.cli.recipe.AddManagedDependencyRecipeFactory;
 import org.springframework.cli.recipe.AddPluginRecipeFactory;
 import org.springframework.cli.recipe.InjectTextMavenRepositoryRecipe;
+import org.springframework.cli.recipe.PomRecipeBatch;
 import org.springframework.cli.runtime.engine.actions.InjectMavenBuildPlugin;
 import org.springframework.cli.runtime.engine.actions.InjectMavenDependency;
 import org.springframework.cli.runtime.engine.actions.InjectMavenDependencyManagement;
@@ -75,10 +75,19 @@ public class InjectMavenActionHandler extends AbstractInjectMavenActionHandler {
 		return dependencyManagements.add(dependencyManagement);
 	}
 
+	/**
+	 * Add the recipes of the collected injections to a batch, which applies them together
+	 * with the recipes of other actions in a single parse and write of the pom.
+	 * @param pomRecipeBatch the batch to add to
+	 */
+	public void addTo(PomRecipeBatch pomRecipeBatch) {
+		getPomPath();
+		createRecipe().getRecipeList().forEach(pomRecipeBatch::add);
+	}
+
 	protected Recipe createRecipe() {
 		DeclarativeRecipe aggregateRecipe = new DeclarativeRecipe("spring.cli.ai.MavenUpdates",
 				"Add Pom changes from AI", "", Collections.emptySet(), null, null, false, Collections.emptyList());
-		MavenParser mavenParser = MavenParser.builder().build();
 		for (InjectMavenDependency d : dependencies) {
 			String text = getTextToUse(d.getText(), "Inject Maven Dependency");
 			MavenDependencyReader mavenDependencyReader = new MavenDependencyReader();
@@ -0,0 +1,376 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.runtime.engine.actions.handlers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.spi.json.JacksonJsonProvider;
+import com.jayway.jsonpath.spi.mapper.JacksonMappingProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.cli.SpringCliException;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Runs a process and drains its stdout and stderr at the same time, so that a process
+ * writing a lot to one of them never blocks on a full pipe.
+ * <p>
+ * Lines are handed to listeners as they are written. Only the last lines, up to a limit
+ * of characters, are kept as captured output. A JSON Path expression is applied to
+ * stdout while it is read, the JSON document is parsed from the stream without holding
+ * the output as a whole.
+ */
+public class ProcessRunner {
+
+	private static final Logger logger = LoggerFactory.getLogger(ProcessRunner.class);
+
+	/**
+	 * Time a process may run for if no timeout is given.
+	 */
+	public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(300);
+
+	/**
+	 * Number of characters of each output kept by default.
+	 */
+	public static final int DEFAULT_CAPTURE_LIMIT = 1024 * 1024;
+
+	private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(10);
+
+	private static final ExecutorService pumps = Executors.newCachedThreadPool(pumpThreadFactory());
+
+	private static final Configuration jsonPathConfiguration;
+
+	static {
+		ObjectMapper mapper = new ObjectMapper();
+		mapper.configure(JsonParser.Feature.ALLOW_UNQUOTED_FIELD_NAMES, true);
+		mapper.registerModule(new JavaTimeModule());
+		jsonPathConfiguration = Configuration.builder()
+			.jsonProvider(new JacksonJsonProvider(mapper))
+			.mappingProvider(new JacksonMappingProvider(mapper))
+			.build();
+	}
+
+	private final Duration timeout;
+
+	private final int captureLimit;
+
+	public ProcessRunner() {
+		this(DEFAULT_TIMEOUT, DEFAULT_CAPTURE_LIMIT);
+	}
+
+	/**
+	 * Create a runner.
+	 * @param timeout time after which a process is destroyed
+	 * @param captureLimit number of characters of each output to keep, older lines are
+	 * dropped once it is reached
+	 */
+	public ProcessRunner(Duration timeout, int captureLimit) {
+		this.timeout = timeout;
+		this.captureLimit = captureLimit;
+	}
+
+	/**
+	 * Start a process and wait for it to exit.
+	 * @param processBuilder the process to start, outputs that are redirected are not
+	 * read
+	 * @param stdoutListener called with each line written to stdout
+	 * @param stderrListener called with each line written to stderr
+	 * @param jsonPath JSON Path expression to apply to stdout, if any
+	 * @return the outcome of the process
+	 * @throws IOException if the process could not be started
+	 * @throws InterruptedException if interrupted while waiting for the process
+	 */
+	public ProcessResult run(ProcessBuilder processBuilder, Consumer<String> stdoutListener,
+			Consumer<String> stderrListener, @Nullable String jsonPath) throws IOException, InterruptedException {
+		boolean readStdout = processBuilder.redirectOutput() == ProcessBuilder.Redirect.PIPE;
+		boolean readStderr = processBuilder.redirectError() == ProcessBuilder.Redirect.PIPE;
+		// lines of both outputs reach the listeners one at a time
+		Object lock = new Object();
+		Consumer<String> stdoutLines = (line) -> {
+			synchronized (lock) {
+				stdoutListener.accept(line);
+			}
+		};
+		Consumer<String> stderrLines = (line) -> {
+			synchronized (lock) {
+				stderrListener.accept(line);
+			}
+		};
+		Process process = processBuilder.start();
+		CompletableFuture<Output> stdout = readStdout ? pump(process.getInputStream(), stdoutLines, jsonPath)
+				: CompletableFuture.completedFuture(null);
+		CompletableFuture<Output> stderr = readStderr ? pump(process.getErrorStream(), stderrLines, null)
+				: CompletableFuture.completedFuture(null);
+		try {
+			if (!process.waitFor(this.timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+				destroy(process);
+				throw new SpringCliException(
+						"Command did not complete within " + this.timeout.toSeconds() + " seconds and was stopped");
+			}
+			Output stdoutOutput = await(stdout);
+			Output stderrOutput = await(stderr);
+			return new ProcessResult(process.exitValue(), Optional.ofNullable(stdoutOutput).map(Output::text),
+					Optional.ofNullable(stderrOutput).map(Output::text),
+					(stdoutOutput != null) ? stdoutOutput.json() : null,
+					(stdoutOutput != null) ? stdoutOutput.jsonFailure() : null);
+		}
+		catch (InterruptedException ex) {
+			destroy(process);
+			throw ex;
+		}
+	}
+
+	private CompletableFuture<Output> pump(InputStream inputStream, Consumer<String> listener,
+			@Nullable String jsonPath) {
+		return CompletableFuture.supplyAsync(() -> {
+			OutputCapture capture = new OutputCapture(this.captureLimit, listener);
+			try (inputStream; LineSplitter lines = new LineSplitter(capture::add)) {
+				TeeInputStream tee = new TeeInputStream(inputStream, lines);
+				Object json = null;
+				RuntimeException jsonFailure = null;
+				if (jsonPath != null) {
+					try {
+						json = JsonPath.using(jsonPathConfiguration).parse(tee).read(jsonPath);
+					}
+					catch (RuntimeException ex) {
+						jsonFailure = ex;
+					}
+				}
+				// keep draining whatever follows the JSON document
+				tee.transferTo(OutputStream.nullOutputStream());
+				lines.close();
+				return new Output(capture.getText(), json, jsonFailure);
+			}
+			catch (IOException ex) {
+				logger.error("Could not read command output: " + ex.getMessage());
+				return new Output(capture.getText(), null, null);
+			}
+		}, pumps);
+	}
+
+	@Nullable
+	private static Output await(CompletableFuture<Output> output) throws InterruptedException {
+		try {
+			// the process exited, its pipes are closed once the remaining output is read
+			return output.get(DRAIN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+		}
+		catch (ExecutionException | TimeoutException ex) {
+			// a child process that outlives the command may keep the pipe open
+			logger.debug("Could not read all command output", ex);
+			return null;
+		}
+	}
+
+	private static void destroy(Process process) {
+		process.descendants().forEach(ProcessHandle::destroyForcibly);
+		process.destroyForcibly();
+	}
+
+	private static CustomizableThreadFactory pumpThreadFactory() {
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("spring-cli-exec-");
+		threadFactory.setDaemon(true);
+		return threadFactory;
+	}
+
+	/**
+	 * Outcome of a process run.
+	 *
+	 * @param exitValue the exit value of the process
+	 * @param stdout the last lines written to stdout, empty if stdout was redirected
+	 * @param stderr the last lines written to stderr, empty if stderr was redirected
+	 * @param json the value the JSON Path expression selected from stdout, if any
+	 * @param jsonFailure why the JSON Path expression could not be applied, if it failed
+	 */
+	public record ProcessResult(int exitValue, Optional<String> stdout, Optional<String> stderr,
+			@Nullable Object json, @Nullable RuntimeException jsonFailure) {
+
+		/**
+		 * Return the result of the JSON Path expression applied to stdout.
+		 * @return the value the expression selected, empty if it selected nothing
+		 * @throws SpringCliException if stdout could not be parsed as JSON
+		 */
+		public Optional<Object> getJsonPathOutput() {
+			if (this.jsonFailure != null) {
+				throw new SpringCliException(
+						"Could not apply JSON Path to command output: " + this.jsonFailure.getMessage(),
+						this.jsonFailure);
+			}
+			return Optional.ofNullable(this.json);
+		}
+
+	}
+
+	private record Output(String text, @Nullable Object json, @Nullable RuntimeException jsonFailure) {
+	}
+
+	/**
+	 * The last lines of an output, up to a number of characters.
+	 */
+	private static final class OutputCapture {
+
+		private final Deque<String> lines = new ArrayDeque<>();
+
+		private final int limit;
+
+		private final Consumer<String> listener;
+
+		private int length;
+
+		private boolean truncated;
+
+		OutputCapture(int limit, Consumer<String> listener) {
+			this.limit = limit;
+			this.listener = listener;
+		}
+
+		void add(String line) {
+			this.listener.accept(line);
+			this.lines.addLast(line);
+			this.length += line.length();
+			while (this.length > this.limit && this.lines.size() > 1) {
+				this.length -= this.lines.removeFirst().length();
+				this.truncated = true;
+			}
+		}
+
+		String getText() {
+			if (this.truncated) {
+				logger.debug("Command output exceeded " + this.limit + " characters, kept the last lines");
+			}
+			return String.join(System.lineSeparator(), this.lines);
+		}
+
+	}
+
+	/**
+	 * Splits the bytes written to it into lines.
+	 */
+	private static final class LineSplitter extends OutputStream {
+
+		private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+		private final Consumer<String> consumer;
+
+		private boolean closed;
+
+		LineSplitter(Consumer<String> consumer) {
+			this.consumer = consumer;
+		}
+
+		@Override
+		public void write(int b) {
+			if (b == '\n') {
+				emit();
+			}
+			else {
+				this.line.write(b);
+			}
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			for (int i = off; i < off + len; i++) {
+				write(b[i]);
+			}
+		}
+
+		@Override
+		public void close() {
+			if (!this.closed) {
+				this.closed = true;
+				if (this.line.size() > 0) {
+					emit();
+				}
+			}
+		}
+
+		private void emit() {
+			String text = this.line.toString(Charset.defaultCharset());
+			this.line.reset();
+			this.consumer.accept(text.endsWith("\r") ? text.substring(0, text.length() - 1) : text);
+		}
+
+	}
+
+	/**
+	 * Copies everything read from a stream, leaving the stream open when closed so that
+	 * parsing the JSON document does not close the pipe.
+	 */
+	private static final class TeeInputStream extends FilterInputStream {
+
+		private final OutputStream copy;
+
+		TeeInputStream(InputStream in, OutputStream copy) {
+			super(in);
+			this.copy = copy;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b != -1) {
+				this.copy.write(b);
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int read = super.read(b, off, len);
+			if (read > 0) {
+				this.copy.write(b, off, read);
+			}
+			return read;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			byte[] buffer = new byte[(int) Math.min(n, 8192)];
+			int read = read(buffer, 0, buffer.length);
+			return Math.max(read, 0);
+		}
+
+		@Override
+		public void close() {
+		}
+
+	}
+
+}
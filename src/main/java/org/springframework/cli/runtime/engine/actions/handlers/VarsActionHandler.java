@@ -28,6 +28,7 @@ import org.jline.terminal.Terminal;
 
 import org.springframework.cli.SpringCliException;
 import org.springframework.cli.roles.RoleService;
+import org.springframework.cli.roles.RoleVariableStore;
 import org.springframework.cli.runtime.engine.actions.Options;
 import org.springframework.cli.runtime.engine.actions.Question;
 import org.springframework.cli.runtime.engine.actions.Vars;
@@ -65,8 +66,31 @@ public class VarsActionHandler {
 
 	private final Terminal terminal;
 
+	private final RoleVariableStore roleVariableStore;
+
+	private final boolean flushOnExecute;
+
 	public VarsActionHandler(TemplateEngine templateEngine, Map<String, Object> model, Path cwd,
 			Path dynamicSubCommandPath, TerminalMessage terminalMessage, Terminal terminal) {
+		this(templateEngine, model, cwd, dynamicSubCommandPath, terminalMessage, terminal,
+				new RoleVariableStore(new RoleService(cwd)), true);
+	}
+
+	/**
+	 * Create a handler that records variables in the store of the running command, which
+	 * writes them once the command completes.
+	 */
+	public VarsActionHandler(TemplateEngine templateEngine, Map<String, Object> model, Path cwd,
+			Path dynamicSubCommandPath, TerminalMessage terminalMessage, Terminal terminal,
+			RoleVariableStore roleVariableStore) {
+		this(templateEngine, model, cwd, dynamicSubCommandPath, terminalMessage, terminal, roleVariableStore, false);
+	}
+
+	private VarsActionHandler(TemplateEngine templateEngine, Map<String, Object> model, Path cwd,
+			Path dynamicSubCommandPath, TerminalMessage terminalMessage, Terminal terminal,
+			RoleVariableStore roleVariableStore, boolean flushOnExecute) {
+		this.roleVariableStore = roleVariableStore;
+		this.flushOnExecute = flushOnExecute;
 		this.templateEngine = templateEngine;
 		this.model = model;
 		this.cwd = cwd;
@@ -85,6 +109,9 @@ public class VarsActionHandler {
 			}
 		}
 		processData(vars.getData());
+		if (this.flushOnExecute) {
+			this.roleVariableStore.flush();
+		}
 
 	}
 
@@ -92,13 +119,12 @@ public class VarsActionHandler {
 		if (data == null || data.isEmpty()) {
 			return;
 		}
-		RoleService roleService = new RoleService(cwd);
 		for (Entry<String, Object> objectEntry : data.entrySet()) {
 			String keyToUse = templateEngine.process(objectEntry.getKey().toString(), model);
 			Object valueToUse = JavaUtils.inferType(templateEngine.process(objectEntry.getValue().toString(), model));
 			// TODO store in default role "" for now
 			String roleName = "";
-			roleService.updateRole(roleName, keyToUse, valueToUse);
+			this.roleVariableStore.put(roleName, keyToUse, valueToUse);
 		}
 	}
 
@@ -179,9 +205,8 @@ public class VarsActionHandler {
 
 		Object object = resultContext.get(question.getName());
 
-		RoleService roleService = new RoleService();
 		// store in default role "" for now
-		roleService.updateRole("", question.getName(), JavaUtils.inferType(object));
+		this.roleVariableStore.put("", question.getName(), JavaUtils.inferType(object));
 
 	}
 
@@ -226,8 +251,7 @@ public class VarsActionHandler {
 		if (resultContext.containsKey(question.getName())) {
 			Object object = resultContext.get(question.getName());
 			// store in default role for now
-			RoleService roleService = new RoleService();
-			roleService.updateRole("", question.getName(), JavaUtils.inferType(object));
+			this.roleVariableStore.put("", question.getName(), JavaUtils.inferType(object));
 		}
 	}
 
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.runtime.engine.model;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Model of a command run whose entries may be computed only once they are read, by a
+ * template or an {@code if} expression.
+ * <p>
+ * Every view of the map resolves lazy entries, {@link #get(Object)} as well as
+ * {@link #entrySet()}, {@link #values()} and the methods built on them, so code reading
+ * the model never sees an unresolved entry. Copying the model into another
+ * {@code LazyModelMap} keeps its entries lazy. {@link ModelPopulator}s add lazy entries
+ * with {@link #putLazily(Map, String, Supplier)}, which computes the value right away when
+ * the model is a plain map.
+ */
+public class LazyModelMap extends AbstractMap<String, Object> {
+
+	private final Map<String, Object> entries = new HashMap<>();
+
+	private final Set<Map.Entry<String, Object>> entrySet = new EntrySet();
+
+	public LazyModelMap() {
+	}
+
+	public LazyModelMap(Map<String, Object> model) {
+		putAll(model);
+	}
+
+	@Override
+	public int size() {
+		return this.entries.size();
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return this.entries.containsKey(key);
+	}
+
+	@Override
+	public Object get(Object key) {
+		return resolve(this.entries.get(key));
+	}
+
+	@Override
+	public Object put(String key, Object value) {
+		return resolve(this.entries.put(key, value));
+	}
+
+	@Override
+	public void putAll(Map<? extends String, ? extends Object> model) {
+		if (model instanceof LazyModelMap lazyModel) {
+			// lazy entries of another model stay lazy, and are computed once for both
+			this.entries.putAll(lazyModel.entries);
+		}
+		else {
+			this.entries.putAll(model);
+		}
+	}
+
+	@Override
+	public Object remove(Object key) {
+		return resolve(this.entries.remove(key));
+	}
+
+	@Override
+	public void clear() {
+		this.entries.clear();
+	}
+
+	@Override
+	public Set<String> keySet() {
+		return this.entries.keySet();
+	}
+
+	@Override
+	public Set<Map.Entry<String, Object>> entrySet() {
+		return this.entrySet;
+	}
+
+	/**
+	 * Add an entry that is computed when it is first read.
+	 * @param model the model to add to
+	 * @param key the key of the entry
+	 * @param supplier computes the value of the entry
+	 */
+	public static void putLazily(Map<String, Object> model, String key, Supplier<?> supplier) {
+		if (model instanceof LazyModelMap lazyModel) {
+			// not through put, which returns the replaced entry and so would compute it
+			lazyModel.entries.put(key, new LazyValue(supplier));
+		}
+		else {
+			model.put(key, supplier.get());
+		}
+	}
+
+	/**
+	 * Add an entry that is computed when it is first read, unless the model already has
+	 * an entry for the key.
+	 * @param model the model to add to
+	 * @param key the key of the entry
+	 * @param supplier computes the value of the entry
+	 */
+	public static void putLazilyIfAbsent(Map<String, Object> model, String key, Supplier<?> supplier) {
+		if (!model.containsKey(key)) {
+			putLazily(model, key, supplier);
+		}
+	}
+
+	@Nullable
+	private static Object resolve(@Nullable Object value) {
+		return (value instanceof LazyValue lazyValue) ? lazyValue.get() : value;
+	}
+
+	/**
+	 * The entries of the model, resolving lazy values when they are read.
+	 */
+	private final class EntrySet extends AbstractSet<Map.Entry<String, Object>> {
+
+		@Override
+		public Iterator<Map.Entry<String, Object>> iterator() {
+			Iterator<Map.Entry<String, Object>> iterator = LazyModelMap.this.entries.entrySet().iterator();
+			return new Iterator<>() {
+
+				@Override
+				public boolean hasNext() {
+					return iterator.hasNext();
+				}
+
+				@Override
+				public Map.Entry<String, Object> next() {
+					return new ModelEntry(iterator.next());
+				}
+
+				@Override
+				public void remove() {
+					iterator.remove();
+				}
+
+			};
+		}
+
+		@Override
+		public int size() {
+			return LazyModelMap.this.entries.size();
+		}
+
+		@Override
+		public void clear() {
+			LazyModelMap.this.entries.clear();
+		}
+
+	}
+
+	/**
+	 * An entry of the model, resolving its value when it is read.
+	 */
+	private static final class ModelEntry implements Map.Entry<String, Object> {
+
+		private final Map.Entry<String, Object> entry;
+
+		ModelEntry(Map.Entry<String, Object> entry) {
+			this.entry = entry;
+		}
+
+		@Override
+		public String getKey() {
+			return this.entry.getKey();
+		}
+
+		@Override
+		public Object getValue() {
+			return resolve(this.entry.getValue());
+		}
+
+		@Override
+		public Object setValue(Object value) {
+			return resolve(this.entry.setValue(value));
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return (other instanceof Map.Entry<?, ?> entry) && Objects.equals(getKey(), entry.getKey())
+					&& Objects.equals(getValue(), entry.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+		}
+
+		@Override
+		public String toString() {
+			return getKey() + "=" + getValue();
+		}
+
+	}
+
+	/**
+	 * A value computed once, on first access. Its string form is the one of the value, so
+	 * that code iterating over the model still renders it.
+	 */
+	private static final class LazyValue implements Supplier<Object> {
+
+		private final Supplier<?> supplier;
+
+		private volatile boolean resolved;
+
+		@Nullable
+		private Object value;
+
+		LazyValue(Supplier<?> supplier) {
+			this.supplier = supplier;
+		}
+
+		@Override
+		@Nullable
+		public Object get() {
+			if (!this.resolved) {
+				synchronized (this) {
+					if (!this.resolved) {
+						this.value = this.supplier.get();
+						this.resolved = true;
+					}
+				}
+			}
+			return this.value;
+		}
+
+		@Override
+		public String toString() {
+			return String.valueOf(get());
+		}
+
+	}
+
+}
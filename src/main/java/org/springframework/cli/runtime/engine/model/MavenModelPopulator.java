@@ -46,18 +46,40 @@ public class MavenModelPopulator implements ModelPopulator {
 
 	public static final String JAVA_VERSION = "java-version";
 
+	private final ProjectModelCache projectModelCache;
+
+	public MavenModelPopulator() {
+		this(ProjectModelCache.getSharedInstance());
+	}
+
+	public MavenModelPopulator(ProjectModelCache projectModelCache) {
+		this.projectModelCache = projectModelCache;
+	}
+
 	@Override
 	public void contributeToModel(Path rootDirectory, Map<String, Object> model) {
 		Path pomFile = rootDirectory.resolve("pom.xml");
 		if (Files.exists(pomFile)) {
-			PomReader pomReader = new PomReader();
-			Model mavenModel = pomReader.readPom(pomFile.toFile());
-			model.putIfAbsent(MAVEN_MODEL, mavenModel);
-			model.putIfAbsent(ARTIFACT_ID, mavenModel.getArtifactId());
-			model.putIfAbsent(ARTIFACT_VERSION, mavenModel.getVersion());
-			String artifactPath = getArtifactPath(pomFile, mavenModel);
-			model.putIfAbsent(ARTIFACT_PATH, artifactPath);
+			// the pom is only read once a template or condition uses one of these entries
+			LazyModelMap.putLazilyIfAbsent(model, MAVEN_MODEL, () -> readPom(pomFile).model());
+			LazyModelMap.putLazilyIfAbsent(model, ARTIFACT_ID, () -> readPom(pomFile).model().getArtifactId());
+			LazyModelMap.putLazilyIfAbsent(model, ARTIFACT_VERSION, () -> readPom(pomFile).model().getVersion());
+			LazyModelMap.putLazilyIfAbsent(model, ARTIFACT_PATH,
+					() -> getArtifactPath(pomFile, readPom(pomFile).model()));
+			LazyModelMap.putLazilyIfAbsent(model, MAVEN_PROPERTIES, () -> readPom(pomFile).properties());
+			LazyModelMap.putLazilyIfAbsent(model, PROJECT_NAME, () -> readPom(pomFile).model().getName());
+			LazyModelMap.putLazilyIfAbsent(model, PROJECT_DESCRIPTION,
+					() -> readPom(pomFile).model().getDescription());
+			LazyModelMap.putLazilyIfAbsent(model, JAVA_VERSION, () -> {
+				String javaVersion = readPom(pomFile).properties().getProperty("java-version");
+				return (javaVersion != null) ? JavaUtils.getJavaVersion(javaVersion) : null;
+			});
+		}
+	}
 
+	private MavenPom readPom(Path pomFile) {
+		return this.projectModelCache.get(pomFile, MavenPom.class, (path) -> {
+			Model mavenModel = new PomReader().readPom(path.toFile());
 			Properties mavenProperties = new Properties();
 			// This will take care of properties such as 'java-version'
 			for (Entry<Object, Object> kv : mavenModel.getProperties().entrySet()) {
@@ -65,13 +87,8 @@ public class MavenModelPopulator implements ModelPopulator {
 				// to underscore
 				mavenProperties.put(kv.getKey().toString().replace('.', '-'), kv.getValue());
 			}
-			model.putIfAbsent(MAVEN_PROPERTIES, mavenProperties);
-			model.putIfAbsent(PROJECT_NAME, mavenModel.getName());
-			model.putIfAbsent(PROJECT_DESCRIPTION, mavenModel.getDescription());
-			if (mavenProperties.containsKey("java-version")) {
-				model.putIfAbsent(JAVA_VERSION, JavaUtils.getJavaVersion(mavenProperties.getProperty("java-version")));
-			}
-		}
+			return new MavenPom(mavenModel, mavenProperties);
+		});
 	}
 
 	private String getArtifactPath(Path pomFile, Model mavenModel) {
@@ -81,4 +98,7 @@ public class MavenModelPopulator implements ModelPopulator {
 
 	}
 
+	private record MavenPom(Model model, Properties properties) {
+	}
+
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.runtime.engine.model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentLruCache;
+
+/**
+ * Values that {@link ModelPopulator}s derive from project files, such as the Maven model
+ * of a {@code pom.xml}, shared by all populators and command runs.
+ * <p>
+ * Each value is kept with the fingerprint, path, size and modification time, of the file
+ * it was derived from. A value is derived again only when its own file changed, so a
+ * change to one file does not invalidate the values of any other. The values of the
+ * least recently used files are dropped once values of more than
+ * {@value #DEFAULT_FILE_LIMIT} files are kept, so that a long running shell visiting many
+ * projects does not keep all their models.
+ */
+public class ProjectModelCache {
+
+	static final int DEFAULT_FILE_LIMIT = 64;
+
+	private static final ProjectModelCache sharedInstance = new ProjectModelCache();
+
+	private final ConcurrentLruCache<Path, Map<Class<?>, Entry>> entries;
+
+	public ProjectModelCache() {
+		this(DEFAULT_FILE_LIMIT);
+	}
+
+	/**
+	 * Create a cache keeping the values of a limited number of files.
+	 * @param fileLimit the number of files whose values are kept
+	 */
+	public ProjectModelCache(int fileLimit) {
+		this.entries = new ConcurrentLruCache<>(fileLimit, (path) -> new ConcurrentHashMap<>());
+	}
+
+	/**
+	 * Return the instance shared by the {@link ModelPopulator}s.
+	 * @return the shared cache
+	 */
+	public static ProjectModelCache getSharedInstance() {
+		return sharedInstance;
+	}
+
+	/**
+	 * Get the value derived from a file, deriving it again if the file changed since.
+	 * @param <T> the type of the value
+	 * @param file the file the value is derived from
+	 * @param type the type of the value, several values may be derived from a file
+	 * @param loader derives the value from the file
+	 * @return the value, {@code null} if the file does not exist
+	 */
+	@Nullable
+	public <T> T get(Path file, Class<T> type, Function<Path, T> loader) {
+		Path path = file.toAbsolutePath().normalize();
+		Fingerprint fingerprint = fingerprint(path);
+		if (fingerprint == null) {
+			this.entries.remove(path);
+			return null;
+		}
+		Map<Class<?>, Entry> values = this.entries.get(path);
+		Entry entry = values.get(type);
+		if (entry == null || !entry.fingerprint().equals(fingerprint)) {
+			entry = new Entry(fingerprint, loader.apply(path));
+			values.put(type, entry);
+		}
+		return type.cast(entry.value());
+	}
+
+	/**
+	 * Drop all values derived from a file.
+	 * @param file the file
+	 */
+	public void invalidate(Path file) {
+		this.entries.remove(file.toAbsolutePath().normalize());
+	}
+
+	@Nullable
+	private static Fingerprint fingerprint(Path path) {
+		try {
+			BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+			return new Fingerprint(attrs.size(), attrs.lastModifiedTime().toMillis());
+		}
+		catch (IOException ex) {
+			return null;
+		}
+	}
+
+	private record Fingerprint(long size, long modified) {
+	}
+
+	private record Entry(Fingerprint fingerprint, Object value) {
+	}
+
+}
@@ -19,7 +19,6 @@ package org.springframework.cli.runtime.engine.model;
 import java.io.File;
 import java.nio.file.Path;
 import java.util.Map;
-import java.util.Optional;
 
 import org.springframework.cli.util.RootPackageFinder;
 
@@ -27,12 +26,11 @@ public class RootPackageModelPopulator implements ModelPopulator {
 
 	@Override
 	public void contributeToModel(Path rootDirectory, Map<String, Object> model) {
-		Optional<String> rootPackage = RootPackageFinder.findRootPackage(rootDirectory.toFile());
-		if (rootPackage.isPresent()) {
-			String packageDir = rootPackage.get().replace('.', File.separatorChar);
-			model.put("root-package", rootPackage.get());
-			model.put("root-package-dir", packageDir);
-		}
+		File root = rootDirectory.toFile();
+		LazyModelMap.putLazily(model, "root-package", () -> RootPackageFinder.findRootPackage(root).orElse(null));
+		LazyModelMap.putLazily(model, "root-package-dir", () -> RootPackageFinder.findRootPackage(root)
+			.map((rootPackage) -> rootPackage.replace('.', File.separatorChar))
+			.orElse(null));
 	}
 
 }
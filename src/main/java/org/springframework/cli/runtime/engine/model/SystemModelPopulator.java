@@ -31,17 +31,18 @@ import org.springframework.core.env.StandardEnvironment;
  */
 public class SystemModelPopulator implements ModelPopulator {
 
+	private static final ConfigurableEnvironment environment = new StandardEnvironment();
+
 	@Override
 	public void contributeToModel(Path rootDirectory, Map<String, Object> model) {
 		// Common model variables
 		model.put("now", new Date().toString());
-		ConfigurableEnvironment environment = new StandardEnvironment();
-		model.put("system-properties", environment.getSystemProperties());
-		model.put("system-environment", environment.getSystemEnvironment());
-		model.put("tmp-dir", environment.getSystemProperties().get("java.io.tmpdir"));
-		model.put("file-separator", environment.getSystemProperties().get("file.separator"));
-		model.put("os-name", environment.getSystemProperties().get("os.name"));
-		model.put("user-name", environment.getSystemProperties().get("user.name"));
+		LazyModelMap.putLazily(model, "system-properties", environment::getSystemProperties);
+		LazyModelMap.putLazily(model, "system-environment", environment::getSystemEnvironment);
+		model.put("tmp-dir", System.getProperty("java.io.tmpdir"));
+		model.put("file-separator", System.getProperty("file.separator"));
+		model.put("os-name", System.getProperty("os.name"));
+		model.put("user-name", System.getProperty("user.name"));
 	}
 
 }
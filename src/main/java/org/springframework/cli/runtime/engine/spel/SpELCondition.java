@@ -16,20 +16,45 @@
 
 package org.springframework.cli.runtime.engine.spel;
 
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 import org.springframework.cli.SpringCliException;
 import org.springframework.expression.BeanResolver;
 import org.springframework.expression.Expression;
-import org.springframework.expression.ExpressionParser;
 import org.springframework.expression.ParserContext;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
-
+import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentLruCache;
+
+/**
+ * Boolean condition, such as the {@code if} of an action, written in SpEL.
+ * <p>
+ * Parsed expressions are cached and shared by all conditions. They are compiled in
+ * {@link SpelCompilerMode#MIXED mixed} mode, so a guard that is evaluated often runs as
+ * byte code and falls back to interpretation when the types of the model change. Each
+ * thread reuses one evaluation context, of which only the model is replaced. Variables
+ * are looked up in the model rather than copied from it, so that lazy entries of a
+ * {@link org.springframework.cli.runtime.engine.model.LazyModelMap} are only computed
+ * when the expression reads them.
+ */
 public class SpELCondition {
 
-	private final ExpressionParser parser = new SpelExpressionParser();
+	private static final int EXPRESSION_CACHE_SIZE = 256;
+
+	private static final SpelExpressionParser parser = new SpelExpressionParser(
+			new SpelParserConfiguration(SpelCompilerMode.MIXED, SpELCondition.class.getClassLoader()));
+
+	private static final ConcurrentLruCache<ExpressionKey, Expression> expressions = new ConcurrentLruCache<>(
+			EXPRESSION_CACHE_SIZE, (key) -> parser.parseExpression(key.expression(), key.parserContext()));
+
+	private static final ThreadLocal<ModelEvaluationContext> evaluationContexts = ThreadLocal
+		.withInitial(ModelEvaluationContext::new);
 
 	private BeanResolver beanResolver;
 
@@ -56,15 +81,22 @@ public class SpELCondition {
 	}
 
 	public boolean evaluate(Map<String, Object> model) {
-		StandardEvaluationContext context = new StandardEvaluationContext();
-		context.setRootObject(model);
-		context.setVariables(model);
-
-		if (beanResolver != null) {
-			context.setBeanResolver(beanResolver);
+		Expression compiledExpression = expressions.get(new ExpressionKey(this.expression, this.parserContext));
+		ModelEvaluationContext context = evaluationContexts.get();
+		// a condition evaluated from within this one gets a context of its own
+		evaluationContexts.remove();
+		context.setModel(model);
+		context.setBeanResolver(this.beanResolver);
+		Object expressionValue;
+		try {
+			expressionValue = compiledExpression.getValue(context, Object.class);
+		}
+		finally {
+			// do not keep the model of this evaluation around for the next one
+			context.setModel(null);
+			context.setBeanResolver(null);
+			evaluationContexts.set(context);
 		}
-		Expression compiledExpression = parser.parseExpression(this.expression, this.parserContext);
-		Object expressionValue = compiledExpression.getValue(context, Object.class);
 		if (Objects.isNull(expressionValue)) {
 			throw new SpringCliException(
 					"'if' expression: '" + this.expression + "' should return boolean.  Instead returned null.");
@@ -80,4 +112,47 @@ public class SpELCondition {
 		}
 	}
 
+	/**
+	 * Evaluation context whose root object is the model and which resolves variables
+	 * against the model, variables assigned by an expression take precedence.
+	 */
+	private static final class ModelEvaluationContext extends StandardEvaluationContext {
+
+		private final Set<String> assignedVariables = new HashSet<>();
+
+		@Nullable
+		private Map<String, Object> model;
+
+		void setModel(@Nullable Map<String, Object> model) {
+			this.model = model;
+			setRootObject(model);
+			if (model == null) {
+				this.assignedVariables.forEach((name) -> super.setVariable(name, null));
+				this.assignedVariables.clear();
+			}
+		}
+
+		@Override
+		public void setVariable(@Nullable String name, @Nullable Object value) {
+			if (name != null) {
+				this.assignedVariables.add(name);
+			}
+			super.setVariable(name, value);
+		}
+
+		@Override
+		@Nullable
+		public Object lookupVariable(String name) {
+			Object value = super.lookupVariable(name);
+			if (value == null && this.model != null && !this.assignedVariables.contains(name)) {
+				return this.model.get(name);
+			}
+			return value;
+		}
+
+	}
+
+	private record ExpressionKey(String expression, ParserContext parserContext) {
+	}
+
 }
@@ -22,6 +22,7 @@ import java.util.Map;
 
 import org.springframework.cli.SpringCliException;
 import org.springframework.cli.roles.RoleService;
+import org.springframework.cli.roles.RoleVariableStore;
 import org.springframework.cli.runtime.engine.actions.Exec;
 import org.springframework.cli.runtime.engine.actions.handlers.ExecActionHandler;
 import org.springframework.util.StringUtils;
@@ -30,11 +31,15 @@ public class SpelFunctions {
 
 	private final ExecActionHandler execActionHandler;
 
-	private final Path cwd;
+	private final RoleVariableStore roleVariableStore;
 
 	public SpelFunctions(ExecActionHandler execActionHandler, Path cwd) {
+		this(execActionHandler, new RoleVariableStore(new RoleService(cwd)));
+	}
+
+	public SpelFunctions(ExecActionHandler execActionHandler, RoleVariableStore roleVariableStore) {
 		this.execActionHandler = execActionHandler;
-		this.cwd = cwd;
+		this.roleVariableStore = roleVariableStore;
 	}
 
 	public String run(String input) {
@@ -55,11 +60,10 @@ public class SpelFunctions {
 		if (!StringUtils.hasText(name)) {
 			return false;
 		}
-		RoleService roleService = new RoleService(cwd);
 		// TODO load from default role for now, later a list of roles
 		Map<String, Object> varMap;
 		if (roles.length == 0) {
-			varMap = roleService.loadAsMap("");
+			varMap = this.roleVariableStore.getVariables("");
 		}
 		else {
 			throw new SpringCliException("Roles not yet supported in SpelFunctions");
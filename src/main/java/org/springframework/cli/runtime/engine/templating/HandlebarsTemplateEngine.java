@@ -26,39 +26,63 @@ import com.github.jknack.handlebars.HumanizeHelper;
 import com.github.jknack.handlebars.Template;
 import com.github.jknack.handlebars.helper.StringHelpers;
 
+import org.springframework.util.ConcurrentLruCache;
 import org.springframework.util.StringUtils;
 
 /**
+ * {@link TemplateEngine} backed by Handlebars.
+ * <p>
+ * The same file names, conditions and directories are rendered for every action of a
+ * command, so compiled templates are kept in a bounded cache keyed by the template text,
+ * shared by all engines as they register the same helpers. Text that holds no Handlebars
+ * expression is returned as is, without going through Handlebars at all.
+ *
  * @author Mark Pollack
  */
 public class HandlebarsTemplateEngine implements TemplateEngine {
 
-	private Handlebars handlebars;
+	private static final int TEMPLATE_CACHE_SIZE = 1024;
 
-	public HandlebarsTemplateEngine() {
-		this.handlebars = new Handlebars();
-		HumanizeHelper.register(this.handlebars);
-		StringHelpers.register(this.handlebars);
-	}
+	private static final Handlebars handlebars = createHandlebars();
+
+	private static final ConcurrentLruCache<String, Template> templates = new ConcurrentLruCache<>(
+			TEMPLATE_CACHE_SIZE, HandlebarsTemplateEngine::compile);
 
 	@Override
 	public String process(String templateText, Map context) {
+		if (!StringUtils.hasText(templateText)) {
+			return "";
+		}
+		if (!templateText.contains("{{")) {
+			return templateText;
+		}
+		Template template = templates.get(templateText);
+		if (context == null) {
+			context = new HashMap();
+		}
+		Context handlebarsContext = Context.newBuilder(context).build();
 		try {
-			Template template = this.handlebars.compileInline(templateText);
-			if (context == null) {
-				context = new HashMap();
-			}
-			Context handlebarsContext = Context.newBuilder(context).build();
-			if (StringUtils.hasText(templateText)) {
-				return template.apply(handlebarsContext);
-			}
-			else {
-				return "";
-			}
+			return template.apply(handlebarsContext);
 		}
 		catch (IOException ex) {
 			throw new RuntimeException(ex);
 		}
 	}
 
+	private static Template compile(String templateText) {
+		try {
+			return handlebars.compileInline(templateText);
+		}
+		catch (IOException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	private static Handlebars createHandlebars() {
+		Handlebars handlebars = new Handlebars();
+		HumanizeHelper.register(handlebars);
+		StringHelpers.register(handlebars);
+		return handlebars;
+	}
+
 }
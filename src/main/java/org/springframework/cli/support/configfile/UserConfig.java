@@ -20,11 +20,13 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.cli.util.IoUtils;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
@@ -81,14 +83,44 @@ public class UserConfig<T> {
 
 	public void setConfig(T config) {
 		Path path = getConfigDir().resolve(name);
+		Path tempPath;
 		try {
 			Files.createDirectories(path.getParent());
+			// written next to the target and moved over it, so readers never see a
+			// partially written file
+			tempPath = IoUtils.createSiblingFile(path);
 		}
 		catch (IOException ex) {
+			throw new RuntimeException("Unable to write config file " + path, ex);
 		}
 		logger.debug("Writing config to path " + path);
 		logger.debug("config = " + config);
-		file.write(path, config);
+		try {
+			file.write(tempPath, config);
+			move(tempPath, path);
+		}
+		finally {
+			try {
+				Files.deleteIfExists(tempPath);
+			}
+			catch (IOException ex) {
+				logger.debug("Could not delete " + tempPath, ex);
+			}
+		}
+	}
+
+	private static void move(Path source, Path target) {
+		try {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException ex) {
+			try {
+				Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+			catch (IOException moveEx) {
+				throw new RuntimeException("Unable to write config file " + target, moveEx);
+			}
+		}
 	}
 
 	/**
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.util;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * Locations of the caches of the cli.
+ */
+public final class CacheDirectories {
+
+	/**
+	 * Optional env variable for the cache directory.
+	 */
+	public static final String SPRING_CLI_CACHE_DIR = "SPRING_CLI_CACHE_DIR";
+
+	private static final String XDG_CACHE_HOME = "XDG_CACHE_HOME";
+
+	private static final String CACHE_DIR_NAME = "springcli";
+
+	private CacheDirectories() {
+	}
+
+	/**
+	 * Gets the base cache directory of the cli, following the same conventions as the
+	 * user config directory.
+	 * @return the cache directory
+	 */
+	public static Path getDefaultCacheDir() {
+		if (StringUtils.hasText(System.getenv(SPRING_CLI_CACHE_DIR))) {
+			return Paths.get(System.getenv(SPRING_CLI_CACHE_DIR));
+		}
+		if (StringUtils.hasText(System.getenv(XDG_CACHE_HOME))) {
+			return Paths.get(System.getenv(XDG_CACHE_HOME)).resolve(CACHE_DIR_NAME);
+		}
+		return Paths.get(System.getProperty("user.home")).resolve(".cache").resolve(CACHE_DIR_NAME);
+	}
+
+}
@@ -23,6 +23,7 @@ import java.io.OutputStream;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.UUID;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -86,6 +87,30 @@ public abstract class IoUtils {
 		}
 	}
 
+	/**
+	 * Create an empty file next to a target, to write the new contents of the target to
+	 * before moving it over the target. Unlike {@link Files#createTempFile}, which only
+	 * lets the owner read the file, it gets the permissions of the target, or the default
+	 * permissions of new files if the target does not exist.
+	 * @param target the file the created file replaces
+	 * @return the created file
+	 * @throws IOException if the file could not be created
+	 */
+	public static Path createSiblingFile(Path target) throws IOException {
+		Path file = target.toAbsolutePath()
+			.resolveSibling("." + target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+		Files.createFile(file);
+		if (Files.exists(target)) {
+			try {
+				Files.setPosixFilePermissions(file, Files.getPosixFilePermissions(target));
+			}
+			catch (UnsupportedOperationException ex) {
+				// not a POSIX file system, the file keeps default permissions
+			}
+		}
+		return file;
+	}
+
 	public static void writeText(File target, String body) {
 		try (OutputStream stream = new FileOutputStream(target)) {
 			StreamUtils.copy(body, Charset.forName("UTF-8"), stream);
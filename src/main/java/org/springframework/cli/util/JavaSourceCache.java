@@ -0,0 +1,189 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.Result;
+import org.openrewrite.SourceFile;
+import org.openrewrite.java.Java17Parser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.cli.SpringCliException;
+
+/**
+ * Parsed Java sources of one command, shared by the steps that refactor and merge them.
+ * <p>
+ * Entries are keyed by path and content hash, a source is only parsed again when its
+ * content on disk changed since it was parsed or last written through this cache. Steps
+ * that change sources hand their results back with {@link #updateAll(Collection)} or
+ * {@link #write(SourceFile)}, so the next step starts from the changed trees without
+ * parsing.
+ */
+public class JavaSourceCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(JavaSourceCache.class);
+
+	private final Map<Path, Entry> entries = new ConcurrentHashMap<>();
+
+	private final AtomicInteger parseCount = new AtomicInteger();
+
+	/**
+	 * Get the parsed source of a file.
+	 * @param path the Java source file
+	 * @return the parsed source
+	 */
+	public SourceFile parse(Path path) {
+		return parse(List.of(path)).get(0);
+	}
+
+	/**
+	 * Get the parsed sources of files. When any of them is not cached or changed on disk,
+	 * all of them are parsed again together, so that the sources of one lookup always
+	 * share the type information of a single parse.
+	 * @param paths the Java source files
+	 * @return the parsed sources, in the order of the paths
+	 */
+	public List<SourceFile> parse(List<Path> paths) {
+		Map<Path, SourceFile> found = new HashMap<>();
+		Map<Path, byte[]> hashes = new LinkedHashMap<>();
+		for (Path path : paths) {
+			Path key = key(path);
+			byte[] hash = hash(read(key));
+			hashes.put(key, hash);
+			Entry entry = this.entries.get(key);
+			if (entry != null && MessageDigest.isEqual(entry.hash(), hash)) {
+				found.put(key, entry.sourceFile());
+			}
+		}
+		if (found.size() < hashes.size()) {
+			Consumer<Throwable> onError = e -> {
+				logger.error("error in javaParser execution", e);
+			};
+			// a single parser, so that types declared in any of the sources resolve in all
+			found.clear();
+			new Java17Parser.Builder().build()
+				.parse(new ArrayList<>(hashes.keySet()), null, new InMemoryExecutionContext(onError))
+				.forEach((sourceFile) -> {
+					Path key = key(sourceFile.getSourcePath());
+					this.entries.put(key, new Entry(hashes.get(key), sourceFile));
+					found.put(key, sourceFile);
+				});
+			this.parseCount.addAndGet(hashes.size());
+			logger.debug("Parsed {} sources", hashes.size());
+		}
+		return paths.stream().map((path) -> found.get(key(path))).toList();
+	}
+
+	/**
+	 * Record the results of a recipe run once they have been written to disk. Moved and
+	 * deleted sources are dropped, changed sources replace the cached ones.
+	 * @param results the written results
+	 */
+	public void updateAll(Collection<Result> results) {
+		for (Result result : results) {
+			if (result.getBefore() != null) {
+				this.entries.remove(key(result.getBefore().getSourcePath()));
+			}
+		}
+		for (Result result : results) {
+			if (result.getAfter() != null) {
+				put(result.getAfter(), result.getAfter().printAll());
+			}
+		}
+	}
+
+	/**
+	 * Write a changed source to its path and keep it as the cached source of that path.
+	 * @param sourceFile the changed source
+	 */
+	public void write(SourceFile sourceFile) {
+		Path path = key(sourceFile.getSourcePath());
+		String content = sourceFile.printAll();
+		try (BufferedWriter sourceFileWriter = Files.newBufferedWriter(path)) {
+			sourceFileWriter.write(content);
+		}
+		catch (IOException ex) {
+			throw new SpringCliException("Could not write " + path, ex);
+		}
+		put(sourceFile, content);
+	}
+
+	/**
+	 * Drop every cached source.
+	 */
+	public void clear() {
+		this.entries.clear();
+	}
+
+	/**
+	 * Return the number of sources parsed so far.
+	 * @return the number of parsed sources
+	 */
+	public int getParseCount() {
+		return this.parseCount.get();
+	}
+
+	private void put(SourceFile sourceFile, String content) {
+		// written through a UTF-8 writer, so hashing the UTF-8 bytes matches the file
+		byte[] hash = hash(content.getBytes(StandardCharsets.UTF_8));
+		this.entries.put(key(sourceFile.getSourcePath()), new Entry(hash, sourceFile));
+	}
+
+	private static Path key(Path path) {
+		return path.toAbsolutePath().normalize();
+	}
+
+	private static byte[] read(Path path) {
+		try {
+			return Files.readAllBytes(path);
+		}
+		catch (IOException ex) {
+			throw new SpringCliException("Failed reading " + path, ex);
+		}
+	}
+
+	private static byte[] hash(byte[] content) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(content);
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private record Entry(byte[] hash, SourceFile sourceFile) {
+	}
+
+}
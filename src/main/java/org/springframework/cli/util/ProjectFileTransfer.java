@@ -0,0 +1,232 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.cli.SpringCliException;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Moves the files of a project from a temporary location into its final directory,
+ * picking the cheapest way the file systems allow:
+ * <ol>
+ * <li>rename the whole directory when the target does not exist or is empty and is not
+ * the working directory,</li>
+ * <li>rename file by file when the target already has content,</li>
+ * <li>copy the files in parallel, keeping their attributes, when source and target are on
+ * different file systems.</li>
+ * </ol>
+ * The source is gone after a successful transfer.
+ */
+public final class ProjectFileTransfer {
+
+	private static final Logger logger = LoggerFactory.getLogger(ProjectFileTransfer.class);
+
+	private ProjectFileTransfer() {
+	}
+
+	/**
+	 * Move the contents of {@code source} into {@code target}, replacing existing files.
+	 * @param source the directory to move the contents of
+	 * @param target the directory to move the contents into
+	 * @return what was transferred and how
+	 */
+	public static Result transfer(Path source, Path target) {
+		long start = System.nanoTime();
+		List<Path> files = collectFiles(source);
+		long bytes = files.stream().mapToLong(ProjectFileTransfer::size).sum();
+		Strategy strategy;
+		try {
+			if (renameDirectory(source, target)) {
+				strategy = Strategy.RENAME_DIRECTORY;
+			}
+			else if (renameFiles(source, target, files)) {
+				strategy = Strategy.RENAME_FILES;
+			}
+			else {
+				copyFiles(source, target, files);
+				strategy = Strategy.COPY_FILES;
+			}
+		}
+		catch (IOException | UncheckedIOException ex) {
+			throw new SpringCliException("Could not move files from " + source + " to " + target, ex);
+		}
+		deleteQuietly(source);
+		Result result = new Result(strategy, files.size(), bytes, (System.nanoTime() - start) / 1_000_000);
+		logger.debug("Transferred {} from {} to {}", result, source, target);
+		return result;
+	}
+
+	private static boolean renameDirectory(Path source, Path target) throws IOException {
+		if (Files.exists(target) && !isEmptyDirectory(target)) {
+			return false;
+		}
+		if (target.toAbsolutePath().normalize().equals(IoUtils.getWorkingDirectory())) {
+			// never replace the directory the process runs in
+			return false;
+		}
+		Files.createDirectories(target.toAbsolutePath().getParent());
+		try {
+			// replaces an empty target directory
+			Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+			return true;
+		}
+		catch (IOException ex) {
+			logger.debug("Could not rename {} to {}: {}", source, target, ex.toString());
+			Files.createDirectories(target);
+			return false;
+		}
+	}
+
+	private static boolean renameFiles(Path source, Path target, List<Path> files) throws IOException {
+		if (files.isEmpty()) {
+			return true;
+		}
+		// probe with one file, only a failing first rename switches to copying
+		try {
+			moveFile(source, target, files.get(0));
+		}
+		catch (AtomicMoveNotSupportedException ex) {
+			return false;
+		}
+		files.subList(1, files.size()).parallelStream().forEach((file) -> {
+			try {
+				moveFile(source, target, file);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		});
+		return true;
+	}
+
+	private static void moveFile(Path source, Path target, Path file) throws IOException {
+		Path targetFile = target.resolve(source.relativize(file));
+		Files.createDirectories(targetFile.getParent());
+		try {
+			Files.move(file, targetFile, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (AtomicMoveNotSupportedException ex) {
+			throw ex;
+		}
+		catch (IOException ex) {
+			// an atomic move does not replace an existing directory entry everywhere
+			Files.move(file, targetFile, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private static void copyFiles(Path source, Path target, List<Path> files) {
+		files.parallelStream().forEach((file) -> {
+			Path targetFile = target.resolve(source.relativize(file));
+			try {
+				Files.createDirectories(targetFile.getParent());
+				// keeps the executable bits of scripts such as mvnw
+				Files.copy(file, targetFile, StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.COPY_ATTRIBUTES);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		});
+	}
+
+	private static List<Path> collectFiles(Path source) {
+		List<Path> files = new ArrayList<>();
+		try {
+			Files.walkFileTree(source, new SimpleFileVisitor<>() {
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+					if (!attrs.isDirectory()) {
+						files.add(file);
+					}
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		}
+		catch (IOException ex) {
+			throw new SpringCliException("Failed reading files in " + source, ex);
+		}
+		return files;
+	}
+
+	private static long size(Path file) {
+		try {
+			return Files.size(file);
+		}
+		catch (IOException ex) {
+			return 0;
+		}
+	}
+
+	private static boolean isEmptyDirectory(Path path) throws IOException {
+		if (!Files.isDirectory(path)) {
+			return false;
+		}
+		try (Stream<Path> entries = Files.list(path)) {
+			return entries.findFirst().isEmpty();
+		}
+	}
+
+	private static void deleteQuietly(Path source) {
+		try {
+			FileSystemUtils.deleteRecursively(source);
+		}
+		catch (IOException ex) {
+			logger.warn("Could not delete path " + source, ex);
+		}
+	}
+
+	/**
+	 * How the files were transferred.
+	 */
+	public enum Strategy {
+
+		RENAME_DIRECTORY,
+
+		RENAME_FILES,
+
+		COPY_FILES
+
+	}
+
+	/**
+	 * Outcome of a transfer.
+	 *
+	 * @param strategy how the files were transferred
+	 * @param files number of files transferred
+	 * @param bytes number of bytes transferred
+	 * @param durationMillis time the transfer took
+	 */
+	public record Result(Strategy strategy, int files, long bytes, long durationMillis) {
+	}
+
+}
@@ -17,9 +17,13 @@
 package org.springframework.cli.util;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Consumer;
 
 import org.openrewrite.InMemoryExecutionContext;
@@ -28,8 +32,6 @@ import org.openrewrite.Result;
 import org.openrewrite.SourceFile;
 import org.openrewrite.internal.InMemoryLargeSourceSet;
 import org.openrewrite.java.ChangePackage;
-import org.openrewrite.java.Java17Parser;
-import org.openrewrite.java.JavaParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -42,25 +44,57 @@ public final class RefactorUtils {
 
 	private static final Logger logger = LoggerFactory.getLogger(RefactorUtils.class);
 
+	/**
+	 * Directories that only hold build output or tooling state when found at the root of
+	 * the project or of one of its modules. Deeper down they may be packages.
+	 */
+	private static final Set<String> SKIPPED_DIRECTORIES = Set.of("target", "build", "node_modules");
+
+	private static final List<String> BUILD_FILES = List.of("pom.xml", "build.gradle", "build.gradle.kts");
+
+	/**
+	 * Move all classes of {@code oldPackage} and its sub packages to {@code newPackage}.
+	 * <p>
+	 * Only the sources that mention the old package are parsed, as no other source can
+	 * declare or reference a type of it. Those are parsed together, so that types
+	 * resolve across them, and the results are written in parallel.
+	 * @param newPackage the package to move to
+	 * @param oldPackage the package to move from
+	 * @param workingPath the project directory
+	 */
 	public static void refactorPackage(String newPackage, String oldPackage, Path workingPath) {
-		JavaParser javaParser = new Java17Parser.Builder().build();
-		FileTypeCollectingFileVisitor collector = new FileTypeCollectingFileVisitor(".java");
-		try {
-			Files.walkFileTree(workingPath, collector);
-		}
-		catch (IOException ex) {
-			throw new SpringCliException("Failed reading files in " + workingPath, ex);
+		refactorPackage(newPackage, oldPackage, workingPath, new JavaSourceCache());
+	}
+
+	/**
+	 * Move all classes of {@code oldPackage} and its sub packages to {@code newPackage},
+	 * reusing and updating the parsed sources of the given cache.
+	 * @param newPackage the package to move to
+	 * @param oldPackage the package to move from
+	 * @param workingPath the project directory
+	 * @param javaSourceCache the parsed sources shared with other steps
+	 */
+	public static void refactorPackage(String newPackage, String oldPackage, Path workingPath,
+			JavaSourceCache javaSourceCache) {
+		long start = System.currentTimeMillis();
+		List<Path> sourceFiles = findSourceFiles(workingPath);
+		List<Path> matches = sourceFiles.parallelStream()
+			.filter((sourceFile) -> mentions(sourceFile, oldPackage))
+			.toList();
+		if (matches.isEmpty()) {
+			logger.debug("No source in {} mentions package {}", workingPath, oldPackage);
+			return;
 		}
 		Consumer<Throwable> onError = e -> {
 			logger.error("error in javaParser execution", e);
 		};
-		InMemoryExecutionContext executionContext = new InMemoryExecutionContext(onError);
-		List<Path> matches = collector.getMatches();
-		List<SourceFile> compilationUnits = javaParser.parse(matches, null, executionContext).toList();
-		ResultsExecutor container = new ResultsExecutor();
+		List<SourceFile> compilationUnits = javaSourceCache.parse(matches);
+		logger.debug("Loaded {} of {} sources in {} ms", matches.size(), sourceFiles.size(),
+				System.currentTimeMillis() - start);
 
+		ResultsExecutor container = new ResultsExecutor(true, true);
 		ChangePackage recipe = new ChangePackage(oldPackage, newPackage, true);
-		RecipeRun run = recipe.run(new InMemoryLargeSourceSet(compilationUnits), executionContext);
+		RecipeRun run = recipe.run(new InMemoryLargeSourceSet(compilationUnits), new InMemoryExecutionContext(onError));
 		List<Result> results = run.getChangeset().getAllResults();
 		container.addAll(results);
 		try {
@@ -69,8 +103,55 @@ public final class RefactorUtils {
 		catch (IOException ex) {
 			throw new SpringCliException("Error performing refactoring", ex);
 		}
+		javaSourceCache.updateAll(results);
+		RootPackageFinder.invalidate(workingPath);
+		logger.debug("Moved {} sources to package {} in {} ms", results.size(), newPackage,
+				System.currentTimeMillis() - start);
 
 		// TODO change groupId and artifactId
 	}
 
+	private static List<Path> findSourceFiles(Path workingPath) {
+		FileTypeCollectingFileVisitor collector = new FileTypeCollectingFileVisitor(".java") {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+				if (dir.equals(workingPath)) {
+					return FileVisitResult.CONTINUE;
+				}
+				String name = dir.getFileName().toString();
+				if ((name.startsWith(".") || SKIPPED_DIRECTORIES.contains(name))
+						&& isModuleRoot(dir.getParent(), workingPath)) {
+					return FileVisitResult.SKIP_SUBTREE;
+				}
+				return FileVisitResult.CONTINUE;
+			}
+		};
+		try {
+			Files.walkFileTree(workingPath, collector);
+		}
+		catch (IOException ex) {
+			throw new SpringCliException("Failed reading files in " + workingPath, ex);
+		}
+		return collector.getMatches();
+	}
+
+	private static boolean isModuleRoot(Path dir, Path workingPath) {
+		return dir.equals(workingPath)
+				|| BUILD_FILES.stream().anyMatch((buildFile) -> Files.exists(dir.resolve(buildFile)));
+	}
+
+	/**
+	 * Whether the raw content of the file contains the package name. Package names are
+	 * plain ASCII, so decoding as ISO-8859-1 finds them in any ASCII compatible encoding
+	 * without the cost of a real decode.
+	 */
+	private static boolean mentions(Path sourceFile, String packageName) {
+		try {
+			return new String(Files.readAllBytes(sourceFile), StandardCharsets.ISO_8859_1).contains(packageName);
+		}
+		catch (IOException ex) {
+			throw new SpringCliException("Failed reading " + sourceFile, ex);
+		}
+	}
+
 }
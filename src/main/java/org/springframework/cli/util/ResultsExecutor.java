@@ -18,6 +18,7 @@ package org.springframework.cli.util;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -47,12 +48,23 @@ public class ResultsExecutor {
 	 */
 	private final boolean deleteEmptyDirs;
 
+	/**
+	 * Whether to write the resulting files in parallel. Deletions always happen first
+	 * and sequentially, as they may remove directories.
+	 */
+	private final boolean parallelWrites;
+
 	public ResultsExecutor() {
 		this(true);
 	}
 
 	public ResultsExecutor(boolean deleteEmptyDirs) {
+		this(deleteEmptyDirs, false);
+	}
+
+	public ResultsExecutor(boolean deleteEmptyDirs, boolean parallelWrites) {
 		this.deleteEmptyDirs = deleteEmptyDirs;
+		this.parallelWrites = parallelWrites;
 	}
 
 	/**
@@ -97,13 +109,29 @@ public class ResultsExecutor {
 					deleteUpwardsUntilNotEmpty(result.getBefore().getSourcePath().getParent());
 				}
 			}
-			if (result.getAfter() != null) {
-				Path afterPath = result.getAfter().getSourcePath();
-				afterPath.toFile().getParentFile().mkdirs();
-				try (BufferedWriter sourceFileWriter = Files.newBufferedWriter(afterPath)) {
-					sourceFileWriter.write(result.getAfter().printAll());
+		}
+		// check() guarantees that every destination is written only once
+		Stream<Result> writes = results.stream().filter((result) -> result.getAfter() != null);
+		try {
+			((parallelWrites) ? writes.parallel() : writes).forEach((result) -> {
+				try {
+					write(result);
 				}
-			}
+				catch (IOException ex) {
+					throw new UncheckedIOException(ex);
+				}
+			});
+		}
+		catch (UncheckedIOException ex) {
+			throw ex.getCause();
+		}
+	}
+
+	private void write(Result result) throws IOException {
+		Path afterPath = result.getAfter().getSourcePath();
+		Files.createDirectories(afterPath.getParent());
+		try (BufferedWriter sourceFileWriter = Files.newBufferedWriter(afterPath)) {
+			sourceFileWriter.write(result.getAfter().printAll());
 		}
 	}
 
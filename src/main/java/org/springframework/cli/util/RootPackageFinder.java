@@ -16,85 +16,121 @@
 
 package org.springframework.cli.util;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
-import org.apache.tools.ant.DirectoryScanner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.cli.SpringCliException;
 
+/**
+ * Finds the class annotated with {@code @SpringBootApplication} in a project and derives
+ * the root package from it.
+ * <p>
+ * The project is walked once per lookup, the collected {@code .java} files are then
+ * checked in parallel and the search stops at the first match. Found application files
+ * are remembered per project directory and reused as long as the file still carries the
+ * annotation, so repeated lookups during a command only read a single file.
+ */
 public final class RootPackageFinder {
 
 	private static final Logger logger = LoggerFactory.getLogger(RootPackageFinder.class);
 
+	private static final String SPRING_BOOT_APPLICATION = "@SpringBootApplication";
+
+	private static final Path MAIN_SOURCES = Path.of("src", "main", "java");
+
+	private static final Map<Path, Path> applicationFiles = new ConcurrentHashMap<>();
+
 	private RootPackageFinder() {
 	}
 
 	public static Optional<String> findRootPackage(File baseDirectory) {
-		String[] fileNames = getFileNames(baseDirectory);
-
-		for (String fileName : fileNames) {
-			logger.debug("Looking for @SpringBootApplication in file = " + fileName);
-			try {
-				File fileToTest = new File(baseDirectory, fileName);
-				List<String> lines = Files.lines(fileToTest.toPath())
-					.filter(line -> line.contains("@SpringBootApplication"))
-					.collect(Collectors.toList());
-				if (lines.isEmpty()) {
-					continue;
-				}
-				else {
-					return Optional.of(extractRootPackageName(new File(fileName)));
-				}
-			}
-			catch (IOException ex) {
-				throw new SpringCliException("Exception reading " + fileName + " " + ex.getMessage(), ex);
+		Path basePath = baseDirectory.toPath().toAbsolutePath().normalize();
+		return findApplicationFile(basePath)
+			.map((file) -> extractRootPackageName(basePath.relativize(file).toFile()));
+	}
 
-			}
+	public static Optional<File> findSpringBootApplicationFile(File baseDirectory) {
+		Path basePath = baseDirectory.toPath().toAbsolutePath().normalize();
+		return findApplicationFile(basePath)
+			.map((file) -> baseDirectory.toPath().resolve(basePath.relativize(file)).toFile());
+	}
+
+	private static Optional<Path> findApplicationFile(Path basePath) {
+		Path applicationFile = applicationFiles.get(basePath);
+		if (applicationFile != null && Files.isRegularFile(applicationFile)
+				&& containsSpringBootApplication(applicationFile)) {
+			logger.debug("Using previously found @SpringBootApplication file " + applicationFile);
+			return Optional.of(applicationFile);
 		}
-		return Optional.empty();
+		applicationFiles.remove(basePath);
+		Optional<Path> found = getJavaFiles(basePath).parallelStream()
+			.filter(RootPackageFinder::containsSpringBootApplication)
+			.findFirst();
+		found.ifPresent((file) -> applicationFiles.put(basePath, file));
+		return found;
 	}
 
-	public static Optional<File> findSpringBootApplicationFile(File baseDirectory) {
-		String[] fileNames = getFileNames(baseDirectory);
-		for (String fileName : fileNames) {
-			logger.debug("Looking for @SpringBootApplication in file = " + fileName);
-			try {
-				File fileToTest = new File(baseDirectory, fileName);
-				List<String> lines = Files.lines(fileToTest.toPath())
-					.filter(line -> line.contains("@SpringBootApplication"))
-					.collect(Collectors.toList());
-				if (lines.isEmpty()) {
-					continue;
-				}
-				else {
-					return Optional.of(new File(baseDirectory, fileName));
-				}
-			}
-			catch (IOException ex) {
-				ex.printStackTrace();
-				throw new SpringCliException("Exception reading " + fileName + " " + ex.getMessage(), ex);
+	/**
+	 * Forget any application file previously found in the given directory.
+	 * @param baseDirectory the project directory
+	 */
+	public static void invalidate(Path baseDirectory) {
+		applicationFiles.remove(baseDirectory.toAbsolutePath().normalize());
+	}
 
+	/**
+	 * Collects all java files in a single walk, main sources are ordered first so they
+	 * win over test sources that declare an application class as well.
+	 */
+	private static List<Path> getJavaFiles(Path basePath) {
+		FileTypeCollectingFileVisitor collector = new FileTypeCollectingFileVisitor(".java") {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+				if (!dir.equals(basePath) && dir.getFileName().toString().startsWith(".")) {
+					return FileVisitResult.SKIP_SUBTREE;
+				}
+				return FileVisitResult.CONTINUE;
 			}
+		};
+		try {
+			Files.walkFileTree(basePath, collector);
+		}
+		catch (IOException ex) {
+			throw new SpringCliException("Failed reading files in " + basePath, ex);
 		}
-		return Optional.empty();
+		Comparator<Path> mainSourcesFirst = Comparator
+			.comparing((Path path) -> !basePath.relativize(path).startsWith(MAIN_SOURCES));
+		return collector.getMatches()
+			.stream()
+			.sorted(mainSourcesFirst.thenComparing(Comparator.naturalOrder()))
+			.toList();
 	}
 
-	private static String[] getFileNames(File baseDirectory) {
-		DirectoryScanner ds = new DirectoryScanner();
-		String[] includes = { "**\\*.java" };
-		ds.setBasedir(baseDirectory);
-		ds.setIncludes(includes);
-		ds.scan();
-		String[] fileNames = ds.getIncludedFiles();
-		return fileNames;
+	private static boolean containsSpringBootApplication(Path file) {
+		logger.debug("Looking for @SpringBootApplication in file = " + file);
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8))) {
+			return reader.lines().anyMatch((line) -> line.contains(SPRING_BOOT_APPLICATION));
+		}
+		catch (IOException | UncheckedIOException ex) {
+			throw new SpringCliException("Exception reading " + file + " " + ex.getMessage(), ex);
+		}
 	}
 
 	public static String extractRootPackageName(File file) {
@@ -27,6 +27,7 @@ import com.google.common.jimfs.Jimfs;
 import org.junit.jupiter.api.Test;
 
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cli.config.ProjectCatalogIndex;
 import org.springframework.cli.config.SpringCliUserConfig;
 import org.springframework.cli.git.GitSourceRepositoryService;
 import org.springframework.cli.git.SourceRepositoryService;
@@ -114,8 +115,9 @@ public class ProjectCommandsTests {
 		@Bean
 		ProjectCommands projectCommands(SpringCliUserConfig springCliUserConfig,
 				SourceRepositoryService sourceRepositoryService, ObjectMapper objectMapper) {
-			ProjectCommands projectCommands = new ProjectCommands(springCliUserConfig, sourceRepositoryService,
-					TerminalMessage.noop(), objectMapper);
+			ProjectCommands projectCommands = new ProjectCommands(springCliUserConfig,
+					new ProjectCatalogIndex(springCliUserConfig, sourceRepositoryService), TerminalMessage.noop(),
+					objectMapper);
 			return projectCommands;
 		}
 
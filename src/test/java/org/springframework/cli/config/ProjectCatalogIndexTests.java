@@ -0,0 +1,174 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.config;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import com.google.common.jimfs.Jimfs;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.cli.config.ProjectCatalogIndex.CatalogProjectRepository;
+import org.springframework.cli.config.SpringCliUserConfig.ProjectCatalog;
+import org.springframework.cli.config.SpringCliUserConfig.ProjectCatalogs;
+import org.springframework.cli.git.SourceRepositoryService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProjectCatalogIndexTests {
+
+	private static final String FIRST_URL = "https://github.com/org/first-catalog";
+
+	private static final String SECOND_URL = "https://github.com/org/second-catalog";
+
+	@TempDir
+	Path tempDir;
+
+	private SpringCliUserConfig userConfig;
+
+	private CatalogRepositoryService repositoryService;
+
+	@BeforeEach
+	void setup() {
+		FileSystem fileSystem = Jimfs.newFileSystem();
+		this.userConfig = new SpringCliUserConfig((path) -> fileSystem.getPath(path));
+		this.repositoryService = new CatalogRepositoryService(this.tempDir);
+		this.repositoryService.catalogs.put(FIRST_URL, "jpa", "https://github.com/org/jpa");
+		this.repositoryService.catalogs.put(SECOND_URL, "web", "https://github.com/org/web");
+		ProjectCatalogs projectCatalogs = new ProjectCatalogs();
+		projectCatalogs.setProjectCatalogs(new ArrayList<>(List.of(
+				ProjectCatalog.of("first", null, FIRST_URL, List.of()),
+				ProjectCatalog.of("second", null, SECOND_URL, List.of()))));
+		this.userConfig.setProjectCatalogs(projectCatalogs);
+	}
+
+	@Test
+	void downloadsCatalogsOnceAndPersistsIndex() {
+		ProjectCatalogIndex index = new ProjectCatalogIndex(this.userConfig, this.repositoryService);
+		CatalogProjectRepository found = index.findProjectRepository(" WEB ");
+		assertThat(found).isNotNull();
+		assertThat(found.catalog()).isEqualTo("second");
+		assertThat(found.projectRepository().getUrl()).isEqualTo("https://github.com/org/web");
+		assertThat(this.repositoryService.downloads).isEqualTo(2);
+
+		ProjectCatalogIndex other = new ProjectCatalogIndex(this.userConfig, this.repositoryService);
+		assertThat(other.findProjectRepository("jpa")).isNotNull();
+		assertThat(other.findProjectRepository("unknown")).isNull();
+		assertThat(other.getProjectRepositories()).extracting(CatalogProjectRepository::catalog)
+			.containsExactly("first", "second");
+		assertThat(this.repositoryService.downloads).isEqualTo(2);
+	}
+
+	@Test
+	void refreshesOutdatedCatalogsWhenNameIsMissing() {
+		ProjectCatalogIndex index = new ProjectCatalogIndex(this.userConfig, this.repositoryService,
+				Duration.ofMinutes(-1));
+		assertThat(index.findProjectRepository("jpa")).isNotNull();
+		int downloads = this.repositoryService.downloads;
+
+		this.repositoryService.catalogs.put(FIRST_URL, "data", "https://github.com/org/data");
+		CatalogProjectRepository found = index.findProjectRepository("data");
+		assertThat(found).isNotNull();
+		assertThat(found.projectRepository().getUrl()).isEqualTo("https://github.com/org/data");
+		assertThat(this.repositoryService.downloads).isGreaterThan(downloads);
+	}
+
+	@Test
+	void closeWaitsForBackgroundRefresh() throws IOException {
+		ProjectCatalogIndex index = new ProjectCatalogIndex(this.userConfig, this.repositoryService,
+				Duration.ofMinutes(-1));
+		assertThat(index.findProjectRepository("jpa")).isNotNull();
+
+		index.close();
+
+		// both catalogs were indexed, then refreshed as they are out of date right away
+		assertThat(this.repositoryService.downloads).isEqualTo(4);
+		try (Stream<Path> downloads = Files.list(this.tempDir)) {
+			assertThat(downloads).isEmpty();
+		}
+	}
+
+	@Test
+	void ignoresRemovedCatalogs() {
+		ProjectCatalogIndex index = new ProjectCatalogIndex(this.userConfig, this.repositoryService);
+		assertThat(index.findProjectRepository("web")).isNotNull();
+
+		ProjectCatalogs projectCatalogs = new ProjectCatalogs();
+		projectCatalogs
+			.setProjectCatalogs(new ArrayList<>(List.of(ProjectCatalog.of("first", null, FIRST_URL, List.of()))));
+		this.userConfig.setProjectCatalogs(projectCatalogs);
+		assertThat(index.findProjectRepository("web")).isNull();
+		assertThat(index.findProjectRepository("jpa")).isNotNull();
+	}
+
+	private static class CatalogRepositoryService implements SourceRepositoryService {
+
+		private final Path tempDir;
+
+		private final Catalogs catalogs = new Catalogs();
+
+		private int downloads;
+
+		CatalogRepositoryService(Path tempDir) {
+			this.tempDir = tempDir;
+		}
+
+		@Override
+		public synchronized Path retrieveRepositoryContents(String sourceRepoUrl) {
+			this.downloads++;
+			try {
+				Path path = Files.createTempDirectory(this.tempDir, "catalog");
+				Files.writeString(path.resolve("project-catalog.yml"), this.catalogs.toYaml(sourceRepoUrl));
+				return path;
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+	}
+
+	private static class Catalogs {
+
+		private final Map<String, Map<String, String>> projects = new HashMap<>();
+
+		void put(String catalogUrl, String name, String url) {
+			this.projects.computeIfAbsent(catalogUrl, (key) -> new HashMap<>()).put(name, url);
+		}
+
+		String toYaml(String catalogUrl) {
+			StringBuilder yaml = new StringBuilder("project-repositories:\n");
+			this.projects.getOrDefault(catalogUrl, Map.of())
+				.forEach((name, url) -> yaml.append("- name: ").append(name).append("\n  url: ").append(url)
+					.append("\n"));
+			return yaml.toString();
+		}
+
+	}
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.git;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cli.SpringCliException;
+import org.springframework.cli.git.RepositoryContentsCache.CachedRef;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GitHubCommitResolverTests {
+
+	private static final String COMMIT = "0123456789abcdef0123456789abcdef01234567";
+
+	private final List<HttpExchange> exchanges = new CopyOnWriteArrayList<>();
+
+	private HttpServer server;
+
+	private GitHubCommitResolver resolver;
+
+	@BeforeEach
+	void setup() throws IOException {
+		this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		this.server.createContext("/repos/org/rest-service/commits/", this::handle);
+		this.server.start();
+		this.resolver = new GitHubCommitResolver(
+				URI.create("http://localhost:" + this.server.getAddress().getPort() + "/"));
+	}
+
+	@AfterEach
+	void stop() {
+		this.server.stop(0);
+	}
+
+	@Test
+	void resolvesRefWithSingleRequest() {
+		CachedRef resolved = this.resolver.resolve("org/rest-service", "main", "secret", null);
+
+		assertThat(resolved.commit()).isEqualTo(COMMIT);
+		assertThat(resolved.etag()).isEqualTo("\"v1\"");
+		assertThat(this.exchanges).singleElement().satisfies((exchange) -> {
+			assertThat(exchange.getRequestURI().getPath()).isEqualTo("/repos/org/rest-service/commits/main");
+			assertThat(exchange.getRequestHeaders().getFirst("Accept")).isEqualTo("application/vnd.github.sha");
+			assertThat(exchange.getRequestHeaders().getFirst("Authorization")).isEqualTo("Bearer secret");
+		});
+	}
+
+	@Test
+	void resolvesDefaultBranchAsHead() {
+		this.resolver.resolve("org/rest-service", null, null, null);
+
+		assertThat(this.exchanges).singleElement().satisfies((exchange) -> {
+			assertThat(exchange.getRequestURI().getPath()).isEqualTo("/repos/org/rest-service/commits/HEAD");
+			assertThat(exchange.getRequestHeaders().containsKey("Authorization")).isFalse();
+		});
+	}
+
+	@Test
+	void revalidatesWithEtag() {
+		CachedRef cached = new CachedRef(COMMIT, "\"v1\"", false);
+		CachedRef resolved = this.resolver.resolve("org/rest-service", "main", null, cached);
+
+		assertThat(resolved).isEqualTo(new CachedRef(COMMIT, "\"v1\"", true));
+		assertThat(this.exchanges).singleElement()
+			.satisfies((exchange) -> assertThat(exchange.getRequestHeaders().getFirst("If-None-Match"))
+				.isEqualTo("\"v1\""));
+	}
+
+	@Test
+	void failsForUnknownRef() {
+		assertThatThrownBy(() -> this.resolver.resolve("org/rest-service", "missing", null, null))
+			.isInstanceOf(SpringCliException.class)
+			.hasMessageContaining("missing");
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		this.exchanges.add(exchange);
+		if (exchange.getRequestURI().getPath().endsWith("/missing")) {
+			exchange.sendResponseHeaders(404, -1);
+		}
+		else if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+			exchange.getResponseHeaders().add("ETag", "\"v1\"");
+			exchange.sendResponseHeaders(304, -1);
+		}
+		else {
+			byte[] body = COMMIT.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("ETag", "\"v1\"");
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		}
+		exchange.close();
+	}
+
+}
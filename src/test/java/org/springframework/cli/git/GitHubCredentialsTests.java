@@ -0,0 +1,58 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.git;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GitHubCredentialsTests {
+
+	@Test
+	void usesTokenOfPropertyFile(@TempDir Path tempDir) throws IOException {
+		Path propertyFile = Files.writeString(tempDir.resolve(".github"), "oauth=from-file\n");
+
+		assertThat(GitHubCredentials.resolve(null, null, propertyFile).getToken()).isEqualTo("from-file");
+	}
+
+	@Test
+	void ignoresPasswordOfPropertyFile(@TempDir Path tempDir) throws IOException {
+		Path propertyFile = Files.writeString(tempDir.resolve(".github"), "login=user\npassword=secret\n");
+
+		assertThat(GitHubCredentials.resolve(null, null, propertyFile).getToken()).isNull();
+	}
+
+	@Test
+	void prefersHostTokenThenEnvironment(@TempDir Path tempDir) throws IOException {
+		Path propertyFile = Files.writeString(tempDir.resolve(".github"), "oauth=from-file\n");
+
+		assertThat(GitHubCredentials.resolve("from-host", "from-env", propertyFile).getToken())
+			.isEqualTo("from-host");
+		assertThat(GitHubCredentials.resolve(null, "from-env", propertyFile).getToken()).isEqualTo("from-env");
+	}
+
+	@Test
+	void isAnonymousWithoutCredentials(@TempDir Path tempDir) {
+		assertThat(GitHubCredentials.resolve(null, "", tempDir.resolve(".github")).getToken()).isNull();
+	}
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.git;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RepositoryContentsCacheTests {
+
+	private static final String COMMIT_1 = "0123456789abcdef0123456789abcdef01234567";
+
+	private static final String COMMIT_2 = "89abcdef0123456789abcdef0123456789abcdef";
+
+	@Test
+	void storesAndCopiesContents(@TempDir Path tempDir) throws Exception {
+		Path repositoryPath = createRepository(tempDir.resolve("download").resolve("rest-service-0123456"), 10);
+		RepositoryContentsCache cache = new RepositoryContentsCache(tempDir.resolve("cache"), 1024,
+				Duration.ofMinutes(1));
+
+		assertThat(cache.copyTo("github.com", "org/rest-service", COMMIT_1, null, tempDir.resolve("miss")))
+			.isEmpty();
+		cache.put("github.com", "org/rest-service", COMMIT_1, null, repositoryPath);
+
+		Optional<Path> copied = cache.copyTo("github.com", "org/rest-service", COMMIT_1, null,
+				tempDir.resolve("hit"));
+		assertThat(copied).contains(tempDir.resolve("hit").resolve("rest-service-0123456"));
+		assertThat(copied.get().resolve("README.md")).hasContent("0123456789");
+		assertThat(copied.get().resolve("mvnw")).isExecutable();
+
+		// callers modify what they get, that must not leak back into the cache
+		Files.writeString(copied.get().resolve("README.md"), "changed");
+		assertThat(cache.copyTo("github.com", "org/rest-service", COMMIT_1, null, tempDir.resolve("again")).get())
+			.satisfies((path) -> assertThat(path.resolve("README.md")).hasContent("0123456789"));
+	}
+
+	@Test
+	void servesSubPathFromCompleteOrPartialEntries(@TempDir Path tempDir) throws Exception {
+		Path repositoryPath = createRepository(tempDir.resolve("download").resolve("samples-0123456"), 10);
+		createRepository(repositoryPath.resolve("first"), 5);
+		createRepository(repositoryPath.resolve("second"), 5);
+		RepositoryContentsCache cache = new RepositoryContentsCache(tempDir.resolve("cache"), 1024,
+				Duration.ofMinutes(1));
+
+		cache.put("github.com", "org/samples", COMMIT_1, "first", repositoryPath);
+		assertThat(cache.copyTo("github.com", "org/samples", COMMIT_1, null, tempDir.resolve("all"))).isEmpty();
+		assertThat(cache.copyTo("github.com", "org/samples", COMMIT_1, "second", tempDir.resolve("s"))).isEmpty();
+		assertThat(cache.copyTo("github.com", "org/samples", COMMIT_1, "first", tempDir.resolve("f"))).isPresent();
+
+		cache.put("github.com", "org/samples", COMMIT_1, null, repositoryPath);
+		Optional<Path> copied = cache.copyTo("github.com", "org/samples", COMMIT_1, "second", tempDir.resolve("s"));
+		assertThat(copied).isPresent();
+		assertThat(copied.get().resolve("second").resolve("README.md")).hasContent("01234");
+		assertThat(copied.get().resolve("first")).doesNotExist();
+	}
+
+	@Test
+	void resolvesRefsWithinTtl(@TempDir Path tempDir) {
+		RepositoryContentsCache cache = new RepositoryContentsCache(tempDir, 1024, Duration.ofMinutes(1));
+		assertThat(cache.findCommit("github.com", "org/rest-service", "main")).isEmpty();
+		cache.putCommit("github.com", "org/rest-service", "main", COMMIT_1);
+		assertThat(cache.findCommit("github.com", "org/rest-service", "main")).contains(COMMIT_1);
+		assertThat(cache.findCommit("github.com", "org/other", "main")).isEmpty();
+		assertThat(cache.findCommit("github.com", "org/rest-service", COMMIT_2)).contains(COMMIT_2);
+
+		RepositoryContentsCache expired = new RepositoryContentsCache(tempDir, 1024, Duration.ofMinutes(-1));
+		assertThat(expired.findCommit("github.com", "org/rest-service", "main")).isEmpty();
+	}
+
+	@Test
+	void keepsEtagsOfExpiredRefsForRevalidation(@TempDir Path tempDir) {
+		RepositoryContentsCache cache = new RepositoryContentsCache(tempDir, 1024, Duration.ofMinutes(-1));
+		cache.putCommit("github.com", "org/rest-service", null, COMMIT_1, "W/\"abc\"");
+
+		assertThat(cache.findCommit("github.com", "org/rest-service", null)).isEmpty();
+		assertThat(cache.findRef("github.com", "org/rest-service", null))
+			.contains(new RepositoryContentsCache.CachedRef(COMMIT_1, "W/\"abc\"", false));
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedEntries(@TempDir Path tempDir) throws Exception {
+		RepositoryContentsCache cache = new RepositoryContentsCache(tempDir.resolve("cache"), 15,
+				Duration.ofMinutes(1));
+		cache.put("github.com", "org/first", COMMIT_1, null, createRepository(tempDir.resolve("first"), 10));
+		// mark the first entry as accessed long ago
+		try (Stream<Path> files = Files.walk(tempDir.resolve("cache"))) {
+			for (Path file : files.filter((f) -> f.endsWith("entry.properties")).toList()) {
+				Files.setLastModifiedTime(file, FileTime.from(Instant.EPOCH));
+			}
+		}
+		cache.put("github.com", "org/second", COMMIT_2, null, createRepository(tempDir.resolve("second"), 10));
+
+		assertThat(cache.copyTo("github.com", "org/first", COMMIT_1, null, tempDir.resolve("out1"))).isEmpty();
+		assertThat(cache.copyTo("github.com", "org/second", COMMIT_2, null, tempDir.resolve("out2"))).isPresent();
+	}
+
+	private static Path createRepository(Path path, int size) throws Exception {
+		Files.createDirectories(path);
+		Files.writeString(path.resolve("README.md"), "0123456789".substring(0, size));
+		Path mvnw = Files.createFile(path.resolve("mvnw"));
+		mvnw.toFile().setExecutable(true);
+		return path;
+	}
+
+}
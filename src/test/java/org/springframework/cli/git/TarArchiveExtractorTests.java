@@ -0,0 +1,104 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.git;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.cli.SpringCliException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TarArchiveExtractorTests {
+
+	@Test
+	void extractsCompleteArchive(@TempDir Path tempDir) throws Exception {
+		byte[] archive = createArchive();
+		Path root = new TarArchiveExtractor(null).extract(new ByteArrayInputStream(archive), tempDir);
+
+		assertThat(root).isEqualTo(tempDir.resolve("org-samples-0123456"));
+		assertThat(root.resolve("README.md")).hasContent("readme");
+		assertThat(root.resolve("first/pom.xml")).hasContent("first pom");
+		assertThat(root.resolve("first/mvnw")).isExecutable();
+		assertThat(root.resolve("second/pom.xml")).hasContent("second pom");
+	}
+
+	@Test
+	void extractsOnlySubPath(@TempDir Path tempDir) throws Exception {
+		byte[] archive = createArchive();
+		Path root = new TarArchiveExtractor("/first/").extract(new ByteArrayInputStream(archive), tempDir);
+
+		assertThat(root.resolve("first/pom.xml")).hasContent("first pom");
+		assertThat(root.resolve("README.md")).doesNotExist();
+		assertThat(root.resolve("second")).doesNotExist();
+	}
+
+	@Test
+	void failsForMissingSubPath(@TempDir Path tempDir) throws Exception {
+		byte[] archive = createArchive();
+		assertThatThrownBy(
+				() -> new TarArchiveExtractor("third").extract(new ByteArrayInputStream(archive), tempDir))
+			.isInstanceOf(SpringCliException.class);
+	}
+
+	@Test
+	void rejectsEntriesOutsideTarget(@TempDir Path tempDir) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (TarArchiveOutputStream tar = new TarArchiveOutputStream(new GZIPOutputStream(bytes))) {
+			addFile(tar, "root/../../evil.txt", "evil", 0644);
+		}
+		assertThatThrownBy(() -> new TarArchiveExtractor(null)
+			.extract(new ByteArrayInputStream(bytes.toByteArray()), tempDir.resolve("target")))
+			.isInstanceOf(SpringCliException.class);
+		assertThat(tempDir.resolve("evil.txt")).doesNotExist();
+	}
+
+	private static byte[] createArchive() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (TarArchiveOutputStream tar = new TarArchiveOutputStream(new GZIPOutputStream(bytes))) {
+			tar.putArchiveEntry(new TarArchiveEntry("org-samples-0123456/"));
+			tar.closeArchiveEntry();
+			addFile(tar, "org-samples-0123456/README.md", "readme", 0644);
+			addFile(tar, "org-samples-0123456/first/pom.xml", "first pom", 0644);
+			addFile(tar, "org-samples-0123456/first/mvnw", "#!/bin/sh", 0755);
+			addFile(tar, "org-samples-0123456/second/pom.xml", "second pom", 0644);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static void addFile(TarArchiveOutputStream tar, String name, String content, int mode)
+			throws IOException {
+		byte[] data = content.getBytes(StandardCharsets.UTF_8);
+		TarArchiveEntry entry = new TarArchiveEntry(name);
+		entry.setSize(data.length);
+		entry.setMode(mode);
+		tar.putArchiveEntry(entry);
+		tar.write(data);
+		tar.closeArchiveEntry();
+	}
+
+}
@@ -42,6 +42,7 @@ import org.openrewrite.maven.MavenParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.cli.recipe.PomRecipeBatch;
 import org.springframework.cli.util.ConversionUtils;
 import org.springframework.cli.util.PomReader;
 import org.springframework.util.ReflectionUtils;
@@ -58,8 +59,6 @@ public class MavenModificationTests {
 
 	@Test
 	void addPluginDependency(@TempDir Path tempDir) throws Exception {
-		MavenParser mavenParser = MavenParser.builder().build();
-
 		Path mergedPomPath = tempDir.resolve("temp-existing-pom.xml");
 		Path pomExisting = Paths.get("src/test/resources/pom-existing-project.xml");
 
@@ -70,14 +69,16 @@ public class MavenModificationTests {
 		Path pomToMerge = Paths.get("src/test/resources/pom-project-to-add.xml");
 
 		ProjectMerger merger = new ProjectMerger(tempDir.resolve("to"), tempDir.resolve("from"), "foo-project", null);
-		Method mergeMavenPlugins = ReflectionUtils.findMethod(ProjectMerger.class, "mergeMavenPlugins", Path.class,
-				Model.class, Model.class, List.class, MavenParser.class);
+		Method mergeMavenPlugins = ReflectionUtils.findMethod(ProjectMerger.class, "mergeMavenPlugins", Model.class,
+				Model.class, PomRecipeBatch.class);
 		mergeMavenPlugins.setAccessible(true);
 
-		List<Path> paths = new ArrayList<>();
-		paths.add(mergedPomPath);
-		mergeMavenPlugins.invoke(merger, mergedPomPath, pomReader.readPom(pomExisting.toFile()),
-				pomReader.readPom(pomToMerge.toFile()), paths, mavenParser);
+		PomRecipeBatch pomRecipeBatch = new PomRecipeBatch(mergedPomPath, tempDir);
+		mergeMavenPlugins.invoke(merger, pomReader.readPom(pomExisting.toFile()),
+				pomReader.readPom(pomToMerge.toFile()), pomRecipeBatch);
+		pomRecipeBatch.apply();
+		assertThat(pomRecipeBatch.getParseCount()).isEqualTo(1);
+		assertThat(pomRecipeBatch.getWriteCount()).isEqualTo(1);
 
 		Model mergedModel = pomReader.readPom(mergedPomPath.toFile());
 		for (Plugin plugin : mergedModel.getBuild().getPlugins()) {
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.merger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.cli.util.TerminalMessage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProjectMergerTests {
+
+	@Test
+	void copiesAndMergesFilesOfProjectWithoutPom(@TempDir Path tempDir) throws IOException {
+		Path toMerge = tempDir.resolve("to-merge");
+		Path current = tempDir.resolve("current");
+		write(toMerge, "src/main/java/com/example/DemoApplication.java",
+				"package com.example;\n\n@SpringBootApplication\npublic class DemoApplication {\n}\n");
+		write(toMerge, "src/main/resources/static/css/site.css", "body {}");
+		write(toMerge, "src/main/resources/application.properties", "first=one\nsecond=two\n");
+		write(toMerge, "README.md", "readme");
+		write(toMerge, "LICENSE", "license");
+		write(toMerge, ".mvn/wrapper/maven-wrapper.properties", "wrapper");
+		write(current, "src/main/resources/application.properties", "first=current\n");
+
+		new ProjectMerger(toMerge, current, "extra", TerminalMessage.noop()).merge();
+
+		assertThat(current.resolve("src/main/resources/static/css/site.css")).hasContent("body {}");
+		assertThat(current.resolve("README-extra.md")).hasContent("readme");
+		assertThat(current.resolve("LICENSE")).doesNotExist();
+		assertThat(current.resolve(".mvn")).doesNotExist();
+		assertThat(current.resolve("src/main/java/com/example/DemoApplication.java")).doesNotExist();
+		Properties properties = new Properties();
+		try (InputStream in = Files.newInputStream(current.resolve("src/main/resources/application.properties"))) {
+			properties.load(in);
+		}
+		assertThat(properties).containsEntry("first", "current").containsEntry("second", "two");
+	}
+
+	@Test
+	void mergesAnnotationsAndImportsOfApplicationClass(@TempDir Path tempDir) throws IOException {
+		Path toMerge = tempDir.resolve("to-merge");
+		Path current = tempDir.resolve("current");
+		write(toMerge, "pom.xml", pom("scheduling"));
+		write(toMerge, "src/main/java/com/example/scheduling/SchedulingApplication.java",
+				"package com.example.scheduling;\n\n"
+						+ "import org.springframework.boot.autoconfigure.SpringBootApplication;\n"
+						+ "import org.springframework.scheduling.annotation.EnableScheduling;\n\n"
+						+ "@SpringBootApplication\n@EnableScheduling\npublic class SchedulingApplication {\n}\n");
+		write(current, "pom.xml", pom("demo"));
+		write(current, "src/main/java/com/example/demo/DemoApplication.java",
+				"package com.example.demo;\n\nimport org.springframework.boot.autoconfigure.SpringBootApplication;\n\n"
+						+ "@SpringBootApplication\npublic class DemoApplication {\n}\n");
+
+		new ProjectMerger(toMerge, current, "scheduling", TerminalMessage.noop()).merge();
+
+		String application = Files
+			.readString(current.resolve("src/main/java/com/example/demo/DemoApplication.java"));
+		assertThat(application)
+			.containsOnlyOnce("import org.springframework.scheduling.annotation.EnableScheduling;")
+			.containsOnlyOnce("@EnableScheduling")
+			.contains("@SpringBootApplication\n@EnableScheduling\npublic class DemoApplication");
+	}
+
+	private static String pom(String artifactId) {
+		return """
+				<?xml version="1.0" encoding="UTF-8"?>
+				<project xmlns="http://maven.apache.org/POM/4.0.0">
+					<modelVersion>4.0.0</modelVersion>
+					<groupId>com.example</groupId>
+					<artifactId>%s</artifactId>
+					<version>0.0.1-SNAPSHOT</version>
+					<properties>
+						<java.version>17</java.version>
+					</properties>
+				</project>
+				""".formatted(artifactId);
+	}
+
+	private static void write(Path root, String path, String content) throws IOException {
+		Path file = root.resolve(path);
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, content);
+	}
+
+}
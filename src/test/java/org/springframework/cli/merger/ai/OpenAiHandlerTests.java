@@ -18,17 +18,32 @@ package org.springframework.cli.merger.ai;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import org.springframework.cli.SpringCliException;
+import org.springframework.cli.merger.ai.service.DescriptionRewriteAiService;
 import org.springframework.cli.merger.ai.service.GenerateCodeAiService;
+import org.springframework.cli.merger.ai.service.OpenAiClient;
+import org.springframework.cli.merger.ai.service.ProjectNameHeuristicAiService;
 import org.springframework.cli.testutil.TestResourceUtils;
+import org.springframework.cli.util.StubTerminalMessage;
 import org.springframework.cli.util.TerminalMessage;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.util.StreamUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 
 public class OpenAiHandlerTests {
 
@@ -46,4 +61,166 @@ public class OpenAiHandlerTests {
 		assertThat(projectArtifacts).hasSize(5);
 	}
 
+	@Test
+	void preparesGenerationConcurrently(@TempDir Path projectPath) {
+		OpenAiClient client = new OpenAiClient("key", "http://localhost/", Duration.ofSeconds(1), 1);
+		// each step only completes once all three are running
+		CountDownLatch running = new CountDownLatch(3);
+		OpenAiHandler openAiHandler = new OpenAiHandler(new StubGenerateCodeAiService(client),
+				(terminalMessage) -> new StubProjectNameHeuristicAiService(client,
+						() -> awaitOthers(running, new ProjectName("jpa", "Spring Data JPA"))),
+				(terminalMessage) -> new StubDescriptionRewriteAiService(client,
+						() -> awaitOthers(running, "Add JPA")),
+				(path) -> awaitOthers(running, "com.example"));
+
+		StubTerminalMessage terminalMessage = new StubTerminalMessage();
+		openAiHandler.add("jpa", projectPath.toString(), false, true, terminalMessage);
+
+		assertThat(projectPath.resolve("README-ai-jpa.md")).hasContent("# JPA");
+		assertThat(client.getMetrics().getStageLatencies()).containsOnlyKeys("project-name", "rewrite-description",
+				"root-package", "generate-code");
+		assertThat(terminalMessage.getPrintMessages()).last()
+			.asString()
+			.startsWith("Stage timings: ")
+			.contains("project-name=", "rewrite-description=", "root-package=", "generate-code=")
+			.endsWith("; OpenAI: 0 requests, 0 retries, 0ms average latency, 0 prompt and 0 completion tokens");
+	}
+
+	@Test
+	void reportsFailuresInTheOrderOfThePreparationSteps(@TempDir Path projectPath) {
+		OpenAiClient client = new OpenAiClient("key", "http://localhost/", Duration.ofSeconds(1), 1);
+		SpringCliException rewriteFailure = new SpringCliException("Could not rewrite");
+		CountDownLatch rootPackageFailed = new CountDownLatch(1);
+		AtomicBoolean generated = new AtomicBoolean();
+		StubGenerateCodeAiService generateCodeAiService = new StubGenerateCodeAiService(client) {
+
+			@Override
+			public String generate(Map<String, String> context) {
+				generated.set(true);
+				return super.generate(context);
+			}
+
+		};
+		OpenAiHandler openAiHandler = new OpenAiHandler(generateCodeAiService,
+				(terminalMessage) -> new StubProjectNameHeuristicAiService(client,
+						() -> new ProjectName("jpa", "Spring Data JPA")),
+				(terminalMessage) -> new StubDescriptionRewriteAiService(client, () -> {
+					// fails after the later root package step did
+					await(rootPackageFailed);
+					throw rewriteFailure;
+				}), (path) -> {
+					rootPackageFailed.countDown();
+					throw new SpringCliException("Could not find root package");
+				});
+
+		assertThatExceptionOfType(SpringCliException.class)
+			.isThrownBy(() -> openAiHandler.add("jpa", projectPath.toString(), false, true, TerminalMessage.noop()))
+			.isSameAs(rewriteFailure);
+		assertThat(generated).isFalse();
+		assertThat(projectPath.resolve("README-ai-jpa.md")).doesNotExist();
+		assertThat(client.getMetrics().getStageLatencies()).containsKeys("project-name", "rewrite-description",
+				"root-package");
+	}
+
+	@Test
+	void printsStageTimingsOfApply(@TempDir Path projectPath) throws IOException {
+		Files.writeString(projectPath.resolve("README-ai-jpa.md"), "# JPA\n");
+		OpenAiHandler openAiHandler = new OpenAiHandler(new GenerateCodeAiService(TerminalMessage.noop()));
+		StubTerminalMessage terminalMessage = new StubTerminalMessage();
+
+		openAiHandler.apply("README-ai-jpa.md", projectPath.toString(), terminalMessage);
+
+		assertThat(terminalMessage.getPrintMessages()).last()
+			.asString()
+			.startsWith("Stage timings: stage-artifacts=")
+			.contains(", apply-artifacts=");
+	}
+
+	private static <T> T awaitOthers(CountDownLatch latch, T result) {
+		latch.countDown();
+		await(latch);
+		return result;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			if (!latch.await(10, TimeUnit.SECONDS)) {
+				throw new IllegalStateException("Preparation steps did not run concurrently");
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	static class StubGenerateCodeAiService extends GenerateCodeAiService {
+
+		private final OpenAiClient client;
+
+		StubGenerateCodeAiService(OpenAiClient client) {
+			super(TerminalMessage.noop());
+			this.client = client;
+		}
+
+		@Override
+		public OpenAiClient getOpenAiClient() {
+			return this.client;
+		}
+
+		@Override
+		public String generate(Map<String, String> context) {
+			return "# JPA";
+		}
+
+	}
+
+	static class StubProjectNameHeuristicAiService extends ProjectNameHeuristicAiService {
+
+		private final OpenAiClient client;
+
+		private final Supplier<ProjectName> projectName;
+
+		StubProjectNameHeuristicAiService(OpenAiClient client, Supplier<ProjectName> projectName) {
+			super(TerminalMessage.noop());
+			this.client = client;
+			this.projectName = projectName;
+		}
+
+		@Override
+		public OpenAiClient getOpenAiClient() {
+			return this.client;
+		}
+
+		@Override
+		public ProjectName deriveProjectName(String description) {
+			return this.projectName.get();
+		}
+
+	}
+
+	static class StubDescriptionRewriteAiService extends DescriptionRewriteAiService {
+
+		private final OpenAiClient client;
+
+		private final Supplier<String> description;
+
+		StubDescriptionRewriteAiService(OpenAiClient client, Supplier<String> description) {
+			super(TerminalMessage.noop());
+			this.client = client;
+			this.description = description;
+		}
+
+		@Override
+		public OpenAiClient getOpenAiClient() {
+			return this.client;
+		}
+
+		@Override
+		public String rewrite(String description) {
+			return this.description.get();
+		}
+
+	}
+
 }
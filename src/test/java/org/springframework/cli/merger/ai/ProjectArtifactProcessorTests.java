@@ -0,0 +1,124 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.merger.ai;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.cli.util.TerminalMessage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ProjectArtifactProcessorTests {
+
+	@Test
+	void writesSourceAndTestFiles(@TempDir Path tempDir) throws IOException {
+		String source = "package com.example.demo;\n\npublic class Greeting {\n}\n";
+		String test = "package com.example.demo;\n\nclass GreetingTests {\n}\n";
+		new ProjectArtifactProcessor(List.of(new ProjectArtifact(ProjectArtifactType.SOURCE_CODE, source),
+				new ProjectArtifact(ProjectArtifactType.TEST_CODE, test)), tempDir, TerminalMessage.noop())
+			.process();
+		assertThat(tempDir.resolve("src/main/java/com/example/demo/Greeting.java")).hasContent(source);
+		assertThat(tempDir.resolve("src/test/java/com/example/demo/GreetingTests.java")).hasContent(test);
+		assertNoStagedFiles(tempDir);
+	}
+
+	@Test
+	void laterArtifactForSameFileWins(@TempDir Path tempDir) throws IOException {
+		String first = "package com.example.demo;\n\npublic class Greeting {\n}\n";
+		String second = "package com.example.demo;\n\npublic class Greeting {\n\n\tString text;\n\n}\n";
+		new ProjectArtifactProcessor(List.of(new ProjectArtifact(ProjectArtifactType.SOURCE_CODE, first),
+				new ProjectArtifact(ProjectArtifactType.SOURCE_CODE, second)), tempDir, TerminalMessage.noop())
+			.process();
+		assertThat(tempDir.resolve("src/main/java/com/example/demo/Greeting.java")).hasContent(second);
+		assertNoStagedFiles(tempDir);
+	}
+
+	@Test
+	void mergesApplicationPropertiesOnce(@TempDir Path tempDir) throws IOException {
+		Path applicationProperties = tempDir.resolve("src/main/resources/application.properties");
+		Files.createDirectories(applicationProperties.getParent());
+		Files.writeString(applicationProperties, "server.port=8081\n");
+		new ProjectArtifactProcessor(List.of(
+				new ProjectArtifact(ProjectArtifactType.APPLICATION_PROPERTIES, "server.port=8080\napp.name=first\n"),
+				new ProjectArtifact(ProjectArtifactType.APPLICATION_PROPERTIES, "app.name=second\napp.mode=demo\n")),
+				tempDir, TerminalMessage.noop())
+			.process();
+		Properties properties = new Properties();
+		try (InputStream in = Files.newInputStream(applicationProperties)) {
+			properties.load(in);
+		}
+		assertThat(properties).containsEntry("server.port", "8081")
+			.containsEntry("app.name", "first")
+			.containsEntry("app.mode", "demo");
+		assertNoStagedFiles(tempDir);
+	}
+
+	@Test
+	void stagedArtifactsAreOnlyWrittenOnCommit(@TempDir Path tempDir) throws IOException {
+		String source = "package com.example.demo;\n\npublic class Greeting {\n}\n";
+		ProjectArtifactProcessor processor = new ProjectArtifactProcessor(List.of(), tempDir, TerminalMessage.noop());
+		assertThat(processor.process(new ProjectArtifact(ProjectArtifactType.SOURCE_CODE, source))).isTrue();
+		processor.discard();
+		assertThat(tempDir.resolve("src/main/java/com/example/demo/Greeting.java")).doesNotExist();
+		assertNoStagedFiles(tempDir);
+	}
+
+	@Test
+	void keepsPermissionsOfReplacedFiles(@TempDir Path tempDir) throws IOException {
+		assumeTrue(Files.getFileStore(tempDir).supportsFileAttributeView(PosixFileAttributeView.class));
+		Path existing = tempDir.resolve("src/main/java/com/example/demo/Greeting.java");
+		Files.createDirectories(existing.getParent());
+		Files.writeString(existing, "package com.example.demo;\n");
+		Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-r-----");
+		Files.setPosixFilePermissions(existing, permissions);
+		Path reference = Files.createFile(tempDir.resolve("reference"));
+
+		String greeting = "package com.example.demo;\n\npublic class Greeting {\n}\n";
+		String farewell = "package com.example.demo;\n\npublic class Farewell {\n}\n";
+		new ProjectArtifactProcessor(List.of(new ProjectArtifact(ProjectArtifactType.SOURCE_CODE, greeting),
+				new ProjectArtifact(ProjectArtifactType.SOURCE_CODE, farewell)), tempDir, TerminalMessage.noop())
+			.process();
+
+		assertThat(existing).hasContent(greeting);
+		assertThat(Files.getPosixFilePermissions(existing)).isEqualTo(permissions);
+		// new files get the default permissions rather than owner only ones
+		assertThat(Files.getPosixFilePermissions(existing.resolveSibling("Farewell.java")))
+			.isEqualTo(Files.getPosixFilePermissions(reference));
+		assertNoStagedFiles(tempDir);
+	}
+
+	private static void assertNoStagedFiles(Path directory) throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			assertThat(files.filter((file) -> file.getFileName().toString().endsWith(".tmp"))).isEmpty();
+		}
+	}
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.merger.ai;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cli.SpringCliException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class StageTimingsTests {
+
+	@Test
+	void recordsCompletedStages() {
+		StageTimings stageTimings = new StageTimings();
+
+		assertThat(stageTimings.time("first", () -> "done")).isEqualTo("done");
+		stageTimings.time("second", () -> 2);
+		stageTimings.run("third", () -> {
+		});
+
+		assertThat(stageTimings.getDurations()).containsOnlyKeys("first", "second", "third");
+		assertThat(stageTimings.toString()).startsWith("first=").contains(", second=", ", third=");
+	}
+
+	@Test
+	void recordsFailedStages() {
+		StageTimings stageTimings = new StageTimings();
+		SpringCliException failure = new SpringCliException("Stage failed");
+
+		assertThatExceptionOfType(SpringCliException.class).isThrownBy(() -> stageTimings.time("failing", () -> {
+			throw failure;
+		})).isSameAs(failure);
+
+		assertThat(stageTimings.getDurations()).containsOnlyKeys("failing");
+	}
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.merger.ai;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cli.testutil.TestResourceUtils;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.StreamUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamingCodeBlockExtractorTests {
+
+	@Test
+	void extractsSameArtifactsAsWholeResponseParsing() throws IOException {
+		ClassPathResource classPathResource = TestResourceUtils.qualifiedResource(OpenAiHandlerTests.class,
+				"response.md");
+		String response = StreamUtils.copyToString(classPathResource.getInputStream(), StandardCharsets.UTF_8);
+		List<ProjectArtifact> received = new ArrayList<>();
+		try (StreamingCodeBlockExtractor extractor = new StreamingCodeBlockExtractor(received::add)) {
+			// chunks of a few characters, as tokens of a streamed completion
+			for (int i = 0; i < response.length(); i += 5) {
+				extractor.accept(response.substring(i, Math.min(i + 5, response.length())));
+			}
+		}
+
+		assertThat(received).hasSize(5).isEqualTo(new ProjectArtifactCreator().create(response));
+	}
+
+	@Test
+	void passesArtifactOnceCodeBlockIsClosed() {
+		List<ProjectArtifact> received = new ArrayList<>();
+		List<String> lines = new ArrayList<>();
+		StreamingCodeBlockExtractor extractor = new StreamingCodeBlockExtractor(lines::add, received::add);
+		extractor.accept("Add this:\n\n```prop");
+		extractor.accept("erties\nserver.port=8");
+		extractor.accept("081\n");
+		assertThat(received).isEmpty();
+		extractor.accept("```\n");
+		assertThat(received).containsExactly(
+				new ProjectArtifact(ProjectArtifactType.APPLICATION_PROPERTIES, "server.port=8081\n"));
+		extractor.accept("Done");
+		assertThat(lines).containsExactly("Add this:", "", "```properties", "server.port=8081", "```");
+		extractor.close();
+		assertThat(lines).endsWith("Done");
+	}
+
+	@Test
+	void closesOpenCodeBlockAtEndOfResponse() {
+		List<ProjectArtifact> received = new ArrayList<>();
+		try (StreamingCodeBlockExtractor extractor = new StreamingCodeBlockExtractor(received::add)) {
+			extractor.accept("~~~~html\n<html>\n```\n</html>");
+		}
+
+		assertThat(received).containsExactly(new ProjectArtifact(ProjectArtifactType.HTML, "<html>\n```\n</html>\n"));
+	}
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.merger.ai.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.theokanning.openai.completion.chat.ChatCompletionRequest;
+import com.theokanning.openai.completion.chat.ChatMessage;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.cli.merger.ai.ProjectArtifact;
+import org.springframework.cli.merger.ai.ProjectArtifactType;
+import org.springframework.cli.merger.ai.StreamingCodeBlockExtractor;
+import org.springframework.cli.util.StubTerminalMessage;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AbstractOpenAiServiceTests {
+
+	private static final String COMPLETION = """
+			{"id": "1", "object": "chat.completion", "created": 1, "model": "gpt-3.5-turbo",
+			"choices": [{"index": 0, "message": {"role": "assistant", "content": "Hello"}, "finish_reason": "stop"}],
+			"usage": {"prompt_tokens": 10, "completion_tokens": 2, "total_tokens": 12}}
+			""";
+
+	private final StubTerminalMessage terminalMessage = new StubTerminalMessage();
+
+	private MockWebServer server;
+
+	private TestOpenAiService service;
+
+	@BeforeEach
+	void setup() throws IOException {
+		this.server = new MockWebServer();
+		this.server.start();
+		OpenAiClient client = new OpenAiClient("key", this.server.url("/").toString(), Duration.ofSeconds(10), 1);
+		this.service = new TestOpenAiService(this.terminalMessage, client);
+	}
+
+	@AfterEach
+	void cleanup() throws IOException {
+		this.server.shutdown();
+	}
+
+	@Test
+	void sendsRequestsWithoutCache() {
+		enqueueCompletion();
+		enqueueCompletion();
+
+		assertThat(this.service.getResponse(request())).isEqualTo("Hello");
+		assertThat(this.service.getResponse(request())).isEqualTo("Hello");
+		assertThat(this.server.getRequestCount()).isEqualTo(2);
+	}
+
+	@Test
+	void reusesCachedResponseAndSaysSo(@TempDir Path tempDir) {
+		this.service.setResponseCache(new AiResponseCache(tempDir, Duration.ofDays(1), 1024 * 1024));
+		enqueueCompletion();
+
+		assertThat(this.service.getResponse(request())).isEqualTo("Hello");
+		assertThat(this.terminalMessage.getPrintMessages()).isEmpty();
+		assertThat(this.service.getResponse(request())).isEqualTo("Hello");
+		assertThat(this.server.getRequestCount()).isOne();
+		assertThat(this.terminalMessage.getPrintMessages())
+			.containsExactly("Using the cached response of an earlier identical request.");
+	}
+
+	@Test
+	void streamsResponseAndExtractsArtifactsAsBlocksClose() {
+		List<String> deltas = List.of("Here is the code.\n\n```java\npackage com.example;\n",
+				"\npublic class Greeting {\n}\n```\n", "\nAnd its properties:\n\n",
+				"```properties\nserver.port=8081\n```\n");
+		StringBuilder events = new StringBuilder(chunk("{\"role\": \"assistant\"}"));
+		deltas.forEach((delta) -> events.append(chunk("{\"content\": " + json(delta) + "}")));
+		events.append("data: [DONE]\n\n");
+		this.server.enqueue(new MockResponse().setBody(events.toString())
+			.setHeader(HttpHeaders.CONTENT_TYPE, MediaType.TEXT_EVENT_STREAM_VALUE));
+		List<String> received = new ArrayList<>();
+		List<Integer> receivedWhenExtracted = new ArrayList<>();
+		List<ProjectArtifact> artifacts = new ArrayList<>();
+
+		String response;
+		try (StreamingCodeBlockExtractor extractor = new StreamingCodeBlockExtractor((artifact) -> {
+			receivedWhenExtracted.add(received.size());
+			artifacts.add(artifact);
+		})) {
+			response = this.service.getStreamingResponse(request(), (text) -> {
+				received.add(text);
+				extractor.accept(text);
+			});
+		}
+
+		// the role-only first chunk carries no text
+		assertThat(received).containsExactlyElementsOf(deltas);
+		assertThat(response).isEqualTo(String.join("", deltas));
+		assertThat(artifacts).extracting(ProjectArtifact::getArtifactType)
+			.containsExactly(ProjectArtifactType.SOURCE_CODE, ProjectArtifactType.APPLICATION_PROPERTIES);
+		assertThat(artifacts.get(0).getText()).isEqualTo("package com.example;\n\npublic class Greeting {\n}\n");
+		// the java block is extracted as soon as it closes, before the rest arrived
+		assertThat(receivedWhenExtracted).containsExactly(2, 4);
+	}
+
+	private static String chunk(String delta) {
+		return "data: {\"id\": \"1\", \"object\": \"chat.completion.chunk\", \"created\": 1, "
+				+ "\"model\": \"gpt-3.5-turbo\", \"choices\": [{\"index\": 0, \"delta\": " + delta
+				+ ", \"finish_reason\": null}]}\n\n";
+	}
+
+	private static String json(String text) {
+		return "\"" + text.replace("\n", "\\n") + "\"";
+	}
+
+	private void enqueueCompletion() {
+		this.server.enqueue(new MockResponse().setBody(COMPLETION)
+			.setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE));
+	}
+
+	private static ChatCompletionRequest request() {
+		return ChatCompletionRequest.builder()
+			.model("gpt-3.5-turbo")
+			.temperature(0.3)
+			.messages(List.of(new ChatMessage("user", "Say hello")))
+			.build();
+	}
+
+	static class TestOpenAiService extends AbstractOpenAiService {
+
+		TestOpenAiService(StubTerminalMessage terminalMessage, OpenAiClient openAiClient) {
+			super(terminalMessage, openAiClient);
+		}
+
+		@Override
+		public String generate(Map<String, String> context) {
+			throw new UnsupportedOperationException();
+		}
+
+	}
+
+}
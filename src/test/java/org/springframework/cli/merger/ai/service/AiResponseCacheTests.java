@@ -0,0 +1,80 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.merger.ai.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.theokanning.openai.completion.chat.ChatCompletionRequest;
+import com.theokanning.openai.completion.chat.ChatMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AiResponseCacheTests {
+
+	@Test
+	void returnsCachedResponseForSamePrompts(@TempDir Path tempDir) {
+		AiResponseCache cache = new AiResponseCache(tempDir, Duration.ofDays(1), 1024 * 1024);
+		cache.put(request("Write code", "A REST service", 0.3), "response\nwith lines = and : signs");
+
+		assertThat(cache.get(request("  Write\n code ", "A REST   service\n", 0.3)))
+			.contains("response\nwith lines = and : signs");
+		assertThat(cache.get(request("Write code", "A JPA service", 0.3))).isEmpty();
+		assertThat(cache.get(request("Write code", "A REST service", 0.7))).isEmpty();
+	}
+
+	@Test
+	void doesNotReturnExpiredResponses(@TempDir Path tempDir) {
+		AiResponseCache cache = new AiResponseCache(tempDir, Duration.ofSeconds(-1), 1024 * 1024);
+		cache.put(request("Write code", "A REST service", 0.3), "response");
+
+		assertThat(cache.get(request("Write code", "A REST service", 0.3))).isEmpty();
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedResponsesBeyondMaxSize(@TempDir Path tempDir) throws IOException {
+		AiResponseCache cache = new AiResponseCache(tempDir, Duration.ofDays(1), 1500);
+		String response = "x".repeat(1000);
+		cache.put(request("Write code", "first", 0.3), response);
+		try (Stream<Path> files = Files.list(tempDir)) {
+			for (Path file : files.toList()) {
+				Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+			}
+		}
+		cache.put(request("Write code", "second", 0.3), response);
+
+		assertThat(cache.get(request("Write code", "first", 0.3))).isEmpty();
+		assertThat(cache.get(request("Write code", "second", 0.3))).contains(response);
+	}
+
+	private static ChatCompletionRequest request(String systemPrompt, String userPrompt, double temperature) {
+		return ChatCompletionRequest.builder()
+			.model("gpt-3.5-turbo")
+			.temperature(temperature)
+			.messages(List.of(new ChatMessage("system", systemPrompt), new ChatMessage("user", userPrompt)))
+			.build();
+	}
+
+}
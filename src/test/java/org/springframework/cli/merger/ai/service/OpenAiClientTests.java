@@ -0,0 +1,151 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.merger.ai.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+import com.theokanning.openai.completion.chat.ChatCompletionRequest;
+import com.theokanning.openai.completion.chat.ChatCompletionResult;
+import com.theokanning.openai.completion.chat.ChatMessage;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class OpenAiClientTests {
+
+	private static final String COMPLETION = """
+			{"id": "1", "object": "chat.completion", "created": 1, "model": "gpt-3.5-turbo",
+			"choices": [{"index": 0, "message": {"role": "assistant", "content": "Hello"}, "finish_reason": "stop"}],
+			"usage": {"prompt_tokens": 10, "completion_tokens": 2, "total_tokens": 12}}
+			""";
+
+	private MockWebServer server;
+
+	@BeforeEach
+	void setup() throws IOException {
+		this.server = new MockWebServer();
+		this.server.start();
+	}
+
+	@AfterEach
+	void cleanup() throws IOException {
+		this.server.shutdown();
+	}
+
+	@Test
+	void retriesRateLimitedAndFailedRequests() {
+		this.server.enqueue(new MockResponse().setResponseCode(503));
+		this.server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "0"));
+		this.server.enqueue(new MockResponse().setBody(COMPLETION)
+			.setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE));
+		OpenAiClient client = new OpenAiClient("key", this.server.url("/").toString(), Duration.ofSeconds(10), 4);
+
+		ChatCompletionResult result = client.createChatCompletion(request());
+
+		assertThat(result.getChoices().get(0).getMessage().getContent()).isEqualTo("Hello");
+		assertThat(this.server.getRequestCount()).isEqualTo(3);
+		OpenAiClient.Metrics metrics = client.getMetrics();
+		assertThat(metrics.getRequests()).isEqualTo(3);
+		assertThat(metrics.getFailedRequests()).isEqualTo(2);
+		assertThat(metrics.getRetries()).isEqualTo(2);
+		assertThat(metrics.getPromptTokens()).isEqualTo(10);
+		assertThat(metrics.getCompletionTokens()).isEqualTo(2);
+	}
+
+	@Test
+	void reportsUsageSinceSnapshot() {
+		for (int i = 0; i < 2; i++) {
+			this.server.enqueue(new MockResponse().setBody(COMPLETION)
+				.setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE));
+		}
+		OpenAiClient client = new OpenAiClient("key", this.server.url("/").toString(), Duration.ofSeconds(10), 4);
+		client.createChatCompletion(request());
+		OpenAiClient.Snapshot before = client.getMetrics().snapshot();
+
+		client.createChatCompletion(request());
+
+		OpenAiClient.Snapshot usage = client.getMetrics().snapshot().since(before);
+		assertThat(usage.requests()).isOne();
+		assertThat(usage.retries()).isZero();
+		assertThat(usage.promptTokens()).isEqualTo(10);
+		assertThat(usage.completionTokens()).isEqualTo(2);
+		assertThat(usage.toString()).startsWith("1 requests, 0 retries, ")
+			.endsWith(" 10 prompt and 2 completion tokens");
+	}
+
+	@Test
+	void givesUpAfterMaxAttempts() {
+		this.server.enqueue(new MockResponse().setResponseCode(500));
+		this.server.enqueue(new MockResponse().setResponseCode(500));
+		this.server.enqueue(new MockResponse().setBody(COMPLETION));
+		OpenAiClient client = new OpenAiClient("key", this.server.url("/").toString(), Duration.ofSeconds(10), 2);
+
+		assertThatExceptionOfType(RuntimeException.class).isThrownBy(() -> client.createChatCompletion(request()));
+		assertThat(this.server.getRequestCount()).isEqualTo(2);
+	}
+
+	@Test
+	void doesNotRetryClientErrors() {
+		this.server.enqueue(new MockResponse().setResponseCode(400));
+		OpenAiClient client = new OpenAiClient("key", this.server.url("/").toString(), Duration.ofSeconds(10), 4);
+
+		assertThatExceptionOfType(RuntimeException.class).isThrownBy(() -> client.createChatCompletion(request()));
+		assertThat(this.server.getRequestCount()).isOne();
+		assertThat(client.getMetrics().getRetries()).isZero();
+	}
+
+	@Test
+	void doesNotRetryTimedOutRequests() {
+		this.server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+		this.server.enqueue(new MockResponse().setBody(COMPLETION));
+		OpenAiClient client = new OpenAiClient("key", this.server.url("/").toString(), Duration.ofSeconds(1), 4);
+
+		assertThatExceptionOfType(RuntimeException.class).isThrownBy(() -> client.createChatCompletion(request()));
+		assertThat(this.server.getRequestCount()).isOne();
+		assertThat(client.getMetrics().getRetries()).isZero();
+	}
+
+	@Test
+	void retriesRequestsThatCouldNotConnect() throws IOException {
+		String url = this.server.url("/").toString();
+		this.server.shutdown();
+		OpenAiClient client = new OpenAiClient("key", url, Duration.ofSeconds(1), 2);
+
+		assertThatExceptionOfType(RuntimeException.class).isThrownBy(() -> client.createChatCompletion(request()));
+		assertThat(client.getMetrics().getRequests()).isEqualTo(2);
+		assertThat(client.getMetrics().getRetries()).isOne();
+	}
+
+	private static ChatCompletionRequest request() {
+		return ChatCompletionRequest.builder()
+			.model("gpt-3.5-turbo")
+			.messages(List.of(new ChatMessage("user", "Say hello")))
+			.build();
+	}
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.recipe;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.apache.maven.model.Model;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.maven.ChangePropertyValue;
+
+import org.springframework.cli.util.PomReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PomRecipeBatchTests {
+
+	@Test
+	void appliesAllRecipesWithSingleParseAndWrite(@TempDir Path tempDir) throws Exception {
+		Path pomPath = tempDir.resolve("pom.xml");
+		Files.copy(Paths.get("src/test/resources/pom-existing-project.xml"), pomPath);
+
+		PomRecipeBatch pomRecipeBatch = new PomRecipeBatch(pomPath, tempDir);
+		pomRecipeBatch.add(new ChangePropertyValue("java.version", "17", true, false));
+		pomRecipeBatch.add(new ChangePropertyValue("foo.version", "1.0.0", true, false));
+		pomRecipeBatch.add(new AddManagedDependencyRecipe("org.springframework.cloud", "spring-cloud-dependencies",
+				"2021.0.0", "import", "pom", null));
+		assertThat(pomRecipeBatch.size()).isEqualTo(3);
+
+		assertThat(pomRecipeBatch.apply()).hasSize(1);
+		assertThat(pomRecipeBatch.getParseCount()).isEqualTo(1);
+		assertThat(pomRecipeBatch.getWriteCount()).isEqualTo(1);
+		assertThat(pomRecipeBatch.isEmpty()).isTrue();
+
+		Model model = new PomReader().readPom(pomPath.toFile());
+		assertThat(model.getProperties().getProperty("java.version")).isEqualTo("17");
+		assertThat(model.getProperties().getProperty("foo.version")).isEqualTo("1.0.0");
+		assertThat(model.getDependencyManagement().getDependencies()).anySatisfy((dependency) -> {
+			assertThat(dependency.getGroupId()).isEqualTo("org.springframework.cloud");
+			assertThat(dependency.getArtifactId()).isEqualTo("spring-cloud-dependencies");
+		});
+	}
+
+	@Test
+	void emptyBatchDoesNotTouchPom(@TempDir Path tempDir) throws Exception {
+		Path pomPath = tempDir.resolve("pom.xml");
+		Files.copy(Paths.get("src/test/resources/pom-existing-project.xml"), pomPath);
+
+		PomRecipeBatch pomRecipeBatch = new PomRecipeBatch(pomPath, tempDir);
+		assertThat(pomRecipeBatch.apply()).isEmpty();
+		assertThat(pomRecipeBatch.getParseCount()).isZero();
+		assertThat(pomRecipeBatch.getWriteCount()).isZero();
+	}
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.roles;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class RoleVariableStoreTests {
+
+	@TempDir
+	private Path workingDir;
+
+	private RoleService roleService;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		Files.writeString(this.workingDir.resolve("pom.xml"), "<project/>");
+		this.roleService = new RoleService(this.workingDir);
+	}
+
+	@Test
+	void writesUpdatesOnlyWhenFlushed() {
+		RoleVariableStore store = new RoleVariableStore(this.roleService);
+		store.put("", "name", "John");
+		store.put("", "age", "30");
+
+		assertThat(store.getVariables("")).containsEntry("name", "John").containsEntry("age", 30);
+		assertThat(this.roleService.getFile("")).doesNotExist();
+
+		store.flush();
+		assertThat(this.roleService.loadAsMap("")).containsEntry("name", "John").containsEntry("age", 30);
+		assertThat(store.getVariables("")).containsEntry("name", "John").containsEntry("age", 30);
+	}
+
+	@Test
+	void keepsVariablesOfFileWhenFlushing() {
+		this.roleService.updateRole("", "existing", "value");
+		RoleVariableStore store = new RoleVariableStore(this.roleService);
+		store.put("", "name", "John");
+		store.flush();
+
+		assertThat(this.roleService.loadAsMap("")).containsEntry("existing", "value").containsEntry("name", "John");
+		assertThat(this.roleService.getRolesVarPath().listFiles()).hasSize(1);
+	}
+
+	@Test
+	void readsFileAgainWhenItChanged() throws IOException {
+		this.roleService.updateRole("", "name", "John");
+		RoleVariableStore store = new RoleVariableStore(this.roleService);
+		store.put("", "age", "30");
+		assertThat(store.getVariables("")).containsEntry("name", "John");
+
+		Files.writeString(this.roleService.getFile("").toPath(), "name: Mary\nperson: true\n");
+		this.roleService.getFile("").setLastModified(System.currentTimeMillis() + 10_000);
+
+		Map<String, Object> variables = store.getVariables("");
+		assertThat(variables).containsEntry("name", "Mary").containsEntry("person", true).containsEntry("age", 30);
+	}
+
+	@Test
+	void keepsPermissionsOfFileWhenFlushing() throws IOException {
+		this.roleService.updateRole("", "existing", "value");
+		Path roleFile = this.roleService.getFile("").toPath();
+		assumeTrue(Files.getFileStore(roleFile).supportsFileAttributeView(PosixFileAttributeView.class));
+		Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-r-----");
+		Files.setPosixFilePermissions(roleFile, permissions);
+
+		RoleVariableStore store = new RoleVariableStore(this.roleService);
+		store.put("", "name", "John");
+		store.flush();
+
+		assertThat(Files.getPosixFilePermissions(roleFile)).isEqualTo(permissions);
+		assertThat(this.roleService.getRolesVarPath().listFiles()).hasSize(1);
+	}
+
+	@Test
+	void updatesSeveralVariablesAtOnce() {
+		this.roleService.updateRole("qa", Map.of("foo", "bar", "count", "2"));
+		assertThat(this.roleService.loadAsMap("qa")).containsEntry("foo", "bar").containsEntry("count", 2);
+	}
+
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.runtime.command;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.cli.config.SpringCliProperties;
+import org.springframework.cli.runtime.engine.actions.ActionsFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CommandBundleCacheTests {
+
+	@Test
+	void compilesActionFilesOnce(@TempDir Path tempDir) throws IOException {
+		Path commandDir = tempDir.resolve("commands/hello/new");
+		write(commandDir, "hello.yaml", "actions:\n  - generate:\n      to: hello.txt\n      text: Hello {{name}}\n");
+		write(commandDir, "command.txt", "not an action file");
+		Path bundleDir = tempDir.resolve("bundles");
+
+		Map<Path, ActionsFile> actionsFiles = new CommandBundleCache(bundleDir).getActionsFiles(commandDir);
+
+		assertThat(actionsFiles).containsOnlyKeys(commandDir.resolve("hello.yaml"));
+		assertThat(actionsFiles.get(commandDir.resolve("hello.yaml")).getActions().get(0).getGenerate().getText())
+			.isEqualTo("Hello {{name}}");
+		try (Stream<Path> bundles = Files.list(bundleDir)) {
+			assertThat(bundles).hasSize(1);
+		}
+
+		// a new cache, as in the next run of the cli, uses the stored bundle
+		Map<Path, ActionsFile> stored = new CommandBundleCache(bundleDir).getActionsFiles(commandDir);
+		assertThat(stored.get(commandDir.resolve("hello.yaml")).getActions().get(0).getGenerate().getTo())
+			.isEqualTo("hello.txt");
+	}
+
+	@Test
+	void rebuildsWhenActionFilesChange(@TempDir Path tempDir) throws IOException {
+		Path commandDir = tempDir.resolve("commands/hello/new");
+		Path actionFile = write(commandDir, "hello.yaml",
+				"actions:\n  - generate:\n      to: hello.txt\n      text: Hello\n");
+		CommandBundleCache cache = new CommandBundleCache(tempDir.resolve("bundles"));
+		assertThat(cache.getActionsFiles(commandDir)).hasSize(1);
+
+		Files.writeString(actionFile, "actions:\n  - generate:\n      to: goodbye.txt\n      text: Goodbye\n");
+		Files.setLastModifiedTime(actionFile, FileTime.from(Instant.now().plusSeconds(10)));
+		write(commandDir, "nested/more.yml", "actions:\n  - generate:\n      to: more.txt\n      text: More\n");
+
+		Map<Path, ActionsFile> actionsFiles = cache.getActionsFiles(commandDir);
+		assertThat(actionsFiles).containsOnlyKeys(actionFile, commandDir.resolve("nested/more.yml"));
+		assertThat(actionsFiles.get(actionFile).getActions().get(0).getGenerate().getTo()).isEqualTo("goodbye.txt");
+	}
+
+	@Test
+	void scansCommandsFromManifest(@TempDir Path tempDir) throws IOException {
+		Path commandsDir = tempDir.resolve("commands");
+		Path commandFile = write(commandsDir, "hello/new/command.yaml",
+				"command:\n  description: Say hello\n  options:\n    - name: greeting\n      defaultValue: hi\n");
+		write(commandsDir, "hello/new/hello.yaml", "actions:\n  - generate:\n      to: hello.txt\n      text: Hello\n");
+		Path bundleDir = tempDir.resolve("bundles");
+		assertThat(subCommand(new CommandBundleCache(bundleDir).scan(commandsDir)).getDescription())
+			.isEqualTo("Say hello");
+
+		// a new cache, as in the next start of the cli, registers from the manifest
+		Command stored = subCommand(new CommandBundleCache(bundleDir).scan(commandsDir));
+		assertThat(stored.getName()).isEqualTo("new");
+		assertThat(stored.getDescription()).isEqualTo("Say hello");
+		assertThat(stored.getOptions()).singleElement()
+			.satisfies((option) -> assertThat(option.getName()).isEqualTo("greeting"));
+
+		Files.writeString(commandFile, "command:\n  description: Say hello again\n");
+		Files.setLastModifiedTime(commandFile, FileTime.from(Instant.now().plusSeconds(10)));
+		Command changed = subCommand(new CommandBundleCache(bundleDir).scan(commandsDir));
+		assertThat(changed.getDescription()).isEqualTo("Say hello again");
+		assertThat(changed.getOptions()).isEmpty();
+	}
+
+	@Test
+	void keepsBundlesInConfiguredDirectory(@TempDir Path tempDir) throws IOException {
+		Path commandsDir = tempDir.resolve("commands");
+		write(commandsDir, "hello/new/hello.yaml", "actions:\n  - generate:\n      to: hello.txt\n      text: Hello\n");
+		SpringCliProperties.CommandCache properties = new SpringCliProperties.CommandCache();
+		properties.setDirectory(tempDir.resolve("bundles").toString());
+
+		CommandBundleCache.of(properties).getActionsFiles(commandsDir.resolve("hello/new"));
+
+		assertThat(tempDir.resolve("bundles")).isNotEmptyDirectory();
+	}
+
+	@Test
+	void writesNothingWhenDisabled(@TempDir Path tempDir) throws IOException {
+		Path commandsDir = tempDir.resolve("commands");
+		write(commandsDir, "hello/new/command.yaml", "command:\n  description: Say hello\n");
+		write(commandsDir, "hello/new/hello.yaml", "actions:\n  - generate:\n      to: hello.txt\n      text: Hello\n");
+		SpringCliProperties.CommandCache properties = new SpringCliProperties.CommandCache();
+		properties.setEnabled(false);
+		properties.setDirectory(tempDir.resolve("bundles").toString());
+		CommandBundleCache cache = CommandBundleCache.of(properties);
+
+		assertThat(subCommand(cache.scan(commandsDir)).getDescription()).isEqualTo("Say hello");
+		assertThat(cache.getActionsFiles(commandsDir.resolve("hello/new"))).hasSize(1);
+		assertThat(tempDir.resolve("bundles")).doesNotExist();
+	}
+
+	private static Command subCommand(CommandScanResults results) {
+		Map<Command, List<Command>> commands = results.getCommandSubcommandMap();
+		assertThat(commands).hasSize(1);
+		Entry<Command, List<Command>> command = commands.entrySet().iterator().next();
+		assertThat(command.getKey().getName()).isEqualTo("hello");
+		assertThat(command.getValue()).hasSize(1);
+		return command.getValue().get(0);
+	}
+
+	private static Path write(Path root, String path, String content) throws IOException {
+		Path file = root.resolve(path);
+		Files.createDirectories(file.getParent());
+		return Files.writeString(file, content);
+	}
+
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.runtime.command;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.cli.SpringCliException;
+import org.springframework.cli.runtime.engine.actions.Action;
+import org.springframework.cli.runtime.engine.actions.ActionFileReader;
+import org.springframework.cli.runtime.engine.actions.ActionsFile;
+import org.springframework.cli.runtime.engine.templating.HandlebarsTemplateEngine;
+import org.springframework.cli.util.StubTerminalMessage;
+import org.springframework.cli.util.TerminalMessage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class ParallelActionRunnerTests {
+
+	private static final String ACTIONS = """
+			parallel: true
+			actions:
+			  - generate:
+			      to: a.txt
+			      text: a
+			  - generate:
+			      to: '{{name}}.txt'
+			      text: b
+			  - inject:
+			      to: a.txt
+			      text: more
+			      after: a
+			  - exec:
+			      command: echo done
+			""";
+
+	@Test
+	void dependsOnEarlierActionsWritingTheSameFiles() {
+		List<Set<Integer>> dependencies = ParallelActionRunner.getDependencies(List.of(writes("/a"), writes("/b"),
+				writes("/a"), new ActionResources(Set.of(), Set.of(), true, false, false),
+				new ActionResources(Set.of(), Set.of(), false, false, true)));
+		assertThat(dependencies).containsExactly(Set.of(), Set.of(), Set.of(0), Set.of(0, 1, 2),
+				Set.of(0, 1, 2, 3));
+	}
+
+	@Test
+	void dependsOnEarlierActionsWritingFilesItReads() {
+		List<Set<Integer>> dependencies = ParallelActionRunner.getDependencies(List.of(writes("/template"),
+				new ActionResources(Set.of(Path.of("/a")), Set.of(Path.of("/template")), false, false, false),
+				new ActionResources(Set.of(Path.of("/b")), Set.of(Path.of("/template")), false, false, false),
+				writes("/template")));
+		assertThat(dependencies).containsExactly(Set.of(), Set.of(0), Set.of(0), Set.of(0, 1, 2));
+	}
+
+	@Test
+	void runsCommandsOneAfterTheOther() {
+		ActionResources exec = new ActionResources(Set.of(), Set.of(), true, false, false);
+		List<Set<Integer>> dependencies = ParallelActionRunner
+			.getDependencies(List.of(exec, exec, new ActionResources(Set.of(), Set.of(), false, false, false)));
+		assertThat(dependencies).containsExactly(Set.of(), Set.of(0), Set.of());
+	}
+
+	@Test
+	void resolvesTemplatesReadFromCommandDirectory(@TempDir Path tempDir) throws IOException {
+		List<Action> actions = new ActionFileReader().read(Files.writeString(tempDir.resolve("actions.yaml"), """
+				actions:
+				  - generate:
+				      to: commands/template.hbs
+				      text: template
+				  - generate:
+				      to: a.txt
+				      from: template.hbs
+				  - exec:
+				      command-file: template.hbs
+				""")).orElseThrow().getActions();
+		Path commandPath = tempDir.resolve("commands");
+		List<ActionResources> resources = actions.stream()
+			.map((action) -> ActionResources.of(action, new HandlebarsTemplateEngine(), tempDir, commandPath,
+					Map.of()))
+			.toList();
+
+		assertThat(resources.get(1).reads()).containsExactly(commandPath.resolve("template.hbs"));
+		assertThat(resources.get(2).reads()).containsExactly(commandPath.resolve("template.hbs"));
+		assertThat(ParallelActionRunner.getDependencies(resources)).containsExactly(Set.of(), Set.of(0),
+				Set.of(0, 1));
+	}
+
+	@Test
+	void runsIndependentActionsConcurrentlyAndPrintsInOrder(@TempDir Path tempDir) throws IOException {
+		List<Action> actions = readActions(tempDir);
+		CountDownLatch bothGenerating = new CountDownLatch(2);
+		List<Integer> started = new CopyOnWriteArrayList<>();
+		StubTerminalMessage terminalMessage = new StubTerminalMessage();
+		Map<String, Object> model = new HashMap<>();
+		model.put("name", "b");
+
+		runner(tempDir, terminalMessage).run(actions, model, (action, actionModel, actionTerminalMessage) -> {
+			int index = actions.indexOf(action);
+			started.add(index);
+			if (index < 2) {
+				bothGenerating.countDown();
+				await(bothGenerating);
+			}
+			actionTerminalMessage.print("action " + index);
+		});
+
+		assertThat(started).hasSize(4).endsWith(2, 3);
+		assertThat(terminalMessage.getPrintMessages()).containsExactly("action 0", "action 1", "action 2",
+				"action 3");
+	}
+
+	@Test
+	void printsOutputOfCompletedActionDirectly(@TempDir Path tempDir) throws IOException {
+		List<Action> actions = readActions(tempDir);
+		List<TerminalMessage> actionTerminalMessages = new CopyOnWriteArrayList<>();
+		StubTerminalMessage terminalMessage = new StubTerminalMessage();
+		Map<String, Object> model = new HashMap<>();
+		model.put("name", "b");
+
+		runner(tempDir, terminalMessage).run(actions, model, (action, actionModel, actionTerminalMessage) -> {
+			if (actions.indexOf(action) == 0) {
+				actionTerminalMessages.add(actionTerminalMessage);
+			}
+		});
+		actionTerminalMessages.get(0).print("injected");
+
+		assertThat(terminalMessage.getPrintMessages()).containsExactly("injected");
+	}
+
+	@Test
+	void stopsAtFirstFailure(@TempDir Path tempDir) throws IOException {
+		List<Action> actions = readActions(tempDir);
+		List<Integer> started = new CopyOnWriteArrayList<>();
+		StubTerminalMessage terminalMessage = new StubTerminalMessage();
+
+		assertThatExceptionOfType(SpringCliException.class)
+			.isThrownBy(() -> runner(tempDir, terminalMessage).run(actions, new HashMap<>(),
+					(action, actionModel, actionTerminalMessage) -> {
+						int index = actions.indexOf(action);
+						started.add(index);
+						if (index == 0) {
+							throw new SpringCliException("failed");
+						}
+					}))
+			.withMessage("failed");
+		assertThat(started).doesNotContain(2, 3);
+	}
+
+	private static ParallelActionRunner runner(Path tempDir, StubTerminalMessage terminalMessage) {
+		return new ParallelActionRunner(new HandlebarsTemplateEngine(), tempDir, tempDir, Map::of, terminalMessage);
+	}
+
+	private static ActionResources writes(String file) {
+		return new ActionResources(Set.of(Path.of(file)), Set.of(), false, false, false);
+	}
+
+	private static List<Action> readActions(Path tempDir) throws IOException {
+		Path actionsPath = Files.writeString(tempDir.resolve("actions.yaml"), ACTIONS);
+		ActionsFile actionsFile = new ActionFileReader().read(actionsPath).orElseThrow();
+		assertThat(actionsFile.isParallel()).isTrue();
+		return actionsFile.getActions();
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(ex);
+		}
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.runtime.command;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.model.Model;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.cli.runtime.engine.actions.Action;
+import org.springframework.cli.runtime.engine.actions.ActionFileReader;
+import org.springframework.cli.runtime.engine.actions.InjectMavenDependencyManagement;
+import org.springframework.cli.runtime.engine.actions.InjectMavenRepository;
+import org.springframework.cli.runtime.engine.actions.handlers.InjectMavenActionHandler;
+import org.springframework.cli.runtime.engine.templating.HandlebarsTemplateEngine;
+import org.springframework.cli.runtime.engine.templating.TemplateEngine;
+import org.springframework.cli.util.PomReader;
+import org.springframework.cli.util.TerminalMessage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PomTransactionTests {
+
+	private static final String ACTIONS = """
+			actions:
+			  - generate:
+			      to: README.md
+			      text: readme
+			  - exec:
+			      command: mvn package
+			""";
+
+	private final TemplateEngine templateEngine = new HandlebarsTemplateEngine();
+
+	@Test
+	void appliesChangesOfAllActionsWithSingleParseAndWrite(@TempDir Path tempDir) throws IOException {
+		Path pomPath = tempDir.resolve("pom.xml");
+		Files.copy(Paths.get("src/test/resources/pom-existing-project.xml"), pomPath);
+		Map<String, Object> model = new HashMap<>();
+		List<Action> actions = new ActionFileReader()
+			.read(Files.writeString(tempDir.resolve("actions.yaml"), ACTIONS))
+			.orElseThrow()
+			.getActions();
+
+		PomTransaction pomTransaction = new PomTransaction(tempDir);
+		InjectMavenActionHandler repositoryHandler = handler(tempDir, model);
+		repositoryHandler.injectRepository(new InjectMavenRepository("""
+				<repository>
+					<id>spring-milestones</id>
+					<url>https://repo.spring.io/milestone</url>
+				</repository>
+				"""));
+		pomTransaction.add(repositoryHandler);
+		InjectMavenActionHandler dependencyManagementHandler = handler(tempDir, model);
+		dependencyManagementHandler.injectDependencyManagement(new InjectMavenDependencyManagement("""
+				<dependency>
+					<groupId>org.springframework.cloud</groupId>
+					<artifactId>spring-cloud-dependencies</artifactId>
+					<version>2021.0.0</version>
+					<type>pom</type>
+					<scope>import</scope>
+				</dependency>
+				"""));
+		pomTransaction.add(dependencyManagementHandler);
+
+		pomTransaction.commitBefore(actions.get(0), this.templateEngine, tempDir, tempDir, model);
+		assertThat(pomTransaction.getParseCount()).isZero();
+
+		pomTransaction.commitBefore(actions.get(1), this.templateEngine, tempDir, tempDir, model);
+		assertThat(pomTransaction.getParseCount()).isOne();
+		assertThat(pomTransaction.getWriteCount()).isOne();
+		Model mavenModel = new PomReader().readPom(pomPath.toFile());
+		assertThat(mavenModel.getRepositories()).anySatisfy(
+				(repository) -> assertThat(repository.getId()).isEqualTo("spring-milestones"));
+		assertThat(mavenModel.getDependencyManagement().getDependencies()).anySatisfy(
+				(dependency) -> assertThat(dependency.getArtifactId()).isEqualTo("spring-cloud-dependencies"));
+
+		pomTransaction.commit();
+		assertThat(pomTransaction.getParseCount()).isOne();
+	}
+
+	private InjectMavenActionHandler handler(Path tempDir, Map<String, Object> model) {
+		return new InjectMavenActionHandler(this.templateEngine, model, tempDir, TerminalMessage.noop());
+	}
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.runtime.engine.actions.handlers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jline.utils.AttributedString;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.cli.util.TerminalMessage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InjectBatchTests {
+
+	private final List<String> messages = new ArrayList<>();
+
+	private final TerminalMessage terminalMessage = new TerminalMessage() {
+
+		@Override
+		public void print(String... text) {
+			InjectBatchTests.this.messages.addAll(List.of(text));
+		}
+
+		@Override
+		public void print(AttributedString... text) {
+		}
+
+	};
+
+	@Test
+	void appliesInjectionsIntoFileWithSingleReadAndWrite(@TempDir Path tempDir) throws IOException {
+		Path file = Files.write(tempDir.resolve("Application.java"),
+				List.of("package com.example;", "", "import a.A;", "", "class Application {", "}"));
+		InjectBatch injectBatch = new InjectBatch();
+		injectBatch.add(file, "import b.B;", null, "import a.A;", null, this.terminalMessage);
+		injectBatch.add(file, "import c.C;", null, "import a.A;", null, this.terminalMessage);
+		injectBatch.add(file, "@Annotation", "class Application", null, null, this.terminalMessage);
+		injectBatch.add(file, "\tint x;", null, "class Application", null, this.terminalMessage);
+		injectBatch.apply();
+
+		assertThat(Files.readAllLines(file)).containsExactly("package com.example;", "", "import a.A;", "import c.C;",
+				"import b.B;", "", "@Annotation", "class Application {", "\tint x;", "}");
+		assertThat(injectBatch.getReadCount()).isOne();
+		assertThat(injectBatch.getWriteCount()).isOne();
+		assertThat(injectBatch.isEmpty()).isTrue();
+		assertThat(this.messages).containsOnly("Injected into " + file);
+	}
+
+	@Test
+	void matchesMarkersOnInjectedLines(@TempDir Path tempDir) throws IOException {
+		Path file = Files.write(tempDir.resolve("file.txt"), List.of("first", "marker"));
+		InjectBatch injectBatch = new InjectBatch();
+		injectBatch.add(file, "injected marker", null, "first", null, this.terminalMessage);
+		injectBatch.add(file, "before", "marker", null, null, this.terminalMessage);
+		injectBatch.add(file, "after", null, "marker", null, this.terminalMessage);
+		injectBatch.apply();
+
+		assertThat(Files.readAllLines(file)).containsExactly("first", "before", "injected marker", "after", "marker");
+	}
+
+	@Test
+	void matchesMarkersOnLinesOfInjectedBlock(@TempDir Path tempDir) throws IOException {
+		Path file = Files.write(tempDir.resolve("Application.java"), List.of("class Application {", "}"));
+		InjectBatch injectBatch = new InjectBatch();
+		injectBatch.add(file, "\tvoid first() {\n\t}\n\n\tvoid second() {\n\t}", null, "class Application",
+				null, this.terminalMessage);
+		injectBatch.add(file, "\t// first", "void first()", null, null, this.terminalMessage);
+		injectBatch.apply();
+
+		assertThat(Files.readAllLines(file)).containsExactly("class Application {", "\t// first", "\tvoid first() {",
+				"\t}", "", "\tvoid second() {", "\t}", "}");
+	}
+
+	@Test
+	void printsOutcomesInOrderOfInjections(@TempDir Path tempDir) throws IOException {
+		Path first = Files.write(tempDir.resolve("first.txt"), List.of("marker"));
+		Path second = Files.write(tempDir.resolve("second.txt"), List.of("marker"));
+		InjectBatch injectBatch = new InjectBatch();
+		injectBatch.add(first, "injected", null, "marker", null, this.terminalMessage);
+		injectBatch.add(second, "injected", null, "marker", null, this.terminalMessage);
+		injectBatch.add(first, "other", null, "missing", null, this.terminalMessage);
+		injectBatch.apply();
+
+		assertThat(this.messages).containsExactly("Injected into " + first, "Injected into " + second,
+				"Could not inject into file " + first + " no match on after: missing", "Injected into " + first);
+	}
+
+	@Test
+	void skipsInjectionsOfTextInjectedEarlier(@TempDir Path tempDir) throws IOException {
+		Path file = Files.write(tempDir.resolve("file.txt"), List.of("marker"));
+		InjectBatch injectBatch = new InjectBatch();
+		injectBatch.add(file, "injected", null, "marker", "injected", this.terminalMessage);
+		injectBatch.add(file, "injected", null, "marker", "injected", this.terminalMessage);
+		injectBatch.add(file, "other", null, "missing", null, this.terminalMessage);
+		injectBatch.apply();
+
+		assertThat(Files.readAllLines(file)).containsExactly("marker", "injected");
+		assertThat(this.messages).containsExactly("Injected into " + file, "Skipping injection of " + file,
+				"Could not inject into file " + file + " no match on after: missing", "Injected into " + file);
+	}
+
+	@Test
+	void doesNotWriteWhenAllInjectionsAreSkipped(@TempDir Path tempDir) throws IOException {
+		Path file = Files.write(tempDir.resolve("file.txt"), List.of("marker", "injected"));
+		InjectBatch injectBatch = new InjectBatch();
+		injectBatch.add(file, "injected", null, "marker", "injected", this.terminalMessage);
+		injectBatch.apply();
+
+		assertThat(injectBatch.getWriteCount()).isZero();
+		assertThat(Files.readAllLines(file)).containsExactly("marker", "injected");
+	}
+
+	@Test
+	void appliesInjectionsOfOneFileOnly(@TempDir Path tempDir) throws IOException {
+		Path first = Files.write(tempDir.resolve("first.txt"), List.of("marker"));
+		Path second = Files.write(tempDir.resolve("second.txt"), List.of("marker"));
+		InjectBatch injectBatch = new InjectBatch();
+		injectBatch.add(first, "injected", null, "marker", null, this.terminalMessage);
+		injectBatch.add(second, "injected", null, "marker", null, this.terminalMessage);
+		injectBatch.apply(first);
+
+		assertThat(Files.readAllLines(first)).containsExactly("marker", "injected");
+		assertThat(Files.readAllLines(second)).containsExactly("marker");
+		assertThat(injectBatch.getFiles()).containsExactly(second.toAbsolutePath());
+		assertThat(tempDir).isDirectoryNotContaining("glob:**.tmp");
+	}
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.runtime.engine.actions.handlers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+import org.springframework.cli.SpringCliException;
+import org.springframework.cli.runtime.engine.actions.handlers.ProcessRunner.ProcessResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+@DisabledOnOs(OS.WINDOWS)
+class ProcessRunnerTests {
+
+	@Test
+	void drainsStdoutAndStderrAtTheSameTime() throws Exception {
+		List<String> stdoutLines = new CopyOnWriteArrayList<>();
+		List<String> stderrLines = new CopyOnWriteArrayList<>();
+		ProcessResult result = new ProcessRunner().run(
+				bash("for i in $(seq 1 20000); do echo \"err $i\" >&2; echo \"out $i\"; done"), stdoutLines::add,
+				stderrLines::add, null);
+
+		assertThat(result.exitValue()).isZero();
+		assertThat(stdoutLines).hasSize(20000).endsWith("out 20000");
+		assertThat(stderrLines).hasSize(20000).endsWith("err 20000");
+		assertThat(result.stdout()).hasValueSatisfying((stdout) -> assertThat(stdout).startsWith("out 1")
+			.endsWith("out 20000"));
+	}
+
+	@Test
+	void keepsOnlyLastLinesOfLargeOutput() throws Exception {
+		List<String> stdoutLines = new CopyOnWriteArrayList<>();
+		ProcessResult result = new ProcessRunner(ProcessRunner.DEFAULT_TIMEOUT, 100)
+			.run(bash("for i in $(seq 1 1000); do echo \"line $i\"; done"), stdoutLines::add, (line) -> {
+			}, null);
+
+		assertThat(stdoutLines).hasSize(1000);
+		assertThat(result.stdout()).hasValueSatisfying((stdout) -> {
+			assertThat(stdout.length()).isLessThanOrEqualTo(100 + 20);
+			assertThat(stdout).endsWith("line 1000").doesNotContain("line 1" + System.lineSeparator());
+		});
+	}
+
+	@Test
+	void appliesJsonPathWhileReadingStdout() throws Exception {
+		ProcessResult result = new ProcessRunner().run(bash("echo '{\"project\": {\"names\": [\"a\", \"b\"]}}'"),
+				(line) -> {
+				}, (line) -> {
+				}, "$.project.names");
+
+		assertThat(result.getJsonPathOutput()).contains(List.of("a", "b"));
+		assertThat(result.stdout()).contains("{\"project\": {\"names\": [\"a\", \"b\"]}}");
+	}
+
+	@Test
+	void reportsOutputThatIsNotJson() throws Exception {
+		ProcessResult result = new ProcessRunner().run(bash("echo 'not json'"), (line) -> {
+		}, (line) -> {
+		}, "$.name");
+
+		assertThat(result.exitValue()).isZero();
+		assertThatExceptionOfType(SpringCliException.class).isThrownBy(result::getJsonPathOutput);
+	}
+
+	@Test
+	void stopsProcessAfterTimeout() {
+		long start = System.nanoTime();
+		assertThatExceptionOfType(SpringCliException.class)
+			.isThrownBy(() -> new ProcessRunner(Duration.ofMillis(200), ProcessRunner.DEFAULT_CAPTURE_LIMIT)
+				.run(bash("sleep 30"), (line) -> {
+				}, (line) -> {
+				}, null))
+			.withMessageContaining("did not complete");
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(20));
+	}
+
+	private static ProcessBuilder bash(String command) {
+		return new ProcessBuilder("bash", "-c", command);
+	}
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.runtime.engine.model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.cli.runtime.engine.spel.SpELCondition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class ProjectModelCacheTests {
+
+	private static final String POM = """
+			<project>
+				<modelVersion>4.0.0</modelVersion>
+				<groupId>com.example</groupId>
+				<artifactId>%s</artifactId>
+				<version>0.0.1-SNAPSHOT</version>
+				<properties>
+					<java.version>17</java.version>
+				</properties>
+			</project>
+			""";
+
+	private final ProjectModelCache cache = new ProjectModelCache();
+
+	@Test
+	void derivesValueAgainOnlyWhenItsFileChanged(@TempDir Path tempDir) throws IOException {
+		Path first = Files.writeString(tempDir.resolve("first.txt"), "one");
+		Path second = Files.writeString(tempDir.resolve("second.txt"), "two");
+		AtomicInteger loads = new AtomicInteger();
+		assertThat(load(first, loads)).isEqualTo("one");
+		assertThat(load(second, loads)).isEqualTo("two");
+		assertThat(load(first, loads)).isEqualTo("one");
+		assertThat(loads).hasValue(2);
+
+		Files.writeString(first, "changed");
+		Files.setLastModifiedTime(first, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+		assertThat(load(first, loads)).isEqualTo("changed");
+		assertThat(load(second, loads)).isEqualTo("two");
+		assertThat(loads).hasValue(3);
+
+		this.cache.invalidate(second);
+		assertThat(load(second, loads)).isEqualTo("two");
+		assertThat(loads).hasValue(4);
+	}
+
+	@Test
+	void returnsNullForMissingFile(@TempDir Path tempDir) {
+		assertThat(load(tempDir.resolve("missing.txt"), new AtomicInteger())).isNull();
+	}
+
+	@Test
+	void readsPomOnlyWhenAnEntryIsUsed(@TempDir Path tempDir) throws IOException {
+		Files.writeString(tempDir.resolve("pom.xml"), "not a pom");
+		Map<String, Object> model = new LazyModelMap();
+		new MavenModelPopulator(this.cache).contributeToModel(tempDir, model);
+		assertThat(model).containsKey(MavenModelPopulator.ARTIFACT_ID);
+		assertThatIllegalStateException().isThrownBy(() -> model.get(MavenModelPopulator.ARTIFACT_ID));
+
+		Files.writeString(tempDir.resolve("pom.xml"), POM.formatted("demo"));
+		Files.setLastModifiedTime(tempDir.resolve("pom.xml"),
+				FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+		Map<String, Object> nextModel = new LazyModelMap();
+		new MavenModelPopulator(this.cache).contributeToModel(tempDir, nextModel);
+		assertThat(nextModel.get(MavenModelPopulator.ARTIFACT_ID)).isEqualTo("demo");
+		assertThat(nextModel.get(MavenModelPopulator.JAVA_VERSION)).isEqualTo(17);
+		assertThat(new SpELCondition("#{['artifact-id'] == 'demo'}").evaluate(nextModel)).isTrue();
+	}
+
+	@Test
+	void populatesPlainMapEagerly(@TempDir Path tempDir) throws IOException {
+		Files.writeString(tempDir.resolve("pom.xml"), POM.formatted("eager"));
+		Map<String, Object> model = new HashMap<>();
+		new MavenModelPopulator(this.cache).contributeToModel(tempDir, model);
+		assertThat(model).containsEntry(MavenModelPopulator.ARTIFACT_ID, "eager");
+	}
+
+	@Test
+	void keepsValuesGivenBeforePopulating(@TempDir Path tempDir) throws IOException {
+		Files.writeString(tempDir.resolve("pom.xml"), POM.formatted("demo"));
+		Map<String, Object> model = new LazyModelMap();
+		model.put(MavenModelPopulator.ARTIFACT_ID, "option");
+		new MavenModelPopulator(this.cache).contributeToModel(tempDir, model);
+		assertThat(model.get(MavenModelPopulator.ARTIFACT_ID)).isEqualTo("option");
+	}
+
+	@Test
+	void dropsValuesOfLeastRecentlyUsedFiles(@TempDir Path tempDir) throws IOException {
+		ProjectModelCache cache = new ProjectModelCache(1);
+		Path first = Files.writeString(tempDir.resolve("first.txt"), "one");
+		Path second = Files.writeString(tempDir.resolve("second.txt"), "two");
+		AtomicInteger loads = new AtomicInteger();
+		cache.get(first, String.class, (path) -> "one" + loads.incrementAndGet());
+		cache.get(second, String.class, (path) -> "two" + loads.incrementAndGet());
+		assertThat(cache.get(first, String.class, (path) -> "one" + loads.incrementAndGet())).isEqualTo("one3");
+	}
+
+	@Test
+	void resolvesLazyEntriesInEveryView() {
+		AtomicInteger computed = new AtomicInteger();
+		LazyModelMap model = new LazyModelMap();
+		LazyModelMap.putLazily(model, "lazy", () -> "value" + computed.incrementAndGet());
+		LazyModelMap copy = new LazyModelMap(model);
+		assertThat(model.keySet()).containsExactly("lazy");
+		assertThat(computed).hasValue(0);
+
+		assertThat(model.values()).containsExactly("value1");
+		assertThat(model.entrySet()).containsExactly(Map.entry("lazy", "value1"));
+		assertThat(new HashMap<>(model)).containsExactly(Map.entry("lazy", "value1"));
+		Map<String, Object> visited = new HashMap<>();
+		model.forEach(visited::put);
+		assertThat(visited).containsExactly(Map.entry("lazy", "value1"));
+		assertThat(copy.get("lazy")).isEqualTo("value1");
+		assertThat(computed).hasValue(1);
+	}
+
+	private String load(Path file, AtomicInteger loads) {
+		return this.cache.get(file, String.class, (path) -> {
+			loads.incrementAndGet();
+			try {
+				return Files.readString(path);
+			}
+			catch (IOException ex) {
+				throw new IllegalStateException(ex);
+			}
+		});
+	}
+
+}
@@ -96,4 +96,22 @@ class SpELConditionTests {
 
 	}
 
+	@Test
+	void doesNotKeepVariablesOfPreviousModel() {
+		SpELCondition condition = new SpELCondition("#{ #flag == null }");
+
+		assertThat(condition.evaluate(Map.of("flag", "true"))).isFalse();
+		assertThat(condition.evaluate(Map.of())).isTrue();
+	}
+
+	@Test
+	void evaluatesRepeatedlyOnceCompiled() {
+		SpELCondition isAdult = new SpELCondition("#{ ['person'].age > 18 }");
+
+		for (int i = 0; i < 500; i++) {
+			int age = i % 40;
+			assertThat(isAdult.evaluate(Map.of("person", new Person("foo", age)))).isEqualTo(age > 18);
+		}
+	}
+
 }
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.runtime.engine.templating;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HandlebarsTemplateEngineTests {
+
+	private final HandlebarsTemplateEngine templateEngine = new HandlebarsTemplateEngine();
+
+	@Test
+	void rendersTemplate() {
+		Map<String, Object> model = Map.of("name", "world");
+
+		assertThat(this.templateEngine.process("Hello {{name}}", model)).isEqualTo("Hello world");
+		assertThat(this.templateEngine.process("Hello {{name}}", Map.of("name", "again"))).isEqualTo("Hello again");
+		assertThat(this.templateEngine.process("{{capitalize name}}", model)).isEqualTo("World");
+	}
+
+	@Test
+	void returnsTextWithoutExpressionAsIs() {
+		assertThat(this.templateEngine.process("src/main/java/Demo.java", null)).isEqualTo("src/main/java/Demo.java");
+		assertThat(this.templateEngine.process("a < b && c", Map.of())).isEqualTo("a < b && c");
+		assertThat(this.templateEngine.process("", Map.of())).isEmpty();
+		assertThat(this.templateEngine.process(null, Map.of())).isEmpty();
+	}
+
+}
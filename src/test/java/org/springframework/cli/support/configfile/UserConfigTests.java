@@ -16,12 +16,75 @@
 
 package org.springframework.cli.support.configfile;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+import java.util.stream.Stream;
+
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
+import uk.org.webcompere.systemstubs.jupiter.SystemStub;
+import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
+@ExtendWith(SystemStubsExtension.class)
 public class UserConfigTests {
 
+	private static final String CONFIG_DIR = "SPRING_CLI_TEST_CONFIG_DIR";
+
+	@SystemStub
+	private EnvironmentVariables environmentVariables;
+
 	@Test
 	public void test() {
 	}
 
+	@Test
+	void keepsPermissionsOfConfigFile(@TempDir Path tempDir) throws IOException {
+		assumeTrue(Files.getFileStore(tempDir).supportsFileAttributeView(PosixFileAttributeView.class));
+		this.environmentVariables.set(CONFIG_DIR, tempDir.toAbsolutePath().toString());
+		UserConfig<Settings> userConfig = new UserConfig<>("settings.yml", Settings.class, CONFIG_DIR, "test");
+		userConfig.setConfig(new Settings("first"));
+		Path configFile = tempDir.resolve("settings.yml");
+		Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-r--r--");
+		Files.setPosixFilePermissions(configFile, permissions);
+
+		userConfig.setConfig(new Settings("second"));
+
+		assertThat(userConfig.getConfig().getName()).isEqualTo("second");
+		assertThat(Files.getPosixFilePermissions(configFile)).isEqualTo(permissions);
+		try (Stream<Path> files = Files.list(tempDir)) {
+			assertThat(files).containsExactly(configFile);
+		}
+	}
+
+	public static class Settings {
+
+		private String name;
+
+		public Settings() {
+		}
+
+		Settings(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+	}
+
 }
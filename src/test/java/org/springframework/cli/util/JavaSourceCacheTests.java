@@ -0,0 +1,134 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.SourceFile;
+import org.openrewrite.java.tree.J;
+import org.openrewrite.java.tree.JavaType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JavaSourceCacheTests {
+
+	@Test
+	void reusesParsedSourceUntilContentChanges(@TempDir Path tempDir) throws IOException {
+		Path source = write(tempDir, "src/main/java/com/example/Demo.java",
+				"package com.example;\n\nclass Demo {\n}\n");
+		JavaSourceCache cache = new JavaSourceCache();
+
+		SourceFile first = cache.parse(source);
+		assertThat(cache.parse(source)).isSameAs(first);
+		assertThat(cache.getParseCount()).isEqualTo(1);
+
+		Files.writeString(source, "package com.example;\n\nclass Demo {\n\tint count;\n}\n");
+		SourceFile changed = cache.parse(source);
+		assertThat(changed).isNotSameAs(first);
+		assertThat(changed.printAll()).contains("int count;");
+		assertThat(cache.getParseCount()).isEqualTo(2);
+	}
+
+	@Test
+	void keepsWrittenSourceWithoutParsingAgain(@TempDir Path tempDir) throws IOException {
+		Path source = write(tempDir, "src/main/java/com/example/Demo.java",
+				"package com.example;\n\nclass Demo {\n}\n");
+		JavaSourceCache cache = new JavaSourceCache();
+		SourceFile sourceFile = cache.parse(source);
+
+		SourceFile updated = sourceFile.withSourcePath(sourceFile.getSourcePath());
+		cache.write(updated);
+
+		assertThat(cache.parse(source)).isSameAs(updated);
+		assertThat(cache.getParseCount()).isEqualTo(1);
+	}
+
+	@Test
+	void sharesRefactoredSources(@TempDir Path tempDir) throws IOException {
+		write(tempDir, "src/main/java/com/example/DemoApplication.java",
+				"package com.example;\n\npublic class DemoApplication {\n}\n");
+		JavaSourceCache cache = new JavaSourceCache();
+
+		RefactorUtils.refactorPackage("org.acme", "com.example", tempDir, cache);
+		SourceFile moved = cache.parse(tempDir.resolve("src/main/java/org/acme/DemoApplication.java"));
+
+		assertThat(moved.printAll()).contains("package org.acme;");
+		assertThat(cache.getParseCount()).isEqualTo(1);
+	}
+
+	@Test
+	void resolvesTypesAcrossManySources(@TempDir Path tempDir) throws IOException {
+		List<Path> sources = new ArrayList<>();
+		for (int i = 0; i < 250; i++) {
+			sources.add(write(tempDir, "src/main/java/com/example/module" + i + "/Type" + i + ".java",
+					"package com.example.module" + i + ";\n\npublic class Type" + i + " {\n}\n"));
+		}
+		sources.add(write(tempDir, "src/main/java/com/example/user/User.java",
+				"package com.example.user;\n\nimport com.example.module0.Type0;\n\npublic class User {\n"
+						+ "\tType0 type;\n}\n"));
+
+		List<SourceFile> parsed = new JavaSourceCache().parse(sources);
+
+		J.CompilationUnit user = (J.CompilationUnit) parsed.get(parsed.size() - 1);
+		J.VariableDeclarations field = (J.VariableDeclarations) user.getClasses()
+			.get(0)
+			.getBody()
+			.getStatements()
+			.get(0);
+		assertThat(field.getTypeAsFullyQualified()).isNotNull()
+			.extracting(JavaType.FullyQualified::getFullyQualifiedName)
+			.isEqualTo("com.example.module0.Type0");
+	}
+
+	@Test
+	void parsesCachedSourcesAgainWithNewSources(@TempDir Path tempDir) throws IOException {
+		Path type = write(tempDir, "src/main/java/com/example/Type.java",
+				"package com.example;\n\npublic class Type {\n}\n");
+		Path user = write(tempDir, "src/main/java/com/example/User.java",
+				"package com.example;\n\npublic class User {\n\tType type;\n}\n");
+		JavaSourceCache cache = new JavaSourceCache();
+		SourceFile cachedType = cache.parse(type);
+
+		List<SourceFile> parsed = cache.parse(List.of(type, user));
+
+		assertThat(parsed.get(0)).isNotSameAs(cachedType);
+		assertThat(cache.getParseCount()).isEqualTo(3);
+		J.VariableDeclarations field = (J.VariableDeclarations) ((J.CompilationUnit) parsed.get(1)).getClasses()
+			.get(0)
+			.getBody()
+			.getStatements()
+			.get(0);
+		assertThat(field.getTypeAsFullyQualified()).isNotNull()
+			.extracting(JavaType.FullyQualified::getFullyQualifiedName)
+			.isEqualTo("com.example.Type");
+		assertThat(cache.parse(List.of(type, user))).containsExactlyElementsOf(parsed);
+		assertThat(cache.getParseCount()).isEqualTo(3);
+	}
+
+	private static Path write(Path root, String path, String content) throws IOException {
+		Path file = root.resolve(path);
+		Files.createDirectories(file.getParent());
+		return Files.writeString(file, content);
+	}
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.cli.util.ProjectFileTransfer.Strategy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProjectFileTransferTests {
+
+	@Test
+	void renamesDirectoryIntoEmptyTarget(@TempDir Path tempDir) throws IOException {
+		Path source = createProject(tempDir.resolve("download/rest-service"));
+		Path target = Files.createDirectories(tempDir.resolve("demo"));
+
+		ProjectFileTransfer.Result result = ProjectFileTransfer.transfer(source, target);
+
+		assertThat(result.strategy()).isEqualTo(Strategy.RENAME_DIRECTORY);
+		assertThat(result.files()).isEqualTo(3);
+		assertThat(result.bytes()).isEqualTo(26);
+		assertThat(target.resolve("pom.xml")).hasContent("<project/>");
+		assertThat(target.resolve("src/main/java/App.java")).hasContent("class App");
+		assertThat(target.resolve("mvnw")).isExecutable();
+		assertThat(source).doesNotExist();
+	}
+
+	@Test
+	void movesFilesIntoNonEmptyTarget(@TempDir Path tempDir) throws IOException {
+		Path source = createProject(tempDir.resolve("download/rest-service"));
+		Path target = Files.createDirectories(tempDir.resolve("existing"));
+		Files.writeString(target.resolve("pom.xml"), "old");
+		Files.writeString(target.resolve("notes.txt"), "keep");
+
+		ProjectFileTransfer.Result result = ProjectFileTransfer.transfer(source, target);
+
+		assertThat(result.strategy()).isIn(Strategy.RENAME_FILES, Strategy.COPY_FILES);
+		assertThat(target.resolve("pom.xml")).hasContent("<project/>");
+		assertThat(target.resolve("notes.txt")).hasContent("keep");
+		assertThat(target.resolve("src/main/java/App.java")).hasContent("class App");
+		assertThat(target.resolve("mvnw")).isExecutable();
+		assertThat(source).doesNotExist();
+	}
+
+	private static Path createProject(Path path) throws IOException {
+		Files.createDirectories(path.resolve("src/main/java"));
+		Files.writeString(path.resolve("pom.xml"), "<project/>");
+		Files.writeString(path.resolve("src/main/java/App.java"), "class App");
+		Path mvnw = Files.writeString(path.resolve("mvnw"), "#!/bin/");
+		mvnw.toFile().setExecutable(true);
+		return path;
+	}
+
+}
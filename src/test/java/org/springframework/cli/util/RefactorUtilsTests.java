@@ -0,0 +1,136 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RefactorUtilsTests {
+
+	@Test
+	void movesClassesAndReferences(@TempDir Path tempDir) throws IOException {
+		write(tempDir, "src/main/java/com/example/DemoApplication.java", """
+				package com.example;
+
+				import com.example.web.Greeting;
+
+				public class DemoApplication {
+					Greeting greeting;
+				}
+				""");
+		write(tempDir, "src/main/java/com/example/web/Greeting.java", """
+				package com.example.web;
+
+				public class Greeting {
+				}
+				""");
+		write(tempDir, "src/test/java/com/example/DemoApplicationTests.java", """
+				package com.example;
+
+				class DemoApplicationTests {
+				}
+				""");
+
+		RefactorUtils.refactorPackage("org.acme", "com.example", tempDir);
+
+		assertThat(tempDir.resolve("src/main/java/com/example")).doesNotExist();
+		assertThat(tempDir.resolve("src/main/java/org/acme/DemoApplication.java")).content()
+			.contains("package org.acme;")
+			.contains("import org.acme.web.Greeting;");
+		assertThat(tempDir.resolve("src/main/java/org/acme/web/Greeting.java")).content()
+			.contains("package org.acme.web;");
+		assertThat(tempDir.resolve("src/test/java/org/acme/DemoApplicationTests.java")).content()
+			.contains("package org.acme;");
+	}
+
+	@Test
+	void leavesUnrelatedAndGeneratedSourcesAlone(@TempDir Path tempDir) throws IOException {
+		write(tempDir, "src/main/java/com/example/DemoApplication.java", """
+				package com.example;
+
+				public class DemoApplication {
+				}
+				""");
+		Path unrelated = write(tempDir, "src/main/java/io/other/Other.java", """
+				package io.other;
+
+				public class Other {
+				}
+				""");
+		Path generated = write(tempDir, "target/generated-sources/com/example/Generated.java", """
+				package com.example;
+
+				public class Generated {
+				}
+				""");
+		FileTime lastModified = FileTime.from(Instant.parse("2020-01-01T00:00:00Z"));
+		Files.setLastModifiedTime(unrelated, lastModified);
+
+		RefactorUtils.refactorPackage("org.acme", "com.example", tempDir);
+
+		assertThat(tempDir.resolve("src/main/java/org/acme/DemoApplication.java")).exists();
+		assertThat(Files.getLastModifiedTime(unrelated)).isEqualTo(lastModified);
+		assertThat(generated).content().contains("package com.example;");
+	}
+
+	@Test
+	void movesPackagesNamedLikeBuildDirectories(@TempDir Path tempDir) throws IOException {
+		write(tempDir, "pom.xml", "<project/>");
+		write(tempDir, "src/main/java/com/example/build/Foo.java", """
+				package com.example.build;
+
+				public class Foo {
+				}
+				""");
+		write(tempDir, "module/pom.xml", "<project/>");
+		write(tempDir, "module/src/main/java/com/example/target/Bar.java", """
+				package com.example.target;
+
+				public class Bar {
+				}
+				""");
+		Path generated = write(tempDir, "module/target/generated-sources/com/example/Generated.java", """
+				package com.example;
+
+				public class Generated {
+				}
+				""");
+
+		RefactorUtils.refactorPackage("org.acme", "com.example", tempDir);
+
+		assertThat(tempDir.resolve("src/main/java/org/acme/build/Foo.java")).content()
+			.contains("package org.acme.build;");
+		assertThat(tempDir.resolve("module/src/main/java/org/acme/target/Bar.java")).content()
+			.contains("package org.acme.target;");
+		assertThat(generated).content().contains("package com.example;");
+	}
+
+	private static Path write(Path root, String path, String content) throws IOException {
+		Path file = root.resolve(path);
+		Files.createDirectories(file.getParent());
+		return Files.writeString(file, content);
+	}
+
+}
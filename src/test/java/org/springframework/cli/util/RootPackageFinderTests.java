@@ -0,0 +1,78 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cli.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RootPackageFinderTests {
+
+	@Test
+	void findsApplicationAndRootPackage(@TempDir Path tempDir) throws IOException {
+		writeClass(tempDir, "src/main/java/com/example/demo/web/Controller.java", "com.example.demo.web", false);
+		Path application = writeClass(tempDir, "src/main/java/com/example/demo/DemoApplication.java",
+				"com.example.demo", true);
+
+		assertThat(RootPackageFinder.findRootPackage(tempDir.toFile())).contains("com.example.demo");
+		assertThat(RootPackageFinder.findSpringBootApplicationFile(tempDir.toFile()))
+			.contains(application.toFile());
+	}
+
+	@Test
+	void prefersMainSourcesOverTestSources(@TempDir Path tempDir) throws IOException {
+		writeClass(tempDir, "src/test/java/com/example/TestApplication.java", "com.example", true);
+		writeClass(tempDir, "src/main/java/org/example/DemoApplication.java", "org.example", true);
+
+		assertThat(RootPackageFinder.findRootPackage(tempDir.toFile())).contains("org.example");
+	}
+
+	@Test
+	void skipsHiddenDirectories(@TempDir Path tempDir) throws IOException {
+		writeClass(tempDir, ".git/src/main/java/com/example/DemoApplication.java", "com.example", true);
+
+		assertThat(RootPackageFinder.findRootPackage(tempDir.toFile())).isEmpty();
+	}
+
+	@Test
+	void rescansWhenApplicationFileMoved(@TempDir Path tempDir) throws IOException {
+		Path application = writeClass(tempDir, "src/main/java/com/example/DemoApplication.java", "com.example",
+				true);
+		assertThat(RootPackageFinder.findRootPackage(tempDir.toFile())).contains("com.example");
+
+		Files.delete(application);
+		writeClass(tempDir, "src/main/java/org/acme/DemoApplication.java", "org.acme", true);
+		assertThat(RootPackageFinder.findRootPackage(tempDir.toFile())).contains("org.acme");
+	}
+
+	private static Path writeClass(Path root, String path, String packageName, boolean application)
+			throws IOException {
+		Path file = root.resolve(path);
+		Files.createDirectories(file.getParent());
+		String className = file.getFileName().toString().replace(".java", "");
+		String annotation = (application) ? "@SpringBootApplication\n" : "";
+		Files.writeString(file, "package " + packageName + ";\n\n" + annotation + "public class " + className
+				+ " {\n}\n");
+		return file;
+	}
+
+}